@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Сравнение старта JVM-сборки и native-образа: время до readiness и RSS процесса после старта.
+# Сначала соберите обе сборки:
+#   ./mvnw -DskipTests package                      # target/NauJava-0.0.1-SNAPSHOT.jar
+#   ./mvnw -Pnative -DskipTests native:compile      # target/smartloan
+# Запуск: deploy/native/startup-comparison.sh [число прогонов]
+# Прогрев расчётов отключается, чтобы сравнивался только старт; RSS берётся из /proc (только Linux).
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=${JAR:-target/NauJava-0.0.1-SNAPSHOT.jar}
+NATIVE=${NATIVE:-target/smartloan}
+ARGS=(--server.port="$PORT" --warmup.enabled=false --management.endpoint.health.probes.enabled=true)
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local name=$1
+    shift
+    for run in $(seq 1 "$RUNS"); do
+        local started
+        started=$(now_ms)
+        "$@" "${ARGS[@]}" >/dev/null 2>&1 &
+        local pid=$!
+        until curl -sf "http://localhost:$PORT/actuator/health/readiness" >/dev/null; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$name: процесс завершился до готовности" >&2
+                exit 1
+            fi
+            sleep 0.05
+        done
+        local ready=$(( $(now_ms) - started ))
+        local rss
+        rss=$(awk '/VmRSS/ {print int($2 / 1024)}' "/proc/$pid/status")
+        printf '%s\t%d\t%d мс\t%d МБ\n' "$name" "$run" "$ready" "$rss"
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+}
+
+printf 'сборка\tпрогон\tдо readiness\tRSS\n'
+measure jvm java -jar "$JAR"
+measure native "$NATIVE"
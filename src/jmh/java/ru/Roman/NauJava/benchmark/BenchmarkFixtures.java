@@ -0,0 +1,93 @@
+package ru.Roman.NauJava.benchmark;
+
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Генерация воспроизводимых входных данных для бенчмарков.
+ */
+public final class BenchmarkFixtures {
+
+    static final LocalDate DISBURSEMENT_DATE = LocalDate.of(2025, 1, 15);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Сценарии расчёта, покрывающие все ветки построения графика.
+     */
+    public enum Scenario {
+        ANNUITY,
+        DIFFERENTIAL,
+        SUBSIDIZED
+    }
+
+    static LoanCalculationRequestDto request(Scenario scenario, int term, int earlyPayments, int rateChanges) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(new BigDecimal("6000000"));
+        request.setInterestRate(new BigDecimal("16.5"));
+        request.setDurationMonths(term);
+        request.setDisbursementDate(DISBURSEMENT_DATE);
+        // Без переноса с выходных даты досрочных платежей совпадают с датами графика
+        request.setAdjustWeekends(false);
+        request.setPaymentType(scenario == Scenario.DIFFERENTIAL ? PaymentType.DIFFERENTIAL : PaymentType.ANNUITY);
+        if (scenario == Scenario.SUBSIDIZED) {
+            request.setLoanType(LoanType.MORTGAGE);
+            request.setDeveloperSubsidy(true);
+            request.setSubsidizedRate(new BigDecimal("0.1"));
+            request.setSubsidyDurationMonths(Math.max(1, term / 4));
+            request.setSubsidyMode(SubsidyMode.FIXED_PAYMENT);
+        }
+        request.setEarlyPayments(earlyPayments(term, earlyPayments));
+        request.setRateChanges(rateChanges(term, rateChanges));
+        return request;
+    }
+
+    /**
+     * Досрочные платежи той же структуры для стратегий: номер месяца -> сумма.
+     */
+    static Map<Integer, BigDecimal> earlyPaymentsByMonth(int term, int count) {
+        Map<Integer, BigDecimal> result = new HashMap<>();
+        for (int i = 1; i <= count; i++) {
+            result.put(Math.max(1, term * i / (count + 1)), new BigDecimal("25000"));
+        }
+        return result;
+    }
+
+    private static List<EarlyPaymentDto> earlyPayments(int term, int count) {
+        List<EarlyPaymentDto> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            EarlyPaymentDto dto = new EarlyPaymentDto();
+            dto.setPaymentDate(DISBURSEMENT_DATE.plusMonths(Math.max(1, (long) term * i / (count + 1))));
+            dto.setAmount(new BigDecimal("25000"));
+            dto.setApplicationMode(i % 2 == 0
+                    ? EarlyPaymentApplicationMode.BETWEEN_PAYMENTS
+                    : EarlyPaymentApplicationMode.ON_PAYMENT_DATE);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static List<RateChangeDto> rateChanges(int term, int count) {
+        List<RateChangeDto> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            RateChangeDto dto = new RateChangeDto();
+            dto.setStartDate(DISBURSEMENT_DATE.plusMonths(Math.max(1, (long) term * i / (count + 1))));
+            dto.setNewRate(new BigDecimal("16.5").subtract(BigDecimal.valueOf(i)));
+            result.add(dto);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.Roman.NauJava.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Точка входа профиля {@code benchmark}: запускает все бенчмарки с GC-профайлером
+ * и сохраняет результаты в JSON, чтобы их можно было сравнивать между коммитами.
+ * Аргументы командной строки JMH (например, {@code -p term=600}) имеют приоритет.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        Path resultFile = Path.of(System.getProperty("jmh.result", "target/jmh/result.json"));
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(System.getProperty("jmh.include", "ru.Roman.NauJava.benchmark"))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
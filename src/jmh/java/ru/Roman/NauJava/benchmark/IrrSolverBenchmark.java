@@ -0,0 +1,58 @@
+package ru.Roman.NauJava.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.service.engine.IrrSolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Решение уравнения ПСК {@link IrrSolver} на аннуитетных потоках; {@code gc.alloc.rate.norm} должен быть около нуля.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrrSolverBenchmark {
+
+    private static final double PRINCIPAL = 6_000_000;
+    private static final double MONTHLY_RATE = 0.165 / 12;
+
+    @Param({"12", "120", "600"})
+    private int term;
+
+    private double[] amounts;
+    private int[] periods;
+    private double[] fractions;
+
+    @Setup
+    public void setUp() {
+        double payment = PRINCIPAL * MONTHLY_RATE / (1 - Math.pow(1 + MONTHLY_RATE, -term));
+        amounts = new double[term + 1];
+        periods = new int[term + 1];
+        fractions = new double[term + 1];
+        amounts[0] = -PRINCIPAL;
+        for (int month = 1; month <= term; month++) {
+            amounts[month] = payment;
+            periods[month] = month;
+            // Каждый третий платёж переносится с выходных на 1–2 дня
+            fractions[month] = month % 3 == 0 ? 2 / (365.0 / 12) : 0;
+        }
+    }
+
+    @Benchmark
+    public double periodRate() {
+        return IrrSolver.periodRate(amounts, periods, fractions, amounts.length);
+    }
+}
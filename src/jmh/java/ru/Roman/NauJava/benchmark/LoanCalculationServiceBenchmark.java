@@ -0,0 +1,65 @@
+package ru.Roman.NauJava.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный путь расчёта без сохранения: построение графика, сборка сущностей и маппинг в DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanCalculationServiceBenchmark {
+
+    @Param({"ANNUITY", "DIFFERENTIAL", "SUBSIDIZED"})
+    private BenchmarkFixtures.Scenario scenario;
+
+    @Param({"12", "120", "600"})
+    private int term;
+
+    @Param({"0", "10", "50"})
+    private int earlyPayments;
+
+    @Param({"0", "5"})
+    private int rateChanges;
+
+    private LoanCalculationService service;
+    private LoanCalculationRequestDto request;
+
+    @Setup
+    public void setUp() {
+        // Репозитории не используются: расчёт без пользователя ничего не сохраняет
+        CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+        service = new LoanCalculationService(null, null, new LoanCalculationMapper(), metrics,
+                new ScheduleEngine(metrics), new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()));
+        request = BenchmarkFixtures.request(scenario, term, earlyPayments, rateChanges);
+    }
+
+    @Benchmark
+    public LoanCalculationResponseDto calculate() {
+        return service.calculate(request, null);
+    }
+}
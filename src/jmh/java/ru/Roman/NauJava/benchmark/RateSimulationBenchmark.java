@@ -0,0 +1,64 @@
+package ru.Roman.NauJava.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.dto.RateSimulationRequestDto;
+import ru.Roman.NauJava.dto.RateSimulationResultDto;
+import ru.Roman.NauJava.service.simulation.RateSimulationProperties;
+import ru.Roman.NauJava.service.simulation.RateSimulationService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Моделирование плавающей ставки целиком: генерация траекторий, расчёт по ним и процентили.
+ * Цель — 10 000 траекторий по 360 месяцев быстрее секунды на всех ядрах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateSimulationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int paths;
+
+    @Param({"120", "360"})
+    private int term;
+
+    @Param({"0"})
+    private int threads;
+
+    private RateSimulationService service;
+    private RateSimulationRequestDto request;
+
+    @Setup
+    public void setUp() {
+        service = new RateSimulationService(new RateSimulationProperties(threads, 0, 0));
+        request = new RateSimulationRequestDto();
+        request.setLoan(BenchmarkFixtures.request(BenchmarkFixtures.Scenario.ANNUITY, term, 0, 0));
+        request.setPaths(paths);
+        request.setSeed(1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public RateSimulationResultDto simulate() {
+        return service.simulate(request);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.Roman.NauJava.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.service.strategy.AnnuityRepaymentStrategy;
+import ru.Roman.NauJava.service.strategy.DifferentialRepaymentStrategy;
+import ru.Roman.NauJava.service.strategy.RepaymentStrategy;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стратегии погашения {@link RepaymentStrategy} в изоляции от сервиса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepaymentStrategyBenchmark {
+
+    private static final BigDecimal PRINCIPAL = new BigDecimal("6000000");
+    private static final BigDecimal RATE = new BigDecimal("16.5");
+
+    @Param({"ANNUITY", "DIFFERENTIAL"})
+    private PaymentType paymentType;
+
+    @Param({"12", "120", "600"})
+    private int term;
+
+    @Param({"0", "10", "50"})
+    private int earlyPayments;
+
+    private RepaymentStrategy strategy;
+    private Map<Integer, BigDecimal> earlyPaymentsByMonth;
+
+    @Setup
+    public void setUp() {
+        strategy = paymentType == PaymentType.ANNUITY
+                ? new AnnuityRepaymentStrategy()
+                : new DifferentialRepaymentStrategy();
+        earlyPaymentsByMonth = BenchmarkFixtures.earlyPaymentsByMonth(term, earlyPayments);
+    }
+
+    @Benchmark
+    public RepaymentStrategy.StrategyCalculationResult calculate() {
+        return strategy.calculate(PRINCIPAL, RATE, term, earlyPaymentsByMonth);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.Roman.NauJava.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.domain.entity.LoanCalculation;
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг сущности в {@link LoanCalculationResponseDto} и JSON-сериализация ответа.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"ANNUITY", "SUBSIDIZED"})
+    private BenchmarkFixtures.Scenario scenario;
+
+    @Param({"12", "120", "600"})
+    private int term;
+
+    @Param({"0", "10"})
+    private int earlyPayments;
+
+    private LoanCalculationMapper mapper;
+    private ObjectMapper objectMapper;
+    private LoanCalculation calculation;
+    private LoanCalculationResponseDto response;
+
+    @Setup
+    public void setUp() {
+        mapper = new LoanCalculationMapper();
+        // Та же конфигурация, что у ObjectMapper Spring Boot по умолчанию
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+        response = new LoanCalculationService(null, null, mapper, metrics, new ScheduleEngine(metrics),
+                new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()))
+                .calculate(BenchmarkFixtures.request(scenario, term, earlyPayments, 0), null);
+        calculation = toEntity(response);
+    }
+
+    @Benchmark
+    public LoanCalculationResponseDto toResponse() {
+        return mapper.toResponse(calculation);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private static LoanCalculation toEntity(LoanCalculationResponseDto dto) {
+        LoanCalculation entity = LoanCalculation.builder()
+                .id(1L)
+                .loanType(dto.getLoanType())
+                .paymentType(dto.getPaymentType())
+                .currency(dto.getCurrency())
+                .principal(dto.getPrincipal())
+                .interestRate(dto.getInterestRate())
+                .durationMonths(dto.getDurationMonths())
+                .recalculationMode(dto.getRecalculationMode())
+                .disbursementDate(dto.getDisbursementDate())
+                .firstPaymentDate(dto.getFirstPaymentDate())
+                .adjustWeekends(dto.isAdjustWeekends())
+                .developerSubsidy(dto.isDeveloperSubsidy())
+                .subsidizedRate(dto.getSubsidizedRate())
+                .subsidyDurationMonths(dto.getSubsidyDurationMonths())
+                .subsidyMode(dto.getSubsidyMode())
+                .totalSubsidy(dto.getTotalSubsidy())
+                .totalInterest(dto.getTotalInterest())
+                .totalPayment(dto.getTotalPayment())
+                .createdAt(LocalDateTime.of(2025, 1, 15, 12, 0))
+                .build();
+        for (PaymentScheduleItemDto item : dto.getSchedule()) {
+            entity.getScheduleItems().add(PaymentScheduleItem.builder()
+                    .calculation(entity)
+                    .monthNumber(item.getMonthNumber())
+                    .paymentDate(item.getPaymentDate())
+                    .paymentAmount(item.getPaymentAmount())
+                    .principalPart(item.getPrincipalPart())
+                    .interestPart(item.getInterestPart())
+                    .remainingDebt(item.getRemainingDebt())
+                    .subsidyAmount(item.getSubsidyAmount())
+                    .earlyPayment(item.isEarlyPayment())
+                    .build());
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.Roman.NauJava.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.mapper.LoanProtobufMapper;
+import ru.Roman.NauJava.proto.v1.LoanCalculationResponse;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Размер и время сериализации ответа с графиком в JSON, CBOR, MessagePack и Protobuf.
+ * Время — основной результат JMH, размер тела в байтах — вторичный результат {@code payloadBytes}.
+ * Для Protobuf в сериализацию входит и перевод DTO в сообщение, как в HTTP-конвертере.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    /**
+     * Представления ответа, доступные через {@code Accept}.
+     */
+    public enum Format {
+        JSON,
+        CBOR,
+        MSGPACK,
+        PROTOBUF
+    }
+
+    @Param({"JSON", "CBOR", "MSGPACK", "PROTOBUF"})
+    private Format format;
+
+    @Param({"12", "120", "600"})
+    private int term;
+
+    private ObjectMapper objectMapper;
+    private LoanProtobufMapper protobufMapper;
+    private LoanCalculationResponseDto response;
+    private byte[] payload;
+
+    /**
+     * Вторичный результат: размер тела одного ответа. Поле присваивается, а не накапливается,
+     * поэтому JMH выводит сам размер, а не сумму за итерацию.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+        response = new LoanCalculationService(null, null, new LoanCalculationMapper(), metrics,
+                new ScheduleEngine(metrics), new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()))
+                .calculate(BenchmarkFixtures.request(BenchmarkFixtures.Scenario.SUBSIDIZED, term, 0, 0), null);
+        protobufMapper = new LoanProtobufMapper();
+        objectMapper = switch (format) {
+            case JSON, PROTOBUF -> objectMapper(new JsonFactory());
+            case CBOR -> objectMapper(new CBORFactory());
+            case MSGPACK -> objectMapper(new MessagePackFactory());
+        };
+        payload = write();
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize size) throws Exception {
+        byte[] body = write();
+        size.payloadBytes = body.length;
+        return body;
+    }
+
+    /**
+     * Разбор тела обратно; для Jackson-форматов — в дерево, так как DTO ответа неизменяемый.
+     */
+    @Benchmark
+    public Object deserialize(PayloadSize size) throws Exception {
+        size.payloadBytes = payload.length;
+        if (format == Format.PROTOBUF) {
+            return LoanCalculationResponse.parseFrom(payload);
+        }
+        return objectMapper.readTree(payload);
+    }
+
+    private byte[] write() throws Exception {
+        if (format == Format.PROTOBUF) {
+            return protobufMapper.toMessage(response).toByteArray();
+        }
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    // Та же конфигурация, что у ObjectMapper Spring Boot по умолчанию
+    private static ObjectMapper objectMapper(JsonFactory factory) {
+        return new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
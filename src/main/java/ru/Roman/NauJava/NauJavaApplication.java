@@ -2,14 +2,19 @@ package ru.Roman.NauJava;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.Roman.NauJava.config.NativeRuntimeHints;
 import ru.Roman.NauJava.domain.entity.User;
 import ru.Roman.NauJava.domain.enums.UserRole;
 import ru.Roman.NauJava.repository.UserRepository;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class NauJavaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,113 @@
+package ru.Roman.NauJava.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.mapper.LoanProtobufMapper;
+import ru.Roman.NauJava.proto.v1.LoanCalculationRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Бинарные представления запросов и ответов REST API:
+ * CBOR ({@value #CBOR_VALUE}), MessagePack ({@value #MSGPACK_VALUE}) и Protobuf ({@value #PROTOBUF_VALUE}).
+ * CBOR и MessagePack пишутся тем же настроенным Jackson, что и JSON, поэтому поля и их имена совпадают.
+ * Protobuf поддерживается только для тела расчёта и ответа с расчётом, схема — {@code /schema/smartloan.proto}.
+ * Конвертеры добавляются в конец списка: при {@code Accept: *}{@code /*} по-прежнему выбирается JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String MSGPACK_VALUE = "application/x-msgpack";
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType MSGPACK = MediaType.parseMediaType(MSGPACK_VALUE);
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+    private final LoanProtobufMapper protobufMapper;
+
+    public BinaryFormatsConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders,
+                               LoanProtobufMapper protobufMapper) {
+        this.objectMapperBuilders = objectMapperBuilders;
+        this.protobufMapper = protobufMapper;
+    }
+
+    static class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+        MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+            super(objectMapper, MSGPACK);
+        }
+    }
+
+    /**
+     * Чтение {@link LoanCalculationRequestDto} и запись {@link LoanCalculationResponseDto} через сгенерированные
+     * классы схемы. Ошибки разбора сообщения превращаются в 400, как и для некорректного JSON.
+     */
+    static class ProtobufLoanHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+        private final LoanProtobufMapper mapper;
+
+        ProtobufLoanHttpMessageConverter(LoanProtobufMapper mapper) {
+            super(PROTOBUF);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected boolean supports(Class<?> clazz) {
+            return LoanCalculationRequestDto.class == clazz || LoanCalculationResponseDto.class == clazz;
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+            return LoanCalculationRequestDto.class == clazz && canRead(mediaType);
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+            return LoanCalculationResponseDto.class == clazz && canWrite(mediaType);
+        }
+
+        @Override
+        protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+            try {
+                return mapper.toRequest(LoanCalculationRequest.parseFrom(inputMessage.getBody()));
+            } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+                throw new HttpMessageNotReadableException("Некорректное сообщение Protobuf: " + e.getMessage(),
+                        e, inputMessage);
+            }
+        }
+
+        @Override
+        protected void writeInternal(Object response, HttpOutputMessage outputMessage) throws IOException {
+            mapper.toMessage((LoanCalculationResponseDto) response).writeTo(outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new CBORFactory()).build()));
+        converters.add(new MessagePackHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new MessagePackFactory()).build()));
+        converters.add(new ProtobufLoanHttpMessageConverter(protobufMapper));
+    }
+}
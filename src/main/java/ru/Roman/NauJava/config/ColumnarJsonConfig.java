@@ -0,0 +1,82 @@
+package ru.Roman.NauJava.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.mapper.ColumnarScheduleSerializer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Колоночный JSON для ответа расчёта ({@value #COLUMNAR_JSON_VALUE}): те же поля,
+ * но график пишется {@link ColumnarScheduleSerializer}.
+ * Конвертер стоит первым, но не участвует в согласовании по умолчанию: контроллер сам
+ * выставляет этот Content-Type, когда клиент явно запросил колоночный формат, иначе при
+ * {@code Accept: *}{@code /*} выбирался бы он, а не обычный JSON.
+ */
+@Configuration
+public class ColumnarJsonConfig implements WebMvcConfigurer {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.smartloan.columnar+json";
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public ColumnarJsonConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    abstract static class ColumnarScheduleMixin {
+
+        @JsonSerialize(using = ColumnarScheduleSerializer.class)
+        abstract List<PaymentScheduleItemDto> getSchedule();
+    }
+
+    /**
+     * Только запись {@link LoanCalculationResponseDto} и только при явно выбранном колоночном типе.
+     */
+    static class ColumnarJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+        ColumnarJsonHttpMessageConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+            setSupportedMediaTypes(List.of(COLUMNAR_JSON));
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+            return mediaType != null
+                    && LoanCalculationResponseDto.class.isAssignableFrom(clazz)
+                    && COLUMNAR_JSON.isCompatibleWith(mediaType);
+        }
+
+        @Override
+        public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+            return canWrite(clazz, mediaType);
+        }
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ObjectMapper columnarMapper = objectMapper.copy()
+                .addMixIn(LoanCalculationResponseDto.class, ColumnarScheduleMixin.class);
+        converters.add(0, new ColumnarJsonHttpMessageConverter(columnarMapper));
+    }
+}
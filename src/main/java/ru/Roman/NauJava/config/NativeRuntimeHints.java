@@ -0,0 +1,62 @@
+package ru.Roman.NauJava.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Подсказки для native-образа GraalVM, которые Spring AOT не выводит сам.
+ * DTO, перечисления и сущности читаются Jackson и выражениями Thymeleaf через рефлексию,
+ * поэтому для них регистрируются свойства, геттеры и конструкторы, как для тел запросов контроллеров.
+ * Классы Protobuf находят аксессоры полей по именам методов. Шаблоны и настройки регионов кэша
+ * второго уровня подключаются как ресурсы.
+ * Классы ищутся сканированием пакетов во время AOT-обработки, так что новый DTO не нужно добавлять вручную.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String BASE_PACKAGE = "ru.Roman.NauJava";
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : scan(classLoader, BASE_PACKAGE + ".dto", BASE_PACKAGE + ".domain")) {
+            bindingHints.registerReflectionHints(hints.reflection(), type);
+        }
+        for (Class<?> type : scan(classLoader, BASE_PACKAGE + ".proto")) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources().registerPattern("templates/*.html");
+        hints.resources().registerPattern("static/schema/*.proto");
+        hints.resources().registerPattern("application.conf");
+    }
+
+    private static List<Class<?>> scan(ClassLoader classLoader, String... packages) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                // Вложенные, абстрактные и интерфейсы тоже: у Protobuf это билдеры и OrBuilder
+                return beanDefinition.getMetadata().isIndependent();
+            }
+        };
+        scanner.addIncludeFilter((reader, factory) -> true);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        List<Class<?>> types = new ArrayList<>();
+        for (String basePackage : packages) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+            }
+        }
+        return types;
+    }
+}
@@ -55,7 +55,7 @@ public class SecurityConfig {
                                 new AntPathRequestMatcher("/logout")))
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/css/**", "/js/**", "/h2-console/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/css/**", "/js/**", "/schema/**", "/h2-console/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/", "/register", "/login").permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/api/v1/calculations/public/**")).permitAll()
                         .requestMatchers("/history/**").hasAnyRole("USER", "ADMIN")
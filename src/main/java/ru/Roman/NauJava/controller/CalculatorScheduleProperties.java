@@ -0,0 +1,22 @@
+package ru.Roman.NauJava.controller;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Отрисовка графика на странице калькулятора.
+ *
+ * @param initialRows строк, которые рендерятся на сервере вместе со страницей
+ * @param pageSize    строк в одной порции, которую страница догружает из JSON API
+ */
+@ConfigurationProperties(prefix = "calculator.schedule")
+public record CalculatorScheduleProperties(int initialRows, int pageSize) {
+
+    public CalculatorScheduleProperties {
+        if (initialRows <= 0) {
+            initialRows = 60;
+        }
+        if (pageSize <= 0) {
+            pageSize = 120;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
 import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
 import ru.Roman.NauJava.domain.enums.LoanCurrency;
 import ru.Roman.NauJava.domain.enums.PaymentType;
@@ -18,11 +19,14 @@ import ru.Roman.NauJava.domain.enums.SubsidyMode;
 import ru.Roman.NauJava.dto.LoanCalculationFilterDto;
 import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
 import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
 import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.quote.PublicQuoteService;
 
 import java.math.BigDecimal;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * MVC контроллер кредитного калькулятора.
@@ -32,7 +36,11 @@ import java.time.LocalDate;
 @Slf4j
 public class LoanCalculationController {
 
+    private static final String SCHEDULE_PAGES_PATH = "/api/v1/calculations/public/quotes/%s/schedule";
+
     private final LoanCalculationService calculationService;
+    private final PublicQuoteService quoteService;
+    private final CalculatorScheduleProperties scheduleProperties;
 
     @ModelAttribute("currencies")
     public LoanCurrency[] currencies() {
@@ -54,6 +62,11 @@ public class LoanCalculationController {
         return EarlyPaymentApplicationMode.values();
     }
 
+    @ModelAttribute("dayCountConventions")
+    public DayCountConvention[] dayCountConventions() {
+        return DayCountConvention.values();
+    }
+
     @ModelAttribute("subsidyModes")
     public SubsidyMode[] subsidyModes() {
         return SubsidyMode.values();
@@ -71,6 +84,9 @@ public class LoanCalculationController {
             model.addAttribute("loanRequest", dto);
         }
         model.addAttribute("authenticated", userDetails != null);
+        if (model.getAttribute("result") instanceof LoanCalculationResponseDto result) {
+            addSchedule(model, result, (String) model.getAttribute("scheduleKey"));
+        }
         return "calculator";
     }
 
@@ -90,6 +106,7 @@ public class LoanCalculationController {
             log.debug("Начало расчёта для пользователя: {}", username);
             LoanCalculationResponseDto response = calculationService.calculate(dto, username);
             model.addAttribute("result", response);
+            addSchedule(model, response, quoteService.key(dto));
         } catch (IllegalArgumentException | IllegalStateException e) {
             log.error("Ошибка при расчёте: {}", e.getMessage(), e);
             model.addAttribute("error", e.getMessage());
@@ -103,6 +120,22 @@ public class LoanCalculationController {
         return "calculator";
     }
 
+    /**
+     * На сервере рендерятся первые строки графика, остальные страница догружает порциями
+     * по ключу котировки, поэтому большой график не раздувает HTML.
+     */
+    private void addSchedule(Model model, LoanCalculationResponseDto result, String scheduleKey) {
+        List<PaymentScheduleItemDto> schedule = result.getSchedule();
+        int initialRows = scheduleKey != null ? Math.min(scheduleProperties.initialRows(), schedule.size())
+                : schedule.size();
+        model.addAttribute("scheduleHead", schedule.subList(0, initialRows));
+        model.addAttribute("scheduleTotal", schedule.size());
+        if (initialRows < schedule.size()) {
+            model.addAttribute("scheduleNextUrl", SCHEDULE_PAGES_PATH.formatted(scheduleKey));
+            model.addAttribute("schedulePageSize", scheduleProperties.pageSize());
+        }
+    }
+
     @GetMapping("/history")
     public String history(@ModelAttribute("filter") LoanCalculationFilterDto filter,
                           Principal principal,
@@ -148,9 +181,12 @@ public class LoanCalculationController {
         request.setSubsidizedRate(response.getSubsidizedRate());
         request.setSubsidyDurationMonths(response.getSubsidyDurationMonths());
         request.setSubsidyMode(response.getSubsidyMode());
+        request.setDayCount(response.getDayCount());
         
         redirectAttributes.addFlashAttribute("loanRequest", request);
         redirectAttributes.addFlashAttribute("result", response);
+        redirectAttributes.addFlashAttribute("scheduleKey",
+                quoteService.key(calculationService.loadRequest(id, principal.getName())));
         redirectAttributes.addFlashAttribute("loanRequestFromHistory", true);
         return "redirect:/calculator";
     }
@@ -1,24 +1,60 @@
 package ru.Roman.NauJava.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.dto.CurrencyTotalsDto;
+import ru.Roman.NauJava.dto.GoalSeekRequestDto;
+import ru.Roman.NauJava.dto.GoalSeekResultDto;
 import ru.Roman.NauJava.dto.LoanCalculationFilterDto;
 import ru.Roman.NauJava.dto.LoanCalculationHistoryDto;
 import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
 import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.LoanPreviewDto;
+import ru.Roman.NauJava.dto.RateSimulationRequestDto;
+import ru.Roman.NauJava.dto.RateSimulationResultDto;
+import ru.Roman.NauJava.dto.RecalculationComparisonDto;
+import ru.Roman.NauJava.dto.SchedulePageDto;
+import ru.Roman.NauJava.dto.SensitivityReportDto;
+import ru.Roman.NauJava.dto.SubsidyComparisonDto;
+import ru.Roman.NauJava.service.GoalSeekService;
 import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.LoanPreviewService;
+import ru.Roman.NauJava.service.export.ExportFormat;
+import ru.Roman.NauJava.service.export.LoanExportService;
+import ru.Roman.NauJava.service.fx.CurrencyTotalsService;
+import ru.Roman.NauJava.service.portfolio.PortfolioImportReport;
+import ru.Roman.NauJava.service.portfolio.PortfolioImportService;
+import ru.Roman.NauJava.service.quote.PublicQuoteService;
+import ru.Roman.NauJava.service.sensitivity.SensitivityService;
+import ru.Roman.NauJava.service.simulation.RateSimulationService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 
 /**
  * REST API для внешних клиентов.
@@ -28,25 +64,154 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LoanCalculationRestController {
 
+    /**
+     * Меняется вместе с форматом ответа, чтобы клиенты не держали старое представление под прежним ETag.
+     * Входит и в ключ кэша nginx ({@code deploy/nginx/smartloan-cache.conf}).
+     */
+    private static final String ETAG_VERSION = "v2";
+    private static final CacheControl SAVED_CALCULATION_CACHE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePrivate()
+            .immutable();
+    private static final CacheControl HISTORY_CACHE = CacheControl.noCache().cachePrivate();
+    private static final CacheControl PUBLIC_QUOTE_CACHE = CacheControl.maxAge(Duration.ofDays(1))
+            .cachePublic()
+            .sMaxAge(Duration.ofDays(7));
+    private static final String QUOTES_PATH = "/api/v1/calculations/public/quotes/";
+    private static final int MAX_SCHEDULE_PAGE = 600;
+    /**
+     * {@code X-Calculation-Trace: true} добавляет в ответ расчёта шаги движка для разбора графика.
+     */
+    private static final String TRACE_HEADER = "X-Calculation-Trace";
+
     private final LoanCalculationService calculationService;
+    private final LoanPreviewService previewService;
+    private final GoalSeekService goalSeekService;
+    private final RateSimulationService simulationService;
+    private final SensitivityService sensitivityService;
+    private final CurrencyTotalsService totalsService;
+    private final LoanExportService exportService;
+    private final PortfolioImportService importService;
+    private final PublicQuoteService quoteService;
 
+    /**
+     * Список со слабым ETag по последнему изменению истории: клиент перепроверяет его
+     * при каждом запросе и получает 304, пока расчёты не добавлялись и не удалялись.
+     */
     @GetMapping
-    public List<LoanCalculationHistoryDto> list(LoanCalculationFilterDto filter,
-                                                Authentication authentication) {
-        return calculationService.getHistory(authentication.getName(), filter);
+    public ResponseEntity<List<LoanCalculationHistoryDto>> list(LoanCalculationFilterDto filter,
+                                                                Authentication authentication,
+                                                                WebRequest webRequest,
+                                                                HttpServletResponse response) {
+        ResponseRepresentation representation = negotiate(webRequest, null, ResponseRepresentation.JACKSON);
+        String version = calculationService.getHistoryVersion(authentication.getName());
+        String etag = "W/\"" + ETAG_VERSION + "-h-" + version + representation.etagSuffix() + "\"";
+        if (notModified(webRequest, response, etag, HISTORY_CACHE)) {
+            return null;
+        }
+        return representation.apply(ResponseEntity.ok().eTag(etag))
+                .body(calculationService.getHistory(authentication.getName(), filter));
+    }
+
+    /**
+     * Выгрузка отфильтрованной истории, фильтр тот же, что и у списка.
+     */
+    @GetMapping("/export")
+    public void exportHistory(LoanCalculationFilterDto filter,
+                              @RequestParam(defaultValue = "csv") String format,
+                              Authentication authentication,
+                              HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        String owner = exportService.resolveHistoryOwner(authentication.getName());
+        prepareDownload(response, exportFormat, "history");
+        exportService.exportHistory(owner, filter, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Отфильтрованная история в одной валюте: суммы пересчитываются по курсу на дату выдачи и на дату
+     * каждой строки графика. Фильтр тот же, что и у списка.
+     */
+    @GetMapping("/totals")
+    public CurrencyTotalsDto totals(LoanCalculationFilterDto filter,
+                                    @RequestParam(defaultValue = "RUB") LoanCurrency baseCurrency,
+                                    Authentication authentication) {
+        return totalsService.totals(authentication.getName(), filter, baseCurrency);
+    }
+
+    /**
+     * Чувствительность итогов расчётов истории к сдвигу ставок на {@code bumpBp} и сроку на месяц,
+     * по страницам: новые расчёты первыми.
+     */
+    @GetMapping("/sensitivity")
+    public SensitivityReportDto historySensitivity(@RequestParam(defaultValue = "10") int bumpBp,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "50") int size,
+                                                   Authentication authentication) {
+        return sensitivityService.forHistory(authentication.getName(), bumpBp, page, size);
     }
 
+    /**
+     * Сохранённый расчёт неизменяем, поэтому отдаётся с сильным ETag и {@code immutable}.
+     * На совпавший {@code If-None-Match} отвечает 304, не загружая расчёт и график.
+     */
     @GetMapping("/{id}")
-    public LoanCalculationResponseDto get(@PathVariable Long id, Authentication authentication) {
-        return calculationService.getCalculation(id, authentication.getName());
+    public ResponseEntity<LoanCalculationResponseDto> get(@PathVariable Long id,
+                                                          @RequestParam(required = false) String layout,
+                                                          Authentication authentication,
+                                                          WebRequest webRequest, HttpServletResponse response) {
+        ResponseRepresentation representation = negotiate(webRequest, layout, ResponseRepresentation.CALCULATION);
+        String version = calculationService.getCalculationVersion(id, authentication.getName());
+        String etag = "\"" + ETAG_VERSION + "-c-" + version + representation.etagSuffix() + "\"";
+        if (notModified(webRequest, response, etag, SAVED_CALCULATION_CACHE)) {
+            return null;
+        }
+        return representation.apply(ResponseEntity.ok().eTag(etag))
+                .body(calculationService.getCalculation(id, authentication.getName()));
+    }
+
+    /**
+     * Выгрузка графика сохранённого расчёта.
+     */
+    @GetMapping("/{id}/export")
+    public void exportSchedule(@PathVariable Long id,
+                               @RequestParam(defaultValue = "csv") String format,
+                               Authentication authentication,
+                               HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        exportService.checkScheduleAccess(id, authentication.getName());
+        prepareDownload(response, exportFormat, "schedule-" + id);
+        exportService.exportSchedule(id, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Чувствительность итогов сохранённого расчёта к сдвигу ставок на {@code bumpBp} и сроку на месяц.
+     */
+    @GetMapping("/{id}/sensitivity")
+    public SensitivityReportDto sensitivity(@PathVariable Long id,
+                                            @RequestParam(defaultValue = "10") int bumpBp,
+                                            Authentication authentication) {
+        return sensitivityService.forCalculation(id, authentication.getName(), bumpBp);
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public LoanCalculationResponseDto create(@Valid @RequestBody LoanCalculationRequestDto request,
-                                             Authentication authentication) {
+    public ResponseEntity<LoanCalculationResponseDto> create(@Valid @RequestBody LoanCalculationRequestDto request,
+                                                             @RequestParam(required = false) String layout,
+                                                             @RequestHeader(value = TRACE_HEADER, defaultValue = "false")
+                                                             boolean trace,
+                                                             Authentication authentication,
+                                                             WebRequest webRequest) {
         request.setSaveToHistory(true);
-        return calculationService.calculate(request, authentication.getName());
+        return negotiate(webRequest, layout, ResponseRepresentation.CALCULATION)
+                .apply(ResponseEntity.status(HttpStatus.CREATED))
+                .body(calculationService.calculate(request, authentication.getName(), trace));
+    }
+
+    /**
+     * Пакетный расчёт портфеля: CSV в теле запроса, итоги и отклонённые строки пишутся в каталог импорта.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public PortfolioImportReport importPortfolio(InputStream body) throws IOException {
+        return importService.importUpload(body);
     }
 
     /**
@@ -54,10 +219,122 @@ public class LoanCalculationRestController {
      * Результат не сохраняется в историю.
      */
     @PostMapping("/public/calculate")
-    @ResponseStatus(HttpStatus.OK)
-    public LoanCalculationResponseDto calculatePublic(@Valid @RequestBody LoanCalculationRequestDto request) {
+    public ResponseEntity<LoanCalculationResponseDto> calculatePublic(
+            @Valid @RequestBody LoanCalculationRequestDto request,
+            @RequestParam(required = false) String layout,
+            @RequestHeader(value = TRACE_HEADER, defaultValue = "false") boolean trace,
+            WebRequest webRequest) {
         request.setSaveToHistory(false);
-        return calculationService.calculate(request, null);
+        return negotiate(webRequest, layout, ResponseRepresentation.CALCULATION)
+                .apply(ResponseEntity.ok())
+                .body(calculationService.calculate(request, null, trace));
+    }
+
+    /**
+     * Переводит параметры расчёта в кэшируемую ссылку: 303 на GET с каноническим ключом.
+     */
+    @PostMapping("/public/quotes")
+    public ResponseEntity<Void> quoteLink(@Valid @RequestBody LoanCalculationRequestDto request) {
+        return ResponseEntity.status(HttpStatus.SEE_OTHER)
+                .location(URI.create(QUOTES_PATH + quoteService.key(request)))
+                .build();
+    }
+
+    /**
+     * Расчёт по каноническому ключу. Ответ зависит только от ключа, поэтому отдаётся с сильным ETag
+     * и долгим сроком жизни для прокси; неканонический ключ перенаправляется на канонический.
+     */
+    @GetMapping("/public/quotes/{key}")
+    public ResponseEntity<LoanCalculationResponseDto> quote(@PathVariable String key,
+                                                            @RequestParam(required = false) String layout,
+                                                            WebRequest webRequest,
+                                                            HttpServletResponse response) {
+        ResponseRepresentation representation = negotiate(webRequest, layout, ResponseRepresentation.CALCULATION);
+        PublicQuoteService.Quote quote = quoteService.resolve(key);
+        if (!quote.isCanonical()) {
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
+                    .location(URI.create(QUOTES_PATH + quote.canonicalKey()))
+                    .cacheControl(PUBLIC_QUOTE_CACHE)
+                    .build();
+        }
+        String etag = "\"" + ETAG_VERSION + "-q-" + quote.fingerprint() + representation.etagSuffix() + "\"";
+        if (notModified(webRequest, response, etag, PUBLIC_QUOTE_CACHE)) {
+            return null;
+        }
+        return representation.apply(ResponseEntity.ok().eTag(etag))
+                .body(quoteService.calculate(quote));
+    }
+
+    /**
+     * Страница графика котировки для постепенной подгрузки таблицы на странице калькулятора.
+     * Кэшируется так же, как сама котировка: строки зависят только от ключа и границ страницы.
+     */
+    @GetMapping("/public/quotes/{key}/schedule")
+    public ResponseEntity<SchedulePageDto> quoteSchedule(@PathVariable String key,
+                                                         @RequestParam(defaultValue = "0") int offset,
+                                                         @RequestParam(defaultValue = "120") int limit,
+                                                         WebRequest webRequest,
+                                                         HttpServletResponse response) {
+        if (limit > MAX_SCHEDULE_PAGE) {
+            throw new IllegalArgumentException("Размер страницы графика не больше " + MAX_SCHEDULE_PAGE);
+        }
+        PublicQuoteService.Quote quote = quoteService.resolve(key);
+        if (!quote.isCanonical()) {
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
+                    .location(URI.create(QUOTES_PATH + quote.canonicalKey()
+                            + "/schedule?offset=" + offset + "&limit=" + limit))
+                    .cacheControl(PUBLIC_QUOTE_CACHE)
+                    .build();
+        }
+        ResponseRepresentation representation = negotiate(webRequest, null, ResponseRepresentation.JACKSON);
+        String etag = "\"" + ETAG_VERSION + "-qs-" + quote.fingerprint() + "-" + offset + "-" + limit
+                + representation.etagSuffix() + "\"";
+        if (notModified(webRequest, response, etag, PUBLIC_QUOTE_CACHE)) {
+            return null;
+        }
+        return representation.apply(ResponseEntity.ok().eTag(etag)).body(quoteService.schedulePage(quote, offset, limit));
+    }
+
+    /**
+     * Приближённые итоги для живого превью формы: без графика и без сохранения.
+     */
+    @PostMapping("/public/preview")
+    public LoanPreviewDto preview(@Valid @RequestBody LoanCalculationRequestDto request) {
+        return previewService.preview(request);
+    }
+
+    /**
+     * Обратный расчёт: сумма, срок или ежемесячный досрочный платёж под заданный платёж или дату погашения.
+     */
+    @PostMapping("/public/goal-seek")
+    public GoalSeekResultDto goalSeek(@Valid @RequestBody GoalSeekRequestDto request) {
+        return goalSeekService.solve(request);
+    }
+
+    /**
+     * Итоги обычного кредита в обоих режимах перерасчёта после досрочных платежей; графики — при {@code schedules=true}.
+     */
+    @PostMapping("/public/recalculation-comparison")
+    public RecalculationComparisonDto compareRecalculationModes(@Valid @RequestBody LoanCalculationRequestDto request,
+                                                                @RequestParam(defaultValue = "false") boolean schedules) {
+        return calculationService.compareRecalculationModes(request, schedules);
+    }
+
+    /**
+     * Итоги субсидированной ипотеки в режимах FIXED_PAYMENT и FLOATING_PAYMENT рядом с тем же кредитом без субсидии.
+     */
+    @PostMapping("/public/subsidy-comparison")
+    public SubsidyComparisonDto compareSubsidyModes(@Valid @RequestBody LoanCalculationRequestDto request) {
+        return calculationService.compareSubsidyModes(request);
+    }
+
+    /**
+     * Распределение итогов кредита с плавающей ставкой по траекториям Монте-Карло.
+     * Не публичный: расчёт занимает все ядра, поэтому доступен только авторизованным пользователям.
+     */
+    @PostMapping("/simulations/rates")
+    public RateSimulationResultDto simulateRates(@Valid @RequestBody RateSimulationRequestDto request) {
+        return simulationService.simulate(request);
     }
 
     @DeleteMapping("/{id}")
@@ -65,5 +342,27 @@ public class LoanCalculationRestController {
     public void delete(@PathVariable Long id, Authentication authentication) {
         calculationService.delete(id, authentication.getName());
     }
-}
 
+    /**
+     * Cache-Control и Vary выставляются до проверки, чтобы 304 нёс ту же политику, что и полный ответ.
+     */
+    private static boolean notModified(WebRequest webRequest, HttpServletResponse response, String etag,
+                                       CacheControl cacheControl) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return webRequest.checkNotModified(etag);
+    }
+
+    private static ResponseRepresentation negotiate(WebRequest webRequest, @Nullable String layout,
+                                                    Set<ResponseRepresentation> supported) {
+        return ResponseRepresentation.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT), layout, supported);
+    }
+
+    private static void prepareDownload(HttpServletResponse response, ExportFormat format, String baseName) {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(format.fileName(baseName))
+                .build()
+                .toString());
+    }
+}
@@ -0,0 +1,104 @@
+package ru.Roman.NauJava.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import ru.Roman.NauJava.config.BinaryFormatsConfig;
+import ru.Roman.NauJava.config.ColumnarJsonConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Представление ответа, выбранное по {@code Accept} и параметру {@code layout}.
+ * Контроллер выбирает его сам и входит в ETag: тела разных представлений одного ресурса различаются
+ * побайтно, поэтому сильный ETag JSON-ответа не должен подтверждать кэш Protobuf-клиента.
+ * Выбранный тип выставляется в Content-Type ответа, чтобы Spring записал тело тем же конвертером.
+ */
+enum ResponseRepresentation {
+
+    JSON(MediaType.APPLICATION_JSON, ""),
+    COLUMNAR_JSON(ColumnarJsonConfig.COLUMNAR_JSON, "-col"),
+    CBOR(MediaType.APPLICATION_CBOR, "-cbor"),
+    MSGPACK(BinaryFormatsConfig.MSGPACK, "-msgpack"),
+    PROTOBUF(BinaryFormatsConfig.PROTOBUF, "-pb");
+
+    /**
+     * Ответ с расчётом: все форматы, включая колоночный JSON и Protobuf.
+     */
+    static final Set<ResponseRepresentation> CALCULATION = EnumSet.allOf(ResponseRepresentation.class);
+
+    /**
+     * Прочие ответы пишутся только через Jackson.
+     */
+    static final Set<ResponseRepresentation> JACKSON = EnumSet.of(JSON, CBOR, MSGPACK);
+
+    private final MediaType mediaType;
+    private final String etagSuffix;
+
+    ResponseRepresentation(MediaType mediaType, String etagSuffix) {
+        this.mediaType = mediaType;
+        this.etagSuffix = etagSuffix;
+    }
+
+    /**
+     * Суффикс ETag; у обычного JSON пустой, чтобы прежние ETag JSON-клиентов остались действительными.
+     */
+    String etagSuffix() {
+        return etagSuffix;
+    }
+
+    ResponseEntity.BodyBuilder apply(ResponseEntity.BodyBuilder builder) {
+        // Обычный JSON согласует сам Spring: при неподходящем Accept он ответит 406, а не JSON
+        return this == JSON ? builder : builder.contentType(mediaType);
+    }
+
+    /**
+     * Колоночный график запрашивается явно: {@code Accept: application/vnd.smartloan.columnar+json}
+     * или параметром {@code layout=columnar}, который важнее {@code Accept}. Из {@code Accept} берётся
+     * тип с наибольшим {@code q}; {@code *}{@code /*} и прочие совместимые с JSON типы дают обычный JSON.
+     */
+    static ResponseRepresentation negotiate(@Nullable String accept, @Nullable String layout,
+                                            Set<ResponseRepresentation> supported) {
+        boolean rowsOnly = false;
+        if (layout != null) {
+            if ("columnar".equalsIgnoreCase(layout)) {
+                if (supported.contains(COLUMNAR_JSON)) {
+                    return COLUMNAR_JSON;
+                }
+            } else if (!"rows".equalsIgnoreCase(layout)) {
+                throw new IllegalArgumentException("Неизвестный формат графика: " + layout);
+            }
+            rowsOnly = true;
+        }
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            return JSON;
+        }
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() <= 0) {
+                continue;
+            }
+            for (ResponseRepresentation candidate : supported) {
+                if (candidate != JSON && !(rowsOnly && candidate == COLUMNAR_JSON)
+                        && type.equalsTypeAndSubtype(candidate.mediaType)) {
+                    return candidate;
+                }
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return JSON;
+            }
+        }
+        return JSON;
+    }
+}
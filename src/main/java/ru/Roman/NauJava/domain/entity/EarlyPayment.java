@@ -2,6 +2,9 @@ package ru.Roman.NauJava.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
 import ru.Roman.NauJava.domain.enums.EarlyPaymentKind;
 
@@ -17,6 +20,9 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "early-payments")
 @Table(name = "early_payments")
 public class EarlyPayment {
 
@@ -2,6 +2,11 @@ package ru.Roman.NauJava.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
 import ru.Roman.NauJava.domain.enums.LoanCurrency;
 import ru.Roman.NauJava.domain.enums.LoanType;
 import ru.Roman.NauJava.domain.enums.PaymentType;
@@ -16,6 +21,10 @@ import java.util.List;
 
 /**
  * Хранит параметры выполненного расчёта и сгенерированный график платежей.
+ * Сохранённый расчёт только создаётся и удаляется, поэтому он, его график, досрочные платежи и изменения ставки
+ * помечены {@link Immutable} и лежат в кэше второго уровня только для чтения; удаление вытесняет их из кэша.
+ * Досрочные платежи и изменения ставки страницы расчётов догружаются пачками по 100 владельцев
+ * одним запросом на коллекцию, а не по запросу на каждый расчёт.
  */
 @Getter
 @Setter
@@ -23,6 +32,9 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "loan-calculations")
 @Table(name = "loan_calculations")
 public class LoanCalculation {
 
@@ -68,6 +80,11 @@ public class LoanCalculation {
     @Column(nullable = false)
     private boolean adjustWeekends;
 
+    // null — конвенция по умолчанию для типа расчёта
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private DayCountConvention dayCount;
+
     // Субсидия от застройщика
     @Column(nullable = false)
     private boolean developerSubsidy;
@@ -86,14 +103,19 @@ public class LoanCalculation {
 
     @Builder.Default
     @OneToMany(mappedBy = "calculation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "loan-calculation-early-payments")
+    @BatchSize(size = 100)
     private List<EarlyPayment> earlyPayments = new ArrayList<>();
 
     @Builder.Default
     @OneToMany(mappedBy = "calculation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "loan-calculation-rate-changes")
+    @BatchSize(size = 100)
     private List<RateChange> rateChanges = new ArrayList<>();
 
     @Builder.Default
     @OneToMany(mappedBy = "calculation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "loan-calculation-schedule")
     @OrderBy("monthNumber ASC")
     private List<PaymentScheduleItem> scheduleItems = new ArrayList<>();
 
@@ -106,6 +128,12 @@ public class LoanCalculation {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal totalPayment;
 
+    /**
+     * Полная стоимость кредита (ПСК), % годовых; хранится, чтобы не решать уравнение при каждом чтении.
+     */
+    @Column(precision = 9, scale = 3)
+    private BigDecimal effectiveRate;
+
     @PrePersist
     void onCreate() {
         if (createdAt == null) {
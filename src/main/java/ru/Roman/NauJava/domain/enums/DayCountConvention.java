@@ -0,0 +1,37 @@
+package ru.Roman.NauJava.domain.enums;
+
+/**
+ * Конвенция подсчёта дней: какая доля годовой ставки начисляется за процентный период.
+ */
+public enum DayCountConvention {
+    /**
+     * Каждый период — ровно 1/12 года, независимо от дат.
+     */
+    MONTHLY("Равные месяцы (1/12)"),
+    /**
+     * 30/360 (US, bond basis): в месяце 30 дней, в году 360.
+     */
+    THIRTY_360("30/360"),
+    /**
+     * Фактические дни, год — всегда 365 дней.
+     */
+    ACT_365F("ACT/365 Fixed"),
+    /**
+     * Фактические дни (ISDA): дни високосного года делятся на 366, остальные — на 365.
+     */
+    ACT_ACT("ACT/ACT ISDA"),
+    /**
+     * Фактические дни, год — 360 дней.
+     */
+    ACT_360("ACT/360");
+
+    private final String displayName;
+
+    DayCountConvention(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.Roman.NauJava.domain.enums;
+
+/**
+ * Искомый параметр обратного расчёта.
+ */
+public enum GoalSeekTarget {
+    /**
+     * Максимальная сумма кредита, при которой платёж не превышает заданный.
+     */
+    PRINCIPAL,
+
+    /**
+     * Минимальный срок, при котором платёж не превышает заданный.
+     */
+    DURATION,
+
+    /**
+     * Минимальный ежемесячный досрочный платёж, погашающий кредит к заданной дате.
+     */
+    EARLY_PAYMENT
+}
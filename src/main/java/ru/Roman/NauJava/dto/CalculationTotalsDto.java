@@ -0,0 +1,20 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоги одного расчёта истории в базовой валюте сводки.
+ */
+@Value
+@Builder
+public class CalculationTotalsDto {
+    Long id;
+    LoanCurrency currency; // Валюта самого расчёта
+    BigDecimal principal; // По курсу на дату выдачи
+    BigDecimal totalPayment; // По курсу на дату каждой строки графика
+    BigDecimal totalInterest;
+}
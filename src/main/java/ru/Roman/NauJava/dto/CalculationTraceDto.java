@@ -0,0 +1,18 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Шаги точного расчёта для разбора графика поддержкой.
+ * Хранятся последние {@code capacity} шагов; если {@code recorded} больше, ранние шаги затёрты.
+ */
+@Value
+@Builder
+public class CalculationTraceDto {
+    int capacity;
+    long recorded;
+    List<CalculationTraceStepDto> steps;
+}
@@ -0,0 +1,21 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.service.engine.CalculationTrace;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Один шаг трассировки расчёта.
+ */
+@Value
+@Builder
+public class CalculationTraceStepDto {
+    CalculationTrace.Step step;
+    Integer monthNumber; // Номер регулярного платежа, к которому относится шаг
+    LocalDate date;
+    BigDecimal value; // Ставка, платёж, проценты, субсидия или сумма досрочного платежа — по шагу
+    BigDecimal remainingDebt;
+}
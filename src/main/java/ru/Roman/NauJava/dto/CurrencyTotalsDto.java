@@ -0,0 +1,26 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сводка истории в одной базовой валюте: суммы расчётов в разных валютах пересчитаны по курсам на даты потоков.
+ * Расчёты, для которых нет курса, в суммы и {@code items} не входят.
+ */
+@Value
+@Builder
+public class CurrencyTotalsDto {
+    LoanCurrency baseCurrency;
+    int calculations;
+    BigDecimal principal;
+    BigDecimal totalPayment;
+    BigDecimal totalInterest;
+    List<CalculationTotalsDto> items;
+    Set<LoanCurrency> unconvertedCurrencies; // Валюты расчётов, не пересчитанных из-за отсутствия курса
+    int unconvertedCalculations;
+}
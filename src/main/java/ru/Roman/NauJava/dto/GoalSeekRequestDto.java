@@ -0,0 +1,36 @@
+package ru.Roman.NauJava.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.Roman.NauJava.domain.enums.GoalSeekTarget;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO обратного расчёта: параметры кредита и цель, по которой подбирается один из них.
+ * Значение искомого параметра в {@code loan} не учитывается и может быть не задано.
+ */
+@Data
+public class GoalSeekRequestDto {
+
+    @NotNull(message = "Искомый параметр обязателен")
+    private GoalSeekTarget target;
+
+    @NotNull(message = "Параметры кредита обязательны")
+    private LoanCalculationRequestDto loan;
+
+    /**
+     * Предельный регулярный платёж — для {@link GoalSeekTarget#PRINCIPAL} и {@link GoalSeekTarget#DURATION}.
+     */
+    @DecimalMin(value = "0.01", message = "Платёж должен быть > 0")
+    private BigDecimal maxPayment;
+
+    /**
+     * Дата, к которой кредит должен быть погашен, — для {@link GoalSeekTarget#EARLY_PAYMENT}.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate payoffDate;
+}
@@ -0,0 +1,30 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.GoalSeekTarget;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO результата обратного расчёта: найденный параметр и приближённые итоги кредита с ним.
+ */
+@Value
+@Builder
+public class GoalSeekResultDto {
+    GoalSeekTarget target;
+    boolean closedForm; // Найдено обращением формулы платежа, без перебора
+    int evaluations; // Число прогонов приближённого движка
+    LoanCurrency currency;
+    BigDecimal principal;
+    Integer durationMonths;
+    BigDecimal monthlyEarlyPayment; // Ежемесячный досрочный платёж в дату платежа
+    BigDecimal monthlyPayment; // Первый регулярный платёж
+    BigDecimal maxPayment; // Наибольший регулярный платёж
+    BigDecimal totalPayment;
+    BigDecimal totalInterest;
+    Integer paymentsCount;
+    LocalDate payoffDate;
+}
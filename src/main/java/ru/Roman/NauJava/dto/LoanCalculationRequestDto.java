@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import org.springframework.format.annotation.DateTimeFormat;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
 import ru.Roman.NauJava.domain.enums.LoanCurrency;
 import ru.Roman.NauJava.domain.enums.LoanType;
 import ru.Roman.NauJava.domain.enums.PaymentType;
@@ -69,6 +70,12 @@ public class LoanCalculationRequestDto {
      */
     private boolean adjustWeekends = true;
 
+    /**
+     * Конвенция подсчёта дней для начисления процентов; {@code null} — по умолчанию для типа расчёта
+     * (равные месяцы для обычного кредита, ACT/365F для субсидированной ипотеки).
+     */
+    private DayCountConvention dayCount;
+
     /**
      * Субсидированная ипотека от застройщика.
      */
@@ -113,6 +120,33 @@ public class LoanCalculationRequestDto {
         return disbursementDate.plusMonths(1);
     }
 
+    /**
+     * Копия для расчётов, подменяющих параметры запроса: списки копируются, их элементы общие.
+     */
+    public LoanCalculationRequestDto copy() {
+        LoanCalculationRequestDto copy = new LoanCalculationRequestDto();
+        copy.setLoanType(loanType);
+        copy.setCurrency(currency);
+        copy.setPrincipal(principal);
+        copy.setInterestRate(interestRate);
+        copy.setDurationMonths(durationMonths);
+        copy.setPaymentType(paymentType);
+        copy.setDisbursementDate(disbursementDate);
+        copy.setRecalculationMode(recalculationMode);
+        copy.setRateChanges(rateChanges != null ? new ArrayList<>(rateChanges) : null);
+        copy.setEarlyPayments(earlyPayments != null ? new ArrayList<>(earlyPayments) : null);
+        copy.setPeriodicEarlyPayments(periodicEarlyPayments != null ? new ArrayList<>(periodicEarlyPayments) : null);
+        copy.setSaveToHistory(saveToHistory);
+        copy.setAdjustWeekends(adjustWeekends);
+        copy.setDayCount(dayCount);
+        copy.setDeveloperSubsidy(developerSubsidy);
+        copy.setSubsidizedRate(subsidizedRate);
+        copy.setSubsidyDurationMonths(subsidyDurationMonths);
+        copy.setSubsidyMode(subsidyMode);
+        copy.setSubsidizedPaymentAmount(subsidizedPaymentAmount);
+        return copy;
+    }
+
     @AssertTrue(message = "Периоды изменения ставок не должны пересекаться")
     public boolean isRateTimelineValid() {
         if (rateChanges == null || rateChanges.isEmpty()) {
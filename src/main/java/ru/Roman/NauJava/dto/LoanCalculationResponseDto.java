@@ -1,7 +1,9 @@
 package ru.Roman.NauJava.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Value;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
 import ru.Roman.NauJava.domain.enums.LoanCurrency;
 import ru.Roman.NauJava.domain.enums.LoanType;
 import ru.Roman.NauJava.domain.enums.PaymentType;
@@ -17,7 +19,7 @@ import java.util.List;
  * DTO ответа с агрегированными итогами и графиком.
  */
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class LoanCalculationResponseDto {
     Long id;
     LoanType loanType;
@@ -30,6 +32,7 @@ public class LoanCalculationResponseDto {
     LocalDate disbursementDate;
     LocalDate firstPaymentDate;
     boolean adjustWeekends;
+    DayCountConvention dayCount;
     
     // Субсидия от застройщика
     boolean developerSubsidy;
@@ -43,7 +46,10 @@ public class LoanCalculationResponseDto {
     
     BigDecimal totalInterest;
     BigDecimal totalPayment;
+    BigDecimal effectiveRate; // Полная стоимость кредита (ПСК), % годовых
     LocalDateTime createdAt;
     List<PaymentScheduleItemDto> schedule;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    CalculationTraceDto trace; // Шаги расчёта, только по запросу трассировки
 }
 
@@ -0,0 +1,25 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO быстрого предварительного расчёта для живого превью формы.
+ * Значения приближённые: точный график строится только при отправке формы.
+ */
+@Value
+@Builder
+public class LoanPreviewDto {
+    LoanCurrency currency;
+    BigDecimal monthlyPayment; // Первый регулярный платёж (в период субсидии — льготный)
+    BigDecimal fullPayment; // Платёж после окончания субсидии
+    BigDecimal totalPayment;
+    BigDecimal totalInterest;
+    BigDecimal totalSubsidy;
+    Integer paymentsCount;
+    LocalDate payoffDate;
+}
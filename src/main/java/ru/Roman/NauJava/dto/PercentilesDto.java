@@ -0,0 +1,17 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Процентили распределения величины по траекториям моделирования.
+ */
+@Value
+@Builder
+public class PercentilesDto<T> {
+    T p5;
+    T p25;
+    T p50;
+    T p75;
+    T p95;
+}
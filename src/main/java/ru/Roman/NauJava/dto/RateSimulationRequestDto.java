@@ -0,0 +1,74 @@
+package ru.Roman.NauJava.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO моделирования плавающей ставки: параметры кредита и модели возврата ставки к среднему.
+ * Ставки — в процентах годовых, как в форме расчёта.
+ */
+@Data
+public class RateSimulationRequestDto {
+
+    @NotNull(message = "Параметры кредита обязательны")
+    @Valid
+    private LoanCalculationRequestDto loan;
+
+    @NotNull(message = "Число траекторий обязательно")
+    @Min(value = 1, message = "Минимум 1 траектория")
+    private Integer paths = 1000;
+
+    /**
+     * Зерно генератора; одинаковое зерно даёт одинаковый результат. Без него выбирается случайное и возвращается в ответе.
+     */
+    private Long seed;
+
+    /**
+     * Долгосрочный уровень ставки θ; по умолчанию — ставка кредита.
+     */
+    @DecimalMin(value = "0.0", message = "Средняя ставка должна быть >= 0")
+    @DecimalMax(value = "99.99", message = "Средняя ставка должна быть < 100")
+    private BigDecimal longTermRate;
+
+    /**
+     * Скорость возврата к среднему κ, в год.
+     */
+    @NotNull(message = "Скорость возврата к среднему обязательна")
+    @DecimalMin(value = "0.0", message = "Скорость возврата к среднему должна быть >= 0")
+    private BigDecimal meanReversion = new BigDecimal("0.5");
+
+    /**
+     * Волатильность σ, процентных пунктов за год.
+     */
+    @NotNull(message = "Волатильность обязательна")
+    @DecimalMin(value = "0.0", message = "Волатильность должна быть >= 0")
+    private BigDecimal volatility = new BigDecimal("1.5");
+
+    /**
+     * Нижняя граница ставки.
+     */
+    @NotNull(message = "Нижняя граница ставки обязательна")
+    @DecimalMin(value = "0.1", message = "Нижняя граница ставки должна быть >= 0.1")
+    private BigDecimal floorRate = new BigDecimal("0.1");
+
+    /**
+     * Через сколько платежей пересматривается ставка.
+     */
+    @NotNull(message = "Период пересмотра ставки обязателен")
+    @Min(value = 1, message = "Минимальный период пересмотра 1 месяц")
+    @Max(value = 120, message = "Максимальный период пересмотра 120 месяцев")
+    private Integer resetIntervalMonths = 1;
+
+    /**
+     * Сколько первых траекторий вернуть целиком в виде изменений ставки.
+     */
+    @Min(value = 0, message = "Число траекторий в ответе должно быть >= 0")
+    private int samplePaths;
+}
@@ -0,0 +1,24 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO результата моделирования плавающей ставки. Итоги приближённые, как у превью.
+ */
+@Value
+@Builder
+public class RateSimulationResultDto {
+    int paths;
+    long seed; // Зерно, с которым результат воспроизводится
+    LoanCurrency currency;
+    PercentilesDto<BigDecimal> totalInterest;
+    PercentilesDto<BigDecimal> maxPayment; // Наибольший регулярный платёж на траектории
+    PercentilesDto<LocalDate> payoffDate;
+    List<List<RateChangeDto>> samplePaths; // Первые траектории как изменения ставки для точного расчёта
+}
@@ -0,0 +1,18 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.util.List;
+
+/**
+ * Один кредит с досрочными платежами в режимах REDUCE_TERM и REDUCE_PAYMENT.
+ * Варианты идут в порядке режимов; график в варианте пустой, если его не запрашивали.
+ */
+@Value
+@Builder
+public class RecalculationComparisonDto {
+    LoanCurrency currency;
+    List<LoanCalculationResponseDto> variants;
+}
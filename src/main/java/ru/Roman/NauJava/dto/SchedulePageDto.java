@@ -0,0 +1,22 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Страница графика платежей для постепенной подгрузки на странице калькулятора.
+ */
+@Value
+@Builder
+public class SchedulePageDto {
+    int offset;
+    int limit;
+    /**
+     * Число строк всего графика; {@code null}, если страница кончилась раньше графика и построение
+     * остановлено на ней. Общее число строк есть в ответе с самим расчётом.
+     */
+    Integer totalRows;
+    List<PaymentScheduleItemDto> items;
+}
@@ -0,0 +1,20 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Чувствительность одного расчёта: строка матрицы — фактор, столбец — показатель из
+ * {@link SensitivityReportDto#getMetrics()}. Деньги с двумя знаками, ПСК — в процентных пунктах с тремя.
+ */
+@Value
+@Builder
+public class SensitivityMatrixDto {
+    Long calculationId;
+    List<String> factors; // interestRate, rateChange[дата], subsidizedRate, durationMonths
+    List<BigDecimal> base; // Показатели без сдвига
+    List<List<BigDecimal>> deltas; // Изменение показателя при сдвиге фактора
+}
@@ -0,0 +1,19 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Чувствительность расчётов к ставке и сроку: общий заголовок и по матрице на расчёт.
+ * Итоги приближённые, как у превью.
+ */
+@Value
+@Builder
+public class SensitivityReportDto {
+    int rateBumpBp; // Сдвиг ставок в базисных пунктах
+    int termBumpMonths; // Сдвиг срока в месяцах
+    List<String> metrics; // totalInterest, monthlyPayment, effectiveRate
+    List<SensitivityMatrixDto> calculations;
+}
@@ -0,0 +1,19 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.util.List;
+
+/**
+ * Сравнение режимов субсидии застройщика на одних параметрах кредита.
+ * Варианты идут в порядке FIXED_PAYMENT, FLOATING_PAYMENT и без субсидии.
+ */
+@Value
+@Builder
+public class SubsidyComparisonDto {
+    LoanCurrency currency;
+    Integer subsidyDurationMonths;
+    List<SubsidyVariantDto> variants;
+}
@@ -0,0 +1,27 @@
+package ru.Roman.NauJava.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Итоги одного варианта в сравнении режимов субсидии.
+ */
+@Value
+@Builder
+public class SubsidyVariantDto {
+    SubsidyMode subsidyMode; // null — без субсидии
+    BigDecimal subsidizedPayment; // Платёж в льготный период
+    BigDecimal fullPayment; // Платёж после окончания субсидии
+    BigDecimal totalPayment;
+    BigDecimal totalInterest;
+    BigDecimal totalSubsidy;
+    BigDecimal rateSubsidy; // Разница процентов по полной и льготной ставке
+    BigDecimal paymentSubsidy; // Проценты сверх фиксированного платежа
+    BigDecimal balanceAfterSubsidy;
+    Integer paymentsCount;
+    LocalDate payoffDate;
+}
@@ -0,0 +1,111 @@
+package ru.Roman.NauJava.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Колоночная запись графика: заголовок с именами колонок и по одному массиву на колонку.
+ * Суммы пишутся целыми в минимальных единицах валюты (копейках/центах, {@value #AMOUNT_SCALE} знака).
+ * Колонка субсидии пропускается, если субсидии в графике нет.
+ * Пишет прямо из строк графика, не собирая промежуточных коллекций.
+ * <pre>
+ * {"rows": 2, "amountScale": 2,
+ *  "columns": ["monthNumber", "paymentDate", "paymentAmount", ...],
+ *  "data": [[1, 2], ["2025-02-17", "2025-03-17"], [888488, 888488], ...]}
+ * </pre>
+ */
+public class ColumnarScheduleSerializer extends StdSerializer<List<PaymentScheduleItemDto>> {
+
+    public static final int AMOUNT_SCALE = 2;
+
+    private enum Column {
+        MONTH_NUMBER("monthNumber"),
+        PAYMENT_DATE("paymentDate"),
+        PAYMENT_AMOUNT("paymentAmount"),
+        PRINCIPAL_PART("principalPart"),
+        INTEREST_PART("interestPart"),
+        REMAINING_DEBT("remainingDebt"),
+        SUBSIDY_AMOUNT("subsidyAmount"),
+        EARLY_PAYMENT("earlyPayment");
+
+        private final String fieldName;
+
+        Column(String fieldName) {
+            this.fieldName = fieldName;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    @SuppressWarnings("unchecked")
+    public ColumnarScheduleSerializer() {
+        super((Class<List<PaymentScheduleItemDto>>) (Class<?>) List.class);
+    }
+
+    @Override
+    public void serialize(List<PaymentScheduleItemDto> schedule, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        boolean withSubsidy = false;
+        for (PaymentScheduleItemDto item : schedule) {
+            if (item.getSubsidyAmount() != null) {
+                withSubsidy = true;
+                break;
+            }
+        }
+
+        gen.writeStartObject();
+        gen.writeNumberField("rows", schedule.size());
+        gen.writeNumberField("amountScale", AMOUNT_SCALE);
+        gen.writeArrayFieldStart("columns");
+        for (Column column : COLUMNS) {
+            if (column != Column.SUBSIDY_AMOUNT || withSubsidy) {
+                gen.writeString(column.fieldName);
+            }
+        }
+        gen.writeEndArray();
+
+        gen.writeArrayFieldStart("data");
+        for (Column column : COLUMNS) {
+            if (column == Column.SUBSIDY_AMOUNT && !withSubsidy) {
+                continue;
+            }
+            gen.writeStartArray();
+            for (PaymentScheduleItemDto item : schedule) {
+                writeCell(gen, column, item);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private static void writeCell(JsonGenerator gen, Column column, PaymentScheduleItemDto item) throws IOException {
+        switch (column) {
+            case MONTH_NUMBER -> gen.writeNumber(item.getMonthNumber());
+            case PAYMENT_DATE -> gen.writeString(item.getPaymentDate().toString());
+            case PAYMENT_AMOUNT -> writeMinorUnits(gen, item.getPaymentAmount());
+            case PRINCIPAL_PART -> writeMinorUnits(gen, item.getPrincipalPart());
+            case INTEREST_PART -> writeMinorUnits(gen, item.getInterestPart());
+            case REMAINING_DEBT -> writeMinorUnits(gen, item.getRemainingDebt());
+            case SUBSIDY_AMOUNT -> writeMinorUnits(gen, item.getSubsidyAmount());
+            case EARLY_PAYMENT -> gen.writeBoolean(item.isEarlyPayment());
+        }
+    }
+
+    private static void writeMinorUnits(JsonGenerator gen, BigDecimal amount) throws IOException {
+        if (amount == null) {
+            gen.writeNull();
+        } else if (amount.scale() == AMOUNT_SCALE) {
+            gen.writeNumber(amount.unscaledValue().longValueExact());
+        } else {
+            gen.writeNumber(amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }
+    }
+}
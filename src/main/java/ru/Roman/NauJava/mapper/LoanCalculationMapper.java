@@ -2,11 +2,15 @@ package ru.Roman.NauJava.mapper;
 
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import ru.Roman.NauJava.domain.entity.LoanCalculation;
 import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.dto.CalculationTraceDto;
+import ru.Roman.NauJava.dto.CalculationTraceStepDto;
 import ru.Roman.NauJava.dto.LoanCalculationHistoryDto;
 import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
 import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.service.engine.CalculationTrace;
 
 import java.util.Collections;
 import java.util.List;
@@ -46,12 +50,14 @@ public class LoanCalculationMapper {
                 .subsidizedRate(calculation.getSubsidizedRate())
                 .subsidyDurationMonths(calculation.getSubsidyDurationMonths())
                 .subsidyMode(calculation.getSubsidyMode())
+                .dayCount(calculation.getDayCount())
                 .totalSubsidy(calculation.getTotalSubsidy())
                 .subsidizedPayment(subsidizedPayment)
                 .fullPayment(fullPayment)
                 .balanceAfterSubsidy(balanceAfterSubsidy)
                 .totalInterest(calculation.getTotalInterest())
                 .totalPayment(calculation.getTotalPayment())
+                .effectiveRate(calculation.getEffectiveRate())
                 .createdAt(calculation.getCreatedAt())
                 .schedule(toScheduleDto(calculation.getScheduleItems()))
                 .build();
@@ -92,10 +98,10 @@ public class LoanCalculationMapper {
         return scheduleItems.stream()
                 .filter(Objects::nonNull)
                 .map(this::toScheduleItemDto)
-                .collect(Collectors.toList());
+                .toList();
     }
 
-    private PaymentScheduleItemDto toScheduleItemDto(PaymentScheduleItem item) {
+    public PaymentScheduleItemDto toScheduleItemDto(PaymentScheduleItem item) {
         return PaymentScheduleItemDto.builder()
                 .monthNumber(item.getMonthNumber())
                 .paymentDate(item.getPaymentDate())
@@ -107,5 +113,23 @@ public class LoanCalculationMapper {
                 .earlyPayment(item.isEarlyPayment())
                 .build();
     }
-}
 
+    public CalculationTraceDto toTraceDto(CalculationTrace trace) {
+        if (trace == null || !trace.enabled()) {
+            return null;
+        }
+        return CalculationTraceDto.builder()
+                .capacity(trace.capacity())
+                .recorded(trace.recorded())
+                .steps(trace.entries().stream()
+                        .map(entry -> CalculationTraceStepDto.builder()
+                                .step(entry.step())
+                                .monthNumber(entry.month())
+                                .date(entry.date())
+                                .value(entry.value())
+                                .remainingDebt(entry.balance().max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
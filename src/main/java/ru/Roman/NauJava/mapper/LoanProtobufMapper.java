@@ -0,0 +1,292 @@
+package ru.Roman.NauJava.mapper;
+
+import com.google.protobuf.ProtocolMessageEnum;
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.proto.v1.EarlyPayment;
+import ru.Roman.NauJava.proto.v1.LoanCalculationRequest;
+import ru.Roman.NauJava.proto.v1.LoanCalculationResponse;
+import ru.Roman.NauJava.proto.v1.PaymentScheduleItem;
+import ru.Roman.NauJava.proto.v1.PeriodicEarlyPayment;
+import ru.Roman.NauJava.proto.v1.RateChange;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Маппер между DTO и сообщениями схемы {@code static/schema/smartloan.proto}.
+ * Суммы переводятся в минимальные единицы валюты ({@value #AMOUNT_SCALE} знака), даты — в дни от эпохи,
+ * значения перечислений сопоставляются по имени без префикса типа.
+ */
+@Component
+public class LoanProtobufMapper {
+
+    public static final int AMOUNT_SCALE = 2;
+
+    private static final String UNSPECIFIED = "UNSPECIFIED";
+
+    /**
+     * Тело запроса; незаданные перечисления и {@code adjust_weekends} оставляют значения по умолчанию DTO.
+     *
+     * @throws IllegalArgumentException если ставка не число или перечисление неизвестно схеме
+     */
+    public LoanCalculationRequestDto toRequest(LoanCalculationRequest message) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        setEnum(message.getLoanType(), "LOAN_TYPE_", LoanType::valueOf, request::setLoanType);
+        setEnum(message.getCurrency(), "LOAN_CURRENCY_", LoanCurrency::valueOf, request::setCurrency);
+        request.setPrincipal(fromMinor(message.getPrincipalMinor()));
+        request.setInterestRate(decimal(message.getInterestRate()));
+        request.setDurationMonths(message.getDurationMonths());
+        setEnum(message.getPaymentType(), "PAYMENT_TYPE_", PaymentType::valueOf, request::setPaymentType);
+        if (message.hasDisbursementDateEpochDay()) {
+            request.setDisbursementDate(LocalDate.ofEpochDay(message.getDisbursementDateEpochDay()));
+        }
+        setEnum(message.getRecalculationMode(), "RECALCULATION_MODE_", RecalculationMode::valueOf,
+                request::setRecalculationMode);
+        for (RateChange change : message.getRateChangesList()) {
+            RateChangeDto dto = new RateChangeDto();
+            dto.setStartDate(LocalDate.ofEpochDay(change.getStartDateEpochDay()));
+            dto.setNewRate(decimal(change.getNewRate()));
+            request.getRateChanges().add(dto);
+        }
+        for (EarlyPayment payment : message.getEarlyPaymentsList()) {
+            EarlyPaymentDto dto = new EarlyPaymentDto();
+            dto.setPaymentDate(LocalDate.ofEpochDay(payment.getPaymentDateEpochDay()));
+            dto.setAmount(fromMinor(payment.getAmountMinor()));
+            setEnum(payment.getApplicationMode(), "EARLY_PAYMENT_APPLICATION_MODE_",
+                    EarlyPaymentApplicationMode::valueOf, dto::setApplicationMode);
+            request.getEarlyPayments().add(dto);
+        }
+        for (PeriodicEarlyPayment payment : message.getPeriodicEarlyPaymentsList()) {
+            PeriodicEarlyPaymentDto dto = new PeriodicEarlyPaymentDto();
+            dto.setStartDate(LocalDate.ofEpochDay(payment.getStartDateEpochDay()));
+            if (payment.hasEndDateEpochDay()) {
+                dto.setEndDate(LocalDate.ofEpochDay(payment.getEndDateEpochDay()));
+            }
+            dto.setIntervalMonths(payment.getIntervalMonths());
+            dto.setAmount(fromMinor(payment.getAmountMinor()));
+            setEnum(payment.getApplicationMode(), "EARLY_PAYMENT_APPLICATION_MODE_",
+                    EarlyPaymentApplicationMode::valueOf, dto::setApplicationMode);
+            request.getPeriodicEarlyPayments().add(dto);
+        }
+        request.setSaveToHistory(message.getSaveToHistory());
+        if (message.hasAdjustWeekends()) {
+            request.setAdjustWeekends(message.getAdjustWeekends());
+        }
+        request.setDeveloperSubsidy(message.getDeveloperSubsidy());
+        if (message.hasSubsidizedRate()) {
+            request.setSubsidizedRate(decimal(message.getSubsidizedRate()));
+        }
+        if (message.hasSubsidyDurationMonths()) {
+            request.setSubsidyDurationMonths(message.getSubsidyDurationMonths());
+        }
+        setEnum(message.getSubsidyMode(), "SUBSIDY_MODE_", SubsidyMode::valueOf, request::setSubsidyMode);
+        setEnum(message.getDayCount(), "DAY_COUNT_CONVENTION_", DayCountConvention::valueOf, request::setDayCount);
+        if (message.hasSubsidizedPaymentAmountMinor()) {
+            request.setSubsidizedPaymentAmount(fromMinor(message.getSubsidizedPaymentAmountMinor()));
+        }
+        return request;
+    }
+
+    public LoanCalculationRequest toMessage(LoanCalculationRequestDto request) {
+        LoanCalculationRequest.Builder builder = LoanCalculationRequest.newBuilder()
+                .setLoanType(protoEnum(request.getLoanType(), "LOAN_TYPE_",
+                        ru.Roman.NauJava.proto.v1.LoanType::valueOf))
+                .setCurrency(protoEnum(request.getCurrency(), "LOAN_CURRENCY_",
+                        ru.Roman.NauJava.proto.v1.LoanCurrency::valueOf))
+                .setPaymentType(protoEnum(request.getPaymentType(), "PAYMENT_TYPE_",
+                        ru.Roman.NauJava.proto.v1.PaymentType::valueOf))
+                .setRecalculationMode(protoEnum(request.getRecalculationMode(), "RECALCULATION_MODE_",
+                        ru.Roman.NauJava.proto.v1.RecalculationMode::valueOf))
+                .setSubsidyMode(protoEnum(request.getSubsidyMode(), "SUBSIDY_MODE_",
+                        ru.Roman.NauJava.proto.v1.SubsidyMode::valueOf))
+                .setDayCount(protoEnum(request.getDayCount(), "DAY_COUNT_CONVENTION_",
+                        ru.Roman.NauJava.proto.v1.DayCountConvention::valueOf))
+                .setSaveToHistory(request.isSaveToHistory())
+                .setAdjustWeekends(request.isAdjustWeekends())
+                .setDeveloperSubsidy(request.isDeveloperSubsidy())
+                .setDurationMonths(request.resolveDurationMonths());
+        if (request.getPrincipal() != null) {
+            builder.setPrincipalMinor(toMinor(request.getPrincipal()));
+        }
+        if (request.getInterestRate() != null) {
+            builder.setInterestRate(request.getInterestRate().toPlainString());
+        }
+        if (request.getDisbursementDate() != null) {
+            builder.setDisbursementDateEpochDay((int) request.getDisbursementDate().toEpochDay());
+        }
+        for (RateChangeDto change : request.getRateChanges()) {
+            builder.addRateChanges(RateChange.newBuilder()
+                    .setStartDateEpochDay((int) change.getStartDate().toEpochDay())
+                    .setNewRate(change.getNewRate().toPlainString()));
+        }
+        for (EarlyPaymentDto payment : request.getEarlyPayments()) {
+            builder.addEarlyPayments(EarlyPayment.newBuilder()
+                    .setPaymentDateEpochDay((int) payment.getPaymentDate().toEpochDay())
+                    .setAmountMinor(toMinor(payment.getAmount()))
+                    .setApplicationMode(protoEnum(payment.getApplicationMode(), "EARLY_PAYMENT_APPLICATION_MODE_",
+                            ru.Roman.NauJava.proto.v1.EarlyPaymentApplicationMode::valueOf)));
+        }
+        for (PeriodicEarlyPaymentDto payment : request.getPeriodicEarlyPayments()) {
+            PeriodicEarlyPayment.Builder periodic = PeriodicEarlyPayment.newBuilder()
+                    .setStartDateEpochDay((int) payment.getStartDate().toEpochDay())
+                    .setIntervalMonths(payment.getIntervalMonths())
+                    .setAmountMinor(toMinor(payment.getAmount()))
+                    .setApplicationMode(protoEnum(payment.getApplicationMode(), "EARLY_PAYMENT_APPLICATION_MODE_",
+                            ru.Roman.NauJava.proto.v1.EarlyPaymentApplicationMode::valueOf));
+            if (payment.getEndDate() != null) {
+                periodic.setEndDateEpochDay((int) payment.getEndDate().toEpochDay());
+            }
+            builder.addPeriodicEarlyPayments(periodic);
+        }
+        if (request.getSubsidizedRate() != null) {
+            builder.setSubsidizedRate(request.getSubsidizedRate().toPlainString());
+        }
+        if (request.getSubsidyDurationMonths() != null) {
+            builder.setSubsidyDurationMonths(request.getSubsidyDurationMonths());
+        }
+        if (request.getSubsidizedPaymentAmount() != null) {
+            builder.setSubsidizedPaymentAmountMinor(toMinor(request.getSubsidizedPaymentAmount()));
+        }
+        return builder.build();
+    }
+
+    public LoanCalculationResponse toMessage(LoanCalculationResponseDto response) {
+        LoanCalculationResponse.Builder builder = LoanCalculationResponse.newBuilder()
+                .setLoanType(protoEnum(response.getLoanType(), "LOAN_TYPE_",
+                        ru.Roman.NauJava.proto.v1.LoanType::valueOf))
+                .setPaymentType(protoEnum(response.getPaymentType(), "PAYMENT_TYPE_",
+                        ru.Roman.NauJava.proto.v1.PaymentType::valueOf))
+                .setCurrency(protoEnum(response.getCurrency(), "LOAN_CURRENCY_",
+                        ru.Roman.NauJava.proto.v1.LoanCurrency::valueOf))
+                .setRecalculationMode(protoEnum(response.getRecalculationMode(), "RECALCULATION_MODE_",
+                        ru.Roman.NauJava.proto.v1.RecalculationMode::valueOf))
+                .setSubsidyMode(protoEnum(response.getSubsidyMode(), "SUBSIDY_MODE_",
+                        ru.Roman.NauJava.proto.v1.SubsidyMode::valueOf))
+                .setDayCount(protoEnum(response.getDayCount(), "DAY_COUNT_CONVENTION_",
+                        ru.Roman.NauJava.proto.v1.DayCountConvention::valueOf))
+                .setAdjustWeekends(response.isAdjustWeekends())
+                .setDeveloperSubsidy(response.isDeveloperSubsidy());
+        if (response.getId() != null) {
+            builder.setId(response.getId());
+        }
+        if (response.getPrincipal() != null) {
+            builder.setPrincipalMinor(toMinor(response.getPrincipal()));
+        }
+        if (response.getInterestRate() != null) {
+            builder.setInterestRate(response.getInterestRate().toPlainString());
+        }
+        if (response.getDurationMonths() != null) {
+            builder.setDurationMonths(response.getDurationMonths());
+        }
+        if (response.getDisbursementDate() != null) {
+            builder.setDisbursementDateEpochDay((int) response.getDisbursementDate().toEpochDay());
+        }
+        if (response.getFirstPaymentDate() != null) {
+            builder.setFirstPaymentDateEpochDay((int) response.getFirstPaymentDate().toEpochDay());
+        }
+        if (response.getSubsidizedRate() != null) {
+            builder.setSubsidizedRate(response.getSubsidizedRate().toPlainString());
+        }
+        if (response.getSubsidyDurationMonths() != null) {
+            builder.setSubsidyDurationMonths(response.getSubsidyDurationMonths());
+        }
+        if (response.getTotalSubsidy() != null) {
+            builder.setTotalSubsidyMinor(toMinor(response.getTotalSubsidy()));
+        }
+        if (response.getSubsidizedPayment() != null) {
+            builder.setSubsidizedPaymentMinor(toMinor(response.getSubsidizedPayment()));
+        }
+        if (response.getFullPayment() != null) {
+            builder.setFullPaymentMinor(toMinor(response.getFullPayment()));
+        }
+        if (response.getBalanceAfterSubsidy() != null) {
+            builder.setBalanceAfterSubsidyMinor(toMinor(response.getBalanceAfterSubsidy()));
+        }
+        if (response.getTotalInterest() != null) {
+            builder.setTotalInterestMinor(toMinor(response.getTotalInterest()));
+        }
+        if (response.getTotalPayment() != null) {
+            builder.setTotalPaymentMinor(toMinor(response.getTotalPayment()));
+        }
+        if (response.getEffectiveRate() != null) {
+            builder.setEffectiveRate(response.getEffectiveRate().toPlainString());
+        }
+        if (response.getCreatedAt() != null) {
+            builder.setCreatedAtEpochMillis(response.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (response.getSchedule() != null) {
+            for (PaymentScheduleItemDto item : response.getSchedule()) {
+                builder.addSchedule(toMessage(item));
+            }
+        }
+        return builder.build();
+    }
+
+    private PaymentScheduleItem toMessage(PaymentScheduleItemDto item) {
+        PaymentScheduleItem.Builder builder = PaymentScheduleItem.newBuilder()
+                .setMonthNumber(item.getMonthNumber())
+                .setPaymentDateEpochDay((int) item.getPaymentDate().toEpochDay())
+                .setPaymentAmountMinor(toMinor(item.getPaymentAmount()))
+                .setPrincipalPartMinor(toMinor(item.getPrincipalPart()))
+                .setInterestPartMinor(toMinor(item.getInterestPart()))
+                .setRemainingDebtMinor(toMinor(item.getRemainingDebt()))
+                .setEarlyPayment(item.isEarlyPayment());
+        if (item.getSubsidyAmount() != null) {
+            builder.setSubsidyAmountMinor(toMinor(item.getSubsidyAmount()));
+        }
+        return builder.build();
+    }
+
+    static long toMinor(BigDecimal amount) {
+        BigDecimal scaled = amount.scale() == AMOUNT_SCALE ? amount : amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, AMOUNT_SCALE);
+    }
+
+    private static BigDecimal decimal(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное десятичное число: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> void setEnum(ProtocolMessageEnum value, String prefix,
+                                                    Function<String, E> valueOf, Consumer<E> setter) {
+        String name = ((Enum<?>) value).name();
+        if (name.equals(prefix + UNSPECIFIED)) {
+            return;
+        }
+        if (!name.startsWith(prefix)) {
+            throw new IllegalArgumentException("Неизвестное значение перечисления: " + name);
+        }
+        setter.accept(valueOf.apply(name.substring(prefix.length())));
+    }
+
+    private static <P> P protoEnum(Enum<?> value, String prefix, Function<String, P> valueOf) {
+        return valueOf.apply(prefix + (value != null ? value.name() : UNSPECIFIED));
+    }
+}
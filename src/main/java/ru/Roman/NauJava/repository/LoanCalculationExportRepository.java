@@ -0,0 +1,147 @@
+package ru.Roman.NauJava.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import ru.Roman.NauJava.dto.LoanCalculationFilterDto;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение истории для выгрузки и сводок: плоские строки заголовков расчётов или графиков через
+ * forward-only курсор, без загрузки сущностей, графиков и досрочных платежей.
+ * Условия фильтра совпадают с {@code LoanCalculationSpecifications}.
+ * Для PostgreSQL курсор с {@code fetchSize} работает только внутри транзакции.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LoanCalculationExportRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SELECT = """
+            select c.id, u.username, c.created_at, c.loan_type, c.currency, c.payment_type,
+                   c.principal, c.interest_rate, c.duration_months,
+                   c.total_payment, c.total_interest, c.total_subsidy
+            from loan_calculations c
+            left join users u on u.id = c.user_id
+            """;
+
+    private static final String SELECT_SCHEDULES = """
+            select c.id, c.currency, c.disbursement_date, c.principal,
+                   s.payment_date, s.payment_amount, s.interest_part
+            from loan_calculations c
+            left join users u on u.id = c.user_id
+            left join payment_schedule s on s.calculation_id = c.id
+            """;
+
+    private static final String SELECT_SCHEDULE = """
+            select s.month_number, s.payment_date, s.payment_amount, s.principal_part, s.interest_part,
+                   s.remaining_debt, s.subsidy_amount, s.early_payment
+            from payment_schedule s
+            where s.calculation_id = ?
+            order by s.month_number, s.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param username владелец расчётов; {@code null} — выгрузка по всем пользователям
+     */
+    public void streamHistory(@Nullable LoanCalculationFilterDto filter, @Nullable String username,
+                              RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = where(new StringBuilder(SELECT), filter, username, args);
+        sql.append(" order by c.created_at desc, c.id desc");
+        stream(sql.toString(), args, handler);
+    }
+
+    /**
+     * Строки графиков отфильтрованной истории с полями заголовка расчёта. Строки одного расчёта идут подряд
+     * по дате платежа; расчёт без графика даёт одну строку с пустыми полями графика.
+     *
+     * @param username владелец расчётов; {@code null} — по всем пользователям
+     */
+    public void streamSchedules(@Nullable LoanCalculationFilterDto filter, @Nullable String username,
+                                RowCallbackHandler handler) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = where(new StringBuilder(SELECT_SCHEDULES), filter, username, args);
+        sql.append(" order by c.created_at desc, c.id desc, s.payment_date, s.id");
+        stream(sql.toString(), args, handler);
+    }
+
+    /**
+     * Сохранённые строки графика одного расчёта в порядке их расчёта. Владелец не проверяется.
+     */
+    public void streamSchedule(long calculationId, RowCallbackHandler handler) {
+        stream(SELECT_SCHEDULE, List.of(calculationId), handler);
+    }
+
+    private static StringBuilder where(StringBuilder sql, @Nullable LoanCalculationFilterDto filter,
+                                       @Nullable String username, List<Object> args) {
+        sql.append("where 1 = 1");
+        if (username != null) {
+            sql.append(" and u.username = ?");
+            args.add(username);
+        }
+        if (filter != null) {
+            if (filter.getFromDate() != null) {
+                sql.append(" and c.created_at >= ?");
+                args.add(Timestamp.valueOf(filter.getFromDate().atStartOfDay()));
+            }
+            if (filter.getToDate() != null) {
+                sql.append(" and c.created_at <= ?");
+                args.add(Timestamp.valueOf(LocalDateTime.of(filter.getToDate(), LocalTime.MAX)));
+            }
+            if (filter.getLoanType() != null) {
+                sql.append(" and c.loan_type = ?");
+                args.add(filter.getLoanType().name());
+            }
+            if (filter.getPaymentType() != null) {
+                sql.append(" and c.payment_type = ?");
+                args.add(filter.getPaymentType().name());
+            }
+            if (filter.getCurrency() != null) {
+                sql.append(" and c.currency = ?");
+                args.add(filter.getCurrency().name());
+            }
+            if (filter.getMinPrincipal() != null) {
+                sql.append(" and c.principal >= ?");
+                args.add(filter.getMinPrincipal());
+            }
+            if (filter.getMaxPrincipal() != null) {
+                sql.append(" and c.principal <= ?");
+                args.add(filter.getMaxPrincipal());
+            }
+            if (filter.getMinRate() != null) {
+                sql.append(" and c.interest_rate >= ?");
+                args.add(filter.getMinRate());
+            }
+            if (filter.getMaxRate() != null) {
+                sql.append(" and c.interest_rate <= ?");
+                args.add(filter.getMaxRate());
+            }
+        }
+        return sql;
+    }
+
+    private void stream(String sql, List<Object> args, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, handler);
+    }
+}
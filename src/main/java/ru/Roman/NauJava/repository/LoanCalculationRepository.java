@@ -1,9 +1,13 @@
 package ru.Roman.NauJava.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.Roman.NauJava.domain.entity.LoanCalculation;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +19,38 @@ public interface LoanCalculationRepository extends JpaRepository<LoanCalculation
 
     List<LoanCalculation> findAllByUserUsernameOrderByCreatedAtDesc(String username);
 
-    Optional<LoanCalculation> findByIdAndUserUsername(Long id, String username);
+    /**
+     * Страница истории пользователя без запроса общего количества.
+     */
+    List<LoanCalculation> findAllByUserUsername(String username, Pageable pageable);
+
+    /**
+     * Страница всей истории без запроса общего количества.
+     */
+    List<LoanCalculation> findAllBy(Pageable pageable);
+
+    @Query("select c.createdAt from LoanCalculation c where c.id = :id")
+    Optional<LocalDateTime> findCreatedAtById(@Param("id") Long id);
+
+    @Query("select c.createdAt from LoanCalculation c where c.id = :id and c.user.username = :username")
+    Optional<LocalDateTime> findCreatedAtByIdAndUsername(@Param("id") Long id, @Param("username") String username);
+
+    @Query("select count(c) as count, max(c.id) as lastId, max(c.createdAt) as lastCreatedAt "
+            + "from LoanCalculation c where c.user.username = :username")
+    HistoryVersion findHistoryVersion(@Param("username") String username);
+
+    @Query("select count(c) as count, max(c.id) as lastId, max(c.createdAt) as lastCreatedAt from LoanCalculation c")
+    HistoryVersion findHistoryVersion();
+
+    /**
+     * Состояние истории для слабого ETag: меняется при любом сохранении или удалении.
+     */
+    interface HistoryVersion {
+        long getCount();
+
+        Long getLastId();
+
+        LocalDateTime getLastCreatedAt();
+    }
 }
 
@@ -0,0 +1,288 @@
+package ru.Roman.NauJava.service;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+import ru.Roman.NauJava.domain.enums.GoalSeekTarget;
+import ru.Roman.NauJava.dto.GoalSeekRequestDto;
+import ru.Roman.NauJava.dto.GoalSeekResultDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+import ru.Roman.NauJava.service.engine.LoanSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+
+/**
+ * Обратный расчёт: подбор суммы, срока или ежемесячного досрочного платежа под цель клиента.
+ * Для аннуитета и дифференцированных платежей без изменений ставки, досрочных платежей и субсидии
+ * искомое находится обращением формулы платежа; в остальных случаях — бисекцией по копейкам или месяцам
+ * поверх {@link ApproximateLoanEngine}, который считает только итоги. Ответ укладывается в единицы миллисекунд.
+ * Запрос клиента не изменяется: подбор идёт на его копии.
+ */
+@Service
+@RequiredArgsConstructor
+public class GoalSeekService {
+
+    private static final double CENTS = 100.0;
+    private static final double MONTHS_IN_YEAR = 12.0;
+    private static final BigDecimal MIN_PRINCIPAL = new BigDecimal("1000.00");
+    private static final BigDecimal MAX_PRINCIPAL = new BigDecimal("100000000.00");
+    private static final int MAX_DURATION_MONTHS = 600;
+
+    private final Validator validator;
+
+    /**
+     * Прогоны движка с подсчётом: число попадает в ответ и показывает цену поиска.
+     */
+    private static final class Evaluations {
+
+        private int count;
+
+        LoanSummary run(FastLoanModel model) {
+            count++;
+            return ApproximateLoanEngine.run(model);
+        }
+    }
+
+    public GoalSeekResultDto solve(GoalSeekRequestDto request) {
+        GoalSeekTarget target = request.getTarget();
+        validate(request.getLoan(), target);
+        LoanCalculationRequestDto loan = request.getLoan().copy();
+        if (target == GoalSeekTarget.PRINCIPAL && loan.getPrincipal() == null) {
+            // Сумма — искомое; в модель нужна любая, дальше она подменяется через withPrincipal
+            loan.setPrincipal(MIN_PRINCIPAL);
+        }
+        FastLoanModel model = FastLoanModel.from(loan);
+        return switch (target) {
+            case PRINCIPAL -> solvePrincipal(loan, model, requireMaxPayment(request));
+            case DURATION -> solveDuration(loan, model, requireMaxPayment(request));
+            case EARLY_PAYMENT -> solveEarlyPayment(loan, model, request.getPayoffDate());
+        };
+    }
+
+    /**
+     * Наибольшая сумма, при которой наибольший регулярный платёж не превышает {@code maxPayment}.
+     */
+    private GoalSeekResultDto solvePrincipal(LoanCalculationRequestDto loan, FastLoanModel model, double maxPayment) {
+        Evaluations evaluations = new Evaluations();
+        int months = model.durationMonths();
+        double maxPrincipal = MAX_PRINCIPAL.doubleValue();
+        boolean closedForm = closedFormApplicable(loan, model);
+        long cents;
+        if (closedForm) {
+            double monthlyRate = model.baseRate() / MONTHS_IN_YEAR;
+            double principal;
+            if (model.differential()) {
+                principal = maxPayment / (1.0 / months + monthlyRate);
+            } else if (monthlyRate == 0) {
+                principal = maxPayment * months;
+            } else {
+                principal = maxPayment * (1 - Math.pow(1 + monthlyRate, -months)) / monthlyRate;
+            }
+            cents = (long) Math.floor(Math.min(principal, maxPrincipal) * CENTS);
+            // Платёж округляется до копеек, поэтому граница может уйти вверх на несколько копеек (у длинного
+            // кредита — на рубли): отступаем шагами с удвоением до подходящей суммы и уточняем бисекцией
+            if (evaluations.run(model.withPrincipal(cents / CENTS)).maxPayment() > maxPayment) {
+                long high = cents;
+                long step = 1;
+                long low = Math.max(0, high - step);
+                while (low > 0 && evaluations.run(model.withPrincipal(low / CENTS)).maxPayment() > maxPayment) {
+                    high = low;
+                    step <<= 1;
+                    low = Math.max(0, high - step);
+                }
+                cents = largestPrincipal(model, maxPayment, low, high, evaluations);
+            }
+        } else {
+            // Платёж не меньше principal / months, поэтому maxPayment · months — заведомо верхняя граница
+            long high = (long) Math.ceil(Math.min(maxPayment * months, maxPrincipal) * CENTS);
+            cents = evaluations.run(model.withPrincipal(high / CENTS)).maxPayment() <= maxPayment
+                    ? high
+                    : largestPrincipal(model, maxPayment, 0, high, evaluations);
+        }
+        double principal = cents / CENTS;
+        if (principal < MIN_PRINCIPAL.doubleValue()) {
+            throw new IllegalArgumentException("При таком платеже сумма кредита меньше минимальной ("
+                    + MIN_PRINCIPAL.toPlainString() + ")");
+        }
+        FastLoanModel solved = model.withPrincipal(principal);
+        return result(loan, GoalSeekTarget.PRINCIPAL, closedForm, evaluations, solved, null,
+                evaluations.run(solved));
+    }
+
+    /**
+     * Бисекция по копейкам: {@code low} укладывается в платёж (ноль — всегда), {@code high} — нет.
+     *
+     * @return наибольшая сумма в копейках, при которой наибольший платёж не превышает {@code maxPayment}
+     */
+    private static long largestPrincipal(FastLoanModel model, double maxPayment, long low, long high,
+                                         Evaluations evaluations) {
+        while (high - low > 1) {
+            long middle = (low + high) >>> 1;
+            if (evaluations.run(model.withPrincipal(middle / CENTS)).maxPayment() <= maxPayment) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Наименьший срок, при котором наибольший регулярный платёж не превышает {@code maxPayment}.
+     */
+    private GoalSeekResultDto solveDuration(LoanCalculationRequestDto loan, FastLoanModel model, double maxPayment) {
+        Evaluations evaluations = new Evaluations();
+        boolean closedForm = closedFormApplicable(loan, model);
+        int months;
+        if (closedForm) {
+            double principal = model.principal();
+            double monthlyRate = model.baseRate() / MONTHS_IN_YEAR;
+            double interest = principal * monthlyRate;
+            if (maxPayment <= interest) {
+                throw new IllegalArgumentException("Платёж не покрывает проценты первого месяца");
+            }
+            double exact = model.differential() || monthlyRate == 0
+                    ? principal / (maxPayment - interest)
+                    : -Math.log(1 - interest / maxPayment) / Math.log(1 + monthlyRate);
+            months = (int) Math.max(1, Math.ceil(exact - 1e-9));
+            while (months <= MAX_DURATION_MONTHS
+                    && evaluations.run(model.withDurationMonths(months)).maxPayment() > maxPayment) {
+                months++;
+            }
+        } else {
+            if (evaluations.run(model.withDurationMonths(MAX_DURATION_MONTHS)).maxPayment() > maxPayment) {
+                months = MAX_DURATION_MONTHS + 1;
+            } else {
+                int low = 0;
+                int high = MAX_DURATION_MONTHS;
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    if (evaluations.run(model.withDurationMonths(middle)).maxPayment() <= maxPayment) {
+                        high = middle;
+                    } else {
+                        low = middle;
+                    }
+                }
+                months = high;
+            }
+        }
+        if (months > MAX_DURATION_MONTHS) {
+            throw new IllegalArgumentException("Платёж не укладывается в срок до " + MAX_DURATION_MONTHS + " месяцев");
+        }
+        FastLoanModel solved = model.withDurationMonths(months);
+        return result(loan, GoalSeekTarget.DURATION, closedForm, evaluations, solved, null,
+                evaluations.run(solved));
+    }
+
+    /**
+     * Наименьший ежемесячный досрочный платёж, после которого последний платёж приходится не позже {@code payoffDate}.
+     * Замкнутой формулы с учётом переносов дат и перерасчёта нет, поэтому всегда бисекция по копейкам.
+     */
+    private GoalSeekResultDto solveEarlyPayment(LoanCalculationRequestDto loan, FastLoanModel model,
+                                                LocalDate payoffDate) {
+        if (payoffDate == null) {
+            throw new IllegalArgumentException("Для подбора досрочного платежа нужна дата погашения");
+        }
+        Evaluations evaluations = new Evaluations();
+        int targetDay = (int) payoffDate.toEpochDay();
+        long low = 0;
+        long high = (long) Math.ceil(model.principal() * CENTS);
+        LoanSummary base = evaluations.run(model);
+        if (base.payoffDay() <= targetDay) {
+            return result(loan, GoalSeekTarget.EARLY_PAYMENT, false, evaluations, model, 0.0, base);
+        }
+        if (evaluations.run(model.withMonthlyEarlyPayment(high / CENTS)).payoffDay() > targetDay) {
+            throw new IllegalArgumentException("Кредит нельзя погасить раньше первого платежа");
+        }
+        while (high - low > 1) {
+            long middle = (low + high) >>> 1;
+            if (evaluations.run(model.withMonthlyEarlyPayment(middle / CENTS)).payoffDay() <= targetDay) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+        double amount = high / CENTS;
+        FastLoanModel solved = model.withMonthlyEarlyPayment(amount);
+        return result(loan, GoalSeekTarget.EARLY_PAYMENT, false, evaluations, solved, amount,
+                evaluations.run(solved));
+    }
+
+    /**
+     * Формулу платежа можно обратить, только если он постоянен: без субсидии, досрочных платежей
+     * и изменений ставки; для дифференцированных платежей — ещё и при равных месяцах, когда первый платёж наибольший.
+     */
+    private static boolean closedFormApplicable(LoanCalculationRequestDto loan, FastLoanModel model) {
+        if (model.subsidized() || model.eventDays().length > 0) {
+            return false;
+        }
+        if (model.differential() && loan.getDayCount() != null && loan.getDayCount() != DayCountConvention.MONTHLY) {
+            return false;
+        }
+        for (double rate : model.periodRates()) {
+            if (rate != model.baseRate()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет параметры кредита теми же ограничениями, что и форма, кроме ограничений искомого поля.
+     */
+    private void validate(LoanCalculationRequestDto loan, GoalSeekTarget target) {
+        if (target == null || loan == null) {
+            throw new IllegalArgumentException("Нужны искомый параметр и параметры кредита");
+        }
+        String solvedProperty = switch (target) {
+            case PRINCIPAL -> "principal";
+            case DURATION -> "durationMonths";
+            case EARLY_PAYMENT -> null;
+        };
+        String errors = validator.validate(loan).stream()
+                .filter(v -> !v.getPropertyPath().toString().equals(solvedProperty))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(errors);
+        }
+    }
+
+    private static double requireMaxPayment(GoalSeekRequestDto request) {
+        if (request.getMaxPayment() == null || request.getMaxPayment().signum() <= 0) {
+            throw new IllegalArgumentException("Для подбора суммы и срока нужен предельный платёж");
+        }
+        return request.getMaxPayment().doubleValue();
+    }
+
+    private static GoalSeekResultDto result(LoanCalculationRequestDto loan, GoalSeekTarget target, boolean closedForm,
+                                            Evaluations evaluations, FastLoanModel model, Double monthlyEarlyPayment,
+                                            LoanSummary summary) {
+        return GoalSeekResultDto.builder()
+                .target(target)
+                .closedForm(closedForm)
+                .evaluations(evaluations.count)
+                .currency(loan.getCurrency())
+                .principal(toMoney(model.principal()))
+                .durationMonths(model.durationMonths())
+                .monthlyEarlyPayment(monthlyEarlyPayment != null ? toMoney(monthlyEarlyPayment) : null)
+                .monthlyPayment(toMoney(summary.firstPayment()))
+                .maxPayment(toMoney(summary.maxPayment()))
+                .totalPayment(toMoney(summary.totalPayment()))
+                .totalInterest(toMoney(summary.totalInterest()))
+                .paymentsCount(summary.payments())
+                .payoffDate(LocalDate.ofEpochDay(summary.payoffDay()))
+                .build();
+    }
+
+    private static BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -1,8 +1,12 @@
 package ru.Roman.NauJava.service;
 
+import io.micrometer.core.instrument.Tags;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.lang.Nullable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -12,23 +16,26 @@ import ru.Roman.NauJava.domain.entity.LoanCalculation;
 import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
 import ru.Roman.NauJava.domain.entity.RateChange;
 import ru.Roman.NauJava.domain.entity.User;
-import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
 import ru.Roman.NauJava.domain.enums.EarlyPaymentKind;
-import ru.Roman.NauJava.domain.enums.PaymentType;
 import ru.Roman.NauJava.domain.enums.RecalculationMode;
-import ru.Roman.NauJava.domain.enums.SubsidyMode;
 import ru.Roman.NauJava.domain.enums.UserRole;
 import ru.Roman.NauJava.dto.*;
 import ru.Roman.NauJava.mapper.LoanCalculationMapper;
 import ru.Roman.NauJava.repository.LoanCalculationRepository;
 import ru.Roman.NauJava.repository.UserRepository;
 import ru.Roman.NauJava.repository.specification.LoanCalculationSpecifications;
+import ru.Roman.NauJava.service.engine.CalculationTrace;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.engine.ScheduleSink;
+import ru.Roman.NauJava.service.engine.ScheduleSummary;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics.Phase;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -44,75 +51,143 @@ public class LoanCalculationService {
     private final LoanCalculationRepository calculationRepository;
     private final UserRepository userRepository;
     private final LoanCalculationMapper calculationMapper;
+    private final CalculationMetrics calculationMetrics;
+    private final ScheduleEngine scheduleEngine;
+    private final InFlightCalculations inFlightCalculations;
 
-    private static final MathContext MC = new MathContext(12, RoundingMode.HALF_UP);
-    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
-    private static final BigDecimal TWELVE = new BigDecimal("12");
-    private static final int MAX_CALCULATION_MONTHS = 720;
-    private static final BigDecimal EPS = new BigDecimal("0.009");
-
-    private record EarlyPaymentEvent(LocalDate date, BigDecimal amount, EarlyPaymentApplicationMode mode) {
-    }
-
-    private record RatePeriod(LocalDate start, BigDecimal rate) {
-    }
-
-    private record ScheduleResult(List<PaymentScheduleItem> schedule,
-                                  BigDecimal totalPayment,
-                                  BigDecimal totalInterest,
-                                  BigDecimal totalSubsidy,
-                                  BigDecimal subsidizedPayment,
-                                  BigDecimal fullPayment,
-                                  BigDecimal balanceAfterSubsidy) {
-    }
+    /**
+     * Шагов трассировки в ответе: хватает на 60 лет помесячных платежей с досрочными погашениями.
+     */
+    private static final int TRACE_CAPACITY = 4096;
 
     /**
      * Выполняет расчёт и опционально сохраняет результат в историю.
      */
     @Transactional
     public LoanCalculationResponseDto calculate(LoanCalculationRequestDto request, @Nullable String username) {
+        return calculate(request, username, false);
+    }
+
+    /**
+     * То же, с трассировкой шагов расчёта в ответе при {@code traced}.
+     * Одинаковые расчёты без сохранения и трассировки, идущие одновременно, выполняются один раз.
+     */
+    @Transactional
+    public LoanCalculationResponseDto calculate(LoanCalculationRequestDto request, @Nullable String username,
+                                                boolean traced) {
         if (request.getDisbursementDate() == null) {
             throw new IllegalArgumentException("Дата выдачи обязательна");
         }
         if (request.resolveFirstPaymentDate() == null) {
             throw new IllegalArgumentException("Не удалось вычислить дату первого платежа");
         }
-        ScheduleResult result = buildSchedule(request);
+        boolean persist = shouldPersist(request, username);
+        if (persist || traced) {
+            return compute(request, username, persist, traced);
+        }
+        return inFlightCalculations.calculate(request, () -> compute(request, null, false, false));
+    }
 
-        LoanCalculation calculation = LoanCalculation.builder()
-                .loanType(request.getLoanType())
-                .currency(request.getCurrency())
-                .principal(request.getPrincipal().setScale(2, RoundingMode.HALF_UP))
-                .interestRate(request.getInterestRate())
-                .durationMonths(request.resolveDurationMonths())
-                .paymentType(request.getPaymentType())
-                .recalculationMode(request.getRecalculationMode())
-                .disbursementDate(request.getDisbursementDate())
-                .firstPaymentDate(request.resolveFirstPaymentDate())
-                .adjustWeekends(request.isAdjustWeekends())
-                .developerSubsidy(request.isDeveloperSubsidy())
-                .subsidizedRate(request.getSubsidizedRate())
-                .subsidyDurationMonths(request.getSubsidyDurationMonths())
-                .subsidyMode(request.getSubsidyMode())
-                .totalSubsidy(result.totalSubsidy())
-                .totalInterest(result.totalInterest())
-                .totalPayment(result.totalPayment())
-                .build();
+    private LoanCalculationResponseDto compute(LoanCalculationRequestDto request, @Nullable String username,
+                                               boolean persist, boolean traced) {
+        Tags tags = calculationMetrics.tags(request, scheduleEngine.isSubsidized(request), persist);
+        List<PaymentScheduleItem> schedule = new ArrayList<>();
+        CalculationTrace trace = traced ? CalculationTrace.withCapacity(TRACE_CAPACITY) : CalculationTrace.OFF;
+        ScheduleSummary result = scheduleEngine.build(request, schedule::add, tags, trace);
+        calculationMetrics.recordScheduleSize(tags, result.rows(), result.earlyPaymentEvents());
 
-        attachEarlyPayments(calculation, request);
-        attachRateChanges(calculation, request);
-        attachSchedule(calculation, result.schedule());
+        LoanCalculation calculation = toEntity(request, result);
 
-        if (shouldPersist(request, username)) {
+        calculationMetrics.time(Phase.ENTITY_ATTACHMENT, tags, () -> {
+            attachEarlyPayments(calculation, request);
+            attachRateChanges(calculation, request);
+            attachSchedule(calculation, schedule);
+        });
+
+        LoanCalculation target = calculation;
+        if (persist) {
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
             calculation.setUser(user);
-            LoanCalculation saved = calculationRepository.save(calculation);
-            log.info("Расчёт {} сохранён для пользователя {}", saved.getId(), username);
-            return calculationMapper.toResponse(saved, result.subsidizedPayment(), result.fullPayment(), result.balanceAfterSubsidy());
+            // saveAndFlush, чтобы в метрику попала вставка графика, а не только заголовка расчёта
+            target = calculationMetrics.time(Phase.PERSISTENCE, tags, () -> calculationRepository.saveAndFlush(calculation));
+            log.info("Расчёт {} сохранён для пользователя {}", target.getId(), username);
         }
 
-        return calculationMapper.toResponse(calculation, result.subsidizedPayment(), result.fullPayment(), result.balanceAfterSubsidy());
+        LoanCalculation mapped = target;
+        LoanCalculationResponseDto response = calculationMetrics.time(Phase.MAPPING, tags, () -> calculationMapper
+                .toResponse(mapped, result.subsidizedPayment(), result.fullPayment(), result.balanceAfterSubsidy()));
+        if (!trace.enabled()) {
+            return response;
+        }
+        return response.toBuilder()
+                .trace(calculationMapper.toTraceDto(trace))
+                .build();
+    }
+
+    /**
+     * Считает обычный кредит в режимах REDUCE_TERM и REDUCE_PAYMENT за один проход движка.
+     * Ничего не сохраняет; графики возвращаются только по запросу.
+     */
+    public RecalculationComparisonDto compareRecalculationModes(LoanCalculationRequestDto request,
+                                                                boolean includeSchedules) {
+        if (request.getDisbursementDate() == null) {
+            throw new IllegalArgumentException("Дата выдачи обязательна");
+        }
+        RecalculationMode[] modes = RecalculationMode.values();
+        List<List<PaymentScheduleItem>> schedules = new ArrayList<>(modes.length);
+        ScheduleSink[] sinks = new ScheduleSink[modes.length];
+        for (int lane = 0; lane < modes.length; lane++) {
+            List<PaymentScheduleItem> schedule = new ArrayList<>();
+            schedules.add(schedule);
+            sinks[lane] = includeSchedules ? schedule::add : item -> { };
+        }
+        Tags tags = calculationMetrics.tags(request, false, false);
+        ScheduleSummary[] results = scheduleEngine.compareRecalculationModes(request, modes, sinks, tags);
+
+        List<LoanCalculationResponseDto> variants = new ArrayList<>(modes.length);
+        for (int lane = 0; lane < modes.length; lane++) {
+            calculationMetrics.recordScheduleSize(tags, results[lane].rows(), results[lane].earlyPaymentEvents());
+            LoanCalculation calculation = toEntity(request, results[lane]);
+            calculation.setRecalculationMode(modes[lane]);
+            attachSchedule(calculation, schedules.get(lane));
+            variants.add(calculationMapper.toResponse(calculation));
+        }
+        return RecalculationComparisonDto.builder()
+                .currency(request.getCurrency())
+                .variants(variants)
+                .build();
+    }
+
+    /**
+     * Сравнивает FIXED_PAYMENT, FLOATING_PAYMENT и кредит без субсидии за один проход движка.
+     * Ничего не сохраняет и строк графика не строит.
+     */
+    public SubsidyComparisonDto compareSubsidyModes(LoanCalculationRequestDto request) {
+        if (request.getDisbursementDate() == null) {
+            throw new IllegalArgumentException("Дата выдачи обязательна");
+        }
+        Tags tags = calculationMetrics.tags(request, true, false);
+        List<SubsidyVariantDto> variants = scheduleEngine.compareSubsidyModes(request, tags).stream()
+                .map(lane -> SubsidyVariantDto.builder()
+                        .subsidyMode(lane.mode())
+                        .subsidizedPayment(lane.subsidizedPayment())
+                        .fullPayment(lane.fullPayment())
+                        .totalPayment(lane.totalPayment())
+                        .totalInterest(lane.totalInterest())
+                        .totalSubsidy(lane.totalSubsidy())
+                        .rateSubsidy(lane.rateSubsidy())
+                        .paymentSubsidy(lane.paymentSubsidy())
+                        .balanceAfterSubsidy(lane.balanceAfterSubsidy())
+                        .paymentsCount(lane.payments())
+                        .payoffDate(lane.payoffDate())
+                        .build())
+                .toList();
+        return SubsidyComparisonDto.builder()
+                .currency(request.getCurrency())
+                .subsidyDurationMonths(request.getSubsidyDurationMonths())
+                .variants(variants)
+                .build();
     }
 
     /**
@@ -145,6 +220,36 @@ public class LoanCalculationService {
         return calculationMapper.toResponse(calculation);
     }
 
+    /**
+     * Версия сохранённого расчёта для сильного ETag. Сохранённый расчёт не меняется,
+     * поэтому достаточно id и времени создания; график и связанные сущности не загружаются.
+     * Права проверяются так же, как при чтении самого расчёта.
+     */
+    @Transactional(readOnly = true)
+    public String getCalculationVersion(Long id, String username) {
+        User user = loadUser(username);
+        Optional<LocalDateTime> createdAt = user.getRole() == UserRole.ADMIN
+                ? calculationRepository.findCreatedAtById(id)
+                : calculationRepository.findCreatedAtByIdAndUsername(id, username);
+        return createdAt
+                .map(time -> id + "-" + time.toInstant(ZoneOffset.UTC).toEpochMilli())
+                .orElseThrow(() -> new EntityNotFoundException("Расчёт не найден или недоступен"));
+    }
+
+    /**
+     * Версия истории пользователя (для администратора — всей истории) для слабого ETag списка.
+     */
+    @Transactional(readOnly = true)
+    public String getHistoryVersion(String username) {
+        User user = loadUser(username);
+        LoanCalculationRepository.HistoryVersion version = user.getRole() == UserRole.ADMIN
+                ? calculationRepository.findHistoryVersion()
+                : calculationRepository.findHistoryVersion(username);
+        long lastCreated = version.getLastCreatedAt() == null
+                ? 0 : version.getLastCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return version.getCount() + "-" + version.getLastId() + "-" + lastCreated;
+    }
+
     /**
      * Удаляет расчёт из истории.
      */
@@ -160,7 +265,41 @@ public class LoanCalculationService {
      */
     @Transactional(readOnly = true)
     public LoanCalculationResponseDto rerun(Long id, String username) {
-        LoanCalculation calculation = loadForUser(id, username);
+        LoanCalculationRequestDto request = loadRequest(id, username);
+        request.setSaveToHistory(false);
+
+        return calculate(request, username);
+    }
+
+    /**
+     * Восстанавливает параметры сохранённого расчёта в виде запроса, не загружая график.
+     */
+    @Transactional(readOnly = true)
+    public LoanCalculationRequestDto loadRequest(Long id, String username) {
+        return toRequest(loadForUser(id, username));
+    }
+
+    /**
+     * Параметры страницы расчётов истории пользователя (для администратора — всей истории), новые первыми.
+     * График не загружается; досрочные платежи и изменения ставки страницы догружаются пачкой,
+     * а не отдельными запросами на каждый расчёт.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, LoanCalculationRequestDto> loadHistoryRequests(String username, int page, int size) {
+        User user = loadUser(username);
+        Pageable pageable = PageRequest.of(page, size,
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        List<LoanCalculation> calculations = user.getRole() == UserRole.ADMIN
+                ? calculationRepository.findAllBy(pageable)
+                : calculationRepository.findAllByUserUsername(username, pageable);
+        Map<Long, LoanCalculationRequestDto> requests = new LinkedHashMap<>();
+        for (LoanCalculation calculation : calculations) {
+            requests.put(calculation.getId(), toRequest(calculation));
+        }
+        return requests;
+    }
+
+    private LoanCalculationRequestDto toRequest(LoanCalculation calculation) {
         LoanCalculationRequestDto request = new LoanCalculationRequestDto();
         request.setLoanType(calculation.getLoanType());
         request.setCurrency(calculation.getCurrency());
@@ -175,6 +314,7 @@ public class LoanCalculationService {
         request.setSubsidizedRate(calculation.getSubsidizedRate());
         request.setSubsidyDurationMonths(calculation.getSubsidyDurationMonths());
         request.setSubsidyMode(calculation.getSubsidyMode());
+        request.setDayCount(calculation.getDayCount());
         request.setRateChanges(calculation.getRateChanges().stream()
                 .map(rc -> {
                     RateChangeDto dto = new RateChangeDto();
@@ -205,570 +345,31 @@ public class LoanCalculationService {
                     return dto;
                 })
                 .collect(Collectors.toList()));
-        request.setSaveToHistory(false);
-
-        return calculate(request, username);
-    }
-
-    private ScheduleResult buildSchedule(LoanCalculationRequestDto request) {
-        // Если субсидированная ипотека - используем специальный алгоритм
-        // Требуется: срок субсидии + (ручной платёж ИЛИ льготная ставка)
-        if (request.isDeveloperSubsidy() 
-                && request.getSubsidyDurationMonths() != null && request.getSubsidyDurationMonths() > 0
-                && (request.getSubsidizedPaymentAmount() != null || request.getSubsidizedRate() != null)) {
-            return buildSubsidizedSchedule(request);
-        }
-        
-        List<EarlyPaymentEvent> events = expandEarlyPayments(request);
-        List<RatePeriod> rateTimeline = buildRateTimeline(request);
-        List<PaymentScheduleItem> schedule = new ArrayList<>();
-
-        BigDecimal remaining = request.getPrincipal().setScale(2, RoundingMode.HALF_UP);
-        BigDecimal totalInterest = BigDecimal.ZERO;
-        BigDecimal totalPayment = BigDecimal.ZERO;
-        int originalDuration = request.resolveDurationMonths();
-        if (originalDuration <= 0) {
-            throw new IllegalArgumentException("Срок кредита должен быть положительным");
-        }
-
-        boolean adjustWeekends = request.isAdjustWeekends();
-        LocalDate paymentDate = adjustForWeekend(request.resolveFirstPaymentDate(), adjustWeekends);
-        LocalDate previousPaymentDate = request.getDisbursementDate(); // Начало первого периода - дата выдачи
-        int monthIndex = 1;
-        int eventsPointer = 0;
-        BigDecimal currentRate = resolveRate(rateTimeline, paymentDate);
-        BigDecimal currentPaymentAmount = request.getPaymentType() == PaymentType.ANNUITY
-                ? calculateAnnuityPayment(remaining, currentRate, originalDuration)
-                : BigDecimal.ZERO;
-
-        while (remaining.compareTo(EPS) > 0 && monthIndex <= MAX_CALCULATION_MONTHS) {
-            // apply between-payments events (только BETWEEN_PAYMENTS с датой <= даты платежа)
-            while (eventsPointer < events.size()) {
-                EarlyPaymentEvent event = events.get(eventsPointer);
-                // BETWEEN_PAYMENTS: применяем если дата события <= даты платежа
-                // ON_PAYMENT_DATE: пропускаем здесь, обработаем после регулярного платежа
-                boolean shouldApply = event.mode() == EarlyPaymentApplicationMode.BETWEEN_PAYMENTS 
-                        && !event.date().isAfter(paymentDate);
-                if (shouldApply) {
-                    eventsPointer++;
-                    BigDecimal deducted = event.amount().min(remaining).setScale(2, RoundingMode.HALF_UP);
-                    if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
-                        continue;
-                    }
-                    remaining = remaining.subtract(deducted);
-                    totalPayment = totalPayment.add(deducted);
-                    log.debug("Применён досрочный платёж (между): {} на дату {}, новый остаток: {}", deducted, event.date(), remaining);
-                    
-                    // Добавляем строку досрочного платежа в график
-                    PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
-                            .monthNumber(0) // Без номера
-                            .paymentDate(event.date())
-                            .paymentAmount(deducted)
-                            .principalPart(deducted) // Весь платёж идёт в основной долг
-                            .interestPart(BigDecimal.ZERO)
-                            .remainingDebt(remaining.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                            .earlyPayment(true)
-                            .build();
-                    schedule.add(earlyPaymentItem);
-                    
-                    if (request.getPaymentType() == PaymentType.ANNUITY
-                            && request.getRecalculationMode() == RecalculationMode.REDUCE_PAYMENT) {
-                        int periodsLeft = Math.max(1, originalDuration - (monthIndex - 1));
-                        currentPaymentAmount = calculateAnnuityPayment(remaining, currentRate, periodsLeft);
-                    }
-                    continue;
-                }
-                break;
-            }
-
-            BigDecimal resolvedRate = resolveRate(rateTimeline, paymentDate);
-            if (request.getPaymentType() == PaymentType.ANNUITY && resolvedRate.compareTo(currentRate) != 0) {
-                currentRate = resolvedRate;
-                int periodsLeft = Math.max(1, originalDuration - (monthIndex - 1));
-                currentPaymentAmount = calculateAnnuityPayment(remaining, currentRate, periodsLeft);
-            } else {
-                currentRate = resolvedRate;
-            }
-
-            int periodsLeft = Math.max(1, originalDuration - (monthIndex - 1));
-            BigDecimal paymentAmount;
-            BigDecimal interestPart;
-            BigDecimal principalPart;
-
-            // Расчёт процентов по фактическому количеству дней в периоде
-            interestPart = calculateInterestForPeriod(remaining, currentRate, previousPaymentDate, paymentDate);
-
-            if (request.getPaymentType() == PaymentType.DIFFERENTIAL) {
-                principalPart = remaining.divide(BigDecimal.valueOf(periodsLeft), MC)
-                        .setScale(2, RoundingMode.HALF_UP)
-                        .min(remaining);
-                paymentAmount = principalPart.add(interestPart);
-            } else {
-                // Аннуитетный платёж
-                paymentAmount = currentPaymentAmount;
-                principalPart = paymentAmount.subtract(interestPart);
-                
-                // Если проценты >= платежа, то основной долг = 0
-                if (principalPart.compareTo(BigDecimal.ZERO) <= 0) {
-                    principalPart = BigDecimal.ZERO;
-                    // Для ипотеки: платим фиксированный аннуитет, но если проценты больше - только проценты
-                    if (interestPart.compareTo(currentPaymentAmount) > 0) {
-                        paymentAmount = interestPart;
-                    } else {
-                        paymentAmount = currentPaymentAmount;
-                    }
-                }
-            }
-
-            if (principalPart.compareTo(remaining) > 0) {
-                principalPart = remaining;
-                paymentAmount = principalPart.add(interestPart);
-            }
-
-            remaining = remaining.subtract(principalPart);
-
-            PaymentScheduleItem scheduleItem = PaymentScheduleItem.builder()
-                    .monthNumber(monthIndex)
-                    .paymentDate(paymentDate)
-                    .paymentAmount(paymentAmount.setScale(2, RoundingMode.HALF_UP))
-                    .principalPart(principalPart.setScale(2, RoundingMode.HALF_UP))
-                    .interestPart(interestPart.setScale(2, RoundingMode.HALF_UP))
-                    .remainingDebt(remaining.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                    .build();
-            schedule.add(scheduleItem);
-
-            totalInterest = totalInterest.add(interestPart);
-            totalPayment = totalPayment.add(paymentAmount);
-
-            while (eventsPointer < events.size()) {
-                EarlyPaymentEvent event = events.get(eventsPointer);
-                if (event.date().isEqual(paymentDate)
-                        && event.mode() == EarlyPaymentApplicationMode.ON_PAYMENT_DATE) {
-                    eventsPointer++;
-                    BigDecimal deducted = event.amount().min(remaining).setScale(2, RoundingMode.HALF_UP);
-                    if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
-                        continue;
-                    }
-                    remaining = remaining.subtract(deducted);
-                    totalPayment = totalPayment.add(deducted);
-                    log.debug("Применён досрочный платёж (в дату): {} на дату {}, новый остаток: {}", deducted, event.date(), remaining);
-                    
-                    // Добавляем строку досрочного платежа в график
-                    PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
-                            .monthNumber(0) // Без номера
-                            .paymentDate(event.date())
-                            .paymentAmount(deducted)
-                            .principalPart(deducted) // Весь платёж идёт в основной долг
-                            .interestPart(BigDecimal.ZERO)
-                            .remainingDebt(remaining.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                            .earlyPayment(true)
-                            .build();
-                    schedule.add(earlyPaymentItem);
-                    
-                    if (request.getPaymentType() == PaymentType.ANNUITY
-                            && request.getRecalculationMode() == RecalculationMode.REDUCE_PAYMENT) {
-                        int newPeriodsLeft = Math.max(1, originalDuration - monthIndex);
-                        currentPaymentAmount = calculateAnnuityPayment(remaining, currentRate, newPeriodsLeft);
-                    }
-                    continue;
-                }
-                break;
-            }
-
-            previousPaymentDate = paymentDate;
-            monthIndex++;
-            // Вычисляем следующую дату платежа от первоначальной даты выдачи, чтобы сохранить день месяца
-            LocalDate nextPaymentDate = request.getDisbursementDate().plusMonths(monthIndex);
-            paymentDate = adjustForWeekend(nextPaymentDate, adjustWeekends);
-        }
-
-        if (remaining.compareTo(EPS) > 0) {
-            throw new IllegalStateException("Не удалось досрочно погасить долг в допустимое количество шагов");
-        }
-        
-        log.debug("Расчёт завершён: платежей={}, общая выплата={}, переплата={}", schedule.size(), totalPayment, totalInterest);
-
-        return new ScheduleResult(schedule,
-                totalPayment.setScale(2, RoundingMode.HALF_UP),
-                totalInterest.setScale(2, RoundingMode.HALF_UP),
-                BigDecimal.ZERO, // totalSubsidy
-                null, // subsidizedPayment
-                null, // fullPayment
-                null); // balanceAfterSubsidy
-    }
-
-    /**
-     * Расчёт субсидированной ипотеки от застройщика.
-     * Алгоритм:
-     * 1. A_full = аннуитет по полной ставке банка
-     * 2. A_sub = аннуитет по льготной ставке (для FIXED_PAYMENT)
-     * 3. В период субсидии: проценты рассчитываются ПО ДНЯМ по льготной ставке
-     * 4. Если проценты > платежа → осн.долг = 0
-     * 5. После субсидии: стандартный платёж A_full, проценты по дням по полной ставке
-     */
-    private ScheduleResult buildSubsidizedSchedule(LoanCalculationRequestDto request) {
-        List<PaymentScheduleItem> schedule = new ArrayList<>();
-        List<EarlyPaymentEvent> events = expandEarlyPayments(request);
-        
-        BigDecimal principal = request.getPrincipal().setScale(2, RoundingMode.HALF_UP);
-        int durationMonths = request.resolveDurationMonths();
-        BigDecimal fullRate = request.getInterestRate(); // Полная ставка банка (годовая)
-        BigDecimal subsidizedRate = request.getSubsidizedRate(); // Льготная ставка (годовая), может быть null
-        int subsidyDuration = request.getSubsidyDurationMonths();
-        SubsidyMode subsidyMode = request.getSubsidyMode() != null ? request.getSubsidyMode() : SubsidyMode.FIXED_PAYMENT;
-        boolean adjustWeekends = request.isAdjustWeekends();
-        
-        // Годовые ставки для расчёта по дням
-        BigDecimal yearlyRateFull = fullRate.divide(ONE_HUNDRED, MC);
-        // Если льготная ставка не указана, используем полную для расчёта процентов
-        BigDecimal yearlyRateSub = (subsidizedRate != null && subsidizedRate.compareTo(BigDecimal.ZERO) > 0)
-                ? subsidizedRate.divide(ONE_HUNDRED, MC)
-                : yearlyRateFull;
-        BigDecimal daysInYear = new BigDecimal("365");
-        
-        // Аннуитет по полной ставке
-        BigDecimal aFull = calculateAnnuityPayment(principal, fullRate, durationMonths);
-        
-        // Платёж в льготный период: ручной ввод или расчёт по формуле
-        BigDecimal aSub;
-        boolean manualPayment = false;
-        if (request.getSubsidizedPaymentAmount() != null && request.getSubsidizedPaymentAmount().compareTo(BigDecimal.ZERO) > 0) {
-            // Используем введённый пользователем платёж
-            aSub = request.getSubsidizedPaymentAmount().setScale(2, RoundingMode.HALF_UP);
-            manualPayment = true;
-        } else if (subsidizedRate != null && subsidizedRate.compareTo(BigDecimal.ZERO) > 0) {
-            // Рассчитываем по льготной ставке
-            aSub = calculateAnnuityPayment(principal, subsidizedRate, durationMonths);
-        } else {
-            // Если ничего не указано, используем полный аннуитет
-            aSub = aFull;
-        }
-        
-        log.debug("Субсидированная ипотека: платёж={} (ручной={}), полный аннуитет={}", aSub, manualPayment, aFull);
-        
-        BigDecimal balance = principal;
-        BigDecimal totalPayment = BigDecimal.ZERO;
-        BigDecimal totalInterest = BigDecimal.ZERO;
-        BigDecimal totalSubsidy = BigDecimal.ZERO;
-        BigDecimal balanceAfterSubsidy = null;
-        int eventsPointer = 0;
-        
-        LocalDate previousDate = request.getDisbursementDate();
-        LocalDate paymentDate = adjustForWeekend(request.resolveFirstPaymentDate(), adjustWeekends);
-        
-        for (int month = 1; month <= durationMonths && balance.compareTo(EPS) > 0; month++) {
-            // Обработка досрочных платежей МЕЖДУ датами платежей (только BETWEEN_PAYMENTS)
-            while (eventsPointer < events.size()) {
-                EarlyPaymentEvent event = events.get(eventsPointer);
-                boolean shouldApply = event.mode() == EarlyPaymentApplicationMode.BETWEEN_PAYMENTS 
-                        && !event.date().isAfter(paymentDate);
-                if (shouldApply) {
-                    eventsPointer++;
-                    BigDecimal deducted = event.amount().min(balance).setScale(2, RoundingMode.HALF_UP);
-                    if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
-                        continue;
-                    }
-                    balance = balance.subtract(deducted);
-                    totalPayment = totalPayment.add(deducted);
-                    log.debug("Досрочный платёж (между): {} на {}, остаток: {}", deducted, event.date(), balance);
-                    
-                    // Добавляем строку досрочного платежа в график
-                    PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
-                            .monthNumber(0) // Без номера
-                            .paymentDate(event.date())
-                            .paymentAmount(deducted)
-                            .principalPart(deducted)
-                            .interestPart(BigDecimal.ZERO)
-                            .remainingDebt(balance.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                            .earlyPayment(true)
-                            .build();
-                    schedule.add(earlyPaymentItem);
-                    
-                    continue;
-                }
-                break;
-            }
-            // Расчёт количества дней в периоде
-            long daysInPeriod = ChronoUnit.DAYS.between(previousDate, paymentDate);
-            BigDecimal days = new BigDecimal(daysInPeriod);
-            
-            BigDecimal payment;
-            BigDecimal interestClient; // Проценты, которые платит клиент
-            BigDecimal principalPart;
-            BigDecimal subsidy = BigDecimal.ZERO;
-            
-            if (month <= subsidyDuration) {
-                // Период субсидии — проценты по льготной ставке ПО ДНЯМ
-                BigDecimal interestByDays = balance.multiply(yearlyRateSub, MC)
-                        .multiply(days, MC)
-                        .divide(daysInYear, MC)
-                        .setScale(2, RoundingMode.HALF_UP);
-                
-                // Реальные проценты по полной ставке (для расчёта субсидии)
-                BigDecimal interestRealFull = balance.multiply(yearlyRateFull, MC)
-                        .multiply(days, MC)
-                        .divide(daysInYear, MC)
-                        .setScale(2, RoundingMode.HALF_UP);
-                
-                if (subsidyMode == SubsidyMode.FIXED_PAYMENT) {
-                    // Платёж = аннуитет по льготной ставке
-                    payment = aSub;
-                    
-                    // Если проценты >= платежа, осн.долг = 0
-                    if (interestByDays.compareTo(payment) >= 0) {
-                        principalPart = BigDecimal.ZERO;
-                        interestClient = payment; // Клиент платит весь платёж как проценты
-                        // Субсидия = реальные проценты - то что заплатил клиент
-                        subsidy = interestByDays.subtract(payment).max(BigDecimal.ZERO);
-                    } else {
-                        principalPart = payment.subtract(interestByDays);
-                        interestClient = interestByDays;
-                        subsidy = BigDecimal.ZERO; // Нет субсидии, если проценты < платежа
-                    }
-                    
-                    // Дополнительная субсидия: разница между полной и льготной ставкой
-                    BigDecimal rateSubsidy = interestRealFull.subtract(interestByDays).max(BigDecimal.ZERO);
-                    subsidy = subsidy.add(rateSubsidy);
-                } else {
-                    // FLOATING_PAYMENT: основной долг как по полной ставке
-                    principalPart = aFull.subtract(interestRealFull);
-                    if (principalPart.compareTo(BigDecimal.ZERO) < 0) {
-                        principalPart = BigDecimal.ZERO;
-                    }
-                    interestClient = interestByDays;
-                    payment = principalPart.add(interestClient);
-                    subsidy = interestRealFull.subtract(interestByDays).max(BigDecimal.ZERO);
-                }
-                
-                // Сохраняем остаток после окончания субсидии
-                if (month == subsidyDuration) {
-                    balanceAfterSubsidy = balance.subtract(principalPart).setScale(2, RoundingMode.HALF_UP);
-                }
-            } else {
-                // После субсидии — проценты по полной ставке ПО ДНЯМ
-                BigDecimal interestByDays = balance.multiply(yearlyRateFull, MC)
-                        .multiply(days, MC)
-                        .divide(daysInYear, MC)
-                        .setScale(2, RoundingMode.HALF_UP);
-                
-                payment = aFull;
-                
-                // Если проценты >= платежа, осн.долг = 0
-                if (interestByDays.compareTo(payment) >= 0) {
-                    principalPart = BigDecimal.ZERO;
-                    interestClient = payment;
-                } else {
-                    principalPart = payment.subtract(interestByDays);
-                    interestClient = interestByDays;
-                }
-            }
-            
-            // Ограничиваем основной долг остатком
-            if (principalPart.compareTo(balance) > 0) {
-                principalPart = balance;
-                payment = principalPart.add(interestClient);
-            }
-            
-            balance = balance.subtract(principalPart);
-            
-            PaymentScheduleItem item = PaymentScheduleItem.builder()
-                    .monthNumber(month)
-                    .paymentDate(paymentDate)
-                    .paymentAmount(payment.setScale(2, RoundingMode.HALF_UP))
-                    .principalPart(principalPart.setScale(2, RoundingMode.HALF_UP))
-                    .interestPart(interestClient.setScale(2, RoundingMode.HALF_UP))
-                    .remainingDebt(balance.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                    .subsidyAmount(subsidy.setScale(2, RoundingMode.HALF_UP))
-                    .build();
-            schedule.add(item);
-            
-            totalPayment = totalPayment.add(payment);
-            totalInterest = totalInterest.add(interestClient);
-            totalSubsidy = totalSubsidy.add(subsidy);
-            
-            // Обработка досрочных платежей В ДАТУ платежа
-            while (eventsPointer < events.size()) {
-                EarlyPaymentEvent event = events.get(eventsPointer);
-                if (event.date().isEqual(paymentDate)
-                        && event.mode() == EarlyPaymentApplicationMode.ON_PAYMENT_DATE) {
-                    eventsPointer++;
-                    BigDecimal deducted = event.amount().min(balance).setScale(2, RoundingMode.HALF_UP);
-                    if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
-                        continue;
-                    }
-                    balance = balance.subtract(deducted);
-                    totalPayment = totalPayment.add(deducted);
-                    log.debug("Досрочный платёж (в дату): {} на {}, остаток: {}", deducted, event.date(), balance);
-                    
-                    // Добавляем строку досрочного платежа в график
-                    PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
-                            .monthNumber(0) // Без номера
-                            .paymentDate(event.date())
-                            .paymentAmount(deducted)
-                            .principalPart(deducted)
-                            .interestPart(BigDecimal.ZERO)
-                            .remainingDebt(balance.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
-                            .earlyPayment(true)
-                            .build();
-                    schedule.add(earlyPaymentItem);
-                    
-                    continue;
-                }
-                break;
-            }
-            
-            // Следующая дата платежа
-            previousDate = paymentDate;
-            LocalDate nextDate = request.getDisbursementDate().plusMonths(month + 1);
-            paymentDate = adjustForWeekend(nextDate, adjustWeekends);
-        }
-        
-        return new ScheduleResult(
-                schedule,
-                totalPayment.setScale(2, RoundingMode.HALF_UP),
-                totalInterest.setScale(2, RoundingMode.HALF_UP),
-                totalSubsidy.setScale(2, RoundingMode.HALF_UP),
-                aSub.setScale(2, RoundingMode.HALF_UP), // subsidizedPayment
-                aFull.setScale(2, RoundingMode.HALF_UP), // fullPayment
-                balanceAfterSubsidy
-        );
+        return request;
     }
 
-    private List<EarlyPaymentEvent> expandEarlyPayments(LoanCalculationRequestDto request) {
-        List<EarlyPaymentEvent> events = new ArrayList<>();
-        log.debug("Единовременные досрочные платежи: {}", request.getEarlyPayments());
-        log.debug("Периодические досрочные платежи: {}", request.getPeriodicEarlyPayments());
-        if (request.getEarlyPayments() != null) {
-            for (EarlyPaymentDto dto : request.getEarlyPayments()) {
-                if (dto.getPaymentDate() == null || dto.getAmount() == null) {
-                    continue;
-                }
-                events.add(new EarlyPaymentEvent(dto.getPaymentDate(),
-                        dto.getAmount().setScale(2, RoundingMode.HALF_UP),
-                        dto.getApplicationMode()));
-            }
-        }
-        if (request.getPeriodicEarlyPayments() != null) {
-            LocalDate defaultEnd = request.resolveFirstPaymentDate().plusMonths(MAX_CALCULATION_MONTHS);
-            for (PeriodicEarlyPaymentDto dto : request.getPeriodicEarlyPayments()) {
-                if (dto.getStartDate() == null || dto.getIntervalMonths() == null || dto.getAmount() == null) {
-                    continue;
-                }
-                // Используем endDate из DTO, если указан, иначе используем дефолтное значение
-                LocalDate end = dto.getEndDate() != null ? dto.getEndDate() : defaultEnd;
-                LocalDate date = dto.getStartDate();
-                int guard = 0;
-                // Генерируем события только до endDate (включительно)
-                while (!date.isAfter(end) && guard < MAX_CALCULATION_MONTHS) {
-                    events.add(new EarlyPaymentEvent(date,
-                            dto.getAmount().setScale(2, RoundingMode.HALF_UP),
-                            dto.getApplicationMode()));
-                    date = date.plusMonths(dto.getIntervalMonths());
-                    guard++;
-                }
-            }
-        }
-        LocalDate disbursementDate = request.getDisbursementDate() != null
-                ? request.getDisbursementDate()
-                : request.resolveFirstPaymentDate();
-        events.removeIf(event -> event.amount().compareTo(BigDecimal.ZERO) <= 0
-                || (disbursementDate != null && event.date().isBefore(disbursementDate)));
-        events.sort(Comparator.comparing(EarlyPaymentEvent::date));
-        return events;
-    }
-
-    private List<RatePeriod> buildRateTimeline(LoanCalculationRequestDto request) {
-        List<RatePeriod> ratePeriods = new ArrayList<>();
-        ratePeriods.add(new RatePeriod(request.resolveFirstPaymentDate(), request.getInterestRate()));
-        if (request.getRateChanges() != null) {
-            for (RateChangeDto dto : request.getRateChanges()) {
-                if (dto.getStartDate() == null || dto.getNewRate() == null) {
-                    continue;
-                }
-                ratePeriods.add(new RatePeriod(dto.getStartDate(), dto.getNewRate()));
-            }
-        }
-        ratePeriods.sort(Comparator.comparing(RatePeriod::start));
-        return ratePeriods;
-    }
-
-    private BigDecimal resolveRate(List<RatePeriod> timeline, LocalDate date) {
-        BigDecimal current = timeline.get(0).rate();
-        for (RatePeriod period : timeline) {
-            if (!date.isBefore(period.start())) {
-                current = period.rate();
-            } else {
-                break;
-            }
-        }
-        return current;
-    }
-
-    private BigDecimal calculateAnnuityPayment(BigDecimal principal, BigDecimal annualRate, int months) {
-        if (months <= 0) {
-            return principal.setScale(2, RoundingMode.HALF_UP);
-        }
-        BigDecimal monthlyRate = toMonthlyRate(annualRate);
-        if (monthlyRate.compareTo(BigDecimal.ZERO) == 0) {
-            return principal.divide(BigDecimal.valueOf(months), 2, RoundingMode.HALF_UP);
-        }
-        BigDecimal onePlusRatePow = BigDecimal.ONE.add(monthlyRate).pow(months, MC);
-        BigDecimal numerator = principal.multiply(monthlyRate, MC).multiply(onePlusRatePow, MC);
-        BigDecimal denominator = onePlusRatePow.subtract(BigDecimal.ONE);
-        if (denominator.compareTo(BigDecimal.ZERO) == 0) {
-            return principal.divide(BigDecimal.valueOf(months), 2, RoundingMode.HALF_UP);
-        }
-        return numerator.divide(denominator, 2, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal toMonthlyRate(BigDecimal annualRate) {
-        return annualRate.divide(ONE_HUNDRED, MC).divide(TWELVE, MC);
-    }
-
-    /**
-     * Переносит дату с выходных на ближайший будний день (понедельник).
-     */
-    private LocalDate adjustForWeekend(LocalDate date, boolean adjustWeekends) {
-        if (!adjustWeekends) {
-            return date;
-        }
-        DayOfWeek day = date.getDayOfWeek();
-        if (day == DayOfWeek.SATURDAY) {
-            return date.plusDays(2); // Перенос на понедельник
-        } else if (day == DayOfWeek.SUNDAY) {
-            return date.plusDays(1); // Перенос на понедельник
-        }
-        return date;
-    }
-
-    /**
-     * Рассчитывает проценты за период.
-     * Для стандартного аннуитета: остаток * (ставка / 100) / 12
-     * Параметры дат оставлены для совместимости, но не используются в стандартном расчёте.
-     */
-    private BigDecimal calculateInterestForPeriod(BigDecimal remaining, BigDecimal annualRate,
-                                                   LocalDate periodStart, LocalDate periodEnd) {
-        // Стандартный расчёт: помесячно
-        return remaining.multiply(annualRate, MC)
-                .divide(ONE_HUNDRED, MC)
-                .divide(TWELVE, MC)
-                .setScale(2, RoundingMode.HALF_UP);
-    }
-
-    /**
-     * Рассчитывает проценты за период по фактическому количеству дней.
-     * Формула: остаток * (ставка / 100) * дней_в_периоде / дней_в_году
-     */
-    private BigDecimal calculateInterestForPeriodByDays(BigDecimal remaining, BigDecimal annualRate,
-                                                         LocalDate periodStart, LocalDate periodEnd) {
-        long daysInPeriod = ChronoUnit.DAYS.between(periodStart, periodEnd);
-        int daysInYear = periodEnd.isLeapYear() ? 366 : 365;
-        return remaining
-                .multiply(annualRate, MC)
-                .divide(ONE_HUNDRED, MC)
-                .multiply(BigDecimal.valueOf(daysInPeriod), MC)
-                .divide(BigDecimal.valueOf(daysInYear), MC)
-                .setScale(2, RoundingMode.HALF_UP);
+    private LoanCalculation toEntity(LoanCalculationRequestDto request, ScheduleSummary result) {
+        return LoanCalculation.builder()
+                .loanType(request.getLoanType())
+                .currency(request.getCurrency())
+                .principal(request.getPrincipal().setScale(2, RoundingMode.HALF_UP))
+                .interestRate(request.getInterestRate())
+                .durationMonths(request.resolveDurationMonths())
+                .paymentType(request.getPaymentType())
+                .recalculationMode(request.getRecalculationMode())
+                .disbursementDate(request.getDisbursementDate())
+                .firstPaymentDate(request.resolveFirstPaymentDate())
+                .adjustWeekends(request.isAdjustWeekends())
+                .developerSubsidy(request.isDeveloperSubsidy())
+                .subsidizedRate(request.getSubsidizedRate())
+                .subsidyDurationMonths(request.getSubsidyDurationMonths())
+                .subsidyMode(request.getSubsidyMode())
+                .dayCount(request.getDayCount())
+                .totalSubsidy(result.totalSubsidy())
+                .totalInterest(result.totalInterest())
+                .totalPayment(result.totalPayment())
+                .effectiveRate(result.effectiveRate())
+                .build();
     }
 
     private void attachEarlyPayments(LoanCalculation calculation, LoanCalculationRequestDto request) {
@@ -841,18 +442,27 @@ public class LoanCalculationService {
         return username != null && request.isSaveToHistory();
     }
 
+    /**
+     * Расчёт ищется по id, чтобы попасть в кэш второго уровня, а владелец сверяется по id пользователя:
+     * прокси пользователя при этом не инициализируется.
+     */
     private LoanCalculation loadForUser(Long id, String username) {
-        if (username == null) {
-            throw new AccessDeniedException("Неавторизованный доступ к истории запрещён");
-        }
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден"));
+        User user = loadUser(username);
         if (user.getRole() == UserRole.ADMIN) {
             return calculationRepository.findById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Расчёт не найден"));
         }
-        return calculationRepository.findByIdAndUserUsername(id, username)
+        return calculationRepository.findById(id)
+                .filter(calculation -> calculation.getUser() != null
+                        && user.getId().equals(calculation.getUser().getId()))
                 .orElseThrow(() -> new EntityNotFoundException("Расчёт не найден или недоступен"));
     }
-}
 
+    private User loadUser(String username) {
+        if (username == null) {
+            throw new AccessDeniedException("Неавторизованный доступ к истории запрещён");
+        }
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден"));
+    }
+}
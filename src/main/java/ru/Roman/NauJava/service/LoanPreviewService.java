@@ -0,0 +1,47 @@
+package ru.Roman.NauJava.service;
+
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanPreviewDto;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+import ru.Roman.NauJava.service.engine.LoanSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Приближённый расчёт итогов для живого превью калькулятора.
+ * Работает на double без построения графика и обращений к БД.
+ */
+@Service
+public class LoanPreviewService {
+
+    public LoanPreviewDto preview(LoanCalculationRequestDto request) {
+        if (request.getDisbursementDate() == null) {
+            throw new IllegalArgumentException("Дата выдачи обязательна");
+        }
+        if (request.resolveDurationMonths() <= 0) {
+            throw new IllegalArgumentException("Срок кредита должен быть положительным");
+        }
+        LoanSummary summary = ApproximateLoanEngine.run(FastLoanModel.from(request));
+        return LoanPreviewDto.builder()
+                .currency(request.getCurrency())
+                .monthlyPayment(toMoney(summary.firstPayment()))
+                .fullPayment(toMoney(summary.fullPayment()))
+                .totalPayment(toMoney(summary.totalPayment()))
+                .totalInterest(toMoney(summary.totalInterest()))
+                .totalSubsidy(toMoney(summary.totalSubsidy()))
+                .paymentsCount(summary.payments())
+                .payoffDate(LocalDate.ofEpochDay(summary.payoffDay()))
+                .build();
+    }
+
+    private BigDecimal toMoney(double value) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
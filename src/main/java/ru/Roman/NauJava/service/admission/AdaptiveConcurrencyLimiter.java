@@ -0,0 +1,132 @@
+package ru.Roman.NauJava.service.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Предел одновременных запросов, подстраиваемый по задержке (градиентный алгоритм).
+ * Длинное скользящее среднее задержки служит оценкой задержки без очереди; если свежий замер заметно больше,
+ * предел уменьшается пропорционально, иначе растёт на корень из предела. Пока пул загружен меньше чем
+ * наполовину, предел не растёт: замеры ненагруженного пула ничего не говорят о его ёмкости.
+ * Сверх предела запрос ждёт в короткой очереди; при полной очереди или по таймауту получает отказ.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_WEIGHT = 0.01;
+    private static final double TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private volatile double limit; // Пишется под блокировкой, читается и метриками
+    private double longRttNanos;
+    private int inFlight;
+    private int waiting;
+
+    AdaptiveConcurrencyLimiter(AdmissionProperties.Pool pool) {
+        this.minLimit = pool.minLimit();
+        this.maxLimit = pool.maxLimit();
+        this.maxQueue = pool.maxQueue();
+        this.maxWaitNanos = pool.maxWait().toNanos();
+        this.limit = pool.initialLimit();
+    }
+
+    /**
+     * Занимает место в пуле, при необходимости подождав в очереди.
+     *
+     * @return число запросов в работе с учётом этого или {@code -1}, если места нет
+     */
+    int acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < limit()) {
+                return ++inFlight;
+            }
+            if (waiting >= maxQueue) {
+                return -1;
+            }
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= limit()) {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                return ++inFlight;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает место.
+     *
+     * @param rttNanos   время обработки запроса; отрицательное — замер не учитывается
+     * @param inFlightAt сколько запросов было в работе при его приёме
+     */
+    void release(long rttNanos, int inFlightAt) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (rttNanos >= 0) {
+                update(rttNanos, inFlightAt);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAt) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRttNanos == 0) {
+            longRttNanos = rtt;
+        } else {
+            longRttNanos += (rtt - longRttNanos) * LONG_RTT_WEIGHT;
+            // После спада нагрузки среднее долго помнит старую задержку — догоняем свежие замеры быстрее
+            if (longRttNanos > 2 * rtt) {
+                longRttNanos *= 0.95;
+            }
+        }
+        if (inFlightAt < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longRttNanos / rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
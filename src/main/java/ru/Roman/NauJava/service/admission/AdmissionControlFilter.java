@@ -0,0 +1,166 @@
+package ru.Roman.NauJava.service.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Ограничение одновременных расчётов перед контроллерами: публичные и авторизованные запросы идут
+ * через отдельные пулы с адаптивным пределом, поэтому всплеск анонимных расчётов не занимает все потоки Tomcat
+ * и не мешает работе с историей. При нехватке места запрос получает 429 с {@code Retry-After}.
+ * Выгрузки и отчёты по всей истории идут через третий пул с постоянным пределом: их время растёт
+ * с объёмом истории и в оценку задержки расчётов не попадает.
+ * Пакетный импорт портфеля не ограничивается: у него свой пул потоков.
+ */
+@Component
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_GAUGE = "loan.admission.limit";
+    public static final String IN_FLIGHT_GAUGE = "loan.admission.in.flight";
+    public static final String QUEUE_GAUGE = "loan.admission.queue";
+    public static final String REJECTED_COUNTER = "loan.admission.rejected";
+
+    private static final String API_PREFIX = "/api/v1/calculations";
+    private static final String PUBLIC_PREFIX = API_PREFIX + "/public/";
+    private static final String IMPORT_PATH = API_PREFIX + "/import";
+    private static final Set<String> BULK_PATHS = Set.of(API_PREFIX + "/totals", API_PREFIX + "/sensitivity");
+    private static final String REJECTED_BODY = "{\"message\":\"Сервер перегружен расчётами, повторите запрос позже\"}";
+
+    private enum Pool {
+        ANONYMOUS("anonymous"),
+        AUTHENTICATED("authenticated"),
+        BULK("bulk");
+
+        private final String tagValue;
+
+        Pool(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final AdaptiveConcurrencyLimiter anonymous;
+    private final AdaptiveConcurrencyLimiter authenticated;
+    private final AdaptiveConcurrencyLimiter bulk;
+    private final Counter anonymousRejected;
+    private final Counter authenticatedRejected;
+    private final Counter bulkRejected;
+
+    public AdmissionControlFilter(AdmissionProperties properties, MeterRegistry registry) {
+        this.enabled = properties.enabled();
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+        this.anonymous = new AdaptiveConcurrencyLimiter(properties.anonymous());
+        this.authenticated = new AdaptiveConcurrencyLimiter(properties.authenticated());
+        this.bulk = new AdaptiveConcurrencyLimiter(properties.bulk());
+        this.anonymousRejected = register(registry, Pool.ANONYMOUS, anonymous);
+        this.authenticatedRejected = register(registry, Pool.AUTHENTICATED, authenticated);
+        this.bulkRejected = register(registry, Pool.BULK, bulk);
+    }
+
+    private static Counter register(MeterRegistry registry, Pool pool, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder(LIMIT_GAUGE, limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Текущий предел одновременных расчётов")
+                .tag("pool", pool.tagValue)
+                .register(registry);
+        Gauge.builder(IN_FLIGHT_GAUGE, limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Расчётов в работе")
+                .tag("pool", pool.tagValue)
+                .register(registry);
+        Gauge.builder(QUEUE_GAUGE, limiter, AdaptiveConcurrencyLimiter::waiting)
+                .description("Запросов, ждущих места в пуле")
+                .tag("pool", pool.tagValue)
+                .register(registry);
+        return Counter.builder(REJECTED_COUNTER)
+                .description("Запросов, отклонённых с 429")
+                .tag("pool", pool.tagValue)
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || pool(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Pool pool = pool(request);
+        AdaptiveConcurrencyLimiter limiter = switch (pool) {
+            case ANONYMOUS -> anonymous;
+            case AUTHENTICATED -> authenticated;
+            case BULK -> bulk;
+        };
+        int inFlightAt;
+        try {
+            inFlightAt = limiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            inFlightAt = -1;
+        }
+        if (inFlightAt < 0) {
+            (switch (pool) {
+                case ANONYMOUS -> anonymousRejected;
+                case AUTHENTICATED -> authenticatedRejected;
+                case BULK -> bulkRejected;
+            }).increment();
+            reject(request, response);
+            return;
+        }
+        long started = System.nanoTime();
+        boolean measured = false;
+        try {
+            chain.doFilter(request, response);
+            // Ошибки обрабатываются за другое время, чем расчёты, и сбивают оценку задержки;
+            // время выгрузок зависит от объёма истории, и их предел не подстраивается
+            measured = pool != Pool.BULK && response.getStatus() < HttpStatus.BAD_REQUEST.value();
+        } finally {
+            limiter.release(measured ? System.nanoTime() - started : -1, inFlightAt);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("Запрос {} {} отклонён: нет места для расчёта", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(REJECTED_BODY);
+    }
+
+    /**
+     * Пул запроса или {@code null}, если запрос не ограничивается.
+     */
+    private static Pool pool(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean post = HttpMethod.POST.matches(request.getMethod());
+        if (path.startsWith(PUBLIC_PREFIX) || (post && path.equals("/calculator"))) {
+            return Pool.ANONYMOUS;
+        }
+        // Выгрузка истории и одного расчёта: /export и /{id}/export
+        if (BULK_PATHS.contains(path) || (path.startsWith(API_PREFIX) && path.endsWith("/export"))) {
+            return Pool.BULK;
+        }
+        if ((path.startsWith(API_PREFIX) && !path.equals(IMPORT_PATH))
+                || (post && path.startsWith("/history/") && path.endsWith("/rerun"))) {
+            return Pool.AUTHENTICATED;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.Roman.NauJava.service.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки ограничения одновременных расчётов.
+ *
+ * @param enabled       включено ли ограничение; по умолчанию включено
+ * @param retryAfter    значение заголовка {@code Retry-After} в ответе 429
+ * @param anonymous     пул публичных расчётов: {@code /api/v1/calculations/public/**} и форма калькулятора
+ * @param authenticated пул остальных запросов к API расчётов и перерасчёта истории
+ * @param bulk          пул выгрузок и отчётов по всей истории: экспорт, сводка, чувствительность истории;
+ *                      их время зависит от объёма истории, поэтому предел не подстраивается и равен
+ *                      {@code initial-limit}
+ */
+@ConfigurationProperties(prefix = "admission")
+public record AdmissionProperties(Boolean enabled,
+                                  Duration retryAfter,
+                                  Pool anonymous,
+                                  Pool authenticated,
+                                  Pool bulk) {
+
+    public AdmissionProperties {
+        if (enabled == null) {
+            enabled = true;
+        }
+        if (retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+            retryAfter = Duration.ofSeconds(1);
+        }
+        if (anonymous == null) {
+            anonymous = new Pool(0, 0, 0, 0, null);
+        }
+        if (authenticated == null) {
+            authenticated = new Pool(0, 0, 0, 0, null);
+        }
+        if (bulk == null) {
+            bulk = new Pool(0, 0, 0, 0, null);
+        }
+    }
+
+    /**
+     * Пул с адаптивным пределом одновременных запросов.
+     *
+     * @param initialLimit предел до первых замеров; 0 — удвоенное число ядер
+     * @param minLimit     нижняя граница предела
+     * @param maxLimit     верхняя граница предела; по умолчанию — число потоков Tomcat
+     * @param maxQueue     сколько запросов может ждать свободного места сверх предела; 0 — 50, отрицательное — без очереди
+     * @param maxWait      сколько запрос ждёт в очереди, прежде чем получить 429
+     */
+    public record Pool(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait) {
+
+        public Pool {
+            if (minLimit <= 0) {
+                minLimit = 1;
+            }
+            if (maxLimit <= 0) {
+                maxLimit = 200;
+            }
+            if (initialLimit <= 0) {
+                initialLimit = 2 * Runtime.getRuntime().availableProcessors();
+            }
+            initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+            if (maxQueue < 0) {
+                maxQueue = 0;
+            } else if (maxQueue == 0) {
+                maxQueue = 50;
+            }
+            if (maxWait == null || maxWait.isNegative()) {
+                maxWait = Duration.ofMillis(100);
+            }
+        }
+    }
+}
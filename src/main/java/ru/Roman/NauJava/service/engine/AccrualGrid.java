@@ -0,0 +1,173 @@
+package ru.Roman.NauJava.service.engine;
+
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сетка дат платежей с заранее посчитанными долями года по конвенции подсчёта дней.
+ * Период {@code i} идёт от предыдущей даты платежа (для первого — от даты выдачи) до {@code paymentDays[i]}.
+ * Доля хранится дробью {@code numerators[i] / denominators[i]}, чтобы точный расчёт делил так же,
+ * как раньше (на 12 или на 365), и дублируется в {@code double} для приближённого движка.
+ * Сетки неизменяемы и кэшируются: сценарии с одной датой выдачи (перебор, пакетный импорт)
+ * не пересчитывают календарь.
+ */
+public final class AccrualGrid {
+
+    private static final int MAX_CACHED_GRIDS = 512;
+    private static final int DAYS_IN_YEAR = 365;
+    private static final int DAYS_IN_LEAP_YEAR = 366;
+    private static final int DAYS_IN_YEAR_30_360 = 360;
+    private static final int MONTHS_IN_YEAR = 12;
+
+    private static final Map<Key, AccrualGrid> CACHE = new ConcurrentHashMap<>();
+
+    private record Key(long disbursementDay, boolean adjustWeekends, DayCountConvention convention) {
+    }
+
+    private final DayCountConvention convention;
+    private final int[] paymentDays;
+    private final int[] numerators;
+    private final int[] denominators;
+    private final double[] factors;
+
+    private AccrualGrid(DayCountConvention convention, int[] paymentDays, int[] numerators, int[] denominators) {
+        this.convention = convention;
+        this.paymentDays = paymentDays;
+        this.numerators = numerators;
+        this.denominators = denominators;
+        this.factors = new double[paymentDays.length];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = (double) numerators[i] / denominators[i];
+        }
+    }
+
+    /**
+     * Конвенция расчёта: выбранная в запросе либо прежняя для своего пути —
+     * равные месяцы для обычного кредита и ACT/365F для субсидированной ипотеки.
+     */
+    public static DayCountConvention resolve(DayCountConvention requested, boolean subsidized) {
+        if (requested != null) {
+            return requested;
+        }
+        return subsidized ? DayCountConvention.ACT_365F : DayCountConvention.MONTHLY;
+    }
+
+    /**
+     * Сетка на горизонт {@link PaymentCalendar#MAX_CALCULATION_MONTHS} из кэша или вновь посчитанная.
+     * Кэш ограничен по размеру и при переполнении сбрасывается целиком.
+     */
+    public static AccrualGrid of(LocalDate disbursementDate, boolean adjustWeekends, DayCountConvention convention) {
+        Key key = new Key(disbursementDate.toEpochDay(), adjustWeekends, convention);
+        AccrualGrid grid = CACHE.get(key);
+        if (grid != null) {
+            return grid;
+        }
+        if (CACHE.size() >= MAX_CACHED_GRIDS) {
+            CACHE.clear();
+        }
+        return CACHE.computeIfAbsent(key, k -> compute(disbursementDate, adjustWeekends, convention));
+    }
+
+    static AccrualGrid compute(LocalDate disbursementDate, boolean adjustWeekends, DayCountConvention convention) {
+        int horizon = PaymentCalendar.MAX_CALCULATION_MONTHS;
+        int[] paymentDays = new int[horizon];
+        int[] numerators = new int[horizon];
+        int[] denominators = new int[horizon];
+        LocalDate start = disbursementDate;
+        for (int i = 0; i < horizon; i++) {
+            LocalDate end = PaymentCalendar.paymentDate(disbursementDate, i + 1, adjustWeekends);
+            paymentDays[i] = (int) end.toEpochDay();
+            switch (convention) {
+                case MONTHLY -> {
+                    numerators[i] = 1;
+                    denominators[i] = MONTHS_IN_YEAR;
+                }
+                case THIRTY_360 -> {
+                    numerators[i] = days30360(start, end);
+                    denominators[i] = DAYS_IN_YEAR_30_360;
+                }
+                case ACT_365F -> {
+                    numerators[i] = (int) ChronoUnit.DAYS.between(start, end);
+                    denominators[i] = DAYS_IN_YEAR;
+                }
+                case ACT_360 -> {
+                    numerators[i] = (int) ChronoUnit.DAYS.between(start, end);
+                    denominators[i] = DAYS_IN_YEAR_30_360;
+                }
+                case ACT_ACT -> {
+                    // d/365 + l/366 = (366·d + 365·l) / (365·366)
+                    int leapDays = leapYearDays(start, end);
+                    int regularDays = (int) ChronoUnit.DAYS.between(start, end) - leapDays;
+                    numerators[i] = DAYS_IN_LEAP_YEAR * regularDays + DAYS_IN_YEAR * leapDays;
+                    denominators[i] = DAYS_IN_YEAR * DAYS_IN_LEAP_YEAR;
+                }
+            }
+            start = end;
+        }
+        return new AccrualGrid(convention, paymentDays, numerators, denominators);
+    }
+
+    public DayCountConvention convention() {
+        return convention;
+    }
+
+    /**
+     * Даты регулярных платежей (epoch-day); массив общий для всех пользователей сетки и не изменяется.
+     */
+    public int[] paymentDays() {
+        return paymentDays;
+    }
+
+    /**
+     * Доли года по периодам; массив общий для всех пользователей сетки и не изменяется.
+     */
+    public double[] factors() {
+        return factors;
+    }
+
+    /**
+     * Начисление за период: годовая сумма, умноженная на долю года периода.
+     *
+     * @param annualAmount остаток, умноженный на годовую ставку долей
+     * @param period       номер периода с нуля
+     */
+    public BigDecimal accrue(BigDecimal annualAmount, int period, MathContext mc) {
+        return annualAmount.multiply(BigDecimal.valueOf(numerators[period]), mc)
+                .divide(BigDecimal.valueOf(denominators[period]), mc);
+    }
+
+    /**
+     * Дни по 30/360 US без особого правила для февраля: 31-е число считается 30-м,
+     * конец периода — только если начало пришлось на 30-е или 31-е.
+     */
+    private static int days30360(LocalDate start, LocalDate end) {
+        int startDay = Math.min(start.getDayOfMonth(), 30);
+        int endDay = end.getDayOfMonth();
+        if (endDay == 31 && startDay == 30) {
+            endDay = 30;
+        }
+        return DAYS_IN_YEAR_30_360 * (end.getYear() - start.getYear())
+                + 30 * (end.getMonthValue() - start.getMonthValue())
+                + (endDay - startDay);
+    }
+
+    private static int leapYearDays(LocalDate start, LocalDate end) {
+        int leapDays = 0;
+        LocalDate cursor = start;
+        while (cursor.isBefore(end)) {
+            LocalDate nextYear = LocalDate.of(cursor.getYear() + 1, 1, 1);
+            LocalDate segmentEnd = nextYear.isBefore(end) ? nextYear : end;
+            if (cursor.isLeapYear()) {
+                leapDays += (int) ChronoUnit.DAYS.between(cursor, segmentEnd);
+            }
+            cursor = segmentEnd;
+        }
+        return leapDays;
+    }
+}
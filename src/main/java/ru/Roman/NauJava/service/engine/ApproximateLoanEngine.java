@@ -0,0 +1,289 @@
+package ru.Roman.NauJava.service.engine;
+
+import java.time.LocalDate;
+
+/**
+ * Быстрый приближённый расчёт итогов кредита на {@code double} без построения графика.
+ * Повторяет правила точного расчёта {@code LoanCalculationService}, но не округляет проценты
+ * до копеек, поэтому итоги могут отличаться от точных на несколько копеек.
+ * Не выделяет памяти в цикле и укладывается в микросекунды даже на 600 месяцах.
+ */
+public final class ApproximateLoanEngine {
+
+    private static final double EPS = 0.009;
+    private static final double MONTHS_IN_YEAR = 12.0;
+
+    private ApproximateLoanEngine() {
+    }
+
+    public static LoanSummary run(FastLoanModel model) {
+        return model.subsidized() ? runSubsidized(model, null) : runRegular(model, model.periodRates(), null);
+    }
+
+    /**
+     * То же, что {@link #run}, но с ПСК по платежам заёмщика: потоки пишутся в массивы по ходу расчёта,
+     * затем решается уравнение доходности. Дороже обычного прогона на время решателя.
+     */
+    public static LoanSummary runWithEffectiveRate(FastLoanModel model) {
+        CashFlows flows = new CashFlows(LocalDate.ofEpochDay(model.disbursementDay()), model.principal(),
+                Math.min(model.durationMonths(), model.paymentDays().length) + model.eventDays().length);
+        LoanSummary summary = model.subsidized()
+                ? runSubsidized(model, flows)
+                : runRegular(model, model.periodRates(), flows);
+        return summary.withEffectiveRate(flows.effectiveRate());
+    }
+
+    /**
+     * Расчёт обычного (несубсидированного) кредита по собственной траектории ставок.
+     *
+     * @param periodRates годовая ставка (доля) на каждую дату платежа, длина не меньше горизонта модели
+     */
+    public static LoanSummary runRegular(FastLoanModel model, double[] periodRates) {
+        return runRegular(model, periodRates, null);
+    }
+
+    /**
+     * @param flows куда записывать платежи заёмщика для ПСК или {@code null}
+     */
+    private static LoanSummary runRegular(FastLoanModel model, double[] periodRates, CashFlows flows) {
+        int[] paymentDays = model.paymentDays();
+        double[] accrualFactors = model.accrualFactors();
+        int[] eventDays = model.eventDays();
+        double[] eventAmounts = model.eventAmounts();
+        boolean[] eventOnPaymentDate = model.eventOnPaymentDate();
+        int eventCount = eventDays.length;
+        int duration = model.durationMonths();
+        boolean annuity = !model.differential();
+        boolean reducePayment = annuity && model.reducePayment();
+
+        double remaining = model.principal();
+        double rate = periodRates[0];
+        double annuityPayment = annuity ? annuityPayment(remaining, rate, duration) : 0;
+        double totalPayment = 0;
+        double totalInterest = 0;
+        double firstPayment = Double.NaN;
+        double maxPayment = 0;
+        int lastDay = model.disbursementDay();
+        int eventsPointer = 0;
+        int month = 1;
+
+        while (remaining > EPS && month <= paymentDays.length) {
+            int paymentDay = paymentDays[month - 1];
+            while (eventsPointer < eventCount
+                    && !eventOnPaymentDate[eventsPointer]
+                    && eventDays[eventsPointer] <= paymentDay) {
+                double deducted = Math.min(eventAmounts[eventsPointer], remaining);
+                if (deducted > 0) {
+                    lastDay = eventDays[eventsPointer];
+                    if (flows != null) {
+                        flows.add(lastDay, deducted);
+                    }
+                }
+                eventsPointer++;
+                remaining -= deducted;
+                totalPayment += deducted;
+                if (reducePayment) {
+                    annuityPayment = annuityPayment(remaining, rate, Math.max(1, duration - (month - 1)));
+                }
+            }
+
+            int periodsLeft = Math.max(1, duration - (month - 1));
+            double resolvedRate = periodRates[month - 1];
+            if (annuity && resolvedRate != rate) {
+                annuityPayment = annuityPayment(remaining, resolvedRate, periodsLeft);
+            }
+            rate = resolvedRate;
+
+            double interest = remaining * rate * accrualFactors[month - 1];
+            double principalPart;
+            double payment;
+            if (annuity) {
+                payment = annuityPayment;
+                principalPart = payment - interest;
+                if (principalPart <= 0) {
+                    principalPart = 0;
+                    payment = Math.max(interest, annuityPayment);
+                }
+            } else {
+                principalPart = Math.min(remaining / periodsLeft, remaining);
+                payment = principalPart + interest;
+            }
+            if (principalPart > remaining) {
+                principalPart = remaining;
+                payment = principalPart + interest;
+            }
+            remaining -= principalPart;
+            totalInterest += interest;
+            totalPayment += payment;
+            maxPayment = Math.max(maxPayment, payment);
+            if (month == 1) {
+                firstPayment = payment;
+            }
+            lastDay = paymentDay;
+            if (flows != null) {
+                flows.add(paymentDay, payment);
+            }
+
+            while (eventsPointer < eventCount
+                    && eventOnPaymentDate[eventsPointer]
+                    && eventDays[eventsPointer] == paymentDay) {
+                double deducted = Math.min(eventAmounts[eventsPointer], remaining);
+                eventsPointer++;
+                remaining -= deducted;
+                if (flows != null && deducted > 0) {
+                    flows.add(paymentDay, deducted);
+                }
+                totalPayment += deducted;
+                if (reducePayment) {
+                    annuityPayment = annuityPayment(remaining, rate, Math.max(1, duration - month));
+                }
+            }
+            month++;
+        }
+
+        return new LoanSummary(firstPayment, Double.NaN, maxPayment, totalPayment, totalInterest, 0,
+                month - 1, lastDay, Math.max(0, remaining), Double.NaN);
+    }
+
+    /**
+     * Расчёт субсидированной ипотеки: проценты за долю года периода, льготная ставка в период субсидии.
+     */
+    private static LoanSummary runSubsidized(FastLoanModel model, CashFlows flows) {
+        FastLoanModel.SubsidyTerms subsidy = model.subsidy();
+        int[] paymentDays = model.paymentDays();
+        double[] accrualFactors = model.accrualFactors();
+        int[] eventDays = model.eventDays();
+        double[] eventAmounts = model.eventAmounts();
+        boolean[] eventOnPaymentDate = model.eventOnPaymentDate();
+        int eventCount = eventDays.length;
+        int duration = Math.min(model.durationMonths(), paymentDays.length);
+
+        double principal = model.principal();
+        double yearlyRateFull = model.baseRate();
+        boolean hasSubsidizedRate = !Double.isNaN(subsidy.subsidizedRate());
+        double yearlyRateSub = hasSubsidizedRate ? subsidy.subsidizedRate() : yearlyRateFull;
+        double fullPayment = annuityPayment(principal, yearlyRateFull, model.durationMonths());
+        double subsidizedPayment;
+        if (!Double.isNaN(subsidy.manualPayment())) {
+            subsidizedPayment = subsidy.manualPayment();
+        } else if (hasSubsidizedRate) {
+            subsidizedPayment = annuityPayment(principal, yearlyRateSub, model.durationMonths());
+        } else {
+            subsidizedPayment = fullPayment;
+        }
+
+        double balance = principal;
+        double totalPayment = 0;
+        double totalInterest = 0;
+        double totalSubsidy = 0;
+        double maxPayment = 0;
+        int lastDay = model.disbursementDay();
+        int eventsPointer = 0;
+        int month = 1;
+
+        for (; month <= duration && balance > EPS; month++) {
+            int paymentDay = paymentDays[month - 1];
+            while (eventsPointer < eventCount
+                    && !eventOnPaymentDate[eventsPointer]
+                    && eventDays[eventsPointer] <= paymentDay) {
+                double deducted = Math.min(eventAmounts[eventsPointer], balance);
+                if (deducted > 0) {
+                    lastDay = eventDays[eventsPointer];
+                    if (flows != null) {
+                        flows.add(lastDay, deducted);
+                    }
+                }
+                eventsPointer++;
+                balance -= deducted;
+                totalPayment += deducted;
+            }
+
+            // Доля года периода берётся из сетки и делится между льготной и полной ставкой
+            double accrual = balance * accrualFactors[month - 1];
+            double payment;
+            double interestClient;
+            double principalPart;
+            double subsidyAmount = 0;
+            if (month <= subsidy.months()) {
+                double interestByDays = accrual * yearlyRateSub;
+                double interestRealFull = accrual * yearlyRateFull;
+                if (subsidy.fixedPayment()) {
+                    payment = subsidizedPayment;
+                    if (interestByDays >= payment) {
+                        principalPart = 0;
+                        interestClient = payment;
+                        subsidyAmount = interestByDays - payment;
+                    } else {
+                        principalPart = payment - interestByDays;
+                        interestClient = interestByDays;
+                    }
+                    subsidyAmount += Math.max(0, interestRealFull - interestByDays);
+                } else {
+                    principalPart = Math.max(0, fullPayment - interestRealFull);
+                    interestClient = interestByDays;
+                    payment = principalPart + interestClient;
+                    subsidyAmount = Math.max(0, interestRealFull - interestByDays);
+                }
+            } else {
+                double interestByDays = accrual * yearlyRateFull;
+                payment = fullPayment;
+                if (interestByDays >= payment) {
+                    principalPart = 0;
+                    interestClient = payment;
+                } else {
+                    principalPart = payment - interestByDays;
+                    interestClient = interestByDays;
+                }
+            }
+            if (principalPart > balance) {
+                principalPart = balance;
+                payment = principalPart + interestClient;
+            }
+            balance -= principalPart;
+            totalPayment += payment;
+            totalInterest += interestClient;
+            totalSubsidy += subsidyAmount;
+            maxPayment = Math.max(maxPayment, payment);
+            lastDay = paymentDay;
+            if (flows != null) {
+                flows.add(paymentDay, payment);
+            }
+
+            while (eventsPointer < eventCount
+                    && eventOnPaymentDate[eventsPointer]
+                    && eventDays[eventsPointer] == paymentDay) {
+                double deducted = Math.min(eventAmounts[eventsPointer], balance);
+                eventsPointer++;
+                balance -= deducted;
+                totalPayment += deducted;
+                if (flows != null && deducted > 0) {
+                    flows.add(paymentDay, deducted);
+                }
+            }
+        }
+
+        return new LoanSummary(subsidizedPayment, fullPayment, maxPayment, totalPayment, totalInterest,
+                totalSubsidy, month - 1, lastDay, Math.max(0, balance), Double.NaN);
+    }
+
+    /**
+     * Аннуитетный платёж, округлённый до копеек, как в точном расчёте.
+     *
+     * @param annualRate годовая ставка долей
+     */
+    public static double annuityPayment(double principal, double annualRate, int months) {
+        if (months <= 0) {
+            return roundCents(principal);
+        }
+        double monthlyRate = annualRate / MONTHS_IN_YEAR;
+        if (monthlyRate == 0) {
+            return roundCents(principal / months);
+        }
+        double growth = Math.pow(1 + monthlyRate, months);
+        return roundCents(principal * monthlyRate * growth / (growth - 1));
+    }
+
+    private static double roundCents(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.Roman.NauJava.service.engine;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Трассировка точного расчёта по шагам: какая ставка применена, сколько начислено процентов,
+ * когда пересчитан аннуитет и как списан досрочный платёж.
+ * Шаги пишутся в кольцевой буфер из параллельных массивов: хранятся только ссылки на уже посчитанные значения,
+ * при переполнении затираются самые старые шаги. Выключенная трассировка — {@link #OFF} с нулевой ёмкостью:
+ * запись сводится к одной проверке, без форматирования строк и массивов аргументов.
+ */
+public final class CalculationTrace {
+
+    /**
+     * Шаг расчёта. Смысл {@code value} зависит от шага, {@code balance} — остаток долга после шага.
+     */
+    public enum Step {
+        RATE_RESOLVED, // value — годовая ставка периода, %
+        ANNUITY_RECALCULATED, // value — новый регулярный платёж
+        INTEREST_ACCRUED, // value — проценты периода
+        SUBSIDY_ACCRUED, // value — субсидия застройщика за период
+        EARLY_PAYMENT_APPLIED // value — списанная сумма; month — номер ближайшего регулярного платежа
+    }
+
+    /**
+     * Шаг трассировки.
+     *
+     * @param month номер регулярного платежа, к которому относится шаг
+     */
+    public record Entry(Step step, int month, LocalDate date, BigDecimal value, BigDecimal balance) {
+    }
+
+    public static final CalculationTrace OFF = new CalculationTrace(0);
+
+    private final int capacity;
+    private final Step[] steps;
+    private final int[] months;
+    private final LocalDate[] dates;
+    private final BigDecimal[] values;
+    private final BigDecimal[] balances;
+    private long recorded;
+
+    private CalculationTrace(int capacity) {
+        this.capacity = capacity;
+        this.steps = new Step[capacity];
+        this.months = new int[capacity];
+        this.dates = new LocalDate[capacity];
+        this.values = new BigDecimal[capacity];
+        this.balances = new BigDecimal[capacity];
+    }
+
+    public static CalculationTrace withCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость трассировки должна быть положительной");
+        }
+        return new CalculationTrace(capacity);
+    }
+
+    public boolean enabled() {
+        return capacity > 0;
+    }
+
+    void record(Step step, int month, LocalDate date, BigDecimal value, BigDecimal balance) {
+        if (capacity == 0) {
+            return;
+        }
+        int slot = (int) (recorded % capacity);
+        steps[slot] = step;
+        months[slot] = month;
+        dates[slot] = date;
+        values[slot] = value;
+        balances[slot] = balance;
+        recorded++;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Всего записано шагов, включая затёртые.
+     */
+    public long recorded() {
+        return recorded;
+    }
+
+    /**
+     * Сохранившиеся шаги от старых к новым.
+     */
+    public List<Entry> entries() {
+        int size = (int) Math.min(recorded, capacity);
+        List<Entry> entries = new ArrayList<>(size);
+        long first = recorded - size;
+        for (long index = first; index < recorded; index++) {
+            int slot = (int) (index % capacity);
+            entries.add(new Entry(steps[slot], months[slot], dates[slot], values[slot], balances[slot]));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.Roman.NauJava.service.engine;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Денежные потоки заёмщика для расчёта полной стоимости кредита (ПСК).
+ * Базовый период — месяц: для каждого потока сразу считаются число целых месяцев от даты выдачи
+ * и остаток в долях месяца (месяц = 365/12 дней), поэтому решатель работает только с готовыми массивами.
+ * Поток выдачи — минус сумма кредита на дату выдачи.
+ */
+final class CashFlows {
+
+    private static final int BASE_PERIODS_IN_YEAR = 12;
+    private static final double DAYS_IN_BASE_PERIOD = 365.0 / BASE_PERIODS_IN_YEAR;
+    private static final double PERCENT_SCALE = 1000.0;
+
+    private final LocalDate start;
+    private double[] amounts;
+    private int[] periods;
+    private double[] fractions;
+    private int size;
+
+    CashFlows(LocalDate start, double principal, int expectedFlows) {
+        this.start = start;
+        int capacity = Math.max(expectedFlows, 1) + 1;
+        this.amounts = new double[capacity];
+        this.periods = new int[capacity];
+        this.fractions = new double[capacity];
+        append(0, 0, -principal);
+    }
+
+    /**
+     * Платёж заёмщика на дату {@code date}; даты должны идти не раньше даты выдачи.
+     */
+    void add(LocalDate date, double amount) {
+        int months = (int) ChronoUnit.MONTHS.between(start, date);
+        // MONTHS.between не считает 31.01 → 28.02 целым месяцем, а plusMonths считает
+        if (!start.plusMonths(months + 1L).isAfter(date)) {
+            months++;
+        }
+        long days = ChronoUnit.DAYS.between(start.plusMonths(months), date);
+        append(months, days / DAYS_IN_BASE_PERIOD, amount);
+    }
+
+    /**
+     * Платёж на дату в виде epoch-day, как в {@link FastLoanModel}.
+     */
+    void add(int epochDay, double amount) {
+        add(LocalDate.ofEpochDay(epochDay), amount);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * ПСК в процентах годовых с тремя знаками: ставка базового периода, умноженная на 12 периодов.
+     *
+     * @return {@link Double#NaN}, если уравнение не имеет решения (например, нет ни одного платежа)
+     */
+    double effectiveRate() {
+        double periodRate = IrrSolver.periodRate(amounts, periods, fractions, size);
+        if (Double.isNaN(periodRate)) {
+            return Double.NaN;
+        }
+        return Math.round(periodRate * BASE_PERIODS_IN_YEAR * 100 * PERCENT_SCALE) / PERCENT_SCALE;
+    }
+
+    private void append(int period, double fraction, double amount) {
+        if (size == amounts.length) {
+            int capacity = size * 2;
+            amounts = Arrays.copyOf(amounts, capacity);
+            periods = Arrays.copyOf(periods, capacity);
+            fractions = Arrays.copyOf(fractions, capacity);
+        }
+        amounts[size] = amount;
+        periods[size] = period;
+        fractions[size] = fraction;
+        size++;
+    }
+}
@@ -0,0 +1,273 @@
+package ru.Roman.NauJava.service.engine;
+
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Параметры кредита, заранее разложенные в примитивные массивы для {@link ApproximateLoanEngine}.
+ * Даты хранятся как epoch-day, ставки — годовыми долями (0.12 = 12%).
+ * Модель неизменяема и может переиспользоваться между сценариями.
+ *
+ * @param paymentDays        даты регулярных платежей на весь горизонт {@link PaymentCalendar#MAX_CALCULATION_MONTHS}
+ * @param accrualFactors     доля года каждого процентного периода по конвенции подсчёта дней
+ * @param periodRates        ставка, действующая на дату каждого регулярного платежа
+ * @param eventDays          даты досрочных платежей в порядке применения
+ * @param eventOnPaymentDate {@code true} — списание в дату платежа, {@code false} — между платежами
+ * @param subsidy            условия субсидии застройщика или {@code null}
+ */
+public record FastLoanModel(double principal,
+                            int durationMonths,
+                            boolean differential,
+                            boolean reducePayment,
+                            double baseRate,
+                            int disbursementDay,
+                            int[] paymentDays,
+                            double[] accrualFactors,
+                            double[] periodRates,
+                            int[] eventDays,
+                            double[] eventAmounts,
+                            boolean[] eventOnPaymentDate,
+                            SubsidyTerms subsidy) {
+
+    private static final double ONE_HUNDRED = 100.0;
+
+    /**
+     * Условия субсидии. Отсутствующие значения передаются как {@link Double#NaN}.
+     */
+    public record SubsidyTerms(int months,
+                               double subsidizedRate,
+                               double manualPayment,
+                               boolean fixedPayment) {
+    }
+
+    private record Event(LocalDate date, double amount, boolean onPaymentDate) {
+    }
+
+    private record RatePeriod(LocalDate start, double rate) {
+    }
+
+    public boolean subsidized() {
+        return subsidy != null;
+    }
+
+    public FastLoanModel withPrincipal(double newPrincipal) {
+        return new FastLoanModel(newPrincipal, durationMonths, differential, reducePayment, baseRate, disbursementDay,
+                paymentDays, accrualFactors, periodRates, eventDays, eventAmounts, eventOnPaymentDate, subsidy);
+    }
+
+    public FastLoanModel withDurationMonths(int newDurationMonths) {
+        return new FastLoanModel(principal, newDurationMonths, differential, reducePayment, baseRate, disbursementDay,
+                paymentDays, accrualFactors, periodRates, eventDays, eventAmounts, eventOnPaymentDate, subsidy);
+    }
+
+    /**
+     * Копия со ставкой кредита, сдвинутой на {@code delta}: меняются базовая ставка
+     * и ставки платежей до {@code untilDay} (начала первого изменения ставки).
+     */
+    public FastLoanModel withBaseRateShift(int untilDay, double delta) {
+        return new FastLoanModel(principal, durationMonths, differential, reducePayment, baseRate + delta,
+                disbursementDay, paymentDays, accrualFactors, shiftRates(Integer.MIN_VALUE, untilDay, delta),
+                eventDays, eventAmounts, eventOnPaymentDate, subsidy);
+    }
+
+    /**
+     * Копия со ставкой, сдвинутой на {@code delta} для платежей с датами в {@code [fromDay, untilDay)} —
+     * так сдвигается одно изменение ставки до начала следующего.
+     */
+    public FastLoanModel withPeriodRateShift(int fromDay, int untilDay, double delta) {
+        return new FastLoanModel(principal, durationMonths, differential, reducePayment, baseRate, disbursementDay,
+                paymentDays, accrualFactors, shiftRates(fromDay, untilDay, delta),
+                eventDays, eventAmounts, eventOnPaymentDate, subsidy);
+    }
+
+    /**
+     * Копия с льготной ставкой субсидии, сдвинутой на {@code delta}; без субсидии или льготной ставки — та же модель.
+     */
+    public FastLoanModel withSubsidizedRateShift(double delta) {
+        if (subsidy == null || Double.isNaN(subsidy.subsidizedRate())) {
+            return this;
+        }
+        SubsidyTerms shifted = new SubsidyTerms(subsidy.months(), subsidy.subsidizedRate() + delta,
+                subsidy.manualPayment(), subsidy.fixedPayment());
+        return new FastLoanModel(principal, durationMonths, differential, reducePayment, baseRate, disbursementDay,
+                paymentDays, accrualFactors, periodRates, eventDays, eventAmounts, eventOnPaymentDate, shifted);
+    }
+
+    private double[] shiftRates(int fromDay, int untilDay, double delta) {
+        double[] shifted = periodRates.clone();
+        for (int i = 0; i < shifted.length; i++) {
+            if (paymentDays[i] >= fromDay && paymentDays[i] < untilDay) {
+                shifted[i] += delta;
+            }
+        }
+        return shifted;
+    }
+
+    /**
+     * Копия с дополнительным досрочным платежом {@code amount} в дату каждого регулярного платежа в пределах срока.
+     * Досрочные платежи модели сохраняются и в один день с новыми применяются первыми.
+     */
+    public FastLoanModel withMonthlyEarlyPayment(double amount) {
+        int months = Math.min(durationMonths, paymentDays.length);
+        int total = eventDays.length + months;
+        int[] days = new int[total];
+        double[] amounts = new double[total];
+        boolean[] onPaymentDate = new boolean[total];
+        int existing = 0;
+        int month = 0;
+        for (int i = 0; i < total; i++) {
+            if (month == months || (existing < eventDays.length && eventDays[existing] <= paymentDays[month])) {
+                days[i] = eventDays[existing];
+                amounts[i] = eventAmounts[existing];
+                onPaymentDate[i] = eventOnPaymentDate[existing];
+                existing++;
+            } else {
+                days[i] = paymentDays[month];
+                amounts[i] = amount;
+                onPaymentDate[i] = true;
+                month++;
+            }
+        }
+        return new FastLoanModel(principal, durationMonths, differential, reducePayment, baseRate, disbursementDay,
+                paymentDays, accrualFactors, periodRates, days, amounts, onPaymentDate, subsidy);
+    }
+
+    /**
+     * Собирает модель из запроса по тем же правилам, что и точный расчёт:
+     * сетка дат от даты выдачи, таймлайн ставок и развёрнутые досрочные платежи.
+     */
+    public static FastLoanModel from(LoanCalculationRequestDto request) {
+        LocalDate disbursementDate = request.getDisbursementDate();
+        LocalDate firstPaymentDate = request.resolveFirstPaymentDate();
+        boolean adjustWeekends = request.isAdjustWeekends();
+
+        SubsidyTerms subsidy = subsidyTerms(request);
+        // Сетка общая для всех моделей с той же датой выдачи: календарь и доли года не пересчитываются
+        AccrualGrid grid = AccrualGrid.of(disbursementDate, adjustWeekends,
+                AccrualGrid.resolve(request.getDayCount(), subsidy != null));
+        int[] paymentDays = grid.paymentDays();
+
+        double[] periodRates = resolvePeriodRates(request, firstPaymentDate, paymentDays);
+        List<Event> events = expandEvents(request, disbursementDate, firstPaymentDate);
+        int[] eventDays = new int[events.size()];
+        double[] eventAmounts = new double[events.size()];
+        boolean[] eventOnPaymentDate = new boolean[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            eventDays[i] = (int) event.date().toEpochDay();
+            eventAmounts[i] = event.amount();
+            eventOnPaymentDate[i] = event.onPaymentDate();
+        }
+
+        return new FastLoanModel(
+                request.getPrincipal().doubleValue(),
+                request.resolveDurationMonths(),
+                request.getPaymentType() == PaymentType.DIFFERENTIAL,
+                request.getRecalculationMode() == RecalculationMode.REDUCE_PAYMENT,
+                request.getInterestRate().doubleValue() / ONE_HUNDRED,
+                (int) disbursementDate.toEpochDay(),
+                paymentDays,
+                grid.factors(),
+                periodRates,
+                eventDays,
+                eventAmounts,
+                eventOnPaymentDate,
+                subsidy);
+    }
+
+    private static double[] resolvePeriodRates(LoanCalculationRequestDto request,
+                                               LocalDate firstPaymentDate,
+                                               int[] paymentDays) {
+        List<RatePeriod> timeline = new ArrayList<>();
+        timeline.add(new RatePeriod(firstPaymentDate, request.getInterestRate().doubleValue() / ONE_HUNDRED));
+        if (request.getRateChanges() != null) {
+            for (RateChangeDto dto : request.getRateChanges()) {
+                if (dto.getStartDate() == null || dto.getNewRate() == null) {
+                    continue;
+                }
+                timeline.add(new RatePeriod(dto.getStartDate(), dto.getNewRate().doubleValue() / ONE_HUNDRED));
+            }
+        }
+        timeline.sort(Comparator.comparing(RatePeriod::start));
+
+        int[] startDays = new int[timeline.size()];
+        for (int i = 0; i < startDays.length; i++) {
+            startDays[i] = (int) timeline.get(i).start().toEpochDay();
+        }
+        double[] rates = new double[paymentDays.length];
+        int period = 0;
+        for (int i = 0; i < paymentDays.length; i++) {
+            // Даты платежей возрастают, поэтому указатель на период только сдвигается вперёд
+            while (period + 1 < startDays.length && paymentDays[i] >= startDays[period + 1]) {
+                period++;
+            }
+            rates[i] = timeline.get(period).rate();
+        }
+        return rates;
+    }
+
+    private static List<Event> expandEvents(LoanCalculationRequestDto request,
+                                            LocalDate disbursementDate,
+                                            LocalDate firstPaymentDate) {
+        List<Event> events = new ArrayList<>();
+        if (request.getEarlyPayments() != null) {
+            for (EarlyPaymentDto dto : request.getEarlyPayments()) {
+                if (dto.getPaymentDate() == null || dto.getAmount() == null) {
+                    continue;
+                }
+                events.add(new Event(dto.getPaymentDate(), toCents(dto.getAmount()),
+                        dto.getApplicationMode() == EarlyPaymentApplicationMode.ON_PAYMENT_DATE));
+            }
+        }
+        if (request.getPeriodicEarlyPayments() != null) {
+            LocalDate defaultEnd = firstPaymentDate.plusMonths(PaymentCalendar.MAX_CALCULATION_MONTHS);
+            for (PeriodicEarlyPaymentDto dto : request.getPeriodicEarlyPayments()) {
+                if (dto.getStartDate() == null || dto.getIntervalMonths() == null || dto.getAmount() == null) {
+                    continue;
+                }
+                LocalDate end = dto.getEndDate() != null ? dto.getEndDate() : defaultEnd;
+                double amount = toCents(dto.getAmount());
+                boolean onPaymentDate = dto.getApplicationMode() == EarlyPaymentApplicationMode.ON_PAYMENT_DATE;
+                LocalDate date = dto.getStartDate();
+                for (int guard = 0; !date.isAfter(end) && guard < PaymentCalendar.MAX_CALCULATION_MONTHS; guard++) {
+                    events.add(new Event(date, amount, onPaymentDate));
+                    date = date.plusMonths(dto.getIntervalMonths());
+                }
+            }
+        }
+        events.removeIf(event -> event.amount() <= 0 || event.date().isBefore(disbursementDate));
+        events.sort(Comparator.comparing(Event::date));
+        return events;
+    }
+
+    private static SubsidyTerms subsidyTerms(LoanCalculationRequestDto request) {
+        if (!request.isDeveloperSubsidy()
+                || request.getSubsidyDurationMonths() == null || request.getSubsidyDurationMonths() <= 0
+                || (request.getSubsidizedPaymentAmount() == null && request.getSubsidizedRate() == null)) {
+            return null;
+        }
+        BigDecimal subsidizedRate = request.getSubsidizedRate();
+        BigDecimal manualPayment = request.getSubsidizedPaymentAmount();
+        return new SubsidyTerms(
+                request.getSubsidyDurationMonths(),
+                subsidizedRate != null && subsidizedRate.signum() > 0 ? subsidizedRate.doubleValue() / ONE_HUNDRED : Double.NaN,
+                manualPayment != null && manualPayment.signum() > 0 ? toCents(manualPayment) : Double.NaN,
+                request.getSubsidyMode() != SubsidyMode.FLOATING_PAYMENT);
+    }
+
+    private static double toCents(BigDecimal amount) {
+        return Math.round(amount.doubleValue() * ONE_HUNDRED) / ONE_HUNDRED;
+    }
+}
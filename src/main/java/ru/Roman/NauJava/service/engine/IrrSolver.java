@@ -0,0 +1,124 @@
+package ru.Roman.NauJava.service.engine;
+
+/**
+ * Решение уравнения доходности по датированным потокам в форме 353-ФЗ:
+ * {@code Σ amounts[k] / ((1 + fractions[k]·i) · (1 + i)^periods[k]) = 0},
+ * где {@code periods[k]} — целое число базовых периодов до потока, {@code fractions[k]} — остаток в долях периода.
+ * Ньютон со страховкой бисекцией: шаг Ньютона принимается, только если остаётся внутри интервала со сменой знака.
+ * Работает на примитивных массивах и ничего не выделяет — можно звать на каждую котировку и в пакетных расчётах.
+ */
+public final class IrrSolver {
+
+    private static final double TOLERANCE = 1e-12;
+    private static final int MAX_ITERATIONS = 100;
+    // При -0.5 множитель (1 + i)^-q на горизонте PaymentCalendar (720 периодов) ещё не переполняет double
+    private static final double LOWER_BOUND = -0.5;
+    private static final double UPPER_LIMIT = 1e3;
+
+    private IrrSolver() {
+    }
+
+    /**
+     * Ставка за базовый период.
+     *
+     * @param count число используемых элементов массивов
+     * @return ставка в долях или {@link Double#NaN}, если на {@code [-0.5, 1000]} нет смены знака
+     */
+    public static double periodRate(double[] amounts, int[] periods, double[] fractions, int count) {
+        double low = LOWER_BOUND;
+        double high = 0.1;
+        double fLow = value(amounts, periods, fractions, count, low);
+        double fHigh = value(amounts, periods, fractions, count, high);
+        while (fLow * fHigh > 0 && high < UPPER_LIMIT) {
+            high *= 10;
+            fHigh = value(amounts, periods, fractions, count, high);
+        }
+        if (Double.isNaN(fLow) || Double.isNaN(fHigh) || fLow * fHigh > 0) {
+            return Double.NaN;
+        }
+        if (fLow == 0) {
+            return low;
+        }
+        if (fHigh == 0) {
+            return high;
+        }
+        // Ориентируем интервал так, чтобы в low функция была отрицательной
+        if (fLow > 0) {
+            double swap = low;
+            low = high;
+            high = swap;
+        }
+
+        double rate = 0;
+        double previousStep = Math.abs(high - low);
+        double step = previousStep;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double f = 0;
+            double df = 0;
+            double growth = 1 + rate;
+            double inverseGrowth = 1 / growth;
+            double discount = 1;
+            int period = 0;
+            for (int k = 0; k < count; k++) {
+                discount = discount(discount, period, periods[k], growth, inverseGrowth);
+                period = periods[k];
+                double partial = 1 + fractions[k] * rate;
+                double discounted = amounts[k] * discount / partial;
+                f += discounted;
+                df -= discounted * (fractions[k] / partial + period * inverseGrowth);
+            }
+            if (f == 0) {
+                return rate;
+            }
+            if (f < 0) {
+                low = rate;
+            } else {
+                high = rate;
+            }
+            double newton = rate - f / df;
+            boolean outside = (newton - high) * (newton - low) > 0 || df == 0;
+            if (outside || Math.abs(2 * f) > Math.abs(previousStep * df)) {
+                previousStep = step;
+                step = (high - low) / 2;
+                rate = low + step;
+            } else {
+                previousStep = step;
+                step = newton - rate;
+                rate = newton;
+            }
+            if (Math.abs(step) < TOLERANCE) {
+                return rate;
+            }
+        }
+        return rate;
+    }
+
+    private static double value(double[] amounts, int[] periods, double[] fractions, int count, double rate) {
+        double growth = 1 + rate;
+        double inverseGrowth = 1 / growth;
+        double discount = 1;
+        int period = 0;
+        double f = 0;
+        for (int k = 0; k < count; k++) {
+            discount = discount(discount, period, periods[k], growth, inverseGrowth);
+            period = periods[k];
+            f += amounts[k] * discount / (1 + fractions[k] * rate);
+        }
+        return f;
+    }
+
+    /**
+     * {@code (1 + i)^-period} из значения для предыдущего потока: потоки идут по месяцам подряд,
+     * поэтому обычно хватает одного умножения вместо {@link Math#pow}.
+     */
+    private static double discount(double previous, int previousPeriod, int period, double growth,
+                                   double inverseGrowth) {
+        if (period == previousPeriod) {
+            return previous;
+        }
+        if (period == previousPeriod + 1) {
+            return previous * inverseGrowth;
+        }
+        return 1 / Math.pow(growth, period);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.Roman.NauJava.service.engine;
+
+/**
+ * Итоги расчёта без графика — результат {@link ApproximateLoanEngine}.
+ *
+ * @param firstPayment  первый регулярный платёж (для субсидии — платёж в льготный период)
+ * @param fullPayment   платёж после окончания субсидии или {@link Double#NaN}
+ * @param maxPayment    максимальный регулярный платёж
+ * @param payments      число регулярных платежей
+ * @param payoffDay     дата последнего платежа (epoch-day)
+ * @param remaining     непогашенный остаток на конце горизонта, обычно 0
+ * @param effectiveRate ПСК в процентах годовых или {@link Double#NaN}, если не считалась
+ */
+public record LoanSummary(double firstPayment,
+                          double fullPayment,
+                          double maxPayment,
+                          double totalPayment,
+                          double totalInterest,
+                          double totalSubsidy,
+                          int payments,
+                          int payoffDay,
+                          double remaining,
+                          double effectiveRate) {
+
+    public LoanSummary withEffectiveRate(double effectiveRate) {
+        return new LoanSummary(firstPayment, fullPayment, maxPayment, totalPayment, totalInterest, totalSubsidy,
+                payments, payoffDay, remaining, effectiveRate);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.Roman.NauJava.service.engine;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Правила построения дат платежей, общие для точного и приближённого расчёта.
+ */
+public final class PaymentCalendar {
+
+    /**
+     * Предельное число шагов графика, после которого расчёт прекращается.
+     */
+    public static final int MAX_CALCULATION_MONTHS = 720;
+
+    private PaymentCalendar() {
+    }
+
+    /**
+     * Дата платежа номер {@code monthNumber}: отсчитывается от даты выдачи, чтобы сохранить день месяца.
+     */
+    public static LocalDate paymentDate(LocalDate disbursementDate, int monthNumber, boolean adjustWeekends) {
+        return adjustForWeekend(disbursementDate.plusMonths(monthNumber), adjustWeekends);
+    }
+
+    /**
+     * Переносит дату с выходных на ближайший будний день (понедельник).
+     */
+    public static LocalDate adjustForWeekend(LocalDate date, boolean adjustWeekends) {
+        if (!adjustWeekends) {
+            return date;
+        }
+        DayOfWeek day = date.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY) {
+            return date.plusDays(2); // Перенос на понедельник
+        } else if (day == DayOfWeek.SUNDAY) {
+            return date.plusDays(1); // Перенос на понедельник
+        }
+        return date;
+    }
+}
@@ -0,0 +1,1035 @@
+package ru.Roman.NauJava.service.engine;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics.Phase;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Точный расчёт графика платежей на BigDecimal.
+ * Строки графика отдаются в {@link ScheduleSink} сразу после расчёта.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScheduleEngine {
+
+    private final CalculationMetrics calculationMetrics;
+
+    private static final MathContext MC = new MathContext(12, RoundingMode.HALF_UP);
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+    private static final BigDecimal TWELVE = new BigDecimal("12");
+    private static final BigDecimal EPS = new BigDecimal("0.009");
+
+    private record EarlyPaymentEvent(LocalDate date, BigDecimal amount, EarlyPaymentApplicationMode mode) {
+    }
+
+    private record RatePeriod(LocalDate start, BigDecimal rate) {
+    }
+
+    /**
+     * Субсидированная ипотека считается отдельным алгоритмом.
+     * Требуется: срок субсидии + (ручной платёж ИЛИ льготная ставка).
+     */
+    public boolean isSubsidized(LoanCalculationRequestDto request) {
+        return request.isDeveloperSubsidy()
+                && request.getSubsidyDurationMonths() != null && request.getSubsidyDurationMonths() > 0
+                && (request.getSubsidizedPaymentAmount() != null || request.getSubsidizedRate() != null);
+    }
+
+    /**
+     * Строит график, передавая строки в {@code sink} по мере расчёта: сам движок строки не накапливает.
+     * Попутно собирает платежи заёмщика в примитивные массивы и по ним считает ПСК.
+     */
+    public ScheduleSummary build(LoanCalculationRequestDto request, ScheduleSink sink, Tags tags) {
+        return build(request, sink, tags, CalculationTrace.OFF);
+    }
+
+    /**
+     * То же, с записью шагов расчёта в {@code trace}.
+     */
+    public ScheduleSummary build(LoanCalculationRequestDto request, ScheduleSink sink, Tags tags,
+                                 CalculationTrace trace) {
+        CashFlows flows = new CashFlows(request.getDisbursementDate(), request.getPrincipal().doubleValue(),
+                request.resolveDurationMonths());
+        ScheduleSink recordingSink = item -> {
+            flows.add(item.getPaymentDate(), item.getPaymentAmount().doubleValue());
+            sink.accept(item);
+        };
+        ScheduleSummary summary = isSubsidized(request)
+                ? buildSubsidizedSchedule(request, recordingSink, tags, trace, Integer.MAX_VALUE)
+                : buildRegularSchedule(request, recordingSink, tags, trace, Integer.MAX_VALUE);
+        double effectiveRate = calculationMetrics.time(Phase.EFFECTIVE_RATE, tags, flows::effectiveRate);
+        return summary.withEffectiveRate(Double.isNaN(effectiveRate)
+                ? null : BigDecimal.valueOf(effectiveRate).setScale(3, RoundingMode.HALF_UP));
+    }
+
+    /**
+     * Строит только начало графика: расчёт останавливается, как только в {@code sink} передано не меньше
+     * {@code rowLimit} строк (досрочные платежи того же месяца могут добавить ещё несколько). Итоги и ПСК
+     * не считаются — это нужно для постраничной выдачи, где строки после страницы не нужны.
+     *
+     * @return {@code true}, если график закончился раньше лимита и в {@code sink} переданы все его строки
+     */
+    public boolean buildRows(LoanCalculationRequestDto request, int rowLimit, ScheduleSink sink, Tags tags) {
+        ScheduleSummary summary = isSubsidized(request)
+                ? buildSubsidizedSchedule(request, sink, tags, CalculationTrace.OFF, rowLimit)
+                : buildRegularSchedule(request, sink, tags, CalculationTrace.OFF, rowLimit);
+        return summary != null;
+    }
+
+    /**
+     * @return итоги или {@code null}, если расчёт остановлен по {@code rowLimit} до погашения долга
+     */
+    private ScheduleSummary buildRegularSchedule(LoanCalculationRequestDto request, ScheduleSink sink, Tags tags,
+                                                 CalculationTrace trace, int rowLimit) {
+        return buildRegularLanes(request, new RecalculationMode[]{request.getRecalculationMode()},
+                new ScheduleSink[]{sink}, trace, tags, rowLimit)[0];
+    }
+
+    /**
+     * Строит графики обычного кредита для обоих режимов перерасчёта за один проход по датам платежей:
+     * даты, ставка периода и досрочные платежи общие, у каждого режима свой остаток и свой аннуитет.
+     * Строки режима уходят в его {@code sink}; у каждого режима своя ПСК.
+     *
+     * @return итоги в порядке {@code modes}
+     */
+    public ScheduleSummary[] compareRecalculationModes(LoanCalculationRequestDto request, RecalculationMode[] modes,
+                                                       ScheduleSink[] sinks, Tags tags) {
+        if (isSubsidized(request)) {
+            throw new IllegalArgumentException("Режим перерасчёта не влияет на график субсидированной ипотеки");
+        }
+        CashFlows[] flows = new CashFlows[modes.length];
+        ScheduleSink[] recordingSinks = new ScheduleSink[modes.length];
+        for (int lane = 0; lane < modes.length; lane++) {
+            CashFlows laneFlows = new CashFlows(request.getDisbursementDate(), request.getPrincipal().doubleValue(),
+                    request.resolveDurationMonths());
+            ScheduleSink laneSink = sinks[lane];
+            flows[lane] = laneFlows;
+            recordingSinks[lane] = item -> {
+                laneFlows.add(item.getPaymentDate(), item.getPaymentAmount().doubleValue());
+                laneSink.accept(item);
+            };
+        }
+        ScheduleSummary[] summaries = buildRegularLanes(request, modes, recordingSinks, CalculationTrace.OFF, tags,
+                Integer.MAX_VALUE);
+        for (int lane = 0; lane < modes.length; lane++) {
+            double effectiveRate = calculationMetrics.time(Phase.EFFECTIVE_RATE, tags, flows[lane]::effectiveRate);
+            summaries[lane] = summaries[lane].withEffectiveRate(Double.isNaN(effectiveRate)
+                    ? null : BigDecimal.valueOf(effectiveRate).setScale(3, RoundingMode.HALF_UP));
+        }
+        return summaries;
+    }
+
+    private ScheduleSummary[] buildRegularLanes(LoanCalculationRequestDto request, RecalculationMode[] modes,
+                                                ScheduleSink[] sinks, CalculationTrace trace, Tags tags,
+                                                int rowLimit) {
+        EarlyPaymentStream events = calculationMetrics.time(Phase.EARLY_PAYMENT_EXPANSION, tags,
+                () -> expandEarlyPayments(request));
+        List<RatePeriod> rateTimeline = calculationMetrics.time(Phase.RATE_TIMELINE, tags,
+                () -> buildRateTimeline(request));
+        AccrualGrid grid = calculationMetrics.time(Phase.ACCRUAL_GRID, tags,
+                () -> accrualGrid(request, false));
+        Timer.Sample loopSample = calculationMetrics.start();
+
+        int originalDuration = request.resolveDurationMonths();
+        if (originalDuration <= 0) {
+            throw new IllegalArgumentException("Срок кредита должен быть положительным");
+        }
+
+        boolean adjustWeekends = request.isAdjustWeekends();
+        LocalDate paymentDate = PaymentCalendar.adjustForWeekend(request.resolveFirstPaymentDate(), adjustWeekends);
+        BigDecimal initialRate = resolveRate(rateTimeline, paymentDate);
+        RegularLane[] lanes = new RegularLane[modes.length];
+        for (int lane = 0; lane < modes.length; lane++) {
+            lanes[lane] = new RegularLane(request, modes[lane], originalDuration, paymentDate, initialRate, grid, events,
+                    sinks[lane], trace);
+        }
+
+        int monthIndex = 1;
+        boolean anyActive = true;
+        while (anyActive && monthIndex <= PaymentCalendar.MAX_CALCULATION_MONTHS) {
+            // Ставка периода общая для всех режимов: она зависит только от даты платежа
+            BigDecimal resolvedRate = resolveRate(rateTimeline, paymentDate);
+            anyActive = false;
+            for (RegularLane lane : lanes) {
+                if (lane.active() && lane.rows < rowLimit) {
+                    lane.step(monthIndex, paymentDate, resolvedRate);
+                    anyActive |= lane.active() && lane.rows < rowLimit;
+                }
+            }
+
+            monthIndex++;
+            // Вычисляем следующую дату платежа от первоначальной даты выдачи, чтобы сохранить день месяца
+            LocalDate nextPaymentDate = request.getDisbursementDate().plusMonths(monthIndex);
+            paymentDate = PaymentCalendar.adjustForWeekend(nextPaymentDate, adjustWeekends);
+        }
+
+        ScheduleSummary[] summaries = new ScheduleSummary[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            RegularLane lane = lanes[i];
+            if (lane.active() && lane.rows >= rowLimit) {
+                continue;
+            }
+            if (lane.active()) {
+                throw new IllegalStateException("Не удалось досрочно погасить долг в допустимое количество шагов");
+            }
+            summaries[i] = new ScheduleSummary(
+                    lane.totalPayment.setScale(2, RoundingMode.HALF_UP),
+                    lane.totalInterest.setScale(2, RoundingMode.HALF_UP),
+                    BigDecimal.ZERO, // totalSubsidy
+                    null, // subsidizedPayment
+                    null, // fullPayment
+                    null, // balanceAfterSubsidy
+                    lane.rows,
+                    events.size(),
+                    null); // effectiveRate
+        }
+        calculationMetrics.stop(loopSample, Phase.SCHEDULE_LOOP, tags);
+        return summaries;
+    }
+
+    /**
+     * Обычный кредит в одном режиме перерасчёта: остаток, текущие ставка и аннуитет, итоги
+     * и собственный указатель досрочных платежей (сумма списания зависит от остатка режима).
+     * Без {@code sink} строки графика не создаются — так кредит без субсидии идёт в сравнении режимов субсидии.
+     */
+    private static final class RegularLane {
+
+        private final boolean annuity;
+        private final boolean reducePayment;
+        private final int originalDuration;
+        private final AccrualGrid grid;
+        private final EarlyPaymentStream events;
+        private final ScheduleSink sink;
+        private final CalculationTrace trace;
+
+        private BigDecimal remaining;
+        private BigDecimal currentRate;
+        private BigDecimal currentPaymentAmount;
+        private BigDecimal totalInterest = BigDecimal.ZERO;
+        private BigDecimal totalPayment = BigDecimal.ZERO;
+        private LocalDate lastPaymentDate;
+        private int eventsPointer;
+        private int payments;
+        private int rows;
+
+        RegularLane(LoanCalculationRequestDto request, RecalculationMode mode, int originalDuration,
+                    LocalDate firstPaymentDate, BigDecimal initialRate, AccrualGrid grid, EarlyPaymentStream events,
+                    ScheduleSink sink, CalculationTrace trace) {
+            this.annuity = request.getPaymentType() == PaymentType.ANNUITY;
+            this.reducePayment = mode == RecalculationMode.REDUCE_PAYMENT;
+            this.originalDuration = originalDuration;
+            this.grid = grid;
+            this.events = events;
+            this.sink = sink;
+            this.trace = trace;
+            this.remaining = request.getPrincipal().setScale(2, RoundingMode.HALF_UP);
+            this.currentRate = initialRate;
+            this.currentPaymentAmount = annuity
+                    ? calculateAnnuityPayment(remaining, currentRate, originalDuration)
+                    : BigDecimal.ZERO;
+            trace.record(CalculationTrace.Step.RATE_RESOLVED, 1, firstPaymentDate, currentRate, remaining);
+            if (annuity) {
+                trace.record(CalculationTrace.Step.ANNUITY_RECALCULATED, 1, firstPaymentDate, currentPaymentAmount,
+                        remaining);
+            }
+        }
+
+        boolean active() {
+            return remaining.compareTo(EPS) > 0;
+        }
+
+        void step(int monthIndex, LocalDate paymentDate, BigDecimal resolvedRate) {
+            // apply between-payments events (только BETWEEN_PAYMENTS с датой <= даты платежа)
+            while (events.has(eventsPointer)) {
+                EarlyPaymentEvent event = events.get(eventsPointer);
+                // BETWEEN_PAYMENTS: применяем если дата события <= даты платежа
+                // ON_PAYMENT_DATE: пропускаем здесь, обработаем после регулярного платежа
+                boolean shouldApply = event.mode() == EarlyPaymentApplicationMode.BETWEEN_PAYMENTS
+                        && !event.date().isAfter(paymentDate);
+                if (!shouldApply) {
+                    break;
+                }
+                eventsPointer++;
+                if (applyEarlyPayment(event, monthIndex)) {
+                    recalculatePayment(Math.max(1, originalDuration - (monthIndex - 1)), monthIndex, event.date());
+                }
+            }
+
+            if (resolvedRate.compareTo(currentRate) != 0) {
+                trace.record(CalculationTrace.Step.RATE_RESOLVED, monthIndex, paymentDate, resolvedRate, remaining);
+            }
+            if (annuity && resolvedRate.compareTo(currentRate) != 0) {
+                currentRate = resolvedRate;
+                int periodsLeft = Math.max(1, originalDuration - (monthIndex - 1));
+                currentPaymentAmount = calculateAnnuityPayment(remaining, currentRate, periodsLeft);
+                trace.record(CalculationTrace.Step.ANNUITY_RECALCULATED, monthIndex, paymentDate, currentPaymentAmount,
+                        remaining);
+            } else {
+                currentRate = resolvedRate;
+            }
+
+            int periodsLeft = Math.max(1, originalDuration - (monthIndex - 1));
+            BigDecimal paymentAmount;
+            BigDecimal interestPart;
+            BigDecimal principalPart;
+
+            // Доля года периода берётся из сетки по выбранной конвенции подсчёта дней
+            interestPart = grid.accrue(remaining.multiply(currentRate, MC).divide(ONE_HUNDRED, MC), monthIndex - 1, MC)
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            if (!annuity) {
+                principalPart = remaining.divide(BigDecimal.valueOf(periodsLeft), MC)
+                        .setScale(2, RoundingMode.HALF_UP)
+                        .min(remaining);
+                paymentAmount = principalPart.add(interestPart);
+            } else {
+                // Аннуитетный платёж
+                paymentAmount = currentPaymentAmount;
+                principalPart = paymentAmount.subtract(interestPart);
+
+                // Если проценты >= платежа, то основной долг = 0
+                if (principalPart.compareTo(BigDecimal.ZERO) <= 0) {
+                    principalPart = BigDecimal.ZERO;
+                    // Для ипотеки: платим фиксированный аннуитет, но если проценты больше - только проценты
+                    if (interestPart.compareTo(currentPaymentAmount) > 0) {
+                        paymentAmount = interestPart;
+                    } else {
+                        paymentAmount = currentPaymentAmount;
+                    }
+                }
+            }
+
+            if (principalPart.compareTo(remaining) > 0) {
+                principalPart = remaining;
+                paymentAmount = principalPart.add(interestPart);
+            }
+
+            remaining = remaining.subtract(principalPart);
+            trace.record(CalculationTrace.Step.INTEREST_ACCRUED, monthIndex, paymentDate, interestPart, remaining);
+
+            if (sink != null) {
+                PaymentScheduleItem scheduleItem = PaymentScheduleItem.builder()
+                        .monthNumber(monthIndex)
+                        .paymentDate(paymentDate)
+                        .paymentAmount(paymentAmount.setScale(2, RoundingMode.HALF_UP))
+                        .principalPart(principalPart.setScale(2, RoundingMode.HALF_UP))
+                        .interestPart(interestPart.setScale(2, RoundingMode.HALF_UP))
+                        .remainingDebt(remaining.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
+                        .build();
+                sink.accept(scheduleItem);
+            }
+            rows++;
+            payments++;
+            lastPaymentDate = paymentDate;
+
+            totalInterest = totalInterest.add(interestPart);
+            totalPayment = totalPayment.add(paymentAmount);
+
+            while (events.has(eventsPointer)) {
+                EarlyPaymentEvent event = events.get(eventsPointer);
+                if (!event.date().isEqual(paymentDate)
+                        || event.mode() != EarlyPaymentApplicationMode.ON_PAYMENT_DATE) {
+                    break;
+                }
+                eventsPointer++;
+                if (applyEarlyPayment(event, monthIndex)) {
+                    recalculatePayment(Math.max(1, originalDuration - monthIndex), monthIndex, event.date());
+                }
+            }
+        }
+
+        /**
+         * @return {@code false}, если долг уже погашен и списывать нечего
+         */
+        private boolean applyEarlyPayment(EarlyPaymentEvent event, int monthIndex) {
+            BigDecimal deducted = event.amount().min(remaining).setScale(2, RoundingMode.HALF_UP);
+            if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
+                return false;
+            }
+            remaining = remaining.subtract(deducted);
+            totalPayment = totalPayment.add(deducted);
+            lastPaymentDate = event.date();
+            trace.record(CalculationTrace.Step.EARLY_PAYMENT_APPLIED, monthIndex, event.date(), deducted, remaining);
+            if (sink == null) {
+                rows++;
+                return true;
+            }
+
+            // Добавляем строку досрочного платежа в график
+            PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
+                    .monthNumber(0) // Без номера
+                    .paymentDate(event.date())
+                    .paymentAmount(deducted)
+                    .principalPart(deducted) // Весь платёж идёт в основной долг
+                    .interestPart(BigDecimal.ZERO)
+                    .remainingDebt(remaining.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
+                    .earlyPayment(true)
+                    .build();
+            sink.accept(earlyPaymentItem);
+            rows++;
+            return true;
+        }
+
+        private void recalculatePayment(int periodsLeft, int monthIndex, LocalDate date) {
+            if (annuity && reducePayment) {
+                currentPaymentAmount = calculateAnnuityPayment(remaining, currentRate, periodsLeft);
+                trace.record(CalculationTrace.Step.ANNUITY_RECALCULATED, monthIndex, date, currentPaymentAmount,
+                        remaining);
+            }
+        }
+    }
+
+    /**
+     * Расчёт субсидированной ипотеки от застройщика.
+     * Алгоритм:
+     * 1. A_full = аннуитет по полной ставке банка
+     * 2. A_sub = аннуитет по льготной ставке (для FIXED_PAYMENT)
+     * 3. В период субсидии: проценты по льготной ставке за долю года периода (по умолчанию ACT/365F)
+     * 4. Если проценты > платежа → осн.долг = 0
+     * 5. После субсидии: стандартный платёж A_full, проценты по полной ставке за долю года периода
+     */
+    private ScheduleSummary buildSubsidizedSchedule(LoanCalculationRequestDto request, ScheduleSink sink, Tags tags,
+                                                    CalculationTrace trace, int rowLimit) {
+        EarlyPaymentStream events = calculationMetrics.time(Phase.EARLY_PAYMENT_EXPANSION, tags,
+                () -> expandEarlyPayments(request));
+        AccrualGrid grid = calculationMetrics.time(Phase.ACCRUAL_GRID, tags,
+                () -> accrualGrid(request, true));
+        Timer.Sample loopSample = calculationMetrics.start();
+
+        SubsidyTerms terms = subsidyTerms(request, grid);
+        SubsidyMode subsidyMode = request.getSubsidyMode() != null ? request.getSubsidyMode() : SubsidyMode.FIXED_PAYMENT;
+        SubsidyLane lane = new SubsidyLane(subsidyMode, request.getSubsidyDurationMonths(), terms, events, sink, trace);
+        int durationMonths = request.resolveDurationMonths();
+        for (int month = 1; month <= durationMonths && lane.active() && lane.rows < rowLimit; month++) {
+            lane.step(month, LocalDate.ofEpochDay(grid.paymentDays()[month - 1]));
+        }
+        calculationMetrics.stop(loopSample, Phase.SCHEDULE_LOOP, tags);
+        if (lane.active() && lane.rows >= rowLimit) {
+            return null;
+        }
+
+        return new ScheduleSummary(
+                lane.totalPayment.setScale(2, RoundingMode.HALF_UP),
+                lane.totalInterest.setScale(2, RoundingMode.HALF_UP),
+                lane.totalSubsidy.setScale(2, RoundingMode.HALF_UP),
+                terms.aSub().setScale(2, RoundingMode.HALF_UP), // subsidizedPayment
+                terms.aFull().setScale(2, RoundingMode.HALF_UP), // fullPayment
+                lane.balanceAfterSubsidy,
+                lane.rows,
+                events.size(),
+                null // effectiveRate
+        );
+    }
+
+    /**
+     * Сравнение вариантов субсидии за один проход: FIXED_PAYMENT, FLOATING_PAYMENT и тот же кредит без субсидии
+     * идут по общим датам платежей и общим досрочным платежам; платежи A_full и A_sub считаются один раз.
+     * Кредит без субсидии считается как обычный: по своей конвенции подсчёта дней, с изменениями ставки и режимом
+     * перерасчёта из запроса. Строки графика не создаются. Итоги каждого варианта совпадают с отдельным расчётом
+     * в этом режиме, а для кредита без субсидии — с расчётом при {@code developerSubsidy = false}.
+     */
+    public List<SubsidyLaneSummary> compareSubsidyModes(LoanCalculationRequestDto request, Tags tags) {
+        if (!isSubsidized(request)) {
+            throw new IllegalArgumentException("Сравнение доступно только для ипотеки с субсидией застройщика");
+        }
+        EarlyPaymentStream events = calculationMetrics.time(Phase.EARLY_PAYMENT_EXPANSION, tags,
+                () -> expandEarlyPayments(request));
+        List<RatePeriod> rateTimeline = calculationMetrics.time(Phase.RATE_TIMELINE, tags,
+                () -> buildRateTimeline(request));
+        AccrualGrid grid = calculationMetrics.time(Phase.ACCRUAL_GRID, tags,
+                () -> accrualGrid(request, true));
+        AccrualGrid regularGrid = calculationMetrics.time(Phase.ACCRUAL_GRID, tags,
+                () -> accrualGrid(request, false));
+        Timer.Sample loopSample = calculationMetrics.start();
+
+        SubsidyTerms terms = subsidyTerms(request, grid);
+        int subsidyMonths = request.getSubsidyDurationMonths();
+        SubsidyLane[] lanes = {
+                new SubsidyLane(SubsidyMode.FIXED_PAYMENT, subsidyMonths, terms, events, null, CalculationTrace.OFF),
+                new SubsidyLane(SubsidyMode.FLOATING_PAYMENT, subsidyMonths, terms, events, null, CalculationTrace.OFF)
+        };
+        int durationMonths = request.resolveDurationMonths();
+        // Даты платежей не зависят от конвенции подсчёта дней, поэтому обе сетки дают одни и те же даты
+        LocalDate firstPaymentDate = LocalDate.ofEpochDay(grid.paymentDays()[0]);
+        BigDecimal initialRate = resolveRate(rateTimeline, firstPaymentDate);
+        RegularLane unsubsidized = new RegularLane(request, request.getRecalculationMode(), durationMonths,
+                firstPaymentDate, initialRate, regularGrid, events, null, CalculationTrace.OFF);
+        boolean anyActive = true;
+        for (int month = 1; month <= PaymentCalendar.MAX_CALCULATION_MONTHS && anyActive; month++) {
+            LocalDate paymentDate = LocalDate.ofEpochDay(grid.paymentDays()[month - 1]);
+            anyActive = false;
+            // Субсидированный график заканчивается в срок, обычный идёт до погашения долга
+            if (month <= durationMonths) {
+                for (SubsidyLane lane : lanes) {
+                    if (lane.active()) {
+                        lane.step(month, paymentDate);
+                        anyActive |= month < durationMonths && lane.active();
+                    }
+                }
+            }
+            if (unsubsidized.active()) {
+                unsubsidized.step(month, paymentDate, resolveRate(rateTimeline, paymentDate));
+                anyActive |= unsubsidized.active();
+            }
+        }
+        calculationMetrics.stop(loopSample, Phase.SCHEDULE_LOOP, tags);
+        if (unsubsidized.active()) {
+            throw new IllegalStateException("Не удалось досрочно погасить долг в допустимое количество шагов");
+        }
+
+        List<SubsidyLaneSummary> summaries = new ArrayList<>(lanes.length + 1);
+        for (SubsidyLane lane : lanes) {
+            summaries.add(new SubsidyLaneSummary(
+                    lane.mode,
+                    terms.aSub().setScale(2, RoundingMode.HALF_UP),
+                    terms.aFull().setScale(2, RoundingMode.HALF_UP),
+                    lane.totalPayment.setScale(2, RoundingMode.HALF_UP),
+                    lane.totalInterest.setScale(2, RoundingMode.HALF_UP),
+                    lane.totalSubsidy.setScale(2, RoundingMode.HALF_UP),
+                    lane.rateSubsidy.setScale(2, RoundingMode.HALF_UP),
+                    lane.paymentSubsidy.setScale(2, RoundingMode.HALF_UP),
+                    lane.balanceAfterSubsidy,
+                    lane.payments,
+                    lane.lastPaymentDate));
+        }
+        summaries.add(new SubsidyLaneSummary(
+                null,
+                null, // subsidizedPayment
+                unsubsidized.annuity ? calculateAnnuityPayment(terms.principal(), initialRate, durationMonths) : null,
+                unsubsidized.totalPayment.setScale(2, RoundingMode.HALF_UP),
+                unsubsidized.totalInterest.setScale(2, RoundingMode.HALF_UP),
+                BigDecimal.ZERO, // totalSubsidy
+                BigDecimal.ZERO, // rateSubsidy
+                BigDecimal.ZERO, // paymentSubsidy
+                null, // balanceAfterSubsidy
+                unsubsidized.payments,
+                unsubsidized.lastPaymentDate));
+        return summaries;
+    }
+
+    /**
+     * Платежи и ставки субсидированной ипотеки, общие для всех вариантов.
+     *
+     * @param principal      сумма кредита
+     * @param aFull          аннуитет по полной ставке банка
+     * @param aSub           платёж в льготный период: ручной, по льготной ставке или A_full
+     * @param yearlyRateFull полная ставка долей
+     * @param yearlyRateSub  льготная ставка долей; без неё — полная
+     * @param fullRate       полная ставка, % годовых
+     * @param subsidizedRate льготная ставка, % годовых; без неё — полная
+     */
+    private record SubsidyTerms(BigDecimal principal, BigDecimal aFull, BigDecimal aSub, BigDecimal yearlyRateFull,
+                                BigDecimal yearlyRateSub, BigDecimal fullRate, BigDecimal subsidizedRate,
+                                AccrualGrid grid) {
+
+        boolean sameRates() {
+            return yearlyRateSub.compareTo(yearlyRateFull) == 0;
+        }
+    }
+
+    private SubsidyTerms subsidyTerms(LoanCalculationRequestDto request, AccrualGrid grid) {
+        BigDecimal principal = request.getPrincipal().setScale(2, RoundingMode.HALF_UP);
+        int durationMonths = request.resolveDurationMonths();
+        BigDecimal fullRate = request.getInterestRate(); // Полная ставка банка (годовая)
+        BigDecimal subsidizedRate = request.getSubsidizedRate(); // Льготная ставка (годовая), может быть null
+
+        // Годовые ставки долями
+        BigDecimal yearlyRateFull = fullRate.divide(ONE_HUNDRED, MC);
+        // Если льготная ставка не указана, используем полную для расчёта процентов
+        BigDecimal yearlyRateSub = (subsidizedRate != null && subsidizedRate.compareTo(BigDecimal.ZERO) > 0)
+                ? subsidizedRate.divide(ONE_HUNDRED, MC)
+                : yearlyRateFull;
+        // Аннуитет по полной ставке
+        BigDecimal aFull = calculateAnnuityPayment(principal, fullRate, durationMonths);
+
+        // Платёж в льготный период: ручной ввод или расчёт по формуле
+        BigDecimal aSub;
+        if (request.getSubsidizedPaymentAmount() != null && request.getSubsidizedPaymentAmount().compareTo(BigDecimal.ZERO) > 0) {
+            // Используем введённый пользователем платёж
+            aSub = request.getSubsidizedPaymentAmount().setScale(2, RoundingMode.HALF_UP);
+        } else if (subsidizedRate != null && subsidizedRate.compareTo(BigDecimal.ZERO) > 0) {
+            // Рассчитываем по льготной ставке
+            aSub = calculateAnnuityPayment(principal, subsidizedRate, durationMonths);
+        } else {
+            // Если ничего не указано, используем полный аннуитет
+            aSub = aFull;
+        }
+
+        return new SubsidyTerms(principal, aFull, aSub, yearlyRateFull, yearlyRateSub, fullRate,
+                (subsidizedRate != null && subsidizedRate.compareTo(BigDecimal.ZERO) > 0) ? subsidizedRate : fullRate,
+                grid);
+    }
+
+    /**
+     * Один вариант субсидированного кредита в цикле по периодам: остаток, итоги и собственный указатель
+     * досрочных платежей (сумма списания зависит от остатка варианта).
+     * Без {@code sink} строки графика не создаются — так варианты идут в сравнении.
+     */
+    private static final class SubsidyLane {
+
+        private final SubsidyMode mode;
+        private final int subsidyMonths;
+        private final SubsidyTerms terms;
+        private final EarlyPaymentStream events;
+        private final ScheduleSink sink;
+        private final CalculationTrace trace;
+
+        private BigDecimal balance;
+        private BigDecimal totalPayment = BigDecimal.ZERO;
+        private BigDecimal totalInterest = BigDecimal.ZERO;
+        private BigDecimal totalSubsidy = BigDecimal.ZERO;
+        private BigDecimal rateSubsidy = BigDecimal.ZERO; // Разница процентов по полной и льготной ставке
+        private BigDecimal paymentSubsidy = BigDecimal.ZERO; // Проценты сверх фиксированного платежа
+        private BigDecimal balanceAfterSubsidy;
+        private LocalDate lastPaymentDate;
+        private int eventsPointer;
+        private int payments;
+        private int rows;
+
+        SubsidyLane(SubsidyMode mode, int subsidyMonths, SubsidyTerms terms, EarlyPaymentStream events,
+                    ScheduleSink sink, CalculationTrace trace) {
+            this.mode = mode;
+            this.subsidyMonths = subsidyMonths;
+            this.terms = terms;
+            this.events = events;
+            this.sink = sink;
+            this.trace = trace;
+            this.balance = terms.principal();
+        }
+
+        boolean active() {
+            return balance.compareTo(EPS) > 0;
+        }
+
+        void step(int month, LocalDate paymentDate) {
+            // Обработка досрочных платежей МЕЖДУ датами платежей (только BETWEEN_PAYMENTS)
+            while (events.has(eventsPointer)) {
+                EarlyPaymentEvent event = events.get(eventsPointer);
+                boolean shouldApply = event.mode() == EarlyPaymentApplicationMode.BETWEEN_PAYMENTS
+                        && !event.date().isAfter(paymentDate);
+                if (!shouldApply) {
+                    break;
+                }
+                eventsPointer++;
+                applyEarlyPayment(event, month);
+            }
+
+            boolean subsidyPeriod = month <= subsidyMonths;
+            if (month == 1 || month == subsidyMonths + 1) {
+                // Начало льготного периода или переход на полную ставку
+                trace.record(CalculationTrace.Step.RATE_RESOLVED, month, paymentDate,
+                        subsidyPeriod ? terms.subsidizedRate() : terms.fullRate(), balance);
+                if (!subsidyPeriod || mode == SubsidyMode.FIXED_PAYMENT) {
+                    trace.record(CalculationTrace.Step.ANNUITY_RECALCULATED, month, paymentDate,
+                            subsidyPeriod ? terms.aSub() : terms.aFull(), balance);
+                }
+            }
+
+            BigDecimal payment;
+            BigDecimal interestClient; // Проценты, которые платит клиент
+            BigDecimal principalPart;
+            BigDecimal subsidy = BigDecimal.ZERO;
+            AccrualGrid grid = terms.grid();
+
+            if (subsidyPeriod) {
+                // Период субсидии — проценты по льготной ставке за долю года периода
+                BigDecimal interestByDays = grid.accrue(balance.multiply(terms.yearlyRateSub(), MC), month - 1, MC)
+                        .setScale(2, RoundingMode.HALF_UP);
+
+                // Реальные проценты по полной ставке (для расчёта субсидии); при равных ставках — те же
+                BigDecimal interestRealFull = terms.sameRates()
+                        ? interestByDays
+                        : grid.accrue(balance.multiply(terms.yearlyRateFull(), MC), month - 1, MC)
+                                .setScale(2, RoundingMode.HALF_UP);
+
+                if (mode == SubsidyMode.FIXED_PAYMENT) {
+                    // Платёж = аннуитет по льготной ставке
+                    payment = terms.aSub();
+
+                    // Если проценты >= платежа, осн.долг = 0
+                    if (interestByDays.compareTo(payment) >= 0) {
+                        principalPart = BigDecimal.ZERO;
+                        interestClient = payment; // Клиент платит весь платёж как проценты
+                        // Субсидия = реальные проценты - то что заплатил клиент
+                        subsidy = interestByDays.subtract(payment).max(BigDecimal.ZERO);
+                        paymentSubsidy = paymentSubsidy.add(subsidy);
+                    } else {
+                        principalPart = payment.subtract(interestByDays);
+                        interestClient = interestByDays;
+                        subsidy = BigDecimal.ZERO; // Нет субсидии, если проценты < платежа
+                    }
+
+                    // Дополнительная субсидия: разница между полной и льготной ставкой
+                    BigDecimal difference = interestRealFull.subtract(interestByDays).max(BigDecimal.ZERO);
+                    subsidy = subsidy.add(difference);
+                    rateSubsidy = rateSubsidy.add(difference);
+                } else {
+                    // FLOATING_PAYMENT: основной долг как по полной ставке
+                    principalPart = terms.aFull().subtract(interestRealFull);
+                    if (principalPart.compareTo(BigDecimal.ZERO) < 0) {
+                        principalPart = BigDecimal.ZERO;
+                    }
+                    interestClient = interestByDays;
+                    payment = principalPart.add(interestClient);
+                    subsidy = interestRealFull.subtract(interestByDays).max(BigDecimal.ZERO);
+                    rateSubsidy = rateSubsidy.add(subsidy);
+                }
+
+                // Сохраняем остаток после окончания субсидии
+                if (month == subsidyMonths) {
+                    balanceAfterSubsidy = balance.subtract(principalPart).setScale(2, RoundingMode.HALF_UP);
+                }
+            } else {
+                // После субсидии — проценты по полной ставке за долю года периода
+                BigDecimal interestByDays = grid.accrue(balance.multiply(terms.yearlyRateFull(), MC), month - 1, MC)
+                        .setScale(2, RoundingMode.HALF_UP);
+
+                payment = terms.aFull();
+
+                // Если проценты >= платежа, осн.долг = 0
+                if (interestByDays.compareTo(payment) >= 0) {
+                    principalPart = BigDecimal.ZERO;
+                    interestClient = payment;
+                } else {
+                    principalPart = payment.subtract(interestByDays);
+                    interestClient = interestByDays;
+                }
+            }
+
+            // Ограничиваем основной долг остатком
+            if (principalPart.compareTo(balance) > 0) {
+                principalPart = balance;
+                payment = principalPart.add(interestClient);
+            }
+
+            balance = balance.subtract(principalPart);
+            trace.record(CalculationTrace.Step.INTEREST_ACCRUED, month, paymentDate, interestClient, balance);
+            if (subsidy.signum() > 0) {
+                trace.record(CalculationTrace.Step.SUBSIDY_ACCRUED, month, paymentDate, subsidy, balance);
+            }
+
+            if (sink != null) {
+                PaymentScheduleItem item = PaymentScheduleItem.builder()
+                        .monthNumber(month)
+                        .paymentDate(paymentDate)
+                        .paymentAmount(payment.setScale(2, RoundingMode.HALF_UP))
+                        .principalPart(principalPart.setScale(2, RoundingMode.HALF_UP))
+                        .interestPart(interestClient.setScale(2, RoundingMode.HALF_UP))
+                        .remainingDebt(balance.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
+                        .subsidyAmount(subsidy.setScale(2, RoundingMode.HALF_UP))
+                        .build();
+                sink.accept(item);
+            }
+            rows++;
+            payments++;
+            lastPaymentDate = paymentDate;
+
+            totalPayment = totalPayment.add(payment);
+            totalInterest = totalInterest.add(interestClient);
+            totalSubsidy = totalSubsidy.add(subsidy);
+
+            // Обработка досрочных платежей В ДАТУ платежа
+            while (events.has(eventsPointer)) {
+                EarlyPaymentEvent event = events.get(eventsPointer);
+                if (!event.date().isEqual(paymentDate)
+                        || event.mode() != EarlyPaymentApplicationMode.ON_PAYMENT_DATE) {
+                    break;
+                }
+                eventsPointer++;
+                applyEarlyPayment(event, month);
+            }
+        }
+
+        private void applyEarlyPayment(EarlyPaymentEvent event, int month) {
+            BigDecimal deducted = event.amount().min(balance).setScale(2, RoundingMode.HALF_UP);
+            if (deducted.compareTo(BigDecimal.ZERO) <= 0) {
+                return;
+            }
+            balance = balance.subtract(deducted);
+            totalPayment = totalPayment.add(deducted);
+            lastPaymentDate = event.date();
+            trace.record(CalculationTrace.Step.EARLY_PAYMENT_APPLIED, month, event.date(), deducted, balance);
+            if (sink == null) {
+                return;
+            }
+
+            // Добавляем строку досрочного платежа в график
+            PaymentScheduleItem earlyPaymentItem = PaymentScheduleItem.builder()
+                    .monthNumber(0) // Без номера
+                    .paymentDate(event.date())
+                    .paymentAmount(deducted)
+                    .principalPart(deducted)
+                    .interestPart(BigDecimal.ZERO)
+                    .remainingDebt(balance.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP))
+                    .earlyPayment(true)
+                    .build();
+            sink.accept(earlyPaymentItem);
+            rows++;
+        }
+    }
+
+    /**
+     * Готовит поток досрочных платежей: единовременные сортируются сразу, периодические остаются генераторами
+     * и разворачиваются по мере чтения, поэтому события после погашения кредита не создаются.
+     */
+    private EarlyPaymentStream expandEarlyPayments(LoanCalculationRequestDto request) {
+        LocalDate disbursementDate = request.getDisbursementDate() != null
+                ? request.getDisbursementDate()
+                : request.resolveFirstPaymentDate();
+        List<EarlyPaymentSource> sources = new ArrayList<>();
+        if (request.getEarlyPayments() != null) {
+            List<EarlyPaymentEvent> oneTime = new ArrayList<>();
+            for (EarlyPaymentDto dto : request.getEarlyPayments()) {
+                if (dto.getPaymentDate() == null || dto.getAmount() == null) {
+                    continue;
+                }
+                BigDecimal amount = dto.getAmount().setScale(2, RoundingMode.HALF_UP);
+                if (amount.compareTo(BigDecimal.ZERO) <= 0
+                        || (disbursementDate != null && dto.getPaymentDate().isBefore(disbursementDate))) {
+                    continue;
+                }
+                oneTime.add(new EarlyPaymentEvent(dto.getPaymentDate(), amount, dto.getApplicationMode()));
+            }
+            oneTime.sort(Comparator.comparing(EarlyPaymentEvent::date));
+            sources.add(new OneTimeSource(sources.size(), oneTime));
+        }
+        if (request.getPeriodicEarlyPayments() != null) {
+            LocalDate defaultEnd = request.resolveFirstPaymentDate().plusMonths(PaymentCalendar.MAX_CALCULATION_MONTHS);
+            for (PeriodicEarlyPaymentDto dto : request.getPeriodicEarlyPayments()) {
+                if (dto.getStartDate() == null || dto.getIntervalMonths() == null || dto.getAmount() == null) {
+                    continue;
+                }
+                BigDecimal amount = dto.getAmount().setScale(2, RoundingMode.HALF_UP);
+                if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                    continue;
+                }
+                // Используем endDate из DTO, если указан, иначе используем дефолтное значение
+                LocalDate end = dto.getEndDate() != null ? dto.getEndDate() : defaultEnd;
+                sources.add(new PeriodicSource(sources.size(), dto, amount, end, disbursementDate));
+            }
+        }
+        return new EarlyPaymentStream(sources);
+    }
+
+    /**
+     * Досрочные платежи в порядке дат, слитые из источников через небольшую очередь с приоритетом.
+     * При равных датах раньше идут единовременные платежи, затем периодические в порядке запроса.
+     * Выданные события запоминаются: режимы в сравнениях читают поток каждый своим указателем,
+     * и развёрнуто ровно столько событий, сколько прочитал самый долгий из них.
+     */
+    private static final class EarlyPaymentStream {
+
+        private final PriorityQueue<EarlyPaymentSource> queue;
+        private final List<EarlyPaymentEvent> produced = new ArrayList<>();
+
+        EarlyPaymentStream(List<EarlyPaymentSource> sources) {
+            this.queue = new PriorityQueue<>(Math.max(1, sources.size()), Comparator
+                    .comparing((EarlyPaymentSource source) -> source.current().date())
+                    .thenComparingInt(EarlyPaymentSource::order));
+            for (EarlyPaymentSource source : sources) {
+                if (source.current() != null) {
+                    queue.add(source);
+                }
+            }
+        }
+
+        /**
+         * Есть ли событие с номером {@code index}; при необходимости разворачивает источники до него.
+         */
+        boolean has(int index) {
+            while (produced.size() <= index && !queue.isEmpty()) {
+                EarlyPaymentSource source = queue.poll();
+                produced.add(source.current());
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+            return index < produced.size();
+        }
+
+        EarlyPaymentEvent get(int index) {
+            return produced.get(index);
+        }
+
+        /**
+         * Число уже развёрнутых событий.
+         */
+        int size() {
+            return produced.size();
+        }
+    }
+
+    /**
+     * Источник досрочных платежей с неубывающими датами.
+     */
+    private abstract static class EarlyPaymentSource {
+
+        private final int order;
+
+        EarlyPaymentSource(int order) {
+            this.order = order;
+        }
+
+        int order() {
+            return order;
+        }
+
+        /**
+         * Текущее событие или {@code null}, если источник исчерпан.
+         */
+        abstract EarlyPaymentEvent current();
+
+        /**
+         * Переходит к следующему событию.
+         *
+         * @return {@code false}, если событий больше нет
+         */
+        abstract boolean advance();
+    }
+
+    private static final class OneTimeSource extends EarlyPaymentSource {
+
+        private final List<EarlyPaymentEvent> events;
+        private int position;
+
+        OneTimeSource(int order, List<EarlyPaymentEvent> events) {
+            super(order);
+            this.events = events;
+        }
+
+        @Override
+        EarlyPaymentEvent current() {
+            return position < events.size() ? events.get(position) : null;
+        }
+
+        @Override
+        boolean advance() {
+            position++;
+            return position < events.size();
+        }
+    }
+
+    /**
+     * Периодический платёж: даты от {@code startDate} с шагом {@code intervalMonths} до {@code end} включительно,
+     * не больше {@link PaymentCalendar#MAX_CALCULATION_MONTHS} повторов; повторы до даты выдачи пропускаются.
+     */
+    private static final class PeriodicSource extends EarlyPaymentSource {
+
+        private final BigDecimal amount;
+        private final EarlyPaymentApplicationMode mode;
+        private final int intervalMonths;
+        private final LocalDate end;
+        private LocalDate date;
+        private int occurrence;
+        private EarlyPaymentEvent current;
+
+        PeriodicSource(int order, PeriodicEarlyPaymentDto dto, BigDecimal amount, LocalDate end,
+                       LocalDate disbursementDate) {
+            super(order);
+            this.amount = amount;
+            this.mode = dto.getApplicationMode();
+            this.intervalMonths = dto.getIntervalMonths();
+            this.end = end;
+            this.date = dto.getStartDate();
+            while (disbursementDate != null && date.isBefore(disbursementDate) && inRange()) {
+                step();
+            }
+            this.current = inRange() ? new EarlyPaymentEvent(date, amount, mode) : null;
+        }
+
+        @Override
+        EarlyPaymentEvent current() {
+            return current;
+        }
+
+        @Override
+        boolean advance() {
+            step();
+            current = inRange() ? new EarlyPaymentEvent(date, amount, mode) : null;
+            return current != null;
+        }
+
+        private boolean inRange() {
+            return !date.isAfter(end) && occurrence < PaymentCalendar.MAX_CALCULATION_MONTHS;
+        }
+
+        private void step() {
+            date = date.plusMonths(intervalMonths);
+            occurrence++;
+        }
+    }
+
+    private List<RatePeriod> buildRateTimeline(LoanCalculationRequestDto request) {
+        List<RatePeriod> ratePeriods = new ArrayList<>();
+        ratePeriods.add(new RatePeriod(request.resolveFirstPaymentDate(), request.getInterestRate()));
+        if (request.getRateChanges() != null) {
+            for (RateChangeDto dto : request.getRateChanges()) {
+                if (dto.getStartDate() == null || dto.getNewRate() == null) {
+                    continue;
+                }
+                ratePeriods.add(new RatePeriod(dto.getStartDate(), dto.getNewRate()));
+            }
+        }
+        ratePeriods.sort(Comparator.comparing(RatePeriod::start));
+        return ratePeriods;
+    }
+
+    private BigDecimal resolveRate(List<RatePeriod> timeline, LocalDate date) {
+        BigDecimal current = timeline.get(0).rate();
+        for (RatePeriod period : timeline) {
+            if (!date.isBefore(period.start())) {
+                current = period.rate();
+            } else {
+                break;
+            }
+        }
+        return current;
+    }
+
+    private static BigDecimal calculateAnnuityPayment(BigDecimal principal, BigDecimal annualRate, int months) {
+        if (months <= 0) {
+            return principal.setScale(2, RoundingMode.HALF_UP);
+        }
+        BigDecimal monthlyRate = toMonthlyRate(annualRate);
+        if (monthlyRate.compareTo(BigDecimal.ZERO) == 0) {
+            return principal.divide(BigDecimal.valueOf(months), 2, RoundingMode.HALF_UP);
+        }
+        BigDecimal onePlusRatePow = BigDecimal.ONE.add(monthlyRate).pow(months, MC);
+        BigDecimal numerator = principal.multiply(monthlyRate, MC).multiply(onePlusRatePow, MC);
+        BigDecimal denominator = onePlusRatePow.subtract(BigDecimal.ONE);
+        if (denominator.compareTo(BigDecimal.ZERO) == 0) {
+            return principal.divide(BigDecimal.valueOf(months), 2, RoundingMode.HALF_UP);
+        }
+        return numerator.divide(denominator, 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toMonthlyRate(BigDecimal annualRate) {
+        return annualRate.divide(ONE_HUNDRED, MC).divide(TWELVE, MC);
+    }
+
+    private AccrualGrid accrualGrid(LoanCalculationRequestDto request, boolean subsidized) {
+        return AccrualGrid.of(request.getDisbursementDate(), request.isAdjustWeekends(),
+                AccrualGrid.resolve(request.getDayCount(), subsidized));
+    }
+}
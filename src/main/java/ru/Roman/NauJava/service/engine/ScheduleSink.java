@@ -0,0 +1,12 @@
+package ru.Roman.NauJava.service.engine;
+
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+
+/**
+ * Получатель строк графика от {@link ScheduleEngine} в порядке их расчёта.
+ */
+@FunctionalInterface
+public interface ScheduleSink {
+
+    void accept(PaymentScheduleItem item);
+}
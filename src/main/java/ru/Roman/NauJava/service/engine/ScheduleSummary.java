@@ -0,0 +1,26 @@
+package ru.Roman.NauJava.service.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоги точного расчёта без самих строк графика.
+ *
+ * @param rows               число строк, переданных в {@link ScheduleSink}
+ * @param earlyPaymentEvents число событий досрочного погашения, развёрнутых за расчёт (периодические — до погашения долга)
+ * @param effectiveRate      полная стоимость кредита (ПСК), % годовых; {@code null}, если её не удалось вычислить
+ */
+public record ScheduleSummary(BigDecimal totalPayment,
+                              BigDecimal totalInterest,
+                              BigDecimal totalSubsidy,
+                              BigDecimal subsidizedPayment,
+                              BigDecimal fullPayment,
+                              BigDecimal balanceAfterSubsidy,
+                              int rows,
+                              int earlyPaymentEvents,
+                              BigDecimal effectiveRate) {
+
+    public ScheduleSummary withEffectiveRate(BigDecimal effectiveRate) {
+        return new ScheduleSummary(totalPayment, totalInterest, totalSubsidy, subsidizedPayment, fullPayment,
+                balanceAfterSubsidy, rows, earlyPaymentEvents, effectiveRate);
+    }
+}
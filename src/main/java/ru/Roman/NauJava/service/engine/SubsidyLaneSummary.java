@@ -0,0 +1,28 @@
+package ru.Roman.NauJava.service.engine;
+
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Итоги одного варианта в сравнении режимов субсидии.
+ *
+ * @param mode              режим субсидии; {@code null} — тот же кредит без субсидии
+ * @param rateSubsidy       часть субсидии за разницу полной и льготной ставок
+ * @param paymentSubsidy    часть субсидии за проценты сверх фиксированного платежа (только FIXED_PAYMENT)
+ * @param payments          число регулярных платежей
+ * @param payoffDate        дата последнего платежа, включая досрочные
+ */
+public record SubsidyLaneSummary(SubsidyMode mode,
+                                 BigDecimal subsidizedPayment,
+                                 BigDecimal fullPayment,
+                                 BigDecimal totalPayment,
+                                 BigDecimal totalInterest,
+                                 BigDecimal totalSubsidy,
+                                 BigDecimal rateSubsidy,
+                                 BigDecimal paymentSubsidy,
+                                 BigDecimal balanceAfterSubsidy,
+                                 int payments,
+                                 LocalDate payoffDate) {
+}
@@ -0,0 +1,77 @@
+package ru.Roman.NauJava.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV в UTF-8 с BOM, разделителем «;» и десятичной запятой, чтобы файл без мастера импорта открывался
+ * в Excel с русской локалью и суммы читались как числа.
+ * Текст, который Excel принял бы за формулу, экранируется апострофом.
+ */
+class CsvTableWriter implements TableWriter {
+
+    private static final char SEPARATOR = ';';
+    private static final char BOM = '\uFEFF';
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+
+    CsvTableWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        try {
+            writer.write(BOM);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Не удалось начать выгрузку CSV", ex);
+        }
+    }
+
+    @Override
+    public void row(Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writeCell(cells[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeCell(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal decimal) {
+            writer.write(decimal.toPlainString().replace('.', ','));
+            return;
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            writer.write(DATE_TIME.format(dateTime));
+            return;
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(SEPARATOR) < 0 && text.indexOf('"') < 0
+                && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,118 @@
+package ru.Roman.NauJava.service.export;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.Roman.NauJava.domain.entity.User;
+import ru.Roman.NauJava.domain.enums.UserRole;
+import ru.Roman.NauJava.dto.LoanCalculationFilterDto;
+import ru.Roman.NauJava.repository.LoanCalculationExportRepository;
+import ru.Roman.NauJava.repository.UserRepository;
+import ru.Roman.NauJava.service.LoanCalculationService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Выгрузка графика и истории в CSV/XLSX с постоянным расходом памяти.
+ * Сохранённый график и история читаются курсором и пишутся построчно.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanExportService {
+
+    private static final Object[] SCHEDULE_HEADER = {
+            "Месяц", "Дата платежа", "Платёж", "Основной долг", "Проценты", "Остаток долга", "Субсидия", "Досрочный"
+    };
+    private static final Object[] HISTORY_HEADER = {
+            "ID", "Пользователь", "Создан", "Тип кредита", "Валюта", "Тип платежа", "Сумма", "Ставка",
+            "Срок, мес.", "Общая выплата", "Переплата", "Субсидия"
+    };
+
+    private final LoanCalculationService calculationService;
+    private final LoanCalculationExportRepository exportRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Проверяет, что расчёт существует и доступен пользователю. Вызывается до того, как ответ начнёт
+     * оформляться как файл: ошибка должна вернуться обычным телом. График при этом не загружается.
+     */
+    public void checkScheduleAccess(Long id, String username) {
+        calculationService.getCalculationVersion(id, username);
+    }
+
+    /**
+     * Пишет сохранённый график в поток строка за строкой, не пересчитывая расчёт и не загружая сущности:
+     * выгрузка совпадает с сохранённым графиком, в том числе при ручном платеже льготного периода.
+     */
+    @Transactional(readOnly = true)
+    public void exportSchedule(Long id, ExportFormat format, OutputStream out) throws IOException {
+        try (TableWriter writer = TableWriter.open(format, out, "График")) {
+            writer.row(SCHEDULE_HEADER);
+            exportRepository.streamSchedule(id, rs -> {
+                try {
+                    writer.row(
+                            rs.getInt("month_number"),
+                            rs.getDate("payment_date").toLocalDate(),
+                            rs.getBigDecimal("payment_amount"),
+                            rs.getBigDecimal("principal_part"),
+                            rs.getBigDecimal("interest_part"),
+                            rs.getBigDecimal("remaining_debt"),
+                            rs.getBigDecimal("subsidy_amount"),
+                            rs.getBoolean("early_payment") ? "да" : "");
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Чью историю выгружать: администратор получает расчёты всех пользователей.
+     *
+     * @return имя владельца расчётов или {@code null} для выгрузки по всем пользователям
+     */
+    @Transactional(readOnly = true)
+    public String resolveHistoryOwner(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
+        return user.getRole() == UserRole.ADMIN ? null : username;
+    }
+
+    /**
+     * Пишет отфильтрованную историю владельца из {@link #resolveHistoryOwner(String)}.
+     */
+    @Transactional(readOnly = true)
+    public void exportHistory(@Nullable String owner, LoanCalculationFilterDto filter, ExportFormat format,
+                              OutputStream out) throws IOException {
+        try (TableWriter writer = TableWriter.open(format, out, "История")) {
+            writer.row(HISTORY_HEADER);
+            exportRepository.streamHistory(filter, owner, rs -> {
+                try {
+                    writer.row(
+                            rs.getLong("id"),
+                            rs.getString("username"),
+                            rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getString("loan_type"),
+                            rs.getString("currency"),
+                            rs.getString("payment_type"),
+                            rs.getBigDecimal("principal"),
+                            rs.getBigDecimal("interest_rate"),
+                            rs.getInt("duration_months"),
+                            rs.getBigDecimal("total_payment"),
+                            rs.getBigDecimal("total_interest"),
+                            rs.getBigDecimal("total_subsidy"));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+}
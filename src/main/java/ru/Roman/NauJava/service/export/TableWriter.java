@@ -0,0 +1,28 @@
+package ru.Roman.NauJava.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Построчная запись табличной выгрузки. Строки не накапливаются:
+ * каждая уходит в поток сразу после {@link #row(Object...)}.
+ * Поддерживаемые значения ячеек: {@code String}, {@code Number}, {@code Boolean},
+ * {@code LocalDate}, {@code LocalDateTime} и {@code null}.
+ */
+public interface TableWriter extends AutoCloseable {
+
+    void row(Object... cells) throws IOException;
+
+    /**
+     * Дописывает хвост файла и сбрасывает буферы. Сам выходной поток не закрывает.
+     */
+    @Override
+    void close() throws IOException;
+
+    static TableWriter open(ExportFormat format, OutputStream out, String sheetName) {
+        return switch (format) {
+            case CSV -> new CsvTableWriter(out);
+            case XLSX -> new XlsxTableWriter(out, sheetName);
+        };
+    }
+}
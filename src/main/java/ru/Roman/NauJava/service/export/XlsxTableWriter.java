@@ -0,0 +1,82 @@
+package ru.Roman.NauJava.service.export;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * XLSX через потоковый SXSSF: в памяти держится только окно из {@value #WINDOW_ROWS} строк,
+ * остальные сбрасываются во временный сжатый файл и удаляются после записи.
+ */
+class XlsxTableWriter implements TableWriter {
+
+    private static final int WINDOW_ROWS = 100;
+
+    private final OutputStream out;
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final CellStyle moneyStyle;
+    private final CellStyle dateStyle;
+    private final CellStyle dateTimeStyle;
+    private int rowIndex;
+
+    XlsxTableWriter(OutputStream out, String sheetName) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(WINDOW_ROWS);
+        workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+        short moneyFormat = workbook.createDataFormat().getFormat("#,##0.00");
+        this.moneyStyle = workbook.createCellStyle();
+        moneyStyle.setDataFormat(moneyFormat);
+        this.dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+        this.dateTimeStyle = workbook.createCellStyle();
+        dateTimeStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy hh:mm"));
+    }
+
+    @Override
+    public void row(Object... cells) {
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < cells.length; i++) {
+            Object value = cells[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof BigDecimal decimal) {
+                cell.setCellValue(decimal.doubleValue());
+                cell.setCellStyle(moneyStyle);
+            } else if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof Boolean flag) {
+                cell.setCellValue(flag);
+            } else if (value instanceof LocalDate date) {
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(dateTimeStyle);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.Roman.NauJava.service.fx;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.Roman.NauJava.domain.entity.User;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.domain.enums.UserRole;
+import ru.Roman.NauJava.dto.CalculationTotalsDto;
+import ru.Roman.NauJava.dto.CurrencyTotalsDto;
+import ru.Roman.NauJava.dto.LoanCalculationFilterDto;
+import ru.Roman.NauJava.repository.LoanCalculationExportRepository;
+import ru.Roman.NauJava.repository.UserRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Сводка истории в базовой валюте. Строки графиков читаются курсором, суммы расчёта складываются
+ * в примитивные столбцы и пересчитываются целиком через {@link FxRateTable#convert} по дате каждой строки;
+ * {@link BigDecimal} появляется только в итогах. Расчёт, для которого нет курса на одну из дат, в сводку
+ * не входит, а его валюта попадает в список непересчитанных.
+ */
+@Service
+@RequiredArgsConstructor
+public class CurrencyTotalsService {
+
+    private final LoanCalculationExportRepository exportRepository;
+    private final UserRepository userRepository;
+    private final FxRateService fxRateService;
+
+    /**
+     * Собирает строки графика текущего расчёта в столбцы и при смене расчёта пересчитывает их целиком.
+     * Буферы столбцов переиспользуются между расчётами.
+     */
+    private static final class TotalsCollector implements RowCallbackHandler {
+
+        private final FxRateTable table;
+        private final LoanCurrency baseCurrency;
+        private final List<CalculationTotalsDto> items = new ArrayList<>();
+        private final Set<LoanCurrency> unconvertedCurrencies = EnumSet.noneOf(LoanCurrency.class);
+        private int unconvertedCalculations;
+        private int[] days = new int[512];
+        private double[] payments = new double[512];
+        private double[] interest = new double[512];
+        private int size;
+        private long id = -1;
+        private LoanCurrency currency;
+        private double principal;
+        private boolean unconverted;
+
+        TotalsCollector(FxRateTable table, LoanCurrency baseCurrency) {
+            this.table = table;
+            this.baseCurrency = baseCurrency;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowId = rs.getLong("id");
+            if (rowId != id) {
+                flush();
+                id = rowId;
+                currency = LoanCurrency.valueOf(rs.getString("currency"));
+                int disbursementDay = (int) rs.getDate("disbursement_date").toLocalDate().toEpochDay();
+                try {
+                    principal = rs.getBigDecimal("principal").doubleValue()
+                            * table.rate(currency, baseCurrency, disbursementDay);
+                    unconverted = false;
+                } catch (IllegalArgumentException ex) {
+                    unconverted = true;
+                }
+            }
+            Date paymentDate = rs.getDate("payment_date");
+            if (paymentDate == null || unconverted) {
+                return;
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                payments = Arrays.copyOf(payments, size * 2);
+                interest = Arrays.copyOf(interest, size * 2);
+            }
+            days[size] = (int) paymentDate.toLocalDate().toEpochDay();
+            payments[size] = rs.getBigDecimal("payment_amount").doubleValue();
+            interest[size] = rs.getBigDecimal("interest_part").doubleValue();
+            size++;
+        }
+
+        List<CalculationTotalsDto> finish() {
+            flush();
+            return items;
+        }
+
+        private void flush() {
+            if (id < 0) {
+                return;
+            }
+            if (!unconverted) {
+                try {
+                    // Пересчёт на месте: исходные суммы расчёта больше не нужны
+                    table.convert(currency, baseCurrency, days, payments, payments, size);
+                    table.convert(currency, baseCurrency, days, interest, interest, size);
+                } catch (IllegalArgumentException ex) {
+                    unconverted = true;
+                }
+            }
+            if (unconverted) {
+                unconvertedCurrencies.add(currency);
+                unconvertedCalculations++;
+                size = 0;
+                return;
+            }
+            double totalPayment = 0;
+            double totalInterest = 0;
+            for (int i = 0; i < size; i++) {
+                totalPayment += payments[i];
+                totalInterest += interest[i];
+            }
+            items.add(CalculationTotalsDto.builder()
+                    .id(id)
+                    .currency(currency)
+                    .principal(toMoney(principal))
+                    .totalPayment(toMoney(totalPayment))
+                    .totalInterest(toMoney(totalInterest))
+                    .build());
+            size = 0;
+        }
+    }
+
+    /**
+     * Администратор получает сводку по расчётам всех пользователей, фильтр тот же, что и у списка истории.
+     */
+    @Transactional(readOnly = true)
+    public CurrencyTotalsDto totals(String username, LoanCalculationFilterDto filter, LoanCurrency baseCurrency) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
+        String owner = user.getRole() == UserRole.ADMIN ? null : username;
+        TotalsCollector collector = new TotalsCollector(fxRateService.table(), baseCurrency);
+        exportRepository.streamSchedules(filter, owner, collector);
+        List<CalculationTotalsDto> items = collector.finish();
+
+        BigDecimal totalPrincipal = BigDecimal.ZERO;
+        BigDecimal totalPayment = BigDecimal.ZERO;
+        BigDecimal totalInterest = BigDecimal.ZERO;
+        for (CalculationTotalsDto item : items) {
+            totalPrincipal = totalPrincipal.add(item.getPrincipal());
+            totalPayment = totalPayment.add(item.getTotalPayment());
+            totalInterest = totalInterest.add(item.getTotalInterest());
+        }
+        return CurrencyTotalsDto.builder()
+                .baseCurrency(baseCurrency)
+                .calculations(items.size())
+                .principal(totalPrincipal)
+                .totalPayment(totalPayment)
+                .totalInterest(totalInterest)
+                .items(items)
+                .unconvertedCurrencies(collector.unconvertedCurrencies)
+                .unconvertedCalculations(collector.unconvertedCalculations)
+                .build();
+    }
+
+    private static BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
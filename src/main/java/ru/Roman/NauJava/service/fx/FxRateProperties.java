@@ -0,0 +1,14 @@
+package ru.Roman.NauJava.service.fx;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки курсов валют.
+ *
+ * @param file CSV с курсами к рублю ({@code date,currency,rate}); без него пересчёт возможен только в валюту расчёта
+ */
+@ConfigurationProperties(prefix = "fx.rates")
+public record FxRateProperties(Path file) {
+}
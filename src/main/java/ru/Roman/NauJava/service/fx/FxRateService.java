@@ -0,0 +1,43 @@
+package ru.Roman.NauJava.service.fx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Держит таблицу курсов в памяти. Файл читается один раз при старте; новые курсы применяются перезапуском.
+ */
+@Service
+@Slf4j
+public class FxRateService {
+
+    private final FxRateTable table;
+
+    public FxRateService(FxRateProperties properties) {
+        this.table = load(properties.file());
+    }
+
+    public FxRateTable table() {
+        return table;
+    }
+
+    private static FxRateTable load(Path file) {
+        if (file == null) {
+            log.info("Файл курсов валют не задан: суммы доступны только в валюте расчёта");
+            return FxRateTable.empty();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            FxRateTable loaded = FxRateTable.read(reader);
+            log.info("Курсы валют загружены из {}", file);
+            return loaded;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Не удалось прочитать файл курсов " + file, ex);
+        }
+    }
+}
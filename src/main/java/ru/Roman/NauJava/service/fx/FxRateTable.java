@@ -0,0 +1,187 @@
+package ru.Roman.NauJava.service.fx;
+
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Курсы валют к рублю, разложенные по дням: у каждой валюты плотный массив {@code double}
+ * с индексом «день от первой даты таблицы». Дни без котировки (выходные, праздники) получают последний
+ * известный курс, после последней даты действует последний курс, до первой котировки валюты — {@link Double#NaN}.
+ * Поиск курса — вычитание и чтение из массива; конвертация столбца сумм — один проход по примитивным массивам
+ * без {@link java.math.BigDecimal}. Таблица неизменяема и читается из нескольких потоков.
+ */
+public final class FxRateTable {
+
+    private static final FxRateTable EMPTY = new FxRateTable(0, new double[LoanCurrency.values().length][0]);
+
+    private final int firstDay;
+    // [валюта][день - firstDay] — рублей за единицу; строка RUB целиком из единиц
+    private final double[][] rates;
+
+    private FxRateTable(int firstDay, double[][] rates) {
+        this.firstDay = firstDay;
+        this.rates = rates;
+    }
+
+    public static FxRateTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Читает CSV с заголовком {@code date,currency,rate} (порядок колонок произвольный, разделитель «;» или «,»):
+     * дата ISO, код валюты и рублей за единицу валюты. Строки могут идти в любом порядке, рубль пропускается.
+     */
+    public static FxRateTable read(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return EMPTY;
+        }
+        String separator = header.indexOf(';') >= 0 ? ";" : ",";
+        String[] names = header.strip().toLowerCase(Locale.ROOT).split(separator, -1);
+        int datePosition = Arrays.asList(names).indexOf("date");
+        int currencyPosition = Arrays.asList(names).indexOf("currency");
+        int ratePosition = Arrays.asList(names).indexOf("rate");
+        if (datePosition < 0 || currencyPosition < 0 || ratePosition < 0) {
+            throw new IllegalArgumentException("В заголовке файла курсов нужны колонки date, currency и rate");
+        }
+
+        Map<LoanCurrency, TreeMap<Integer, Double>> quotes = new EnumMap<>(LoanCurrency.class);
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        String line;
+        int number = 1;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(separator, -1);
+            try {
+                LoanCurrency currency = LoanCurrency.valueOf(fields[currencyPosition].strip().toUpperCase(Locale.ROOT));
+                if (currency == LoanCurrency.RUB) {
+                    continue;
+                }
+                int day = (int) LocalDate.parse(fields[datePosition].strip()).toEpochDay();
+                double rate = Double.parseDouble(fields[ratePosition].strip().replace(',', '.'));
+                if (!(rate > 0)) {
+                    throw new IllegalArgumentException("курс должен быть положительным");
+                }
+                quotes.computeIfAbsent(currency, c -> new TreeMap<>()).put(day, rate);
+                firstDay = Math.min(firstDay, day);
+                lastDay = Math.max(lastDay, day);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("Строка " + number + " файла курсов: " + ex.getMessage(), ex);
+            }
+        }
+        if (quotes.isEmpty()) {
+            return EMPTY;
+        }
+
+        int length = lastDay - firstDay + 1;
+        double[][] rates = new double[LoanCurrency.values().length][];
+        for (LoanCurrency currency : LoanCurrency.values()) {
+            double[] column = new double[length];
+            if (currency == LoanCurrency.RUB) {
+                Arrays.fill(column, 1.0);
+            } else {
+                Arrays.fill(column, Double.NaN);
+                TreeMap<Integer, Double> byDay = quotes.get(currency);
+                if (byDay != null) {
+                    double current = Double.NaN;
+                    for (int index = 0; index < length; index++) {
+                        Double quote = byDay.get(firstDay + index);
+                        if (quote != null) {
+                            current = quote;
+                        }
+                        column[index] = current;
+                    }
+                }
+            }
+            rates[currency.ordinal()] = column;
+        }
+        return new FxRateTable(firstDay, rates);
+    }
+
+    public boolean isEmpty() {
+        return rates[0].length == 0;
+    }
+
+    /**
+     * Сколько единиц {@code to} стоит единица {@code from} на дату {@code epochDay}.
+     */
+    public double rate(LoanCurrency from, LoanCurrency to, int epochDay) {
+        if (from == to) {
+            return 1.0;
+        }
+        int index = index(epochDay, from, to);
+        double rate = rates[from.ordinal()][index] / rates[to.ordinal()][index];
+        if (Double.isNaN(rate)) {
+            throw missingRate(from, to, epochDay);
+        }
+        return rate;
+    }
+
+    /**
+     * Переводит столбец сумм из {@code from} в {@code to} по курсу на дату каждой строки.
+     *
+     * @param days    даты строк (epoch-day)
+     * @param amounts суммы в валюте {@code from}
+     * @param target  куда записать суммы в валюте {@code to}; может совпадать с {@code amounts}
+     * @param count   число строк
+     */
+    public void convert(LoanCurrency from, LoanCurrency to, int[] days, double[] amounts, double[] target,
+                        int count) {
+        if (from == to) {
+            System.arraycopy(amounts, 0, target, 0, count);
+            return;
+        }
+        if (isEmpty()) {
+            if (count > 0) {
+                throw missingRate(from, to, days[0]);
+            }
+            return;
+        }
+        double[] fromRates = rates[from.ordinal()];
+        double[] toRates = rates[to.ordinal()];
+        int last = fromRates.length - 1;
+        double checksum = 0;
+        for (int i = 0; i < count; i++) {
+            int index = days[i] - firstDay;
+            if (index < 0) {
+                throw missingRate(from, to, days[i]);
+            }
+            index = Math.min(index, last);
+            target[i] = amounts[i] * fromRates[index] / toRates[index];
+            checksum += target[i];
+        }
+        // NaN — дата до первой котировки одной из валют; ищем строку, только если он встретился
+        if (Double.isNaN(checksum)) {
+            for (int i = 0; i < count; i++) {
+                if (Double.isNaN(target[i])) {
+                    throw missingRate(from, to, days[i]);
+                }
+            }
+        }
+    }
+
+    private int index(int epochDay, LoanCurrency from, LoanCurrency to) {
+        int index = epochDay - firstDay;
+        if (isEmpty() || index < 0) {
+            throw missingRate(from, to, epochDay);
+        }
+        return Math.min(index, rates[0].length - 1);
+    }
+
+    private static IllegalArgumentException missingRate(LoanCurrency from, LoanCurrency to, int epochDay) {
+        return new IllegalArgumentException("Нет курса " + from + "/" + to + " на " + LocalDate.ofEpochDay(epochDay));
+    }
+}
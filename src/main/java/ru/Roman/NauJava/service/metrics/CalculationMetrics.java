@@ -0,0 +1,90 @@
+package ru.Roman.NauJava.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+
+import java.util.function.Supplier;
+
+/**
+ * Метрики горячего пути расчёта: время фаз и размер графика на запрос.
+ */
+@Component
+@RequiredArgsConstructor
+public class CalculationMetrics {
+
+    public static final String PHASE_TIMER = "loan.calculation.phase";
+    public static final String SCHEDULE_ROWS = "loan.calculation.schedule.rows";
+    public static final String EARLY_PAYMENT_EVENTS = "loan.calculation.early.payment.events";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Фазы расчёта, по которым раскладывается время запроса.
+     */
+    public enum Phase {
+        EARLY_PAYMENT_EXPANSION("early_payment_expansion"),
+        RATE_TIMELINE("rate_timeline"),
+        ACCRUAL_GRID("accrual_grid"),
+        SCHEDULE_LOOP("schedule_loop"),
+        EFFECTIVE_RATE("effective_rate"),
+        ENTITY_ATTACHMENT("entity_attachment"),
+        PERSISTENCE("persistence"),
+        MAPPING("mapping");
+
+        private final String tagValue;
+
+        Phase(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    public Tags tags(LoanCalculationRequestDto request, boolean subsidized, boolean persisted) {
+        return Tags.of(
+                "payment_type", String.valueOf(request.getPaymentType()),
+                "loan_type", String.valueOf(request.getLoanType()),
+                "subsidy", String.valueOf(subsidized),
+                "persisted", String.valueOf(persisted));
+    }
+
+    public <T> T time(Phase phase, Tags tags, Supplier<T> action) {
+        return phaseTimer(phase, tags).record(action);
+    }
+
+    public void time(Phase phase, Tags tags, Runnable action) {
+        phaseTimer(phase, tags).record(action);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, Phase phase, Tags tags) {
+        sample.stop(phaseTimer(phase, tags));
+    }
+
+    public void recordScheduleSize(Tags tags, int scheduleRows, int earlyPaymentEvents) {
+        DistributionSummary.builder(SCHEDULE_ROWS)
+                .description("Строк графика платежей на один расчёт")
+                .tags(tags)
+                .register(registry)
+                .record(scheduleRows);
+        DistributionSummary.builder(EARLY_PAYMENT_EVENTS)
+                .description("Событий досрочного погашения на один расчёт")
+                .tags(tags)
+                .register(registry)
+                .record(earlyPaymentEvents);
+    }
+
+    private Timer phaseTimer(Phase phase, Tags tags) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Время фазы расчёта кредита")
+                .tags(tags)
+                .tag("phase", phase.tagValue)
+                .register(registry);
+    }
+}
@@ -0,0 +1,235 @@
+package ru.Roman.NauJava.service.portfolio;
+
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Разбор строк CSV портфеля в {@link LoanCalculationRequestDto}.
+ * Колонки определяются по заголовку, порядок произвольный, разделитель «;» или «,».
+ * Обязательны {@code principal}, {@code interestRate}, {@code durationMonths}, {@code disbursementDate};
+ * пустые необязательные поля получают значения по умолчанию из DTO.
+ * Экземпляр неизменяемый и разбирает строки из нескольких потоков.
+ */
+final class PortfolioCsvParser {
+
+    enum Column {
+        ID("id"),
+        LOAN_TYPE("loantype"),
+        CURRENCY("currency"),
+        PRINCIPAL("principal"),
+        INTEREST_RATE("interestrate"),
+        DURATION_MONTHS("durationmonths"),
+        PAYMENT_TYPE("paymenttype"),
+        DISBURSEMENT_DATE("disbursementdate"),
+        RECALCULATION_MODE("recalculationmode"),
+        ADJUST_WEEKENDS("adjustweekends"),
+        DAY_COUNT("daycount"),
+        DEVELOPER_SUBSIDY("developersubsidy"),
+        SUBSIDIZED_RATE("subsidizedrate"),
+        SUBSIDY_DURATION_MONTHS("subsidydurationmonths"),
+        SUBSIDY_MODE("subsidymode");
+
+        private final String key;
+
+        Column(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final Column[] REQUIRED = {
+            Column.PRINCIPAL, Column.INTEREST_RATE, Column.DURATION_MONTHS, Column.DISBURSEMENT_DATE
+    };
+
+    private final char separator;
+    private final int[] positions;
+    private final int width;
+
+    private PortfolioCsvParser(char separator, int[] positions, int width) {
+        this.separator = separator;
+        this.positions = positions;
+        this.width = width;
+    }
+
+    static PortfolioCsvParser fromHeader(String header) {
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("Файл портфеля пуст или не содержит заголовка");
+        }
+        String cleaned = header.charAt(0) == '\uFEFF' ? header.substring(1) : header;
+        char separator = cleaned.indexOf(';') >= 0 ? ';' : ',';
+        String[] names = split(cleaned, separator, -1);
+        int[] positions = new int[Column.values().length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < names.length; i++) {
+            String key = names[i].trim().replace("_", "").toLowerCase(Locale.ROOT);
+            for (Column column : Column.values()) {
+                if (column.key.equals(key)) {
+                    positions[column.ordinal()] = i;
+                }
+            }
+        }
+        for (Column column : REQUIRED) {
+            if (positions[column.ordinal()] < 0) {
+                throw new IllegalArgumentException("В заголовке нет обязательной колонки " + column.key);
+            }
+        }
+        return new PortfolioCsvParser(separator, positions, names.length);
+    }
+
+    char separator() {
+        return separator;
+    }
+
+    /**
+     * Внешний идентификатор строки, если колонка {@code id} есть в файле.
+     */
+    String id(String[] fields) {
+        return value(fields, Column.ID);
+    }
+
+    String[] fields(String line) {
+        String[] fields = split(line, separator, width);
+        if (fields.length != width) {
+            throw new IllegalArgumentException("Ожидалось колонок: " + width + ", получено: " + fields.length);
+        }
+        return fields;
+    }
+
+    LoanCalculationRequestDto toRequest(String[] fields) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(decimal(fields, Column.PRINCIPAL));
+        request.setInterestRate(decimal(fields, Column.INTEREST_RATE));
+        request.setDurationMonths(integer(fields, Column.DURATION_MONTHS));
+        request.setDisbursementDate(date(fields, Column.DISBURSEMENT_DATE));
+        String loanType = value(fields, Column.LOAN_TYPE);
+        if (loanType != null) {
+            request.setLoanType(enumValue(LoanType.class, loanType, Column.LOAN_TYPE));
+        }
+        String currency = value(fields, Column.CURRENCY);
+        if (currency != null) {
+            request.setCurrency(enumValue(LoanCurrency.class, currency, Column.CURRENCY));
+        }
+        String paymentType = value(fields, Column.PAYMENT_TYPE);
+        if (paymentType != null) {
+            request.setPaymentType(enumValue(PaymentType.class, paymentType, Column.PAYMENT_TYPE));
+        }
+        String recalculationMode = value(fields, Column.RECALCULATION_MODE);
+        if (recalculationMode != null) {
+            request.setRecalculationMode(enumValue(RecalculationMode.class, recalculationMode,
+                    Column.RECALCULATION_MODE));
+        }
+        String adjustWeekends = value(fields, Column.ADJUST_WEEKENDS);
+        if (adjustWeekends != null) {
+            request.setAdjustWeekends(bool(adjustWeekends, Column.ADJUST_WEEKENDS));
+        }
+        String dayCount = value(fields, Column.DAY_COUNT);
+        if (dayCount != null) {
+            request.setDayCount(enumValue(DayCountConvention.class, dayCount, Column.DAY_COUNT));
+        }
+        String developerSubsidy = value(fields, Column.DEVELOPER_SUBSIDY);
+        if (developerSubsidy != null) {
+            request.setDeveloperSubsidy(bool(developerSubsidy, Column.DEVELOPER_SUBSIDY));
+        }
+        request.setSubsidizedRate(decimal(fields, Column.SUBSIDIZED_RATE));
+        request.setSubsidyDurationMonths(integer(fields, Column.SUBSIDY_DURATION_MONTHS));
+        String subsidyMode = value(fields, Column.SUBSIDY_MODE);
+        if (subsidyMode != null) {
+            request.setSubsidyMode(enumValue(SubsidyMode.class, subsidyMode, Column.SUBSIDY_MODE));
+        }
+        return request;
+    }
+
+    private String value(String[] fields, Column column) {
+        int position = positions[column.ordinal()];
+        if (position < 0) {
+            return null;
+        }
+        String value = fields[position].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal decimal(String[] fields, Column column) {
+        String value = value(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.replace(',', '.'));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column.key + ": не число «" + value + "»");
+        }
+    }
+
+    private Integer integer(String[] fields, Column column) {
+        String value = value(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column.key + ": не целое число «" + value + "»");
+        }
+    }
+
+    private LocalDate date(String[] fields, Column column) {
+        String value = value(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException(column.key + ": ожидается дата ГГГГ-ММ-ДД, получено «" + value + "»");
+        }
+    }
+
+    private static boolean bool(String value, Column column) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes", "да" -> true;
+            case "false", "0", "no", "нет" -> false;
+            default -> throw new IllegalArgumentException(column.key + ": ожидается true/false, получено «" + value + "»");
+        };
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value, Column column) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(column.key + ": неизвестное значение «" + value + "»");
+        }
+    }
+
+    /**
+     * Разбиение без регулярных выражений и кавычек: значения параметров кредита их не содержат.
+     */
+    private static String[] split(String line, char separator, int expected) {
+        String[] result = new String[Math.max(expected, 1)];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == separator) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                String field = line.substring(start, i);
+                if (field.length() >= 2 && field.charAt(0) == '"' && field.charAt(field.length() - 1) == '"') {
+                    field = field.substring(1, field.length() - 1);
+                }
+                result[count++] = field;
+                start = i + 1;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
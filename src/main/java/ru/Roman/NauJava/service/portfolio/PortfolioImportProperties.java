@@ -0,0 +1,40 @@
+package ru.Roman.NauJava.service.portfolio;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки пакетного импорта портфеля.
+ *
+ * @param threads      число потоков расчёта; 0 — по числу ядер
+ * @param batchSize    строк в одной порции, отдаваемой потоку расчёта
+ * @param outputDir    каталог для файлов результатов загрузок через API
+ * @param input        входной файл для запуска из командной строки; без него импорт при старте не выполняется
+ * @param output       файл итогов для запуска из командной строки, по умолчанию рядом с входным
+ * @param rejected     файл отклонённых строк для запуска из командной строки, по умолчанию рядом с входным
+ * @param baseCurrency валюта, в которую дополнительно пересчитываются итоги по курсам на даты платежей,
+ *                     или {@code null}
+ */
+@ConfigurationProperties(prefix = "portfolio.import")
+public record PortfolioImportProperties(int threads,
+                                        int batchSize,
+                                        Path outputDir,
+                                        Path input,
+                                        Path output,
+                                        Path rejected,
+                                        LoanCurrency baseCurrency) {
+
+    public PortfolioImportProperties {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (batchSize <= 0) {
+            batchSize = 512;
+        }
+        if (outputDir == null) {
+            outputDir = Path.of(System.getProperty("java.io.tmpdir"), "smartloan-import");
+        }
+    }
+}
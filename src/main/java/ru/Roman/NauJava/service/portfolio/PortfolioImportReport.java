@@ -0,0 +1,18 @@
+package ru.Roman.NauJava.service.portfolio;
+
+/**
+ * Итог импорта портфеля.
+ *
+ * @param totalRows     строк данных во входном файле (без заголовка)
+ * @param rowsPerSecond пропускная способность от чтения первой строки до записи последнего результата
+ * @param resultFile    имя файла с итогами по принятым строкам
+ * @param rejectedFile  имя файла с отклонёнными строками и причинами
+ */
+public record PortfolioImportReport(long totalRows,
+                                    long accepted,
+                                    long rejected,
+                                    long elapsedMillis,
+                                    double rowsPerSecond,
+                                    String resultFile,
+                                    String rejectedFile) {
+}
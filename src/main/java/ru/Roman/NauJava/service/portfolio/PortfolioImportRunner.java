@@ -0,0 +1,41 @@
+package ru.Roman.NauJava.service.portfolio;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Запуск импорта из командной строки:
+ * {@code java -jar app.jar --spring.main.web-application-type=none --portfolio.import.input=loans.csv}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "portfolio.import", name = "input")
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioImportRunner implements CommandLineRunner {
+
+    private final PortfolioImportService importService;
+    private final PortfolioImportProperties properties;
+
+    @Override
+    public void run(String... args) throws Exception {
+        Path input = properties.input();
+        Path output = properties.output() != null ? properties.output() : sibling(input, "-result.csv");
+        Path rejected = properties.rejected() != null ? properties.rejected() : sibling(input, "-rejected.csv");
+        PortfolioImportReport report = importService.importFile(input, output, rejected);
+        log.info("Итоги: {}, отклонённые строки: {}", output.toAbsolutePath(), rejected.toAbsolutePath());
+        log.info("Обработано {} строк за {} мс ({} строк/с)",
+                report.totalRows(), report.elapsedMillis(), Math.round(report.rowsPerSecond()));
+    }
+
+    private static Path sibling(Path input, String suffix) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return input.resolveSibling(base + suffix);
+    }
+}
@@ -0,0 +1,286 @@
+package ru.Roman.NauJava.service.portfolio;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.engine.ScheduleSink;
+import ru.Roman.NauJava.service.engine.ScheduleSummary;
+import ru.Roman.NauJava.service.export.ExportFormat;
+import ru.Roman.NauJava.service.export.TableWriter;
+import ru.Roman.NauJava.service.fx.FxRateService;
+import ru.Roman.NauJava.service.fx.FxRateTable;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетный расчёт портфеля из CSV.
+ * Файл читается построчно, строки порциями уходят в пул потоков и считаются точным движком
+ * без накопления графика. Итоги пишутся в порядке входного файла, а в памяти одновременно
+ * держится не больше {@code 2 × threads} порций, поэтому расход памяти не зависит от размера файла.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioImportService {
+
+    private static final DateTimeFormatter UPLOAD_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final int COLUMN_CAPACITY = 512;
+
+    private final ScheduleEngine scheduleEngine;
+    private final CalculationMetrics calculationMetrics;
+    private final Validator validator;
+    private final PortfolioImportProperties properties;
+    private final FxRateService fxRateService;
+
+    private record SourceLine(long number, String text) {
+    }
+
+    private record RowOutcome(long line, String id, LoanCalculationRequestDto request, ScheduleSummary summary,
+                              BigDecimal firstPayment, BigDecimal baseTotalPayment, BigDecimal baseTotalInterest,
+                              String error, String text) {
+    }
+
+    /**
+     * Первый регулярный платёж графика. Если итоги нужны в базовой валюте, от остальных строк остаются
+     * только столбцы дат, платежей и процентов для пересчёта по курсам; сами строки отбрасываются.
+     */
+    private static final class FirstPaymentSink implements ScheduleSink {
+
+        private final boolean recordColumns;
+        private BigDecimal payment;
+        private int[] days;
+        private double[] payments;
+        private double[] interest;
+        private int size;
+
+        FirstPaymentSink(boolean recordColumns) {
+            this.recordColumns = recordColumns;
+            if (recordColumns) {
+                days = new int[COLUMN_CAPACITY];
+                payments = new double[COLUMN_CAPACITY];
+                interest = new double[COLUMN_CAPACITY];
+            }
+        }
+
+        @Override
+        public void accept(PaymentScheduleItem item) {
+            if (payment == null && !item.isEarlyPayment()) {
+                payment = item.getPaymentAmount();
+            }
+            if (recordColumns) {
+                if (size == days.length) {
+                    days = Arrays.copyOf(days, size * 2);
+                    payments = Arrays.copyOf(payments, size * 2);
+                    interest = Arrays.copyOf(interest, size * 2);
+                }
+                days[size] = (int) item.getPaymentDate().toEpochDay();
+                payments[size] = item.getPaymentAmount().doubleValue();
+                interest[size] = item.getInterestPart().doubleValue();
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Импорт загруженного через API файла: тело сохраняется в каталог импорта, результаты пишутся рядом.
+     */
+    public PortfolioImportReport importUpload(InputStream body) throws IOException {
+        Files.createDirectories(properties.outputDir());
+        String name = "portfolio-" + UPLOAD_NAME.format(LocalDateTime.now());
+        Path input = properties.outputDir().resolve(name + ".csv");
+        Files.copy(body, input);
+        try {
+            return importFile(input,
+                    properties.outputDir().resolve(name + "-result.csv"),
+                    properties.outputDir().resolve(name + "-rejected.csv"));
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    public PortfolioImportReport importFile(Path input, Path resultFile, Path rejectedFile) throws IOException {
+        long started = System.nanoTime();
+        long total = 0;
+        long accepted = 0;
+        long rejected = 0;
+        int threads = properties.threads();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("portfolio-import-", 0).daemon(true).factory());
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             OutputStream resultStream = Files.newOutputStream(resultFile);
+             OutputStream rejectedStream = Files.newOutputStream(rejectedFile);
+             TableWriter results = TableWriter.open(ExportFormat.CSV, resultStream, "result");
+             TableWriter rejects = TableWriter.open(ExportFormat.CSV, rejectedStream, "rejected")) {
+            PortfolioCsvParser parser = PortfolioCsvParser.fromHeader(reader.readLine());
+            if (properties.baseCurrency() == null) {
+                results.row("line", "id", "currency", "firstPayment", "payments", "totalPayment", "totalInterest",
+                        "totalSubsidy", "effectiveRate");
+            } else {
+                results.row("line", "id", "currency", "firstPayment", "payments", "totalPayment", "totalInterest",
+                        "totalSubsidy", "effectiveRate", "baseCurrency", "baseTotalPayment", "baseTotalInterest");
+            }
+            rejects.row("line", "id", "error", "source");
+
+            Deque<Future<List<RowOutcome>>> inFlight = new ArrayDeque<>();
+            List<SourceLine> batch = new ArrayList<>(properties.batchSize());
+            long lineNumber = 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                batch.add(new SourceLine(lineNumber, text));
+                if (batch.size() == properties.batchSize()) {
+                    inFlight.add(submit(executor, parser, batch));
+                    batch = new ArrayList<>(properties.batchSize());
+                    if (inFlight.size() >= threads * 2) {
+                        long[] counts = write(inFlight.poll(), results, rejects);
+                        accepted += counts[0];
+                        rejected += counts[1];
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(submit(executor, parser, batch));
+            }
+            while (!inFlight.isEmpty()) {
+                long[] counts = write(inFlight.poll(), results, rejects);
+                accepted += counts[0];
+                rejected += counts[1];
+            }
+            total = accepted + rejected;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        PortfolioImportReport report = new PortfolioImportReport(total, accepted, rejected,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), seconds > 0 ? total / seconds : 0,
+                resultFile.getFileName().toString(), rejectedFile.getFileName().toString());
+        log.info("Импорт портфеля {}: строк {}, принято {}, отклонено {}, {} строк/с",
+                input.getFileName(), total, accepted, rejected, Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    private Future<List<RowOutcome>> submit(ExecutorService executor, PortfolioCsvParser parser,
+                                            List<SourceLine> batch) {
+        return executor.submit(() -> {
+            List<RowOutcome> outcomes = new ArrayList<>(batch.size());
+            for (SourceLine line : batch) {
+                outcomes.add(process(parser, line));
+            }
+            return outcomes;
+        });
+    }
+
+    private RowOutcome process(PortfolioCsvParser parser, SourceLine line) {
+        String id = null;
+        try {
+            String[] fields = parser.fields(line.text());
+            id = parser.id(fields);
+            LoanCalculationRequestDto request = parser.toRequest(fields);
+            Set<ConstraintViolation<LoanCalculationRequestDto>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                return new RowOutcome(line.number(), id, null, null, null, null, null, error, line.text());
+            }
+            LoanCurrency baseCurrency = properties.baseCurrency();
+            FirstPaymentSink sink = new FirstPaymentSink(baseCurrency != null);
+            ScheduleSummary summary = scheduleEngine.build(request, sink,
+                    calculationMetrics.tags(request, scheduleEngine.isSubsidized(request), false));
+            BigDecimal basePayment = null;
+            BigDecimal baseInterest = null;
+            if (baseCurrency != null) {
+                FxRateTable table = fxRateService.table();
+                table.convert(request.getCurrency(), baseCurrency, sink.days, sink.payments, sink.payments, sink.size);
+                table.convert(request.getCurrency(), baseCurrency, sink.days, sink.interest, sink.interest, sink.size);
+                basePayment = sum(sink.payments, sink.size);
+                baseInterest = sum(sink.interest, sink.size);
+            }
+            return new RowOutcome(line.number(), id, request, summary, sink.payment, basePayment, baseInterest,
+                    null, null);
+        } catch (IllegalArgumentException | IllegalStateException | ArithmeticException ex) {
+            return new RowOutcome(line.number(), id, null, null, null, null, null, ex.getMessage(), line.text());
+        }
+    }
+
+    private static BigDecimal sum(double[] column, int size) {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += column[i];
+        }
+        return BigDecimal.valueOf(total).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return {принято, отклонено} в порции
+     */
+    private long[] write(Future<List<RowOutcome>> pending, TableWriter results, TableWriter rejects)
+            throws IOException {
+        List<RowOutcome> outcomes;
+        try {
+            outcomes = pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Импорт портфеля прерван", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Ошибка расчёта порции портфеля", ex.getCause());
+        }
+        long accepted = 0;
+        long rejected = 0;
+        for (RowOutcome outcome : outcomes) {
+            if (outcome.error() == null) {
+                ScheduleSummary summary = outcome.summary();
+                if (properties.baseCurrency() == null) {
+                    results.row(outcome.line(), outcome.id(), outcome.request().getCurrency(), outcome.firstPayment(),
+                            summary.rows(), summary.totalPayment(), summary.totalInterest(), summary.totalSubsidy(),
+                            summary.effectiveRate());
+                } else {
+                    results.row(outcome.line(), outcome.id(), outcome.request().getCurrency(), outcome.firstPayment(),
+                            summary.rows(), summary.totalPayment(), summary.totalInterest(), summary.totalSubsidy(),
+                            summary.effectiveRate(), properties.baseCurrency(), outcome.baseTotalPayment(),
+                            outcome.baseTotalInterest());
+                }
+                accepted++;
+            } else {
+                rejects.row(outcome.line(), outcome.id(), outcome.error(), outcome.text());
+                rejected++;
+            }
+        }
+        return new long[]{accepted, rejected};
+    }
+}
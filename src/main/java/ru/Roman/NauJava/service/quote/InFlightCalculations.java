@@ -0,0 +1,88 @@
+package ru.Roman.NauJava.service.quote;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых расчётов, выполняющихся одновременно. Ключ — канонический ключ котировки
+ * и поля, которые ответ повторяет из запроса как есть, поэтому объединяются только запросы с побайтно
+ * одинаковым ответом: первый вызов считает в своём потоке, остальные ждут его результата и получают тот же
+ * ответ или то же исключение. Ответ неизменяем ({@code @Value}, график — неизменяемый список), поэтому
+ * его можно отдавать всем вызовам без копирования.
+ * Ключ живёт, только пока идёт расчёт, — это не кэш, следующий запрос после завершения считается заново.
+ */
+@Component
+public class InFlightCalculations {
+
+    public static final String COALESCED = "loan.calculation.coalesced";
+
+    private final PublicQuoteKeyCodec keyCodec;
+    private final ConcurrentHashMap<String, CompletableFuture<LoanCalculationResponseDto>> inFlight =
+            new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public InFlightCalculations(PublicQuoteKeyCodec keyCodec, MeterRegistry registry) {
+        this.keyCodec = keyCodec;
+        this.coalesced = Counter.builder(COALESCED)
+                .description("Расчётов, присоединившихся к уже идущему одинаковому расчёту")
+                .register(registry);
+    }
+
+    /**
+     * Возвращает результат идущего расчёта с тем же ключом или выполняет {@code calculation} сам.
+     * Результат не должен зависеть от вызывающего: сохранение в историю и трассировка сюда не попадают.
+     */
+    public LoanCalculationResponseDto calculate(LoanCalculationRequestDto request,
+                                                Supplier<LoanCalculationResponseDto> calculation) {
+        String key = keyCodec.encode(request) + '|' + echoedFields(request);
+        CompletableFuture<LoanCalculationResponseDto> own = new CompletableFuture<>();
+        CompletableFuture<LoanCalculationResponseDto> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            LoanCalculationResponseDto response = calculation.get();
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Поля, которые канонический ключ приводит или опускает, а ответ повторяет как есть: ставки в исходной
+     * записи (12 и 12.0 в JSON различаются) и параметры субсидии, которые повторяются и без субсидии.
+     * Сумма кредита в ответе всегда округлена до копеек, поэтому её достаточно ключа котировки.
+     */
+    private static String echoedFields(LoanCalculationRequestDto request) {
+        return request.getInterestRate() + "|" + request.getSubsidizedRate() + "|"
+                + request.getSubsidyDurationMonths() + "|" + request.getSubsidyMode();
+    }
+
+    private static LoanCalculationResponseDto await(CompletableFuture<LoanCalculationResponseDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            // Исключение первого вызова отдаётся как есть, чтобы ошибка параметров осталась ошибкой 400
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ru.Roman.NauJava.service.quote;
+
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Каноническое URL-безопасное представление параметров расчёта для кэшируемого GET.
+ * Поля пишутся в фиксированном порядке как {@code ключ=значение} через «;», числа — без хвостовых нулей,
+ * списки — в исходном порядке (он влияет на порядок досрочных платежей в один день).
+ * Результат кодируется в Base64url без выравнивания. Одинаковые по смыслу запросы дают один и тот же ключ,
+ * поэтому кэш перед приложением хранит один ответ на котировку.
+ */
+@Component
+public class PublicQuoteKeyCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int MAX_KEY_LENGTH = 4096;
+
+    public String encode(LoanCalculationRequestDto request) {
+        StringJoiner fields = new StringJoiner(";");
+        add(fields, "lt", request.getLoanType());
+        add(fields, "c", request.getCurrency());
+        add(fields, "p", decimal(request.getPrincipal()));
+        add(fields, "r", decimal(request.getInterestRate()));
+        add(fields, "n", request.getDurationMonths());
+        add(fields, "pt", request.getPaymentType());
+        add(fields, "d", request.getDisbursementDate());
+        add(fields, "rm", request.getRecalculationMode());
+        add(fields, "aw", request.isAdjustWeekends() ? "1" : "0");
+        add(fields, "dc", request.getDayCount());
+        if (request.isDeveloperSubsidy()) {
+            add(fields, "ds", "1");
+            add(fields, "sr", decimal(request.getSubsidizedRate()));
+            add(fields, "sn", request.getSubsidyDurationMonths());
+            add(fields, "sm", request.getSubsidyMode());
+            add(fields, "sp", decimal(request.getSubsidizedPaymentAmount()));
+        }
+        if (request.getRateChanges() != null && !request.getRateChanges().isEmpty()) {
+            StringJoiner items = new StringJoiner(",");
+            for (RateChangeDto rc : request.getRateChanges()) {
+                items.add(rc.getStartDate() + "~" + decimal(rc.getNewRate()));
+            }
+            add(fields, "rc", items);
+        }
+        if (request.getEarlyPayments() != null && !request.getEarlyPayments().isEmpty()) {
+            StringJoiner items = new StringJoiner(",");
+            for (EarlyPaymentDto ep : request.getEarlyPayments()) {
+                items.add(ep.getPaymentDate() + "~" + decimal(ep.getAmount()) + "~" + ep.getApplicationMode());
+            }
+            add(fields, "ep", items);
+        }
+        if (request.getPeriodicEarlyPayments() != null && !request.getPeriodicEarlyPayments().isEmpty()) {
+            StringJoiner items = new StringJoiner(",");
+            for (PeriodicEarlyPaymentDto pp : request.getPeriodicEarlyPayments()) {
+                items.add(pp.getStartDate() + "~" + (pp.getEndDate() == null ? "" : pp.getEndDate())
+                        + "~" + pp.getIntervalMonths() + "~" + decimal(pp.getAmount()) + "~" + pp.getApplicationMode());
+            }
+            add(fields, "pp", items);
+        }
+        return ENCODER.encodeToString(fields.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает ключ обратно в запрос. Ограничения DTO не проверяются — это делает вызывающий код.
+     *
+     * @throws IllegalArgumentException если ключ повреждён
+     */
+    public LoanCalculationRequestDto decode(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Некорректный ключ расчёта");
+        }
+        try {
+            String text = new String(DECODER.decode(key), StandardCharsets.UTF_8);
+            LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+            request.setSaveToHistory(false);
+            for (String field : text.split(";")) {
+                int eq = field.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Некорректный ключ расчёта");
+                }
+                apply(request, field.substring(0, eq), field.substring(eq + 1));
+            }
+            return request;
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Некорректный ключ расчёта", ex);
+        }
+    }
+
+    /**
+     * Сильный валидатор ответа по ключу: короткий хэш, чтобы не повторять в ETag весь ключ.
+     */
+    public String fingerprint(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 недоступен", ex);
+        }
+    }
+
+    private static void apply(LoanCalculationRequestDto request, String name, String value) {
+        switch (name) {
+            case "lt" -> request.setLoanType(LoanType.valueOf(value));
+            case "c" -> request.setCurrency(LoanCurrency.valueOf(value));
+            case "p" -> request.setPrincipal(new BigDecimal(value));
+            case "r" -> request.setInterestRate(new BigDecimal(value));
+            case "n" -> request.setDurationMonths(Integer.valueOf(value));
+            case "pt" -> request.setPaymentType(PaymentType.valueOf(value));
+            case "d" -> request.setDisbursementDate(LocalDate.parse(value));
+            case "rm" -> request.setRecalculationMode(RecalculationMode.valueOf(value));
+            case "aw" -> request.setAdjustWeekends("1".equals(value));
+            case "dc" -> request.setDayCount(DayCountConvention.valueOf(value));
+            case "ds" -> request.setDeveloperSubsidy("1".equals(value));
+            case "sr" -> request.setSubsidizedRate(new BigDecimal(value));
+            case "sn" -> request.setSubsidyDurationMonths(Integer.valueOf(value));
+            case "sm" -> request.setSubsidyMode(SubsidyMode.valueOf(value));
+            case "sp" -> request.setSubsidizedPaymentAmount(new BigDecimal(value));
+            case "rc" -> {
+                List<RateChangeDto> changes = new ArrayList<>();
+                for (String item : value.split(",")) {
+                    String[] parts = item.split("~", -1);
+                    RateChangeDto dto = new RateChangeDto();
+                    dto.setStartDate(LocalDate.parse(parts[0]));
+                    dto.setNewRate(new BigDecimal(parts[1]));
+                    changes.add(dto);
+                }
+                request.setRateChanges(changes);
+            }
+            case "ep" -> {
+                List<EarlyPaymentDto> payments = new ArrayList<>();
+                for (String item : value.split(",")) {
+                    String[] parts = item.split("~", -1);
+                    EarlyPaymentDto dto = new EarlyPaymentDto();
+                    dto.setPaymentDate(LocalDate.parse(parts[0]));
+                    dto.setAmount(new BigDecimal(parts[1]));
+                    dto.setApplicationMode(EarlyPaymentApplicationMode.valueOf(parts[2]));
+                    payments.add(dto);
+                }
+                request.setEarlyPayments(payments);
+            }
+            case "pp" -> {
+                List<PeriodicEarlyPaymentDto> payments = new ArrayList<>();
+                for (String item : value.split(",")) {
+                    String[] parts = item.split("~", -1);
+                    PeriodicEarlyPaymentDto dto = new PeriodicEarlyPaymentDto();
+                    dto.setStartDate(LocalDate.parse(parts[0]));
+                    dto.setEndDate(parts[1].isEmpty() ? null : LocalDate.parse(parts[1]));
+                    dto.setIntervalMonths(Integer.valueOf(parts[2]));
+                    dto.setAmount(new BigDecimal(parts[3]));
+                    dto.setApplicationMode(EarlyPaymentApplicationMode.valueOf(parts[4]));
+                    payments.add(dto);
+                }
+                request.setPeriodicEarlyPayments(payments);
+            }
+            default -> throw new IllegalArgumentException("Неизвестное поле ключа: " + name);
+        }
+    }
+
+    private static void add(StringJoiner fields, String name, Object value) {
+        if (value != null) {
+            fields.add(name + "=" + value);
+        }
+    }
+
+    private static String decimal(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+}
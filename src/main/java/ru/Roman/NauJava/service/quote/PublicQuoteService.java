@@ -0,0 +1,104 @@
+package ru.Roman.NauJava.service.quote;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.dto.SchedulePageDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Публичные котировки по каноническому ключу: один и тот же набор параметров всегда
+ * приходит по одному URL и даёт один и тот же ответ, поэтому его можно кэшировать в прокси и браузере.
+ */
+@Service
+@RequiredArgsConstructor
+public class PublicQuoteService {
+
+    private final PublicQuoteKeyCodec keyCodec;
+    private final LoanCalculationService calculationService;
+    private final Validator validator;
+    private final ScheduleEngine scheduleEngine;
+    private final CalculationMetrics calculationMetrics;
+    private final LoanCalculationMapper calculationMapper;
+
+    /**
+     * @param canonicalKey ключ, по которому котировка должна запрашиваться
+     * @param fingerprint  хэш канонического ключа для ETag
+     */
+    public record Quote(String key, String canonicalKey, String fingerprint, LoanCalculationRequestDto request) {
+
+        public boolean isCanonical() {
+            return key.equals(canonicalKey);
+        }
+    }
+
+    public String key(LoanCalculationRequestDto request) {
+        return keyCodec.encode(request);
+    }
+
+    public Quote resolve(String key) {
+        LoanCalculationRequestDto request = keyCodec.decode(key);
+        String canonicalKey = keyCodec.encode(request);
+        return new Quote(key, canonicalKey, keyCodec.fingerprint(canonicalKey), request);
+    }
+
+    /**
+     * Проверяет параметры теми же ограничениями, что и POST-расчёт, и считает без сохранения.
+     */
+    public LoanCalculationResponseDto calculate(Quote quote) {
+        LoanCalculationRequestDto request = validated(quote);
+        request.setSaveToHistory(false);
+        return calculationService.calculate(request, null);
+    }
+
+    /**
+     * Строки графика с {@code offset} по {@code offset + limit}: график строится заново через приёмник
+     * и только до конца страницы, поэтому поздняя страница стоит не больше одного полного расчёта,
+     * а ранняя — меньше. Общее число строк известно, только если страница дошла до конца графика.
+     */
+    public SchedulePageDto schedulePage(Quote quote, int offset, int limit) {
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("Некорректная страница графика");
+        }
+        LoanCalculationRequestDto request = validated(quote);
+        List<PaymentScheduleItemDto> items = new ArrayList<>(Math.min(limit, request.resolveDurationMonths()));
+        int[] row = {0};
+        int pageEnd = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        boolean complete = scheduleEngine.buildRows(request, pageEnd, item -> {
+            int index = row[0]++;
+            if (index >= offset && index < pageEnd) {
+                items.add(calculationMapper.toScheduleItemDto(item));
+            }
+        }, calculationMetrics.tags(request, scheduleEngine.isSubsidized(request), false));
+        return SchedulePageDto.builder()
+                .offset(offset)
+                .limit(limit)
+                .totalRows(complete ? row[0] : null)
+                .items(items)
+                .build();
+    }
+
+    private LoanCalculationRequestDto validated(Quote quote) {
+        LoanCalculationRequestDto request = quote.request();
+        Set<ConstraintViolation<LoanCalculationRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return request;
+    }
+}
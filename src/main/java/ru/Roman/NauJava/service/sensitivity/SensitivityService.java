@@ -0,0 +1,176 @@
+package ru.Roman.NauJava.service.sensitivity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.dto.SensitivityMatrixDto;
+import ru.Roman.NauJava.dto.SensitivityReportDto;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+import ru.Roman.NauJava.service.engine.LoanSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Чувствительность итогов к ставке и сроку методом сдвига и пересчёта (bump-and-reprice).
+ * Факторы — ставка кредита, каждое изменение ставки, льготная ставка субсидии и срок.
+ * Модель кредита собирается один раз: сдвиги копируют только массив ставок или параметры субсидии,
+ * сетка дат и развёрнутые досрочные платежи общие. Все прогоны — базовые и сдвинутые, по всем расчётам —
+ * идут одним параллельным потоком на {@link ApproximateLoanEngine}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SensitivityService {
+
+    public static final List<String> METRICS = List.of("totalInterest", "monthlyPayment", "effectiveRate");
+
+    private static final int TERM_BUMP_MONTHS = 1;
+    private static final int MAX_BUMP_BP = 500;
+    private static final int MAX_HISTORY_PAGE = 100;
+    private static final double BASIS_POINTS = 10_000.0;
+
+    private final LoanCalculationService calculationService;
+
+    private record Factor(String name, UnaryOperator<FastLoanModel> shift) {
+    }
+
+    private record RateChangeStart(int day, String name) {
+    }
+
+    /**
+     * Прогон одной модели: {@code calculation} — номер расчёта в отчёте, {@code factor} — номер фактора
+     * или -1 для базового прогона.
+     */
+    private record Run(int calculation, int factor, FastLoanModel model) {
+    }
+
+    public SensitivityReportDto forCalculation(Long id, String username, int bumpBp) {
+        return analyze(Map.of(id, calculationService.loadRequest(id, username)), bumpBp);
+    }
+
+    /**
+     * Отчёт по странице истории: модели и все сдвинутые прогоны держатся в памяти только для {@code size} расчётов.
+     */
+    public SensitivityReportDto forHistory(String username, int bumpBp, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_HISTORY_PAGE) {
+            throw new IllegalArgumentException("Страница истории — номер от 0 и размер от 1 до " + MAX_HISTORY_PAGE);
+        }
+        return analyze(calculationService.loadHistoryRequests(username, page, size), bumpBp);
+    }
+
+    /**
+     * @param requests параметры расчётов по id в порядке отчёта
+     * @param bumpBp   сдвиг ставок в базисных пунктах
+     */
+    public SensitivityReportDto analyze(Map<Long, LoanCalculationRequestDto> requests, int bumpBp) {
+        if (bumpBp <= 0 || bumpBp > MAX_BUMP_BP) {
+            throw new IllegalArgumentException("Сдвиг ставки — от 1 до " + MAX_BUMP_BP + " базисных пунктов");
+        }
+        double delta = bumpBp / BASIS_POINTS;
+
+        List<Long> ids = new ArrayList<>(requests.size());
+        List<List<Factor>> factors = new ArrayList<>(requests.size());
+        List<Run> runs = new ArrayList<>();
+        for (Map.Entry<Long, LoanCalculationRequestDto> entry : requests.entrySet()) {
+            FastLoanModel model = FastLoanModel.from(entry.getValue());
+            List<Factor> calculationFactors = factors(entry.getValue(), model, delta);
+            int calculation = ids.size();
+            ids.add(entry.getKey());
+            factors.add(calculationFactors);
+            runs.add(new Run(calculation, -1, model));
+            for (int factor = 0; factor < calculationFactors.size(); factor++) {
+                runs.add(new Run(calculation, factor, calculationFactors.get(factor).shift().apply(model)));
+            }
+        }
+
+        // Прогоны независимы и занимают микросекунды, поэтому делятся между ядрами без своего пула
+        List<LoanSummary> summaries = runs.parallelStream()
+                .map(run -> ApproximateLoanEngine.runWithEffectiveRate(run.model()))
+                .toList();
+
+        List<SensitivityMatrixDto> matrices = new ArrayList<>(ids.size());
+        int position = 0;
+        for (int calculation = 0; calculation < ids.size(); calculation++) {
+            LoanSummary base = summaries.get(position++);
+            List<Factor> calculationFactors = factors.get(calculation);
+            List<String> names = new ArrayList<>(calculationFactors.size());
+            List<List<BigDecimal>> deltas = new ArrayList<>(calculationFactors.size());
+            for (Factor factor : calculationFactors) {
+                LoanSummary bumped = summaries.get(position++);
+                names.add(factor.name());
+                deltas.add(Arrays.asList(
+                        toMoney(bumped.totalInterest() - base.totalInterest()),
+                        toMoney(bumped.firstPayment() - base.firstPayment()),
+                        toPercent(bumped.effectiveRate() - base.effectiveRate())));
+            }
+            matrices.add(SensitivityMatrixDto.builder()
+                    .calculationId(ids.get(calculation))
+                    .factors(names)
+                    .base(Arrays.asList(toMoney(base.totalInterest()), toMoney(base.firstPayment()),
+                            toPercent(base.effectiveRate())))
+                    .deltas(deltas)
+                    .build());
+        }
+        return SensitivityReportDto.builder()
+                .rateBumpBp(bumpBp)
+                .termBumpMonths(TERM_BUMP_MONTHS)
+                .metrics(METRICS)
+                .calculations(matrices)
+                .build();
+    }
+
+    /**
+     * Изменения ставки действуют с даты начала до начала следующего, как в таймлайне {@link FastLoanModel};
+     * у субсидированной ипотеки расчёт их не учитывает, поэтому и факторами они не становятся.
+     */
+    private static List<Factor> factors(LoanCalculationRequestDto request, FastLoanModel model, double delta) {
+        List<RateChangeStart> starts = new ArrayList<>();
+        if (request.getRateChanges() != null) {
+            for (RateChangeDto change : request.getRateChanges()) {
+                if (change.getStartDate() != null && change.getNewRate() != null) {
+                    starts.add(new RateChangeStart((int) change.getStartDate().toEpochDay(),
+                            "rateChange[" + change.getStartDate() + "]"));
+                }
+            }
+        }
+        starts.sort(Comparator.comparingInt(RateChangeStart::day));
+
+        List<Factor> factors = new ArrayList<>();
+        int firstChangeDay = starts.isEmpty() ? Integer.MAX_VALUE : starts.get(0).day();
+        factors.add(new Factor("interestRate", m -> m.withBaseRateShift(firstChangeDay, delta)));
+        if (model.subsidized()) {
+            if (!Double.isNaN(model.subsidy().subsidizedRate())) {
+                factors.add(new Factor("subsidizedRate", m -> m.withSubsidizedRateShift(delta)));
+            }
+        } else {
+            for (int i = 0; i < starts.size(); i++) {
+                int from = starts.get(i).day();
+                int until = i + 1 < starts.size() ? starts.get(i + 1).day() : Integer.MAX_VALUE;
+                factors.add(new Factor(starts.get(i).name(), m -> m.withPeriodRateShift(from, until, delta)));
+            }
+        }
+        factors.add(new Factor("durationMonths",
+                m -> m.withDurationMonths(m.durationMonths() + TERM_BUMP_MONTHS)));
+        return factors;
+    }
+
+    private static BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal toPercent(double value) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP);
+    }
+}
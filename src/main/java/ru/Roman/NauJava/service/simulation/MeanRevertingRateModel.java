@@ -0,0 +1,59 @@
+package ru.Roman.NauJava.service.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Модель Васичека для годовой ставки: {@code dr = κ(θ − r)dt + σ dW}.
+ * Шаг делается по точному решению, поэтому результат не зависит от мелкости сетки:
+ * {@code r' = θ + (r − θ)·e^(−κΔ) + σ·√((1 − e^(−2κΔ)) / 2κ)·Z}.
+ * Ставка меняется раз в {@code resetMonths} платежей, ограничивается снизу {@code floor}
+ * и округляется до базисного пункта — так траекторию можно передать в расчёт как изменения ставки.
+ * Все ставки — годовые доли (0.12 = 12%).
+ */
+final class MeanRevertingRateModel {
+
+    private static final double MONTHS_IN_YEAR = 12.0;
+    private static final double BASIS_POINTS = 10_000.0;
+
+    private final double longTermRate;
+    private final double decay;
+    private final double shockScale;
+    private final double floor;
+    private final int resetMonths;
+
+    /**
+     * @param meanReversion скорость возврата к среднему κ, в год
+     * @param volatility    волатильность σ, доля в год
+     */
+    MeanRevertingRateModel(double longTermRate, double meanReversion, double volatility, double floor,
+                           int resetMonths) {
+        double step = resetMonths / MONTHS_IN_YEAR;
+        this.longTermRate = longTermRate;
+        this.decay = Math.exp(-meanReversion * step);
+        this.shockScale = meanReversion == 0
+                ? volatility * Math.sqrt(step)
+                : volatility * Math.sqrt((1 - decay * decay) / (2 * meanReversion));
+        this.floor = floor;
+        this.resetMonths = resetMonths;
+    }
+
+    /**
+     * Заполняет {@code rates[0..months)} ставками по датам платежей, остаток массива — последней ставкой.
+     * Первый период идёт по {@code startRate}; памяти не выделяет.
+     */
+    void fill(SplittableRandom random, double startRate, double[] rates, int months) {
+        double state = startRate;
+        double rate = startRate;
+        int filled = Math.min(months, rates.length);
+        for (int month = 0; month < filled; month++) {
+            if (month > 0 && month % resetMonths == 0) {
+                state = longTermRate + (state - longTermRate) * decay + shockScale * random.nextGaussian();
+                rate = Math.max(floor, Math.round(state * BASIS_POINTS) / BASIS_POINTS);
+            }
+            rates[month] = rate;
+        }
+        for (int month = filled; month < rates.length; month++) {
+            rates[month] = rate;
+        }
+    }
+}
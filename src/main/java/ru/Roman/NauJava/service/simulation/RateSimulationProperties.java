@@ -0,0 +1,26 @@
+package ru.Roman.NauJava.service.simulation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки моделирования плавающей ставки.
+ *
+ * @param threads        потоков расчёта траекторий; 0 — по числу ядер
+ * @param maxPaths       предел числа траекторий в одном запросе
+ * @param maxSamplePaths предел числа траекторий, возвращаемых в ответе целиком
+ */
+@ConfigurationProperties(prefix = "simulation.rates")
+public record RateSimulationProperties(int threads, int maxPaths, int maxSamplePaths) {
+
+    public RateSimulationProperties {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (maxPaths <= 0) {
+            maxPaths = 100_000;
+        }
+        if (maxSamplePaths <= 0) {
+            maxSamplePaths = 20;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package ru.Roman.NauJava.service.simulation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PercentilesDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.dto.RateSimulationRequestDto;
+import ru.Roman.NauJava.dto.RateSimulationResultDto;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+import ru.Roman.NauJava.service.engine.LoanSummary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleFunction;
+
+/**
+ * Моделирование плавающей ставки методом Монте-Карло.
+ * Траектории ставки строятся {@link MeanRevertingRateModel} и заменяют изменения ставки из запроса;
+ * кредит на каждой траектории считается {@link ApproximateLoanEngine#runRegular} без графика.
+ * Траектории делятся на порции по потокам; у каждой порции один буфер ставок на все её траектории,
+ * а у каждой траектории — своё зерно, поэтому результат не зависит от числа потоков.
+ */
+@Service
+@Slf4j
+public class RateSimulationService {
+
+    private static final double ONE_HUNDRED = 100.0;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final RateSimulationProperties properties;
+    private final ForkJoinPool pool;
+
+    public RateSimulationService(RateSimulationProperties properties) {
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.threads());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private record PathResults(double[] totalInterest, double[] maxPayment, double[] payoffDays) {
+    }
+
+    public RateSimulationResultDto simulate(RateSimulationRequestDto request) {
+        LoanCalculationRequestDto loan = request.getLoan();
+        if (loan.getDisbursementDate() == null) {
+            throw new IllegalArgumentException("Дата выдачи обязательна");
+        }
+        int paths = request.getPaths();
+        if (paths > properties.maxPaths()) {
+            throw new IllegalArgumentException("Не больше " + properties.maxPaths() + " траекторий за запрос");
+        }
+        FastLoanModel model = FastLoanModel.from(loan);
+        if (model.subsidized()) {
+            throw new IllegalArgumentException("Моделирование плавающей ставки недоступно для субсидированной ипотеки");
+        }
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        double startRate = model.periodRates()[0];
+        MeanRevertingRateModel rateModel = new MeanRevertingRateModel(
+                request.getLongTermRate() != null ? request.getLongTermRate().doubleValue() / ONE_HUNDRED : startRate,
+                request.getMeanReversion().doubleValue(),
+                request.getVolatility().doubleValue() / ONE_HUNDRED,
+                request.getFloorRate().doubleValue() / ONE_HUNDRED,
+                request.getResetIntervalMonths());
+
+        // Зёрна траекторий выбираются заранее одним генератором: так они не зависят от разбиения на порции
+        long[] pathSeeds = new long[paths];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int path = 0; path < paths; path++) {
+            pathSeeds[path] = seeds.nextLong();
+        }
+
+        long started = System.nanoTime();
+        PathResults results = run(model, rateModel, startRate, pathSeeds);
+        log.debug("Моделирование ставки: {} траекторий за {} мс", paths,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        return RateSimulationResultDto.builder()
+                .paths(paths)
+                .seed(seed)
+                .currency(loan.getCurrency())
+                .totalInterest(percentiles(results.totalInterest(), RateSimulationService::toMoney))
+                .maxPayment(percentiles(results.maxPayment(), RateSimulationService::toMoney))
+                .payoffDate(percentiles(results.payoffDays(), day -> LocalDate.ofEpochDay((long) day)))
+                .samplePaths(samplePaths(model, rateModel, startRate, pathSeeds,
+                        Math.min(request.getSamplePaths(), properties.maxSamplePaths())))
+                .build();
+    }
+
+    private PathResults run(FastLoanModel model, MeanRevertingRateModel rateModel, double startRate, long[] pathSeeds) {
+        int paths = pathSeeds.length;
+        double[] totalInterest = new double[paths];
+        double[] maxPayment = new double[paths];
+        double[] payoffDays = new double[paths];
+        int chunkSize = Math.max(1, (paths + properties.threads() * CHUNKS_PER_THREAD - 1)
+                / (properties.threads() * CHUNKS_PER_THREAD));
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < paths; from += chunkSize) {
+            int start = from;
+            int end = Math.min(paths, from + chunkSize);
+            chunks.add(() -> {
+                double[] rates = new double[model.paymentDays().length];
+                for (int path = start; path < end; path++) {
+                    rateModel.fill(new SplittableRandom(pathSeeds[path]), startRate, rates, model.durationMonths());
+                    LoanSummary summary = ApproximateLoanEngine.runRegular(model, rates);
+                    totalInterest[path] = summary.totalInterest();
+                    maxPayment[path] = summary.maxPayment();
+                    payoffDays[path] = summary.payoffDay();
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Моделирование ставки прервано", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Ошибка моделирования ставки", ex.getCause());
+        }
+        return new PathResults(totalInterest, maxPayment, payoffDays);
+    }
+
+    /**
+     * Первые траектории в виде изменений ставки на даты платежей, где ставка меняется.
+     * Переданные в обычный расчёт вместо изменений ставки запроса, они воспроизводят оценённую траекторию:
+     * ставки отдаются без округления (модель округляет их до базисного пункта, но нижняя граница может быть точнее).
+     */
+    private static List<List<RateChangeDto>> samplePaths(FastLoanModel model, MeanRevertingRateModel rateModel,
+                                                         double startRate, long[] pathSeeds, int count) {
+        List<List<RateChangeDto>> samples = new ArrayList<>(count);
+        double[] rates = new double[model.paymentDays().length];
+        int months = Math.min(model.durationMonths(), rates.length);
+        for (int path = 0; path < Math.min(count, pathSeeds.length); path++) {
+            rateModel.fill(new SplittableRandom(pathSeeds[path]), startRate, rates, model.durationMonths());
+            List<RateChangeDto> timeline = new ArrayList<>();
+            for (int month = 1; month < months; month++) {
+                if (rates[month] != rates[month - 1]) {
+                    RateChangeDto change = new RateChangeDto();
+                    change.setStartDate(LocalDate.ofEpochDay(model.paymentDays()[month]));
+                    change.setNewRate(BigDecimal.valueOf(rates[month]).movePointRight(2));
+                    timeline.add(change);
+                }
+            }
+            samples.add(timeline);
+        }
+        return samples;
+    }
+
+    /**
+     * Процентили по ближайшему рангу; массив сортируется на месте.
+     */
+    private static <T> PercentilesDto<T> percentiles(double[] values, DoubleFunction<T> converter) {
+        Arrays.sort(values);
+        return PercentilesDto.<T>builder()
+                .p5(converter.apply(rank(values, 5)))
+                .p25(converter.apply(rank(values, 25)))
+                .p50(converter.apply(rank(values, 50)))
+                .p75(converter.apply(rank(values, 75)))
+                .p95(converter.apply(rank(values, 95)))
+                .build();
+    }
+
+    private static double rank(double[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / ONE_HUNDRED * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static BigDecimal toMoney(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
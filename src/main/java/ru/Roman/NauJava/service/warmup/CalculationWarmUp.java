@@ -0,0 +1,171 @@
+package ru.Roman.NauJava.service.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.engine.ScheduleSummary;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев расчётов при старте: набор синтетических расчётов (аннуитет, дифференцированные платежи,
+ * субсидированная ипотека в обоих режимах, досрочные платежи и изменения ставки) проходит через движок графика,
+ * маппинг строк и сериализацию в JSON, пока JIT не скомпилирует горячие циклы.
+ * Движок прогрева пишет метрики в собственный реестр, поэтому синтетические расчёты не попадают
+ * в метрики {@code loan.calculation.*} приложения.
+ * Выполняется в {@link ApplicationRunner}: до его завершения Spring Boot держит readiness в
+ * {@code REFUSING_TRAFFIC}, поэтому балансировщик не направляет трафик на холодный экземпляр.
+ * Прогрев останавливается по исчерпании бюджета времени; ошибка прогрева не мешает запуску.
+ * В native-образе код уже скомпилирован заранее, и прогрев пропускается.
+ */
+@Component
+@ConditionalOnWebApplication
+@RequiredArgsConstructor
+@Slf4j
+public class CalculationWarmUp implements ApplicationRunner {
+
+    private static final LocalDate DISBURSEMENT_DATE = LocalDate.of(2025, 1, 15);
+
+    private final WarmUpProperties properties;
+    private final LoanCalculationMapper calculationMapper;
+    private final ObjectMapper objectMapper;
+    private final ScheduleEngine engine = new ScheduleEngine(new CalculationMetrics(new SimpleMeterRegistry()));
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.enabled() || NativeDetector.inNativeImage()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            int calculations = warmUp();
+            log.info("Прогрев: {} расчётов за {} мс", calculations,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException ex) {
+            log.warn("Прогрев прерван ошибкой, приложение принимает трафик без него", ex);
+        }
+    }
+
+    /**
+     * @return число выполненных расчётов
+     */
+    int warmUp() {
+        List<LoanCalculationRequestDto> workload = workload();
+        long deadline = System.nanoTime() + properties.timeBudget().toNanos();
+        long bytes = 0;
+        int calculations = 0;
+        for (int iteration = 0; iteration < properties.iterations(); iteration++) {
+            for (LoanCalculationRequestDto request : workload) {
+                if (System.nanoTime() - deadline >= 0) {
+                    log.info("Прогрев остановлен по бюджету {} после {} расчётов",
+                            properties.timeBudget(), calculations);
+                    return calculations;
+                }
+                List<PaymentScheduleItem> schedule = new ArrayList<>();
+                ScheduleSummary summary = engine.build(request, schedule::add, Tags.empty());
+                bytes += serialize(calculationMapper.toScheduleDto(schedule)) + serialize(summary);
+                calculations++;
+            }
+        }
+        log.debug("Прогрев: сериализовано {} байт", bytes);
+        return calculations;
+    }
+
+    private int serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response).length;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Не удалось сериализовать ответ прогрева", ex);
+        }
+    }
+
+    /**
+     * Набор расчётов, покрывающий все ветки построения графика.
+     */
+    static List<LoanCalculationRequestDto> workload() {
+        LoanCalculationRequestDto annuity = request(PaymentType.ANNUITY, 240);
+        LoanCalculationRequestDto differential = request(PaymentType.DIFFERENTIAL, 120);
+        LoanCalculationRequestDto fixedSubsidy = subsidized(SubsidyMode.FIXED_PAYMENT);
+        LoanCalculationRequestDto floatingSubsidy = subsidized(SubsidyMode.FLOATING_PAYMENT);
+
+        LoanCalculationRequestDto earlyPayments = request(PaymentType.ANNUITY, 180);
+        earlyPayments.setRecalculationMode(RecalculationMode.REDUCE_PAYMENT);
+        earlyPayments.setEarlyPayments(List.of(
+                earlyPayment(13, EarlyPaymentApplicationMode.ON_PAYMENT_DATE),
+                earlyPayment(40, EarlyPaymentApplicationMode.BETWEEN_PAYMENTS)));
+        PeriodicEarlyPaymentDto periodic = new PeriodicEarlyPaymentDto();
+        periodic.setStartDate(DISBURSEMENT_DATE.plusMonths(6));
+        periodic.setIntervalMonths(3);
+        periodic.setAmount(new BigDecimal("30000"));
+        periodic.setApplicationMode(EarlyPaymentApplicationMode.ON_PAYMENT_DATE);
+        earlyPayments.setPeriodicEarlyPayments(List.of(periodic));
+
+        LoanCalculationRequestDto rateChanges = request(PaymentType.ANNUITY, 120);
+        rateChanges.setRateChanges(List.of(
+                rateChange(12, "18.5"),
+                rateChange(36, "14")));
+
+        return List.of(annuity, differential, fixedSubsidy, floatingSubsidy, earlyPayments, rateChanges);
+    }
+
+    private static LoanCalculationRequestDto request(PaymentType paymentType, int months) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(new BigDecimal("3500000"));
+        request.setInterestRate(new BigDecimal("16.5"));
+        request.setDurationMonths(months);
+        request.setPaymentType(paymentType);
+        request.setDisbursementDate(DISBURSEMENT_DATE);
+        return request;
+    }
+
+    private static LoanCalculationRequestDto subsidized(SubsidyMode mode) {
+        LoanCalculationRequestDto request = request(PaymentType.ANNUITY, 360);
+        request.setLoanType(LoanType.MORTGAGE);
+        request.setDeveloperSubsidy(true);
+        request.setSubsidizedRate(new BigDecimal("0.1"));
+        request.setSubsidyDurationMonths(60);
+        request.setSubsidyMode(mode);
+        return request;
+    }
+
+    private static EarlyPaymentDto earlyPayment(int month, EarlyPaymentApplicationMode mode) {
+        EarlyPaymentDto payment = new EarlyPaymentDto();
+        int shift = mode == EarlyPaymentApplicationMode.BETWEEN_PAYMENTS ? 7 : 0;
+        payment.setPaymentDate(DISBURSEMENT_DATE.plusMonths(month).plusDays(shift));
+        payment.setAmount(new BigDecimal("200000"));
+        payment.setApplicationMode(mode);
+        return payment;
+    }
+
+    private static RateChangeDto rateChange(int month, String rate) {
+        RateChangeDto change = new RateChangeDto();
+        change.setStartDate(DISBURSEMENT_DATE.plusMonths(month));
+        change.setNewRate(new BigDecimal(rate));
+        return change;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.Roman.NauJava.service.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки прогрева расчётов при старте.
+ *
+ * @param enabled    выполнять ли прогрев; по умолчанию выполняется
+ * @param iterations сколько раз прогнать набор синтетических расчётов
+ * @param timeBudget сколько прогрев может длиться, прежде чем приложение начнёт принимать трафик без него
+ */
+@ConfigurationProperties(prefix = "warmup")
+public record WarmUpProperties(Boolean enabled,
+                               int iterations,
+                               Duration timeBudget) {
+
+    public WarmUpProperties {
+        if (enabled == null) {
+            enabled = true;
+        }
+        if (iterations <= 0) {
+            iterations = 500;
+        }
+        if (timeBudget == null || timeBudget.isNegative()) {
+            timeBudget = Duration.ofSeconds(30);
+        }
+    }
+}
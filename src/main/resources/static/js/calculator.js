@@ -43,8 +43,194 @@ function reindexRows(container) {
     container.dataset.index = rows.length;
 }
 
+const PREVIEW_DEBOUNCE_MS = 300;
+const BOOLEAN_FIELDS = ['adjustWeekends', 'developerSubsidy', 'saveToHistory'];
+
+/**
+ * Собирает состояние формы в JSON той же структуры, что LoanCalculationRequestDto:
+ * имена вида rateChanges[0].startDate превращаются во вложенные массивы объектов.
+ */
+function formToRequest(form) {
+    const request = {};
+    new FormData(form).forEach((value, name) => {
+        if (name.startsWith('_') || value === '' || BOOLEAN_FIELDS.includes(name)) {
+            return;
+        }
+        const match = name.match(/^(\w+)\[(\d+)\]\.(\w+)$/);
+        if (match) {
+            const [, list, index, field] = match;
+            request[list] = request[list] || [];
+            request[list][index] = request[list][index] || {};
+            request[list][index][field] = value;
+        } else {
+            request[name] = value;
+        }
+    });
+    BOOLEAN_FIELDS.forEach((name) => {
+        const checkbox = form.querySelector(`input[type="checkbox"][name="${name}"]`);
+        if (checkbox) {
+            request[name] = checkbox.checked;
+        }
+    });
+    ['rateChanges', 'earlyPayments', 'periodicEarlyPayments'].forEach((list) => {
+        if (request[list]) {
+            request[list] = request[list].filter(Boolean);
+        }
+    });
+    return request;
+}
+
+function formatMoney(value, currency) {
+    if (value === null || value === undefined) {
+        return '—';
+    }
+    return `${currency} ${Number(value).toLocaleString('en-US', {minimumFractionDigits: 2, maximumFractionDigits: 2})}`;
+}
+
+function formatDate(isoDate) {
+    if (!isoDate) {
+        return '—';
+    }
+    const [year, month, day] = isoDate.split('-');
+    return `${day}.${month}.${year}`;
+}
+
+/**
+ * Живое превью: при вводе с задержкой запрашивает приближённые итоги,
+ * точный график строится только по кнопке «Рассчитать».
+ */
+function initLivePreview(form, preview) {
+    let timer = null;
+    let controller = null;
+
+    const refresh = () => {
+        if (controller) {
+            controller.abort();
+        }
+        controller = new AbortController();
+        preview.classList.add('stale');
+        fetch(preview.dataset.url, {
+            method: 'POST',
+            headers: {'Content-Type': 'application/json', 'Accept': 'application/json'},
+            body: JSON.stringify(formToRequest(form)),
+            signal: controller.signal
+        })
+            .then((response) => (response.ok ? response.json() : null))
+            .then((result) => {
+                if (!result) {
+                    return; // Форма ещё не заполнена корректно — оставляем прошлое значение
+                }
+                preview.querySelector('[data-preview="monthlyPayment"]').textContent = formatMoney(result.monthlyPayment, result.currency);
+                preview.querySelector('[data-preview="totalInterest"]').textContent = formatMoney(result.totalInterest, result.currency);
+                preview.querySelector('[data-preview="totalPayment"]').textContent = formatMoney(result.totalPayment, result.currency);
+                preview.querySelector('[data-preview="payoffDate"]').textContent = formatDate(result.payoffDate);
+                preview.classList.remove('hidden', 'stale');
+            })
+            .catch((error) => {
+                if (error.name !== 'AbortError') {
+                    preview.classList.remove('stale');
+                }
+            });
+    };
+
+    const schedule = () => {
+        clearTimeout(timer);
+        timer = setTimeout(refresh, PREVIEW_DEBOUNCE_MS);
+    };
+
+    form.addEventListener('input', schedule);
+    form.addEventListener('change', schedule);
+    // Строки, удалённые кнопкой «×», не порождают событий ввода
+    form.addEventListener('click', (event) => {
+        if (event.target.closest('button.danger, button.secondary')) {
+            schedule();
+        }
+    });
+    refresh();
+}
+
+function formatAmount(value) {
+    return value === null || value === undefined ? '' : Number(value).toFixed(2);
+}
+
+function scheduleRow(item, withSubsidy) {
+    const row = document.createElement('tr');
+    const cells = [
+        item.earlyPayment ? 'Досрочный' : item.monthNumber,
+        formatDate(item.paymentDate),
+        formatAmount(item.paymentAmount),
+        formatAmount(item.principalPart),
+        formatAmount(item.interestPart),
+        formatAmount(item.remainingDebt)
+    ];
+    if (withSubsidy) {
+        cells.push(formatAmount(item.subsidyAmount));
+    }
+    cells.forEach((text) => {
+        const cell = document.createElement('td');
+        cell.textContent = text;
+        row.appendChild(cell);
+    });
+    if (item.earlyPayment) {
+        row.classList.add('early-payment-row-highlight');
+        row.firstChild.classList.add('early-payment-label');
+    }
+    return row;
+}
+
+/**
+ * Догружает строки графика, не отрисованные сервером: порция за порцией,
+ * каждая добавляется в таблицу одним фрагментом.
+ */
+function loadScheduleRows(tbody, progress) {
+    const total = Number(tbody.dataset.total);
+    const pageSize = Number(tbody.dataset.pageSize);
+    const withSubsidy = tbody.dataset.subsidy === 'true';
+    let offset = Number(tbody.dataset.offset);
+
+    const next = () => {
+        if (offset >= total) {
+            progress.remove();
+            return;
+        }
+        fetch(`${tbody.dataset.nextUrl}?offset=${offset}&limit=${pageSize}`, {headers: {'Accept': 'application/json'}})
+            .then((response) => {
+                if (!response.ok) {
+                    throw new Error(`HTTP ${response.status}`);
+                }
+                return response.json();
+            })
+            .then((page) => {
+                const fragment = document.createDocumentFragment();
+                page.items.forEach((item) => fragment.appendChild(scheduleRow(item, withSubsidy)));
+                tbody.appendChild(fragment);
+                offset += page.items.length;
+                progress.textContent = `Показано ${offset} из ${total} строк, загрузка…`;
+                if (page.items.length === 0) {
+                    offset = total;
+                }
+                requestAnimationFrame(next);
+            })
+            .catch(() => {
+                progress.textContent = `Показано ${offset} из ${total} строк: не удалось загрузить остальные`;
+            });
+    };
+    next();
+}
+
 document.addEventListener('DOMContentLoaded', () => {
     document.querySelectorAll('.dynamic-list').forEach(reindexRows);
+
+    const scheduleRows = document.getElementById('scheduleRows');
+    const scheduleProgress = document.getElementById('scheduleProgress');
+    if (scheduleRows && scheduleProgress && scheduleRows.dataset.nextUrl) {
+        loadScheduleRows(scheduleRows, scheduleProgress);
+    }
+
+    const preview = document.getElementById('livePreview');
+    if (preview) {
+        initLivePreview(preview.closest('form'), preview);
+    }
     
     // Обработчик типа кредита для показа/скрытия раздела субсидии
     const loanTypeSelect = document.querySelector('select[name="loanType"]');
@@ -1,13 +1,27 @@
 package ru.Roman.NauJava;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
 
-@SpringBootTest
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "warmup.time-budget=1s")
 class NauJavaApplicationTests {
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void warmUpShouldNotRecordCalculationMetrics() {
+		assertThat(meterRegistry.find(CalculationMetrics.PHASE_TIMER).timers()).isEmpty();
+		assertThat(meterRegistry.find(CalculationMetrics.SCHEDULE_ROWS).summaries()).isEmpty();
+	}
+
 }
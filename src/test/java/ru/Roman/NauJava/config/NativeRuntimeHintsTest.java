@@ -0,0 +1,49 @@
+package ru.Roman.NauJava.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import ru.Roman.NauJava.domain.entity.LoanCalculation;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PaymentScheduleItemDto;
+import ru.Roman.NauJava.proto.v1.LoanCalculationRequest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeRuntimeHintsTest() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void dtoAndEntityPropertiesShouldBeReflective() throws NoSuchMethodException {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(LoanCalculationResponseDto.class.getMethod("getSchedule")).invoke()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(PaymentScheduleItemDto.class.getMethod("getRemainingDebt")).invoke()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(LoanCalculationRequestDto.class.getMethod("setPrincipal",
+                        BigDecimal.class)).invoke()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(LoanCalculation.class.getMethod("getTotalInterest")).invoke()).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(SubsidyMode.class)).accepts(hints);
+    }
+
+    @Test
+    void protobufAccessorsAndTemplatesShouldBeIncluded() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(LoanCalculationRequest.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(LoanCalculationRequest.Builder.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("templates/calculator.html")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("static/schema/smartloan.proto")).accepts(hints);
+    }
+}
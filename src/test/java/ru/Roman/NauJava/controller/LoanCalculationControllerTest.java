@@ -0,0 +1,50 @@
+package ru.Roman.NauJava.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "warmup.enabled=false")
+@AutoConfigureMockMvc
+class LoanCalculationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void longScheduleShouldRenderFirstRowsAndLinkTheRest() throws Exception {
+        mockMvc.perform(post("/calculator").with(csrf())
+                        .param("principal", "3000000")
+                        .param("interestRate", "9.5")
+                        .param("durationMonths", "240")
+                        .param("disbursementDate", "2025-01-15"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("scheduleHead", hasSize(60)))
+                .andExpect(model().attribute("scheduleTotal", 240))
+                .andExpect(model().attribute("scheduleNextUrl", startsWith("/api/v1/calculations/public/quotes/")))
+                .andExpect(content().string(containsString("data-total=\"240\"")));
+    }
+
+    @Test
+    void shortScheduleShouldBeRenderedWhole() throws Exception {
+        mockMvc.perform(post("/calculator").with(csrf())
+                        .param("principal", "100000")
+                        .param("interestRate", "12")
+                        .param("durationMonths", "12")
+                        .param("disbursementDate", "2025-01-15"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("scheduleHead", hasSize(12)))
+                .andExpect(model().attributeDoesNotExist("scheduleNextUrl"));
+    }
+}
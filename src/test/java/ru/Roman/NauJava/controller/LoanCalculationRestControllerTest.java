@@ -0,0 +1,497 @@
+package ru.Roman.NauJava.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.Roman.NauJava.domain.entity.LoanCalculation;
+import ru.Roman.NauJava.dto.UserRegistrationDto;
+import ru.Roman.NauJava.proto.v1.LoanCalculationRequest;
+import ru.Roman.NauJava.proto.v1.LoanCalculationResponse;
+import ru.Roman.NauJava.proto.v1.PaymentType;
+import ru.Roman.NauJava.repository.LoanCalculationRepository;
+import ru.Roman.NauJava.repository.UserRepository;
+import ru.Roman.NauJava.service.UserService;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "warmup.enabled=false")
+@AutoConfigureMockMvc
+@WithMockUser(username = "rest-client", roles = "USER")
+class LoanCalculationRestControllerTest {
+
+    private static final String REQUEST = """
+            {"principal": 100000, "interestRate": 12, "durationMonths": 12,
+             "disbursementDate": "2025-01-15", "paymentType": "ANNUITY"}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanCalculationRepository calculationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void registerUser() {
+        if (!userRepository.existsByUsername("rest-client")) {
+            UserRegistrationDto dto = new UserRegistrationDto();
+            dto.setUsername("rest-client");
+            dto.setEmail("rest-client@example.com");
+            dto.setPassword("secret123");
+            dto.setConfirmPassword("secret123");
+            userService.register(dto);
+        }
+    }
+
+    @Test
+    void savedCalculationShouldBeRevalidatedWithStrongETag() throws Exception {
+        String location = create();
+
+        MvcResult first = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        // Ответ дополнен ПСК, конвенцией дней и трассировкой: тело под ETag версии v1 их не содержит
+        assertThat(etag).startsWith("\"v2-c-");
+        assertThat(objectMapper.readTree(first.getResponse().getContentAsString()).get("effectiveRate").decimalValue())
+                .isBetween(new BigDecimal("11.9"), new BigDecimal("12.1"));
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag.replace("\"v2-", "\"v1-")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, private, immutable"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void strongETagShouldDifferPerRepresentation() throws Exception {
+        String location = create();
+        String jsonTag = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult protobuf = mockMvc.perform(get(location)
+                        .accept("application/x-protobuf")
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-protobuf"))
+                .andReturn();
+        String protobufTag = protobuf.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(protobufTag).isNotEqualTo(jsonTag).endsWith("-pb\"");
+        assertThat(LoanCalculationResponse.parseFrom(protobuf.getResponse().getContentAsByteArray())
+                .getScheduleCount()).isEqualTo(12);
+
+        mockMvc.perform(get(location).accept("application/json").header(HttpHeaders.IF_NONE_MATCH, protobufTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(location).accept("application/x-protobuf").header(HttpHeaders.IF_NONE_MATCH, protobufTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(location).accept("application/cbor;q=0.9, application/x-msgpack"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-msgpack"))
+                .andExpect(header().string(HttpHeaders.ETAG, containsString("-msgpack")));
+        mockMvc.perform(get("/api/v1/calculations").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andExpect(header().string(HttpHeaders.ETAG, containsString("-cbor")));
+    }
+
+    @Test
+    void historyETagShouldChangeAfterNewCalculation() throws Exception {
+        create();
+        String etag = mockMvc.perform(get("/api/v1/calculations"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"v2-h-");
+
+        mockMvc.perform(get("/api/v1/calculations").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        create();
+        mockMvc.perform(get("/api/v1/calculations").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void publicQuoteShouldBeServedByCanonicalCacheableUrl() throws Exception {
+        String location = mockMvc.perform(post("/api/v1/calculations/public/quotes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isSeeOther())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        String sameLocation = mockMvc.perform(post("/api/v1/calculations/public/quotes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST.replace("\"interestRate\": 12", "\"interestRate\": 12.00")))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        assertThat(location).startsWith("/api/v1/calculations/public/quotes/").isEqualTo(sameLocation);
+
+        MvcResult quote = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public, s-maxage=604800"))
+                .andExpect(jsonPath("$.totalPayment").value(106618.53))
+                .andReturn();
+        String etag = quote.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void publicQuoteShouldRejectBrokenKey() throws Exception {
+        mockMvc.perform(get("/api/v1/calculations/public/quotes/not-a-key"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void quoteScheduleShouldBeServedInPages() throws Exception {
+        String location = mockMvc.perform(post("/api/v1/calculations/public/quotes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mockMvc.perform(get(location + "/schedule").param("offset", "10").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public, s-maxage=604800"))
+                .andExpect(jsonPath("$.totalRows").value(12))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].monthNumber").value(11))
+                .andExpect(jsonPath("$.items[1].remainingDebt").value(0.0));
+        // Страница до конца графика не достроена: общее число строк не вычислялось
+        mockMvc.perform(get(location + "/schedule").param("offset", "0").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRows").isEmpty())
+                .andExpect(jsonPath("$.items.length()").value(5))
+                .andExpect(jsonPath("$.items[4].monthNumber").value(5));
+        mockMvc.perform(get(location + "/schedule").param("limit", "601"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void scheduleShouldBeColumnarWhenRequested() throws Exception {
+        String rows = mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.schedule[0].paymentAmount").value(8884.88))
+                .andReturn().getResponse().getContentAsString();
+
+        String columnar = mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/vnd.smartloan.columnar+json")
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/vnd.smartloan.columnar+json"))
+                .andExpect(jsonPath("$.totalPayment").value(106618.53))
+                .andExpect(jsonPath("$.schedule.rows").value(12))
+                .andExpect(jsonPath("$.schedule.columns[2]").value("paymentAmount"))
+                .andExpect(jsonPath("$.schedule.columns.length()").value(7))
+                .andExpect(jsonPath("$.schedule.data[2][0]").value(888488))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(columnar.length()).isLessThan(rows.length());
+
+        mockMvc.perform(post("/api/v1/calculations/public/calculate?layout=columnar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(content().contentTypeCompatibleWith("application/vnd.smartloan.columnar+json"))
+                .andExpect(jsonPath("$.schedule.data[0][11]").value(12));
+    }
+
+    @Test
+    void calculationTraceShouldBeReturnedOnlyOnRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trace").doesNotExist());
+
+        mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .header("X-Calculation-Trace", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trace.recorded").value(14))
+                .andExpect(jsonPath("$.trace.steps[0].step").value("RATE_RESOLVED"))
+                .andExpect(jsonPath("$.trace.steps[0].value").value(12))
+                .andExpect(jsonPath("$.trace.steps[1].step").value("ANNUITY_RECALCULATED"))
+                .andExpect(jsonPath("$.trace.steps[1].value").value(8884.88))
+                .andExpect(jsonPath("$.trace.steps[2].step").value("INTEREST_ACCRUED"))
+                .andExpect(jsonPath("$.trace.steps[2].value").value(1000.0))
+                .andExpect(jsonPath("$.trace.steps[13].remainingDebt").value(0.0));
+    }
+
+    @Test
+    void calculationShouldRoundTripThroughCborAndMessagePack() throws Exception {
+        JsonNode json = objectMapper.readTree(REQUEST);
+        for (ObjectMapper binary : List.of(new ObjectMapper(new CBORFactory()),
+                new ObjectMapper(new MessagePackFactory()))) {
+            String type = binary.getFactory() instanceof CBORFactory ? "application/cbor" : "application/x-msgpack";
+            byte[] body = mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                            .contentType(type)
+                            .accept(type)
+                            .content(binary.writeValueAsBytes(json)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(type))
+                    .andReturn().getResponse().getContentAsByteArray();
+            JsonNode response = binary.readTree(body);
+            assertThat(response.get("totalPayment").decimalValue()).isEqualByComparingTo("106618.53");
+            assertThat(response.get("schedule").size()).isEqualTo(12);
+            assertThat(response.get("schedule").get(0).get("paymentDate").asText()).isEqualTo("2025-02-17");
+        }
+    }
+
+    @Test
+    void calculationShouldRoundTripThroughProtobuf() throws Exception {
+        LoanCalculationRequest request = LoanCalculationRequest.newBuilder()
+                .setPrincipalMinor(10_000_000)
+                .setInterestRate("12")
+                .setDurationMonths(12)
+                .setDisbursementDateEpochDay((int) LocalDate.of(2025, 1, 15).toEpochDay())
+                .setPaymentType(PaymentType.PAYMENT_TYPE_ANNUITY)
+                .build();
+        byte[] body = mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .contentType("application/x-protobuf")
+                        .accept("application/x-protobuf")
+                        .content(request.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        LoanCalculationResponse response = LoanCalculationResponse.parseFrom(body);
+        assertThat(response.getTotalPaymentMinor()).isEqualTo(10_661_853);
+        assertThat(response.getScheduleCount()).isEqualTo(12);
+        assertThat(response.getSchedule(0).getPaymentAmountMinor()).isEqualTo(888_488);
+        assertThat(response.hasId()).isFalse();
+
+        mockMvc.perform(post("/api/v1/calculations/public/calculate")
+                        .contentType("application/x-protobuf")
+                        .content(new byte[]{(byte) 0xFF, 0x01}))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/schema/smartloan.proto"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("message LoanCalculationResponse")));
+    }
+
+    @Test
+    void goalSeekShouldSolveForPrincipal() throws Exception {
+        mockMvc.perform(post("/api/v1/calculations/public/goal-seek")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"target": "PRINCIPAL", "maxPayment": 8884.88,
+                                 "loan": {"interestRate": 12, "durationMonths": 12,
+                                          "disbursementDate": "2025-01-15", "paymentType": "ANNUITY"}}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.closedForm").value(true))
+                .andExpect(jsonPath("$.durationMonths").value(12))
+                .andExpect(jsonPath("$.principal").value(closeTo(100000.0, 1.0)));
+
+        mockMvc.perform(post("/api/v1/calculations/public/goal-seek")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"target": "EARLY_PAYMENT",
+                                 "loan": {"principal": 100000, "interestRate": 12, "durationMonths": 12,
+                                          "disbursementDate": "2025-01-15"}}
+                                """))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void historyTotalsShouldBeReportedInBaseCurrency() throws Exception {
+        String id = create().substring("/api/v1/calculations/".length());
+
+        mockMvc.perform(get("/api/v1/calculations/totals").param("baseCurrency", "RUB"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.baseCurrency").value("RUB"))
+                .andExpect(jsonPath("$.items[?(@.id == " + id + ")].totalPayment").value(106618.53))
+                .andExpect(jsonPath("$.items[?(@.id == " + id + ")].principal").value(100000.0));
+
+        // Курсы в тестовом окружении не заданы: рублёвые расчёты не пересчитываются, но сводка не падает
+        mockMvc.perform(get("/api/v1/calculations/totals").param("baseCurrency", "USD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.calculations").value(0))
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.unconvertedCurrencies[0]").value("RUB"))
+                .andExpect(jsonPath("$.unconvertedCalculations").value(greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    void historySensitivityShouldLoadPageWithoutQueryPerCalculation() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            create();
+        }
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/api/v1/calculations/sensitivity").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.calculations.length()").value(3));
+
+        // Пользователь, страница расчётов и по одному пакетному запросу на досрочные платежи и изменения ставки
+        assertThat(statistics.getPrepareStatementCount() - statements).isLessThanOrEqualTo(4);
+        mockMvc.perform(get("/api/v1/calculations/sensitivity").param("size", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void savedCalculationShouldBeReadFromSecondLevelCacheUntilDeleted() throws Exception {
+        String location = create();
+        Long id = Long.valueOf(location.substring("/api/v1/calculations/".length()));
+        String region = "loan-calculations";
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long calculationHits = statistics.getDomainDataRegionStatistics(region).getHitCount();
+        long scheduleHits = statistics.getDomainDataRegionStatistics("loan-calculation-schedule").getHitCount();
+
+        mockMvc.perform(get(location)).andExpect(status().isOk());
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.schedule.length()").value(12));
+
+        assertThat(statistics.getDomainDataRegionStatistics(region).getHitCount()).isGreaterThan(calculationHits);
+        assertThat(statistics.getDomainDataRegionStatistics("loan-calculation-schedule").getHitCount())
+                .isGreaterThan(scheduleHits);
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", region, "result", "hit")
+                .functionCounter().count()).isPositive();
+
+        mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+
+        assertThat(entityManagerFactory.getCache().contains(LoanCalculation.class, id)).isFalse();
+        mockMvc.perform(get(location)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deleteShouldEvictCalculationAndItsCollectionsFromSecondLevelCache() throws Exception {
+        String body = mockMvc.perform(post("/api/v1/calculations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"principal": 100000, "interestRate": 12, "durationMonths": 12,
+                                 "disbursementDate": "2025-01-15", "paymentType": "ANNUITY",
+                                 "earlyPayments": [{"paymentDate": "2025-06-15", "amount": 10000,
+                                                    "applicationMode": "ON_PAYMENT_DATE"}],
+                                 "rateChanges": [{"startDate": "2025-09-15", "newRate": 14}]}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readTree(body).get("id").asLong();
+        String location = "/api/v1/calculations/" + id;
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        List<String> collections = List.of(
+                LoanCalculation.class.getName() + ".scheduleItems",
+                LoanCalculation.class.getName() + ".earlyPayments",
+                LoanCalculation.class.getName() + ".rateChanges");
+        cache.evictAll();
+        // Ответ читает график, чувствительность — досрочные платежи и изменения ставки
+        mockMvc.perform(get(location)).andExpect(status().isOk());
+        mockMvc.perform(get(location + "/sensitivity")).andExpect(status().isOk());
+        assertThat(cache.containsEntity(LoanCalculation.class, id)).isTrue();
+        assertThat(collections).allMatch(role -> cache.containsCollection(role, id));
+
+        mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+
+        assertThat(cache.containsEntity(LoanCalculation.class, id)).isFalse();
+        assertThat(collections).noneMatch(role -> cache.containsCollection(role, id));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long misses = statistics.getDomainDataRegionStatistics("loan-calculations").getMissCount();
+        assertThat(calculationRepository.findById(id)).isEmpty();
+        assertThat(statistics.getDomainDataRegionStatistics("loan-calculations").getMissCount()).isGreaterThan(misses);
+    }
+
+    @Test
+    void missingCalculationShouldNotBeOfferedAsDownload() throws Exception {
+        String location = create();
+        mockMvc.perform(get(location + "/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("schedule-")));
+
+        mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get(location + "/export"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void scheduleExportShouldMatchStoredSchedule() throws Exception {
+        // Ручной платёж льготного периода не входит в сохранённые параметры: пересчёт дал бы другой график
+        String body = mockMvc.perform(post("/api/v1/calculations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"principal": 3000000, "interestRate": 16, "durationMonths": 240,
+                                 "disbursementDate": "2025-01-15", "paymentType": "ANNUITY", "loanType": "MORTGAGE",
+                                 "developerSubsidy": true, "subsidizedRate": 0.1, "subsidyDurationMonths": 12,
+                                 "subsidizedPaymentAmount": 25000}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String location = "/api/v1/calculations/" + body.replaceFirst("^\\{\"id\":(\\d+).*$", "$1");
+        int rows = objectMapper.readTree(body).get("schedule").size();
+
+        String csv = mockMvc.perform(get(location + "/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = csv.strip().split("\\R");
+        assertThat(lines).hasSize(rows + 1);
+        assertThat(lines[1]).contains(";25000,00;");
+    }
+
+    private String create() throws Exception {
+        String body = mockMvc.perform(post("/api/v1/calculations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String id = body.replaceFirst("^\\{\"id\":(\\d+).*$", "$1");
+        return "/api/v1/calculations/" + id;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.Roman.NauJava.service;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.GoalSeekTarget;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.dto.GoalSeekRequestDto;
+import ru.Roman.NauJava.dto.GoalSeekResultDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoalSeekServiceTest {
+
+    private final GoalSeekService service =
+            new GoalSeekService(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Test
+    void shouldInvertAnnuityFormulaForPrincipal() {
+        LoanCalculationRequestDto loan = loan();
+        loan.setPrincipal(null);
+
+        GoalSeekResultDto result = service.solve(request(GoalSeekTarget.PRINCIPAL, loan, "8884.88", null));
+
+        assertThat(result.isClosedForm()).isTrue();
+        assertThat(result.getPrincipal()).isBetween(new BigDecimal("99999.00"), new BigDecimal("100001.00"));
+        assertThat(result.getMaxPayment()).isLessThanOrEqualTo(new BigDecimal("8884.88"));
+        assertThat(result.getEvaluations()).isLessThan(5);
+        assertThat(loan.getPrincipal()).as("запрос клиента не изменяется").isNull();
+    }
+
+    @Test
+    void shouldSearchPrincipalWhenRateChanges() {
+        LoanCalculationRequestDto loan = loan();
+        loan.setDurationMonths(120);
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2027, 1, 15));
+        rateChange.setNewRate(new BigDecimal("18"));
+        loan.setRateChanges(List.of(rateChange));
+
+        GoalSeekResultDto result = service.solve(request(GoalSeekTarget.PRINCIPAL, loan, "50000", null));
+
+        assertThat(result.isClosedForm()).isFalse();
+        assertThat(result.getMaxPayment()).isLessThanOrEqualTo(new BigDecimal("50000.00"));
+        FastLoanModel model = FastLoanModel.from(loan).withPrincipal(result.getPrincipal().doubleValue() + 0.01);
+        assertThat(ApproximateLoanEngine.run(model).maxPayment()).isGreaterThan(50000.0);
+    }
+
+    @Test
+    void shouldFindShortestTermForPayment() {
+        LoanCalculationRequestDto loan = loan();
+        loan.setDurationMonths(null);
+
+        GoalSeekResultDto annuity = service.solve(request(GoalSeekTarget.DURATION, loan, "8884.88", null));
+        loan.setPaymentType(PaymentType.DIFFERENTIAL);
+        GoalSeekResultDto differential = service.solve(request(GoalSeekTarget.DURATION, loan, "9000", null));
+
+        assertThat(annuity.isClosedForm()).isTrue();
+        assertThat(annuity.getDurationMonths()).isEqualTo(12);
+        // 100 000 / n + 1 000 ≤ 9 000 → n ≥ 12.5
+        assertThat(differential.getDurationMonths()).isEqualTo(13);
+    }
+
+    @Test
+    void shouldFindMonthlyEarlyPaymentForPayoffDate() {
+        LoanCalculationRequestDto loan = loan();
+        loan.setDurationMonths(60);
+        LocalDate target = LocalDate.of(2027, 1, 31);
+
+        GoalSeekResultDto result = service.solve(request(GoalSeekTarget.EARLY_PAYMENT, loan, null, target));
+
+        assertThat(result.getPayoffDate()).isBeforeOrEqualTo(target);
+        FastLoanModel cheaper = FastLoanModel.from(loan)
+                .withMonthlyEarlyPayment(result.getMonthlyEarlyPayment().doubleValue() - 0.01);
+        assertThat(LocalDate.ofEpochDay(ApproximateLoanEngine.run(cheaper).payoffDay())).isAfter(target);
+    }
+
+    @Test
+    void shouldRejectMissingGoal() {
+        assertThatThrownBy(() -> service.solve(request(GoalSeekTarget.DURATION, loan(), null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.solve(request(GoalSeekTarget.DURATION, loan(), "500", null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("проценты");
+    }
+
+    private LoanCalculationRequestDto loan() {
+        LoanCalculationRequestDto loan = new LoanCalculationRequestDto();
+        loan.setPrincipal(new BigDecimal("100000"));
+        loan.setInterestRate(new BigDecimal("12"));
+        loan.setDurationMonths(12);
+        loan.setPaymentType(PaymentType.ANNUITY);
+        loan.setDisbursementDate(LocalDate.of(2025, 1, 15));
+        return loan;
+    }
+
+    private GoalSeekRequestDto request(GoalSeekTarget target, LoanCalculationRequestDto loan, String maxPayment,
+                                       LocalDate payoffDate) {
+        GoalSeekRequestDto request = new GoalSeekRequestDto();
+        request.setTarget(target);
+        request.setLoan(loan);
+        request.setMaxPayment(maxPayment != null ? new BigDecimal(maxPayment) : null);
+        request.setPayoffDate(payoffDate);
+        return request;
+    }
+}
@@ -0,0 +1,166 @@
+package ru.Roman.NauJava.service.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void saturatedPublicPoolShouldAnswer429WithoutBlockingAuthenticatedPool() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionProperties.Pool single = new AdmissionProperties.Pool(1, 1, 1, -1, Duration.ZERO);
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                new AdmissionProperties(true, Duration.ofSeconds(2), single, single, single), registry);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread busy = new Thread(() -> {
+            try {
+                filter.doFilter(request("POST", "/api/v1/calculations/public/calculate"),
+                        new MockHttpServletResponse(), (req, res) -> {
+                            entered.countDown();
+                            await(finish);
+                        });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        busy.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/calculator"), rejected, new MockFilterChain());
+        MockHttpServletResponse history = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/calculations"), history, new MockFilterChain());
+        MockHttpServletResponse page = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/calculator"), page, new MockFilterChain());
+        finish.countDown();
+        busy.join();
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(history.getStatus()).isEqualTo(200);
+        assertThat(page.getStatus()).isEqualTo(200);
+        assertThat(registry.get(AdmissionControlFilter.REJECTED_COUNTER).tag("pool", "anonymous").counter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get(AdmissionControlFilter.IN_FLIGHT_GAUGE).tag("pool", "anonymous").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void exportShouldUseBulkPoolAndNotMoveAuthenticatedLimit() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionProperties.Pool single = new AdmissionProperties.Pool(1, 1, 1, -1, Duration.ZERO);
+        AdmissionProperties.Pool adaptive = new AdmissionProperties.Pool(1, 1, 100, -1, Duration.ZERO);
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                new AdmissionProperties(true, Duration.ofSeconds(1), single, adaptive, adaptive), registry);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread export = new Thread(() -> {
+            try {
+                filter.doFilter(request("GET", "/api/v1/calculations/export"),
+                        new MockHttpServletResponse(), (req, res) -> {
+                            entered.countDown();
+                            await(finish);
+                        });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        export.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse history = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/calculations/7"), history, new MockFilterChain());
+        MockHttpServletResponse secondExport = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/calculations/7/export"), secondExport, new MockFilterChain());
+        MockHttpServletResponse totals = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/calculations/totals"), totals, new MockFilterChain());
+        finish.countDown();
+        export.join();
+
+        assertThat(history.getStatus()).isEqualTo(200);
+        assertThat(secondExport.getStatus()).isEqualTo(429);
+        assertThat(totals.getStatus()).isEqualTo(429);
+        assertThat(registry.get(AdmissionControlFilter.REJECTED_COUNTER).tag("pool", "bulk").counter().count())
+                .isEqualTo(2.0);
+        assertThat(registry.get(AdmissionControlFilter.IN_FLIGHT_GAUGE).tag("pool", "authenticated").gauge().value())
+                .isZero();
+        // Замеры при полной загрузке поднимают предел; выгрузки не замеряются, и предел их пула не сдвигается
+        for (int i = 0; i < 10; i++) {
+            filter.doFilter(request("GET", "/api/v1/calculations/export"), new MockHttpServletResponse(),
+                    new MockFilterChain());
+            filter.doFilter(request("GET", "/api/v1/calculations/7"), new MockHttpServletResponse(),
+                    new MockFilterChain());
+        }
+        assertThat(registry.get(AdmissionControlFilter.LIMIT_GAUGE).tag("pool", "bulk").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(registry.get(AdmissionControlFilter.LIMIT_GAUGE).tag("pool", "authenticated").gauge().value())
+                .isGreaterThan(1.0);
+    }
+
+    @Test
+    void limitShouldShrinkWhenLatencyGrowsAndRecoverWhenItFalls() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new AdmissionProperties.Pool(20, 2, 100, -1, Duration.ZERO));
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(10 * MILLISECOND, 20);
+        }
+        int steady = limiter.limit();
+        assertThat(steady).isGreaterThan(20);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.release(100 * MILLISECOND, steady);
+        }
+        int overloaded = limiter.limit();
+        assertThat(overloaded).isLessThan(steady / 2);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(10 * MILLISECOND, overloaded);
+        }
+        assertThat(limiter.limit()).isGreaterThan(overloaded);
+    }
+
+    @Test
+    void queuedRequestShouldBeAdmittedWhenPlaceIsReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new AdmissionProperties.Pool(1, 1, 1, 1, Duration.ofSeconds(5)));
+        assertThat(limiter.acquire()).isEqualTo(1);
+        Thread releaser = new Thread(() -> {
+            while (limiter.waiting() == 0) {
+                Thread.onSpinWait();
+            }
+            limiter.release(-1, 1);
+        });
+        releaser.start();
+
+        assertThat(limiter.acquire()).isEqualTo(1);
+        releaser.join();
+        assertThat(limiter.waiting()).isZero();
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
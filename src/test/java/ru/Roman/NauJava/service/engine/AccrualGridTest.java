@@ -0,0 +1,64 @@
+package ru.Roman.NauJava.service.engine;
+
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AccrualGridTest {
+
+    private static final LocalDate DISBURSEMENT = LocalDate.of(2025, 1, 15);
+
+    @Test
+    void shouldKeepPreviousConventionsByDefault() {
+        assertThat(AccrualGrid.resolve(null, false)).isEqualTo(DayCountConvention.MONTHLY);
+        assertThat(AccrualGrid.resolve(null, true)).isEqualTo(DayCountConvention.ACT_365F);
+        assertThat(AccrualGrid.resolve(DayCountConvention.ACT_360, true)).isEqualTo(DayCountConvention.ACT_360);
+    }
+
+    @Test
+    void shouldComputeYearFractionsPerConvention() {
+        double[] monthly = AccrualGrid.compute(DISBURSEMENT, false, DayCountConvention.MONTHLY).factors();
+        double[] act365 = AccrualGrid.compute(DISBURSEMENT, false, DayCountConvention.ACT_365F).factors();
+        double[] act360 = AccrualGrid.compute(DISBURSEMENT, false, DayCountConvention.ACT_360).factors();
+        double[] thirty360 = AccrualGrid.compute(DISBURSEMENT, false, DayCountConvention.THIRTY_360).factors();
+
+        assertThat(monthly[0]).isEqualTo(1.0 / 12);
+        assertThat(act365[0]).isEqualTo(31.0 / 365);
+        assertThat(act365[1]).isEqualTo(28.0 / 365);
+        assertThat(act360[1]).isEqualTo(28.0 / 360);
+        assertThat(thirty360[0]).isEqualTo(30.0 / 360);
+        assertThat(thirty360[1]).isEqualTo(30.0 / 360);
+    }
+
+    @Test
+    void shouldSplitActualActualPeriodAcrossLeapYearBoundary() {
+        AccrualGrid grid = AccrualGrid.compute(LocalDate.of(2023, 12, 15), false, DayCountConvention.ACT_ACT);
+
+        assertThat(grid.factors()[0]).isCloseTo(17.0 / 365 + 14.0 / 366, within(1e-15));
+    }
+
+    @Test
+    void shouldAccrueExactlyAsDivisionByDaysInYear() {
+        AccrualGrid grid = AccrualGrid.compute(DISBURSEMENT, false, DayCountConvention.ACT_365F);
+        BigDecimal annual = new BigDecimal("1000000");
+
+        assertThat(grid.accrue(annual, 0, MathContext.DECIMAL128))
+                .isEqualByComparingTo(annual.multiply(BigDecimal.valueOf(31)).divide(BigDecimal.valueOf(365),
+                        MathContext.DECIMAL128));
+    }
+
+    @Test
+    void shouldReuseCachedGridForSameDisbursementDate() {
+        AccrualGrid first = AccrualGrid.of(DISBURSEMENT, true, DayCountConvention.ACT_365F);
+
+        assertThat(AccrualGrid.of(LocalDate.of(2025, 1, 15), true, DayCountConvention.ACT_365F)).isSameAs(first);
+        assertThat(AccrualGrid.of(DISBURSEMENT, false, DayCountConvention.ACT_365F)).isNotSameAs(first);
+        assertThat(first.paymentDays()[0]).isEqualTo((int) LocalDate.of(2025, 2, 17).toEpochDay());
+    }
+}
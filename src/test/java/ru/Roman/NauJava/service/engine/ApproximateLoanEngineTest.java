@@ -0,0 +1,100 @@
+package ru.Roman.NauJava.service.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.DayCountConvention;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ApproximateLoanEngineTest {
+
+    private final CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+    private final LoanCalculationService exactService = new LoanCalculationService(null, null,
+            new LoanCalculationMapper(), metrics, new ScheduleEngine(metrics),
+            new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()));
+
+    @Test
+    void shouldMatchExactCalculationWithinRoundingNoise() {
+        LoanCalculationRequestDto request = request(PaymentType.ANNUITY);
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2026, 3, 1));
+        rateChange.setNewRate(new BigDecimal("9.5"));
+        request.setRateChanges(List.of(rateChange));
+        EarlyPaymentDto earlyPayment = new EarlyPaymentDto();
+        earlyPayment.setPaymentDate(LocalDate.of(2025, 6, 20));
+        earlyPayment.setAmount(new BigDecimal("150000"));
+        earlyPayment.setApplicationMode(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        request.setEarlyPayments(List.of(earlyPayment));
+
+        LoanCalculationResponseDto exact = exactService.calculate(request, null);
+        LoanSummary approximate = ApproximateLoanEngine.run(FastLoanModel.from(request));
+
+        assertThat(approximate.totalInterest()).isCloseTo(exact.getTotalInterest().doubleValue(), within(5.0));
+        assertThat(approximate.totalPayment()).isCloseTo(exact.getTotalPayment().doubleValue(), within(5.0));
+        assertThat(LocalDate.ofEpochDay(approximate.payoffDay()))
+                .isEqualTo(exact.getSchedule().get(exact.getSchedule().size() - 1).getPaymentDate());
+        assertThat(approximate.effectiveRate()).isNaN();
+        assertThat(ApproximateLoanEngine.runWithEffectiveRate(FastLoanModel.from(request)).effectiveRate())
+                .isCloseTo(exact.getEffectiveRate().doubleValue(), within(0.01));
+    }
+
+    @Test
+    void shouldMatchExactSubsidizedCalculation() {
+        LoanCalculationRequestDto request = request(PaymentType.ANNUITY);
+        request.setLoanType(LoanType.MORTGAGE);
+        request.setDeveloperSubsidy(true);
+        request.setSubsidizedRate(new BigDecimal("0.1"));
+        request.setSubsidyDurationMonths(24);
+
+        LoanCalculationResponseDto exact = exactService.calculate(request, null);
+        LoanSummary approximate = ApproximateLoanEngine.run(FastLoanModel.from(request));
+
+        assertThat(approximate.firstPayment()).isEqualTo(exact.getSubsidizedPayment().doubleValue());
+        assertThat(approximate.fullPayment()).isEqualTo(exact.getFullPayment().doubleValue());
+        assertThat(approximate.totalSubsidy()).isCloseTo(exact.getTotalSubsidy().doubleValue(), within(5.0));
+        assertThat(approximate.totalInterest()).isCloseTo(exact.getTotalInterest().doubleValue(), within(5.0));
+        assertThat(ApproximateLoanEngine.runWithEffectiveRate(FastLoanModel.from(request)).effectiveRate())
+                .isCloseTo(exact.getEffectiveRate().doubleValue(), within(0.01));
+    }
+
+    @Test
+    void shouldApplyRequestedDayCountConventionInBothEngines() {
+        LoanCalculationRequestDto request = request(PaymentType.ANNUITY);
+        LoanCalculationResponseDto monthly = exactService.calculate(request, null);
+        request.setDayCount(DayCountConvention.ACT_360);
+
+        LoanCalculationResponseDto exact = exactService.calculate(request, null);
+        LoanSummary approximate = ApproximateLoanEngine.run(FastLoanModel.from(request));
+
+        assertThat(exact.getDayCount()).isEqualTo(DayCountConvention.ACT_360);
+        assertThat(exact.getTotalInterest()).isGreaterThan(monthly.getTotalInterest());
+        assertThat(approximate.totalInterest()).isCloseTo(exact.getTotalInterest().doubleValue(), within(5.0));
+    }
+
+    private LoanCalculationRequestDto request(PaymentType paymentType) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(new BigDecimal("3500000"));
+        request.setInterestRate(new BigDecimal("14.2"));
+        request.setDurationMonths(120);
+        request.setPaymentType(paymentType);
+        request.setDisbursementDate(LocalDate.of(2025, 1, 31));
+        return request;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.Roman.NauJava.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalculationTraceTest {
+
+    @Test
+    void ringBufferShouldKeepNewestStepsInOrder() {
+        CalculationTrace trace = CalculationTrace.withCapacity(3);
+        LocalDate date = LocalDate.of(2025, 2, 15);
+        for (int month = 1; month <= 5; month++) {
+            trace.record(CalculationTrace.Step.INTEREST_ACCRUED, month, date, BigDecimal.valueOf(month), BigDecimal.ONE);
+        }
+
+        assertThat(trace.recorded()).isEqualTo(5);
+        assertThat(trace.entries()).extracting(CalculationTrace.Entry::month).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void disabledTraceShouldRecordNothing() {
+        CalculationTrace.OFF.record(CalculationTrace.Step.RATE_RESOLVED, 1, null, BigDecimal.TEN, BigDecimal.ONE);
+
+        assertThat(CalculationTrace.OFF.enabled()).isFalse();
+        assertThat(CalculationTrace.OFF.recorded()).isZero();
+        assertThat(CalculationTrace.OFF.entries()).isEmpty();
+    }
+}
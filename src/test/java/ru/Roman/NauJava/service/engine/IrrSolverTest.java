@@ -0,0 +1,53 @@
+package ru.Roman.NauJava.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IrrSolverTest {
+
+    @Test
+    void shouldSolveFlowWithFractionalPeriod() {
+        // -100 + 110 / ((1 + 0.5·i)(1 + i)) = 0  →  0.5·i² + 1.5·i − 0.1 = 0
+        double rate = IrrSolver.periodRate(new double[]{-100, 110}, new int[]{0, 1}, new double[]{0, 0.5}, 2);
+
+        assertThat(rate).isCloseTo(-1.5 + Math.sqrt(2.45), within(1e-12));
+    }
+
+    @Test
+    void shouldReturnNominalRateForAnnuityOnWholeMonths() {
+        double principal = 100_000;
+        double monthlyRate = 0.01;
+        double payment = principal * monthlyRate / (1 - Math.pow(1 + monthlyRate, -12));
+        LocalDate disbursement = LocalDate.of(2025, 1, 31);
+        CashFlows flows = new CashFlows(disbursement, principal, 12);
+        for (int month = 1; month <= 12; month++) {
+            flows.add(disbursement.plusMonths(month), payment);
+        }
+
+        assertThat(flows.size()).isEqualTo(13);
+        assertThat(flows.effectiveRate()).isEqualTo(12.0);
+    }
+
+    @Test
+    void shouldCountShiftedPaymentAsPartOfNextBasePeriod() {
+        LocalDate disbursement = LocalDate.of(2025, 1, 15);
+        CashFlows onTime = new CashFlows(disbursement, 1000, 1);
+        onTime.add(LocalDate.of(2025, 2, 15), 1010);
+        CashFlows shifted = new CashFlows(disbursement, 1000, 1);
+        shifted.add(LocalDate.of(2025, 2, 17), 1010);
+
+        assertThat(onTime.effectiveRate()).isEqualTo(12.0);
+        assertThat(shifted.effectiveRate()).isLessThan(onTime.effectiveRate());
+    }
+
+    @Test
+    void shouldReportMissingSolution() {
+        CashFlows flows = new CashFlows(LocalDate.of(2025, 1, 15), 1000, 0);
+
+        assertThat(flows.effectiveRate()).isNaN();
+    }
+}
@@ -0,0 +1,212 @@
+package ru.Roman.NauJava.service.engine;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.entity.PaymentScheduleItem;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.domain.enums.RecalculationMode;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.dto.RecalculationComparisonDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScheduleEngineTest {
+
+    private final CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+    private final ScheduleEngine engine = new ScheduleEngine(metrics);
+    private final LoanCalculationService exactService = new LoanCalculationService(null, null,
+            new LoanCalculationMapper(), metrics, engine, new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()));
+
+    @Test
+    void comparisonShouldMatchSeparateCalculationsPerMode() {
+        LoanCalculationRequestDto request = subsidizedRequest();
+        EarlyPaymentDto earlyPayment = new EarlyPaymentDto();
+        earlyPayment.setPaymentDate(LocalDate.of(2025, 9, 10));
+        earlyPayment.setAmount(new BigDecimal("400000"));
+        earlyPayment.setApplicationMode(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        request.setEarlyPayments(List.of(earlyPayment));
+
+        List<SubsidyLaneSummary> lanes = engine.compareSubsidyModes(request, Tags.empty());
+
+        assertThat(lanes).extracting(SubsidyLaneSummary::mode)
+                .containsExactly(SubsidyMode.FIXED_PAYMENT, SubsidyMode.FLOATING_PAYMENT, null);
+        for (SubsidyLaneSummary lane : lanes.subList(0, 2)) {
+            request.setSubsidyMode(lane.mode());
+            LoanCalculationResponseDto exact = exactService.calculate(request, null);
+
+            assertThat(lane.totalPayment()).isEqualByComparingTo(exact.getTotalPayment());
+            assertThat(lane.totalInterest()).isEqualByComparingTo(exact.getTotalInterest());
+            assertThat(lane.totalSubsidy()).isEqualByComparingTo(exact.getTotalSubsidy());
+            assertThat(lane.rateSubsidy().add(lane.paymentSubsidy())).isEqualByComparingTo(lane.totalSubsidy());
+            assertThat(lane.subsidizedPayment()).isEqualByComparingTo(exact.getSubsidizedPayment());
+            assertThat(lane.balanceAfterSubsidy()).isEqualByComparingTo(exact.getBalanceAfterSubsidy());
+            assertThat(lane.payoffDate())
+                    .isEqualTo(exact.getSchedule().get(exact.getSchedule().size() - 1).getPaymentDate());
+        }
+    }
+
+    @Test
+    void unsubsidizedLaneShouldMatchCalculationWithoutSubsidy() {
+        LoanCalculationRequestDto request = subsidizedRequest();
+        EarlyPaymentDto earlyPayment = new EarlyPaymentDto();
+        earlyPayment.setPaymentDate(LocalDate.of(2026, 3, 31));
+        earlyPayment.setAmount(new BigDecimal("500000"));
+        earlyPayment.setApplicationMode(EarlyPaymentApplicationMode.ON_PAYMENT_DATE);
+        request.setEarlyPayments(List.of(earlyPayment));
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2027, 1, 1));
+        rateChange.setNewRate(new BigDecimal("16"));
+        request.setRateChanges(List.of(rateChange));
+
+        List<SubsidyLaneSummary> lanes = engine.compareSubsidyModes(request, Tags.empty());
+        SubsidyLaneSummary unsubsidized = lanes.get(2);
+        request.setDeveloperSubsidy(false);
+        LoanCalculationResponseDto exact = exactService.calculate(request, null);
+
+        assertThat(unsubsidized.totalPayment()).isEqualByComparingTo(exact.getTotalPayment());
+        assertThat(unsubsidized.totalInterest()).isEqualByComparingTo(exact.getTotalInterest());
+        assertThat(unsubsidized.totalSubsidy()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(unsubsidized.subsidizedPayment()).isNull();
+        assertThat(unsubsidized.fullPayment()).isEqualByComparingTo(exact.getSchedule().get(0).getPaymentAmount());
+        assertThat(unsubsidized.payments())
+                .isEqualTo((int) exact.getSchedule().stream().filter(item -> !item.isEarlyPayment()).count());
+        assertThat(unsubsidized.payoffDate())
+                .isEqualTo(exact.getSchedule().get(exact.getSchedule().size() - 1).getPaymentDate());
+        // Субсидию платит застройщик, а не заёмщик: без неё заёмщик платит больше процентов
+        assertThat(unsubsidized.totalInterest()).isGreaterThan(lanes.get(0).totalInterest());
+    }
+
+    @Test
+    void comparisonShouldRejectLoanWithoutSubsidy() {
+        LoanCalculationRequestDto request = subsidizedRequest();
+        request.setDeveloperSubsidy(false);
+
+        assertThatThrownBy(() -> engine.compareSubsidyModes(request, Tags.empty()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recalculationComparisonShouldMatchSeparateCalculationsPerMode() {
+        LoanCalculationRequestDto request = subsidizedRequest();
+        request.setDeveloperSubsidy(false);
+        request.setDurationMonths(120);
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2026, 6, 1));
+        rateChange.setNewRate(new BigDecimal("15"));
+        request.setRateChanges(List.of(rateChange));
+        EarlyPaymentDto between = new EarlyPaymentDto();
+        between.setPaymentDate(LocalDate.of(2025, 9, 10));
+        between.setAmount(new BigDecimal("800000"));
+        between.setApplicationMode(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        EarlyPaymentDto onPaymentDate = new EarlyPaymentDto();
+        onPaymentDate.setPaymentDate(LocalDate.of(2027, 3, 31));
+        onPaymentDate.setAmount(new BigDecimal("500000"));
+        onPaymentDate.setApplicationMode(EarlyPaymentApplicationMode.ON_PAYMENT_DATE);
+        request.setEarlyPayments(List.of(between, onPaymentDate));
+
+        RecalculationComparisonDto comparison = exactService.compareRecalculationModes(request, true);
+
+        assertThat(comparison.getVariants()).extracting(LoanCalculationResponseDto::getRecalculationMode)
+                .containsExactly(RecalculationMode.REDUCE_TERM, RecalculationMode.REDUCE_PAYMENT);
+        for (LoanCalculationResponseDto variant : comparison.getVariants()) {
+            request.setRecalculationMode(variant.getRecalculationMode());
+            LoanCalculationResponseDto exact = exactService.calculate(request, null);
+
+            assertThat(variant.getTotalPayment()).isEqualByComparingTo(exact.getTotalPayment());
+            assertThat(variant.getTotalInterest()).isEqualByComparingTo(exact.getTotalInterest());
+            assertThat(variant.getEffectiveRate()).isEqualByComparingTo(exact.getEffectiveRate());
+            assertThat(variant.getSchedule()).usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(exact.getSchedule());
+        }
+        LoanCalculationResponseDto reduceTerm = comparison.getVariants().get(0);
+        LoanCalculationResponseDto reducePayment = comparison.getVariants().get(1);
+        assertThat(reduceTerm.getSchedule()).hasSizeLessThan(reducePayment.getSchedule().size());
+        assertThat(reduceTerm.getTotalInterest()).isLessThan(reducePayment.getTotalInterest());
+        assertThat(exactService.compareRecalculationModes(request, false).getVariants())
+                .allSatisfy(variant -> assertThat(variant.getSchedule()).isEmpty());
+    }
+
+    @Test
+    void periodicEarlyPaymentsShouldExpandOnlyUntilPayoff() {
+        LoanCalculationRequestDto request = subsidizedRequest();
+        request.setDeveloperSubsidy(false);
+        request.setPrincipal(new BigDecimal("1000000"));
+        PeriodicEarlyPaymentDto monthly = new PeriodicEarlyPaymentDto();
+        monthly.setStartDate(LocalDate.of(2025, 3, 31));
+        monthly.setIntervalMonths(1);
+        monthly.setAmount(new BigDecimal("50000"));
+        monthly.setApplicationMode(EarlyPaymentApplicationMode.ON_PAYMENT_DATE);
+        PeriodicEarlyPaymentDto quarterly = new PeriodicEarlyPaymentDto();
+        quarterly.setStartDate(LocalDate.of(2024, 12, 15));
+        quarterly.setIntervalMonths(3);
+        quarterly.setAmount(new BigDecimal("30000"));
+        quarterly.setApplicationMode(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        request.setPeriodicEarlyPayments(List.of(monthly, quarterly));
+        List<PaymentScheduleItem> schedule = new ArrayList<>();
+
+        ScheduleSummary summary = engine.build(request, schedule::add, Tags.empty());
+
+        // Без остановки на погашении было бы по 720 повторов на каждый периодический платёж
+        assertThat(summary.earlyPaymentEvents()).isLessThan(30);
+        List<LocalDate> earlyDates = schedule.stream()
+                .filter(PaymentScheduleItem::isEarlyPayment)
+                .map(PaymentScheduleItem::getPaymentDate)
+                .toList();
+        assertThat(earlyDates).isSorted().doesNotContain(LocalDate.of(2024, 12, 15));
+        assertThat(earlyDates).contains(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 31));
+        assertThat(schedule.get(schedule.size() - 1).getRemainingDebt()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void buildRowsShouldStopAfterRequestedRows() {
+        for (boolean subsidized : new boolean[]{true, false}) {
+            LoanCalculationRequestDto request = subsidizedRequest();
+            request.setDeveloperSubsidy(subsidized);
+            List<PaymentScheduleItem> full = new ArrayList<>();
+            engine.build(request, full::add, Tags.empty());
+            List<PaymentScheduleItem> head = new ArrayList<>();
+
+            assertThat(engine.buildRows(request, 30, head::add, Tags.empty())).isFalse();
+
+            assertThat(head).hasSize(30).usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(full.subList(0, 30));
+            List<PaymentScheduleItem> all = new ArrayList<>();
+            assertThat(engine.buildRows(request, full.size() + 1, all::add, Tags.empty())).isTrue();
+            assertThat(all).hasSameSizeAs(full);
+        }
+    }
+
+    private LoanCalculationRequestDto subsidizedRequest() {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setLoanType(LoanType.MORTGAGE);
+        request.setPrincipal(new BigDecimal("6000000"));
+        request.setInterestRate(new BigDecimal("18"));
+        request.setDurationMonths(240);
+        request.setPaymentType(PaymentType.ANNUITY);
+        request.setDisbursementDate(LocalDate.of(2025, 1, 31));
+        request.setAdjustWeekends(true);
+        request.setDeveloperSubsidy(true);
+        request.setSubsidizedRate(new BigDecimal("3"));
+        request.setSubsidyDurationMonths(36);
+        return request;
+    }
+}
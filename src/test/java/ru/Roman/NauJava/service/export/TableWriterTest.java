@@ -0,0 +1,67 @@
+package ru.Roman.NauJava.service.export;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TableWriterTest {
+
+    @Test
+    void shouldEscapeCsvCells() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TableWriter writer = TableWriter.open(ExportFormat.CSV, out, "test")) {
+            writer.row("Месяц", "Комментарий");
+            writer.row(1, "a;\"b\"", new BigDecimal("1234.50"), null);
+        }
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("\uFEFFМесяц;Комментарий\r\n");
+        assertThat(csv).endsWith("1;\"a;\"\"b\"\"\";1234,50;\r\n");
+    }
+
+    @Test
+    void shouldNotLetCsvTextBecomeFormula() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TableWriter writer = TableWriter.open(ExportFormat.CSV, out, "test")) {
+            writer.row("=HYPERLINK(\"http://x\")", "+1", "-1", "@SUM(A1)", "user", new BigDecimal("-12.5"));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .endsWith("\"'=HYPERLINK(\"\"http://x\"\")\";'+1;'-1;'@SUM(A1);user;-12,5\r\n");
+    }
+
+    @Test
+    void shouldWriteXlsxRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TableWriter writer = TableWriter.open(ExportFormat.XLSX, out, "График")) {
+            writer.row("Месяц", "Дата", "Платёж");
+            for (int i = 1; i <= 300; i++) {
+                writer.row(i, LocalDate.of(2025, 1, 15).plusMonths(i), new BigDecimal("100.25"));
+            }
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("График");
+            assertThat(sheet.getLastRowNum()).isEqualTo(300);
+            assertThat(sheet.getRow(300).getCell(0).getNumericCellValue()).isEqualTo(300);
+            assertThat(sheet.getRow(1).getCell(2).getNumericCellValue()).isEqualTo(100.25);
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() {
+        assertThat(ExportFormat.fromParameter("xlsx")).isEqualTo(ExportFormat.XLSX);
+        assertThat(ExportFormat.fromParameter(null)).isEqualTo(ExportFormat.CSV);
+        assertThatThrownBy(() -> ExportFormat.fromParameter("pdf"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
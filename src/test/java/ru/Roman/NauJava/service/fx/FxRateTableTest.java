@@ -0,0 +1,69 @@
+package ru.Roman.NauJava.service.fx;
+
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class FxRateTableTest {
+
+    private static final String RATES = String.join("\n",
+            "date,currency,rate",
+            "2025-01-10,EUR,110",
+            "2025-01-09,USD,100",
+            "2025-01-13,USD,90");
+
+    @Test
+    void shouldCarryLastRateOverGapsAndPastTheEnd() throws Exception {
+        FxRateTable table = read(RATES);
+
+        assertThat(table.rate(LoanCurrency.USD, LoanCurrency.RUB, day("2025-01-09"))).isEqualTo(100.0);
+        assertThat(table.rate(LoanCurrency.USD, LoanCurrency.RUB, day("2025-01-12"))).isEqualTo(100.0);
+        assertThat(table.rate(LoanCurrency.USD, LoanCurrency.RUB, day("2025-01-13"))).isEqualTo(90.0);
+        assertThat(table.rate(LoanCurrency.USD, LoanCurrency.RUB, day("2030-01-01"))).isEqualTo(90.0);
+        assertThat(table.rate(LoanCurrency.RUB, LoanCurrency.USD, day("2025-01-13"))).isCloseTo(1 / 90.0, within(1e-12));
+        assertThat(table.rate(LoanCurrency.EUR, LoanCurrency.USD, day("2025-01-13"))).isCloseTo(110 / 90.0, within(1e-12));
+    }
+
+    @Test
+    void shouldConvertColumnByRowDates() throws Exception {
+        FxRateTable table = read(RATES);
+        int[] days = {day("2025-01-10"), day("2025-01-13"), day("2025-02-13")};
+        double[] amounts = {10, 10, 10};
+
+        table.convert(LoanCurrency.USD, LoanCurrency.RUB, days, amounts, amounts, days.length);
+
+        assertThat(amounts).containsExactly(1000, 900, 900);
+    }
+
+    @Test
+    void shouldRejectDatesBeforeFirstQuote() throws Exception {
+        FxRateTable table = read(RATES);
+        int[] days = {day("2025-01-10"), day("2025-01-09")};
+        double[] amounts = {1, 1};
+
+        // EUR котируется только с 10 января
+        assertThatThrownBy(() -> table.convert(LoanCurrency.EUR, LoanCurrency.RUB, days, amounts, new double[2], 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2025-01-09");
+        assertThatThrownBy(() -> table.rate(LoanCurrency.USD, LoanCurrency.RUB, day("2025-01-01")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FxRateTable.empty().rate(LoanCurrency.USD, LoanCurrency.RUB, day("2025-01-01")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(FxRateTable.empty().rate(LoanCurrency.USD, LoanCurrency.USD, day("2025-01-01"))).isEqualTo(1.0);
+    }
+
+    private static FxRateTable read(String csv) throws Exception {
+        return FxRateTable.read(new BufferedReader(new StringReader(csv)));
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
@@ -0,0 +1,106 @@
+package ru.Roman.NauJava.service.portfolio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.Roman.NauJava.domain.enums.LoanCurrency;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.fx.FxRateProperties;
+import ru.Roman.NauJava.service.fx.FxRateService;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PortfolioImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private PortfolioImportService service(int threads, int batchSize) {
+        return service(threads, batchSize, null, null);
+    }
+
+    private PortfolioImportService service(int threads, int batchSize, LoanCurrency baseCurrency, Path rates) {
+        CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+        return new PortfolioImportService(new ScheduleEngine(metrics), metrics,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new PortfolioImportProperties(threads, batchSize, dir, null, null, null, baseCurrency),
+                new FxRateService(new FxRateProperties(rates)));
+    }
+
+    @Test
+    void shouldPriceValidRowsInInputOrderAndRejectInvalid() throws Exception {
+        Path input = dir.resolve("portfolio.csv");
+        Files.writeString(input, String.join("\n",
+                "id;principal;interestRate;durationMonths;disbursementDate;paymentType",
+                "A-1;100000;12;12;2025-01-15;ANNUITY",
+                "A-2;500;12;12;2025-01-15;ANNUITY",
+                "A-3;200000;10,5;24;2025-02-10;DIFFERENTIAL",
+                "A-4;100000;abc;12;2025-01-15;ANNUITY",
+                "",
+                "A-5;300000;9;36;2025-03-01;"), StandardCharsets.UTF_8);
+
+        PortfolioImportReport report = service(2, 2).importFile(input, dir.resolve("out.csv"), dir.resolve("bad.csv"));
+
+        assertThat(report.totalRows()).isEqualTo(5);
+        assertThat(report.accepted()).isEqualTo(3);
+        assertThat(report.rejected()).isEqualTo(2);
+
+        List<String> results = Files.readAllLines(dir.resolve("out.csv"), StandardCharsets.UTF_8);
+        assertThat(results).hasSize(4);
+        assertThat(results.get(1)).startsWith("2;A-1;RUB;8884,88;12;106618,53;");
+        assertThat(results.get(2)).startsWith("4;A-3;");
+        assertThat(results.get(3)).startsWith("7;A-5;");
+
+        List<String> rejected = Files.readAllLines(dir.resolve("bad.csv"), StandardCharsets.UTF_8);
+        assertThat(rejected).hasSize(3);
+        assertThat(rejected.get(1)).startsWith("3;A-2;principal: Минимальная сумма 1 000");
+        assertThat(rejected.get(2)).startsWith("5;A-4;interestrate: не число");
+    }
+
+    @Test
+    void shouldConvertTotalsToBaseCurrencyByPaymentDates() throws Exception {
+        Path rates = dir.resolve("rates.csv");
+        Files.writeString(rates, String.join("\n",
+                "date;currency;rate",
+                "2025-01-01;USD;100",
+                "2025-07-01;USD;80"), StandardCharsets.UTF_8);
+        Path input = dir.resolve("portfolio.csv");
+        Files.writeString(input, String.join("\n",
+                "id;principal;interestRate;durationMonths;disbursementDate;currency",
+                "R-1;100000;12;12;2025-01-15;RUB",
+                "U-1;100000;12;12;2025-01-15;USD",
+                "U-2;100000;12;12;2024-11-15;USD"), StandardCharsets.UTF_8);
+
+        PortfolioImportReport report = service(1, 2, LoanCurrency.RUB, rates)
+                .importFile(input, dir.resolve("out.csv"), dir.resolve("bad.csv"));
+
+        assertThat(report.accepted()).isEqualTo(2);
+        List<String> results = Files.readAllLines(dir.resolve("out.csv"), StandardCharsets.UTF_8);
+        assertThat(results.get(0)).endsWith(";baseCurrency;baseTotalPayment;baseTotalInterest");
+        assertThat(results.get(1)).startsWith("2;R-1;RUB;8884,88;12;106618,53;").contains(";RUB;106618,53;");
+        // Платежи до июля — по 100 рублей за доллар, с июля — по 80: итог меньше, чем по одному курсу
+        String[] converted = results.get(2).split(";");
+        assertThat(Double.parseDouble(converted[10].replace(',', '.'))).isBetween(8884.88 * 80 * 12, 8884.88 * 100 * 12);
+        List<String> rejected = Files.readAllLines(dir.resolve("bad.csv"), StandardCharsets.UTF_8);
+        assertThat(rejected.get(1)).startsWith("4;U-2;Нет курса USD/RUB");
+    }
+
+    @Test
+    void shouldRejectFileWithoutRequiredColumns() throws Exception {
+        Path input = dir.resolve("broken.csv");
+        Files.writeString(input, "id,principal\n1,100000\n", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() ->
+                        service(1, 16).importFile(input, dir.resolve("o.csv"), dir.resolve("r.csv")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("interestrate");
+    }
+}
@@ -0,0 +1,156 @@
+package ru.Roman.NauJava.service.quote;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InFlightCalculationsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InFlightCalculations inFlight = new InFlightCalculations(new PublicQuoteKeyCodec(), registry);
+
+    @Test
+    void concurrentIdenticalCalculationsShouldShareOneResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<LoanCalculationResponseDto> leader = executor.submit(() -> inFlight.calculate(request("100000"), () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return LoanCalculationResponseDto.builder().principal(new BigDecimal("100000")).build();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<LoanCalculationResponseDto> first = executor.submit(() -> inFlight.calculate(request("100000.00"),
+                    () -> fail(runs)));
+            Future<LoanCalculationResponseDto> second = executor.submit(() -> inFlight.calculate(request("100000"),
+                    () -> fail(runs)));
+            while (coalesced() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            LoanCalculationResponseDto response = leader.get(5, TimeUnit.SECONDS);
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(response);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(response);
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Ключ снят после завершения: следующий вызов считает заново
+        inFlight.calculate(request("100000"), () -> {
+            runs.incrementAndGet();
+            return LoanCalculationResponseDto.builder().build();
+        });
+        assertThat(runs).hasValue(2);
+        assertThat(coalesced()).isEqualTo(2.0);
+    }
+
+    @Test
+    void calculationsWithDifferentEchoedFieldsShouldNotShareResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            Future<LoanCalculationResponseDto> leader = executor.submit(() -> inFlight.calculate(request("100000"), () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return LoanCalculationResponseDto.builder().build();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            // Ключ котировки у этих запросов тот же, но ответ повторяет ставку и параметры субсидии как есть
+            LoanCalculationRequestDto rateScale = request("100000");
+            rateScale.setInterestRate(new BigDecimal("12.0"));
+            LoanCalculationRequestDto ignoredSubsidy = request("100000");
+            ignoredSubsidy.setSubsidizedRate(new BigDecimal("3"));
+            ignoredSubsidy.setSubsidyDurationMonths(12);
+            for (LoanCalculationRequestDto other : new LoanCalculationRequestDto[]{rateScale, ignoredSubsidy}) {
+                inFlight.calculate(other, () -> {
+                    runs.incrementAndGet();
+                    return LoanCalculationResponseDto.builder().build();
+                });
+            }
+            release.countDown();
+
+            leader.get(5, TimeUnit.SECONDS);
+            assertThat(runs).hasValue(3);
+            assertThat(coalesced()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureShouldReachEveryWaitingCaller() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<LoanCalculationResponseDto> leader = executor.submit(() -> inFlight.calculate(request("5000"), () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalArgumentException("Некорректные параметры");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<LoanCalculationResponseDto> follower = CompletableFuture.supplyAsync(
+                    () -> inFlight.calculate(request("5000"), LoanCalculationResponseDto.builder()::build), executor);
+            while (coalesced() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Некорректные параметры");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double coalesced() {
+        return registry.counter(InFlightCalculations.COALESCED).count();
+    }
+
+    private static LoanCalculationResponseDto fail(AtomicInteger runs) {
+        runs.incrementAndGet();
+        throw new IllegalStateException("Одинаковый расчёт не должен выполняться повторно");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LoanCalculationRequestDto request(String principal) {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(new BigDecimal(principal));
+        request.setInterestRate(new BigDecimal("12"));
+        request.setDurationMonths(12);
+        request.setDisbursementDate(LocalDate.of(2025, 1, 15));
+        return request;
+    }
+}
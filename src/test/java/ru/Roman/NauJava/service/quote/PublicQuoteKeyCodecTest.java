@@ -0,0 +1,69 @@
+package ru.Roman.NauJava.service.quote;
+
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.EarlyPaymentApplicationMode;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.SubsidyMode;
+import ru.Roman.NauJava.dto.EarlyPaymentDto;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.PeriodicEarlyPaymentDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PublicQuoteKeyCodecTest {
+
+    private final PublicQuoteKeyCodec codec = new PublicQuoteKeyCodec();
+
+    @Test
+    void shouldRoundTripAllParameters() {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setLoanType(LoanType.MORTGAGE);
+        request.setPrincipal(new BigDecimal("6000000.00"));
+        request.setInterestRate(new BigDecimal("16.50"));
+        request.setDurationMonths(240);
+        request.setDisbursementDate(LocalDate.of(2025, 1, 15));
+        request.setDeveloperSubsidy(true);
+        request.setSubsidizedRate(new BigDecimal("0.10"));
+        request.setSubsidyDurationMonths(60);
+        request.setSubsidyMode(SubsidyMode.FLOATING_PAYMENT);
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2027, 1, 1));
+        rateChange.setNewRate(new BigDecimal("14"));
+        request.setRateChanges(List.of(rateChange));
+        EarlyPaymentDto earlyPayment = new EarlyPaymentDto();
+        earlyPayment.setPaymentDate(LocalDate.of(2026, 3, 15));
+        earlyPayment.setAmount(new BigDecimal("250000"));
+        earlyPayment.setApplicationMode(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        request.setEarlyPayments(List.of(earlyPayment));
+        PeriodicEarlyPaymentDto periodic = new PeriodicEarlyPaymentDto();
+        periodic.setStartDate(LocalDate.of(2025, 6, 15));
+        periodic.setIntervalMonths(3);
+        periodic.setAmount(new BigDecimal("10000.5"));
+        request.setPeriodicEarlyPayments(List.of(periodic));
+
+        String key = codec.encode(request);
+        LoanCalculationRequestDto decoded = codec.decode(key);
+
+        assertThat(key).matches("[A-Za-z0-9_-]+");
+        assertThat(codec.encode(decoded)).isEqualTo(key);
+        assertThat(decoded.getPrincipal()).isEqualByComparingTo("6000000");
+        assertThat(decoded.getSubsidyMode()).isEqualTo(SubsidyMode.FLOATING_PAYMENT);
+        assertThat(decoded.getEarlyPayments().get(0).getApplicationMode())
+                .isEqualTo(EarlyPaymentApplicationMode.BETWEEN_PAYMENTS);
+        assertThat(decoded.getPeriodicEarlyPayments().get(0).getEndDate()).isNull();
+        assertThat(decoded.isSaveToHistory()).isFalse();
+    }
+
+    @Test
+    void shouldRejectTamperedKey() {
+        String key = codec.encode(new LoanCalculationRequestDto());
+        assertThatThrownBy(() -> codec.decode(key + "!"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
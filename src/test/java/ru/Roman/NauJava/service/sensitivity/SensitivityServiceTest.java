@@ -0,0 +1,98 @@
+package ru.Roman.NauJava.service.sensitivity;
+
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.LoanType;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.RateChangeDto;
+import ru.Roman.NauJava.dto.SensitivityMatrixDto;
+import ru.Roman.NauJava.dto.SensitivityReportDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensitivityServiceTest {
+
+    private static final int TOTAL_INTEREST = 0;
+    private static final int MONTHLY_PAYMENT = 1;
+    private static final int EFFECTIVE_RATE = 2;
+
+    private final SensitivityService service = new SensitivityService(null);
+
+    @Test
+    void shouldBumpBaseRateRateChangesAndTerm() {
+        LoanCalculationRequestDto request = request();
+        RateChangeDto rateChange = new RateChangeDto();
+        rateChange.setStartDate(LocalDate.of(2027, 1, 1));
+        rateChange.setNewRate(new BigDecimal("14"));
+        request.setRateChanges(List.of(rateChange));
+
+        SensitivityReportDto report = service.analyze(Map.of(7L, request), 10);
+
+        assertThat(report.getMetrics()).containsExactly("totalInterest", "monthlyPayment", "effectiveRate");
+        SensitivityMatrixDto matrix = report.getCalculations().get(0);
+        assertThat(matrix.getCalculationId()).isEqualTo(7L);
+        assertThat(matrix.getFactors()).containsExactly("interestRate", "rateChange[2027-01-01]", "durationMonths");
+
+        List<BigDecimal> baseRate = matrix.getDeltas().get(0);
+        assertThat(baseRate.get(TOTAL_INTEREST)).isPositive();
+        assertThat(baseRate.get(MONTHLY_PAYMENT)).isPositive();
+        assertThat(baseRate.get(EFFECTIVE_RATE)).isPositive();
+
+        // Изменение ставки начинается после первого платежа: первый платёж не меняется
+        List<BigDecimal> change = matrix.getDeltas().get(1);
+        assertThat(change.get(TOTAL_INTEREST)).isPositive();
+        assertThat(change.get(MONTHLY_PAYMENT)).isEqualByComparingTo(BigDecimal.ZERO);
+        // Вместе два сдвига — параллельный сдвиг всей кривой на 10 б.п., ПСК растёт примерно на столько же
+        assertThat(baseRate.get(EFFECTIVE_RATE).add(change.get(EFFECTIVE_RATE)).doubleValue()).isBetween(0.09, 0.12);
+
+        List<BigDecimal> term = matrix.getDeltas().get(2);
+        assertThat(term.get(TOTAL_INTEREST)).isPositive();
+        assertThat(term.get(MONTHLY_PAYMENT)).isNegative();
+    }
+
+    @Test
+    void shouldUseSubsidizedRateInsteadOfRateChangesForSubsidy() {
+        LoanCalculationRequestDto subsidized = request();
+        subsidized.setLoanType(LoanType.MORTGAGE);
+        subsidized.setDeveloperSubsidy(true);
+        subsidized.setSubsidizedRate(new BigDecimal("6"));
+        subsidized.setSubsidyDurationMonths(24);
+        Map<Long, LoanCalculationRequestDto> history = new LinkedHashMap<>();
+        history.put(2L, subsidized);
+        history.put(1L, request());
+
+        SensitivityReportDto report = service.analyze(history, 25);
+
+        assertThat(report.getRateBumpBp()).isEqualTo(25);
+        assertThat(report.getCalculations()).extracting(SensitivityMatrixDto::getCalculationId).containsExactly(2L, 1L);
+        SensitivityMatrixDto matrix = report.getCalculations().get(0);
+        assertThat(matrix.getFactors()).containsExactly("interestRate", "subsidizedRate", "durationMonths");
+        // Льготный платёж считается по льготной ставке, поэтому от её сдвига растёт
+        assertThat(matrix.getDeltas().get(1).get(MONTHLY_PAYMENT)).isPositive();
+    }
+
+    @Test
+    void shouldRejectOutOfRangeBump() {
+        assertThatThrownBy(() -> service.analyze(Map.of(1L, request()), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.analyze(Map.of(1L, request()), 501))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private LoanCalculationRequestDto request() {
+        LoanCalculationRequestDto request = new LoanCalculationRequestDto();
+        request.setPrincipal(new BigDecimal("3000000"));
+        request.setInterestRate(new BigDecimal("12"));
+        request.setDurationMonths(120);
+        request.setPaymentType(PaymentType.ANNUITY);
+        request.setDisbursementDate(LocalDate.of(2025, 1, 15));
+        return request;
+    }
+}
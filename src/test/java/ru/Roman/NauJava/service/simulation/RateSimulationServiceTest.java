@@ -0,0 +1,104 @@
+package ru.Roman.NauJava.service.simulation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.domain.enums.PaymentType;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.RateSimulationRequestDto;
+import ru.Roman.NauJava.dto.RateSimulationResultDto;
+import ru.Roman.NauJava.service.engine.ApproximateLoanEngine;
+import ru.Roman.NauJava.service.engine.FastLoanModel;
+import ru.Roman.NauJava.service.engine.LoanSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateSimulationServiceTest {
+
+    private final RateSimulationService singleThreaded = new RateSimulationService(new RateSimulationProperties(1, 0, 0));
+    private final RateSimulationService parallel = new RateSimulationService(new RateSimulationProperties(4, 0, 0));
+
+    @AfterEach
+    void shutdown() {
+        singleThreaded.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void shouldReproduceResultForSeedRegardlessOfThreads() {
+        RateSimulationRequestDto request = request();
+        request.setSeed(42L);
+        request.setPaths(2000);
+        request.setSamplePaths(2);
+
+        RateSimulationResultDto first = singleThreaded.simulate(request);
+        RateSimulationResultDto second = parallel.simulate(request);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.getTotalInterest().getP5()).isLessThan(first.getTotalInterest().getP95());
+        assertThat(first.getMaxPayment().getP50()).isLessThanOrEqualTo(first.getMaxPayment().getP95());
+        assertThat(first.getSamplePaths()).hasSize(2);
+        assertThat(first.getSamplePaths().get(0)).isNotEmpty();
+    }
+
+    @Test
+    void shouldCollapseToDeterministicLoanWithoutVolatility() {
+        RateSimulationRequestDto request = request();
+        // Без волатильности и с равновесием на текущей ставке траектория вырождается в постоянную ставку
+        request.setVolatility(BigDecimal.ZERO);
+        request.setLongTermRate(null);
+        request.setSamplePaths(1);
+
+        RateSimulationResultDto result = parallel.simulate(request);
+        LoanSummary deterministic = ApproximateLoanEngine.run(FastLoanModel.from(request.getLoan()));
+
+        assertThat(result.getTotalInterest().getP5()).isEqualTo(result.getTotalInterest().getP95());
+        assertThat(result.getTotalInterest().getP50().doubleValue())
+                .isEqualTo(Math.round(deterministic.totalInterest() * 100) / 100.0);
+        assertThat(result.getPayoffDate().getP50()).isEqualTo(LocalDate.ofEpochDay(deterministic.payoffDay()));
+        assertThat(result.getSamplePaths().get(0)).isEmpty();
+    }
+
+    @Test
+    void samplePathsShouldKeepSimulatedRatesExactly() {
+        RateSimulationRequestDto request = request();
+        // Равновесие ниже границы: после первого пересмотра ставка упирается в границу с тремя знаками
+        request.setLongTermRate(new BigDecimal("0.01"));
+        request.setMeanReversion(new BigDecimal("50"));
+        request.setFloorRate(new BigDecimal("0.125"));
+        request.setSamplePaths(1);
+
+        RateSimulationResultDto result = parallel.simulate(request);
+
+        assertThat(result.getSamplePaths().get(0))
+                .extracting(change -> change.getNewRate().stripTrailingZeros().toPlainString())
+                .contains("0.125");
+    }
+
+    @Test
+    void shouldRejectSubsidizedLoan() {
+        RateSimulationRequestDto request = request();
+        request.getLoan().setDeveloperSubsidy(true);
+        request.getLoan().setSubsidizedRate(new BigDecimal("6"));
+        request.getLoan().setSubsidyDurationMonths(12);
+
+        assertThatThrownBy(() -> parallel.simulate(request)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private RateSimulationRequestDto request() {
+        LoanCalculationRequestDto loan = new LoanCalculationRequestDto();
+        loan.setPrincipal(new BigDecimal("5000000"));
+        loan.setInterestRate(new BigDecimal("16"));
+        loan.setDurationMonths(240);
+        loan.setPaymentType(PaymentType.ANNUITY);
+        loan.setDisbursementDate(LocalDate.of(2025, 3, 10));
+        RateSimulationRequestDto request = new RateSimulationRequestDto();
+        request.setLoan(loan);
+        request.setPaths(500);
+        request.setLongTermRate(new BigDecimal("12"));
+        return request;
+    }
+}
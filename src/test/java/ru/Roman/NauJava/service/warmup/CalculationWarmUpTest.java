@@ -0,0 +1,55 @@
+package ru.Roman.NauJava.service.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.Roman.NauJava.dto.LoanCalculationRequestDto;
+import ru.Roman.NauJava.dto.LoanCalculationResponseDto;
+import ru.Roman.NauJava.mapper.LoanCalculationMapper;
+import ru.Roman.NauJava.service.LoanCalculationService;
+import ru.Roman.NauJava.service.engine.ScheduleEngine;
+import ru.Roman.NauJava.service.metrics.CalculationMetrics;
+import ru.Roman.NauJava.service.quote.InFlightCalculations;
+import ru.Roman.NauJava.service.quote.PublicQuoteKeyCodec;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalculationWarmUpTest {
+
+    private final CalculationMetrics metrics = new CalculationMetrics(new SimpleMeterRegistry());
+    private final LoanCalculationService service = new LoanCalculationService(null, null,
+            new LoanCalculationMapper(), metrics, new ScheduleEngine(metrics),
+            new InFlightCalculations(new PublicQuoteKeyCodec(), new SimpleMeterRegistry()));
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void workloadShouldCoverEveryScheduleBranch() {
+        for (LoanCalculationRequestDto request : CalculationWarmUp.workload()) {
+            LoanCalculationResponseDto response = service.calculate(request, null);
+            assertThat(response.getSchedule()).isNotEmpty();
+        }
+        assertThat(CalculationWarmUp.workload())
+                .anyMatch(LoanCalculationRequestDto::isDeveloperSubsidy)
+                .anyMatch(request -> !request.getEarlyPayments().isEmpty())
+                .anyMatch(request -> !request.getPeriodicEarlyPayments().isEmpty())
+                .anyMatch(request -> !request.getRateChanges().isEmpty());
+    }
+
+    @Test
+    void warmUpShouldRunEveryIterationWithinBudget() {
+        CalculationWarmUp warmUp = new CalculationWarmUp(
+                new WarmUpProperties(true, 2, Duration.ofMinutes(1)), new LoanCalculationMapper(), objectMapper);
+
+        assertThat(warmUp.warmUp()).isEqualTo(2 * CalculationWarmUp.workload().size());
+    }
+
+    @Test
+    void warmUpShouldStopWhenBudgetIsExhausted() {
+        CalculationWarmUp warmUp = new CalculationWarmUp(
+                new WarmUpProperties(true, 1000, Duration.ZERO), new LoanCalculationMapper(), objectMapper);
+
+        assertThat(warmUp.warmUp()).isZero();
+    }
+}